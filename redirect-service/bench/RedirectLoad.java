@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load tool for comparing the redirect service with the main application,
+ * run as a single source file (see compare.sh):
+ *
+ * <pre>
+ * java RedirectLoad.java seed &lt;mainBaseUrl&gt; &lt;count&gt; &lt;codesFile&gt;
+ * java RedirectLoad.java load &lt;baseUrl&gt; &lt;codesFile&gt; &lt;seconds&gt; &lt;concurrency&gt;
+ * </pre>
+ *
+ * {@code seed} creates guest URLs through {@code POST /api/urls} and writes
+ * their short codes to a file. {@code load} sends {@code GET /{shortCode}}
+ * for random codes from that file from a fixed number of virtual threads,
+ * without following redirects, and prints throughput and latency.
+ */
+public class RedirectLoad {
+
+    private static final Pattern SHORT_CODE = Pattern.compile("\"shortCode\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        switch (args.length > 0 ? args[0] : "") {
+            case "seed" -> seed(args[1], Integer.parseInt(args[2]), Path.of(args[3]));
+            case "load" -> load(args[1], Path.of(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            default -> {
+                System.err.println("usage: RedirectLoad seed <mainBaseUrl> <count> <codesFile>");
+                System.err.println("       RedirectLoad load <baseUrl> <codesFile> <seconds> <concurrency>");
+                System.exit(2);
+            }
+        }
+    }
+
+    private static void seed(String baseUrl, int count, Path codesFile) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ConcurrentLinkedQueue<String> codes = new ConcurrentLinkedQueue<>();
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < 16; worker++) {
+                executor.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        String body = "{\"originalUrl\":\"https://www.example.com/articles/" + i
+                                + "?utm_source=newsletter&utm_medium=email\"}";
+                        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/urls"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build(), HttpResponse.BodyHandlers.ofString());
+                        Matcher matcher = SHORT_CODE.matcher(response.body());
+                        if (response.statusCode() != 201 || !matcher.find()) {
+                            throw new IOException("Create failed with " + response.statusCode() + ": " + response.body());
+                        }
+                        codes.add(matcher.group(1));
+                    }
+                    return null;
+                });
+            }
+        }
+        Files.write(codesFile, codes);
+        System.out.println("Seeded " + codes.size() + " URLs");
+    }
+
+    private static void load(String baseUrl, Path codesFile, int seconds, int concurrency) throws Exception {
+        List<String> codes = Files.readAllLines(codesFile);
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong unexpected = new AtomicLong();
+        List<long[]> perWorker = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                long[] latencies = new long[1 << 20];
+                int[] count = new int[1];
+                perWorker.add(latencies);
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline && count[0] < latencies.length - 1) {
+                        String code = codes.get(ThreadLocalRandom.current().nextInt(codes.size()));
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(
+                                HttpRequest.newBuilder(URI.create(baseUrl + "/" + code)).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        latencies[++count[0]] = System.nanoTime() - start;
+                        if (response.statusCode() != 302 && response.statusCode() != 301) {
+                            unexpected.incrementAndGet();
+                        }
+                    }
+                    // Slot 0 carries the number of samples
+                    latencies[0] = count[0];
+                    return null;
+                });
+            }
+        }
+
+        long total = perWorker.stream().mapToLong(latencies -> latencies[0]).sum();
+        long[] all = new long[(int) total];
+        int offset = 0;
+        for (long[] latencies : perWorker) {
+            int n = (int) latencies[0];
+            System.arraycopy(latencies, 1, all, offset, n);
+            offset += n;
+        }
+        Arrays.sort(all);
+        System.out.printf("requests=%d throughput=%.0f/s p50=%.2fms p99=%.2fms non-redirects=%d%n", total,
+                total / (double) seconds, percentile(all, 0.50), percentile(all, 0.99), unexpected.get());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * p)] / 1e6;
+    }
+}
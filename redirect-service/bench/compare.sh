@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Compare footprint and redirect throughput of the redirect-only service with the main application.
+#
+# Both are started on this machine against one database with the same JVM options, seeded with
+# URLS guest links through the main API, warmed up, then loaded with GET /{shortCode} for SECONDS
+# from CONCURRENCY virtual threads. Footprint is taken after the load: resident set size, and live
+# heap after a full GC.
+#
+# usage: redirect-service/bench/compare.sh [urls] [seconds] [concurrency]
+# Build first: mvn package -DskipTests && (cd redirect-service && mvn package -DskipTests)
+# Uses a local H2 file database unless BENCH_DATASOURCE_URL/_USERNAME/_PASSWORD are set.
+set -euo pipefail
+
+URLS=${1:-20000}
+SECONDS_PER_RUN=${2:-30}
+CONCURRENCY=${3:-32}
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+WORK=$(mktemp -d)
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JCMD=${JAVA_HOME:+$JAVA_HOME/bin/}jcmd
+JVM_OPTS=${BENCH_JVM_OPTS:--Xmx512m}
+DB_URL=${BENCH_DATASOURCE_URL:-jdbc:h2:file:$WORK/db;AUTO_SERVER=TRUE}
+DB_USER=${BENCH_DATASOURCE_USERNAME:-sa}
+DB_PASSWORD=${BENCH_DATASOURCE_PASSWORD:-password}
+LOAD="$JAVA $ROOT/redirect-service/bench/RedirectLoad.java"
+PIDS=()
+
+cleanup() {
+    for pid in "${PIDS[@]}"; do kill "$pid" 2>/dev/null || true; done
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+wait_healthy() {
+    for _ in $(seq 1 180); do
+        if ! kill -0 "$2" 2>/dev/null; then
+            echo "$1 exited during startup (port in use?):" >&2
+            tail -20 "$3" >&2
+            exit 1
+        fi
+        curl -sf "$1/actuator/health" > /dev/null && return 0
+        sleep 1
+    done
+    echo "$1 did not become healthy" >&2
+    exit 1
+}
+
+footprint() {
+    local live rss
+    # The histogram runs a full GC first; its last line totals the live objects
+    live=$("$JCMD" "$1" GC.class_histogram | tail -1 | awk '{print $3}')
+    rss=$(ps -o rss= -p "$1" | tr -d ' ')
+    echo "rss=$((rss / 1024))MB liveHeap=$((live / 1048576))MB"
+}
+
+run() {
+    local name=$1 url=$2 pid=$3
+    $LOAD load "$url" "$WORK/codes.txt" 10 "$CONCURRENCY" > /dev/null
+    echo "$name: $($LOAD load "$url" "$WORK/codes.txt" "$SECONDS_PER_RUN" "$CONCURRENCY") $(footprint "$pid")"
+}
+
+SPRING_DATASOURCE_URL="$DB_URL" SPRING_DATASOURCE_USERNAME="$DB_USER" SPRING_DATASOURCE_PASSWORD="$DB_PASSWORD" \
+    PORT=18080 "$JAVA" $JVM_OPTS -jar "$ROOT"/target/url-management-*.jar > "$WORK/main.log" 2>&1 &
+PIDS+=($!)
+MAIN_PID=$!
+wait_healthy http://localhost:18080 "$MAIN_PID" "$WORK/main.log"
+$LOAD seed http://localhost:18080 "$URLS" "$WORK/codes.txt"
+
+REDIRECT_DATASOURCE_URL="$DB_URL" REDIRECT_DATASOURCE_USERNAME="$DB_USER" REDIRECT_DATASOURCE_PASSWORD="$DB_PASSWORD" \
+    REDIRECT_PORT=18082 REDIRECT_SNAPSHOT_FILE="$WORK/snapshot.bin" \
+    "$JAVA" $JVM_OPTS -jar "$ROOT"/redirect-service/target/url-management-redirect-*.jar > "$WORK/redirect.log" 2>&1 &
+PIDS+=($!)
+REDIRECT_PID=$!
+wait_healthy http://localhost:18082 "$REDIRECT_PID" "$WORK/redirect.log"
+
+echo "urls=$URLS seconds=$SECONDS_PER_RUN concurrency=$CONCURRENCY jvm=\"$JVM_OPTS\" cpus=$(nproc)"
+run main http://localhost:18080 "$MAIN_PID"
+run redirect http://localhost:18082 "$REDIRECT_PID"
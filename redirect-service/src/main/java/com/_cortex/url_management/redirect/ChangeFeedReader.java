@@ -0,0 +1,176 @@
+package com._cortex.url_management.redirect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Reads redirect targets from the main database: a full load from the urls
+ * and urls_archive tables, and incremental changes from url_changes.
+ * <p>
+ * Feed IDs can commit out of order, so the position only advances over a
+ * contiguous run of IDs. Rows beyond a gap are applied immediately and
+ * applied again, in order, once the gap fills, which is harmless because
+ * every change is an idempotent put or remove. A gap that stays open longer
+ * than the timeout (a rolled-back insert) is skipped.
+ * <p>
+ * Links with destinations (urls.destinations_version set, or an UPSERT
+ * flagged {@code split}) are recorded as split links rather than as targets.
+ */
+final class ChangeFeedReader {
+
+    private static final System.Logger logger = System.getLogger(ChangeFeedReader.class.getName());
+
+    private static final int BATCH_SIZE = 10_000;
+    // Start a full load this many IDs before the current end so in-flight changes are replayed
+    private static final long LOAD_LOOKBACK = 1_000;
+
+    private final RedirectTable table;
+    private final long gapTimeoutMillis;
+
+    private long position;
+    private long gapId = -1;
+    private long gapSinceMillis;
+
+    ChangeFeedReader(RedirectTable table, long gapTimeoutMillis) {
+        this.table = table;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+    }
+
+    /**
+     * Last change feed ID applied without gaps
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Resume from a snapshot position, unless the feed has been pruned past it
+     *
+     * @return true if the feed still covers the position
+     */
+    boolean resume(Connection connection, long snapshotPosition) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT MIN(id) FROM url_changes");
+                ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            long oldest = rs.getLong(1);
+            if (!rs.wasNull() && oldest > snapshotPosition + 1) {
+                return false;
+            }
+        }
+        position = snapshotPosition;
+        return true;
+    }
+
+    /**
+     * Replace the table with every unexpired URL in both tiers
+     *
+     * @return number of loaded URLs
+     */
+    int loadAll(Connection connection) throws SQLException {
+        long end;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT MAX(id) FROM url_changes");
+                ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            end = rs.getLong(1);
+        }
+
+        RedirectTable fresh = new RedirectTable();
+        Timestamp now = Timestamp.from(Instant.now());
+        int loaded = load(connection, fresh, "SELECT short_code, original_url, expire_at, destinations_version "
+                + "FROM urls WHERE expire_at IS NULL OR expire_at > ?", now);
+        loaded += load(connection, fresh, "SELECT short_code, original_url, expire_at, destinations_version "
+                + "FROM urls_archive WHERE expire_at IS NULL OR expire_at > ?", now);
+        table.replaceWith(fresh);
+
+        position = Math.max(0, end - LOAD_LOOKBACK);
+        gapId = -1;
+        return loaded;
+    }
+
+    private static int load(Connection connection, RedirectTable target, String sql, Timestamp now)
+            throws SQLException {
+        int loaded = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        // PostgreSQL only streams with a fetch size outside auto-commit
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(BATCH_SIZE);
+            statement.setTimestamp(1, now);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(4);
+                    boolean split = !rs.wasNull();
+                    apply(target, rs.getString(1), rs.getString(2), rs.getTimestamp(3), split);
+                    loaded++;
+                }
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return loaded;
+    }
+
+    /**
+     * Apply changes after the current position
+     *
+     * @return number of change rows read
+     */
+    int poll(Connection connection) throws SQLException {
+        int read = 0;
+        long nowMillis = System.currentTimeMillis();
+        boolean blocked = false;
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, short_code, original_url, expire_at, change_type, split FROM url_changes "
+                        + "WHERE id > ? ORDER BY id")) {
+            statement.setMaxRows(BATCH_SIZE);
+            statement.setLong(1, position);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    read++;
+                    long id = rs.getLong(1);
+                    String shortCode = rs.getString(2);
+                    if ("DELETE".equals(rs.getString(5))) {
+                        table.remove(shortCode);
+                    } else {
+                        apply(table, shortCode, rs.getString(3), rs.getTimestamp(4), rs.getBoolean(6));
+                    }
+
+                    if (blocked) {
+                        continue;
+                    }
+                    if (id == position + 1) {
+                        position = id;
+                    } else if (gapId == position + 1 && nowMillis - gapSinceMillis > gapTimeoutMillis) {
+                        logger.log(System.Logger.Level.WARNING, "Skipping change feed IDs {0} to {1}",
+                                String.valueOf(gapId), String.valueOf(id - 1));
+                        position = id;
+                        gapId = -1;
+                    } else {
+                        if (gapId != position + 1) {
+                            gapId = position + 1;
+                            gapSinceMillis = nowMillis;
+                        }
+                        blocked = true;
+                    }
+                }
+            }
+        }
+        return read;
+    }
+
+    private static void apply(RedirectTable table, String shortCode, String originalUrl, Timestamp expireAt,
+            boolean split) {
+        long expireAtMillis = expireAt == null ? Long.MAX_VALUE : expireAt.getTime();
+        if (split) {
+            table.putSplit(shortCode, expireAtMillis);
+        } else {
+            table.put(shortCode, new RedirectTable.Target(originalUrl, expireAtMillis));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com._cortex.url_management.redirect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates redirect hits in memory and adds them to urls.hits (or
+ * urls_archive.hits for archived links) in one batch per flush, keeping the
+ * latest access time. Hits that fail to flush are kept for the next attempt.
+ */
+final class HitCounter {
+
+    private static final String UPDATE_SET = " SET hits = hits + ?, last_accessed_at = CASE "
+            + "WHEN last_accessed_at IS NULL OR last_accessed_at < ? THEN ? ELSE last_accessed_at END "
+            + "WHERE short_code = ?";
+
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Map<String, Long> retry = new HashMap<>();
+
+    void record(String shortCode) {
+        pending.computeIfAbsent(shortCode, code -> new LongAdder()).increment();
+    }
+
+    /**
+     * Write accumulated hits
+     *
+     * @return number of URLs updated
+     */
+    int flush(Connection connection) throws SQLException {
+        pending.forEach((code, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                retry.merge(code, count, Long::sum);
+            } else {
+                // Idle since the last flush
+                pending.remove(code, adder);
+            }
+        });
+        if (retry.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Map.Entry<String, Long>> batch = new ArrayList<>(retry.entrySet());
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int[] hot = update(connection, "UPDATE urls" + UPDATE_SET, batch, now);
+            List<Map.Entry<String, Long>> missed = new ArrayList<>();
+            for (int i = 0; i < hot.length; i++) {
+                if (hot[i] == 0) {
+                    missed.add(batch.get(i));
+                }
+            }
+            if (!missed.isEmpty()) {
+                update(connection, "UPDATE urls_archive" + UPDATE_SET, missed, now);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        retry.clear();
+        return batch.size();
+    }
+
+    private static int[] update(Connection connection, String sql, List<Map.Entry<String, Long>> batch,
+            Timestamp now) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Map.Entry<String, Long> entry : batch) {
+                statement.setLong(1, entry.getValue());
+                statement.setTimestamp(2, now);
+                statement.setTimestamp(3, now);
+                statement.setString(4, entry.getKey());
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com._cortex.url_management.redirect;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Redirect service settings, read from environment variables. Database
+ * settings fall back to the variables used by the main application.
+ */
+record RedirectConfig(
+        int port,
+        String jdbcUrl,
+        String username,
+        String password,
+        Path snapshotFile,
+        Duration pollInterval,
+        Duration snapshotInterval,
+        Duration hitFlushInterval,
+        Duration gapTimeout,
+        String splitLinkBaseUrl) {
+
+    static RedirectConfig fromEnvironment() {
+        return new RedirectConfig(
+                Integer.parseInt(env("REDIRECT_PORT", env("PORT", "8080"))),
+                env("REDIRECT_DATASOURCE_URL", env("SPRING_DATASOURCE_URL", "jdbc:h2:mem:testdb")),
+                env("REDIRECT_DATASOURCE_USERNAME", env("SPRING_DATASOURCE_USERNAME", "sa")),
+                env("REDIRECT_DATASOURCE_PASSWORD", env("SPRING_DATASOURCE_PASSWORD", "password")),
+                Path.of(env("REDIRECT_SNAPSHOT_FILE", "./data/redirect-snapshot.bin")),
+                Duration.ofMillis(Long.parseLong(env("REDIRECT_POLL_INTERVAL_MS", "1000"))),
+                Duration.ofMillis(Long.parseLong(env("REDIRECT_SNAPSHOT_INTERVAL_MS", "300000"))),
+                Duration.ofMillis(Long.parseLong(env("REDIRECT_HIT_FLUSH_INTERVAL_MS", "1000"))),
+                Duration.ofMillis(Long.parseLong(env("REDIRECT_GAP_TIMEOUT_MS", "10000"))),
+                stripTrailingSlash(env("REDIRECT_SPLIT_LINK_BASE_URL", "")));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,261 @@
+package com._cortex.url_management.redirect;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com._cortex.url_management.util.ShortCodeGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Redirect-only service: answers {@code GET /{shortCode}} from an in-memory
+ * table without JPA, Spring or security.
+ * <p>
+ * On startup the table is read from the local snapshot file and brought up
+ * to date from the url_changes feed written by the main application (with
+ * {@code URLS_CHANGE_FEED_ENABLED=true}); without a usable snapshot it is
+ * loaded from the urls tables. The feed is polled continuously, the snapshot
+ * rewritten periodically, and hits are added to the main database in
+ * batches. All database work and table writes run on one scheduler thread;
+ * requests are served on virtual threads and only read the table. Split
+ * links are not served: their visitors are redirected to the main
+ * application ({@code REDIRECT_SPLIT_LINK_BASE_URL}), or get a 503 when it is
+ * not set.
+ */
+public final class RedirectServiceApplication {
+
+    private static final System.Logger logger = System.getLogger(RedirectServiceApplication.class.getName());
+
+    private final RedirectConfig config;
+    private final RedirectTable table = new RedirectTable();
+    private final ChangeFeedReader feed;
+    private final SnapshotFile snapshot;
+    private final HitCounter hits = new HitCounter();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redirect-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Connection connection;
+    private OptionalLong snapshotPosition = OptionalLong.empty();
+    private volatile boolean ready;
+    private volatile long feedPosition;
+
+    private RedirectServiceApplication(RedirectConfig config) {
+        this.config = config;
+        this.feed = new ChangeFeedReader(table, config.gapTimeout().toMillis());
+        this.snapshot = new SnapshotFile(config.snapshotFile());
+    }
+
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        RedirectServiceApplication application = new RedirectServiceApplication(RedirectConfig.fromEnvironment());
+        application.start();
+        logger.log(System.Logger.Level.INFO, "Redirect service started on port {0} in {1} ms",
+                String.valueOf(application.config.port()), String.valueOf((System.nanoTime() - start) / 1_000_000));
+    }
+
+    private void start() throws IOException {
+        try {
+            snapshotPosition = snapshot.load(table, System.currentTimeMillis());
+            if (snapshotPosition.isPresent()) {
+                // Serve from the snapshot straight away; the feed catches up in the background
+                ready = true;
+                feedPosition = snapshotPosition.getAsLong();
+                logger.log(System.Logger.Level.INFO, "Loaded {0} redirects from snapshot {1}",
+                        String.valueOf(table.size()),
+                        config.snapshotFile());
+            }
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Ignoring unreadable snapshot: {0}", e.getMessage());
+            table.clear();
+            snapshotPosition = OptionalLong.empty();
+        }
+
+        scheduler.scheduleWithFixedDelay(this::sync, 0, config.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        if (!config.hitFlushInterval().isZero()) {
+            scheduler.scheduleWithFixedDelay(this::flushHits, config.hitFlushInterval().toMillis(),
+                    config.hitFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        scheduler.scheduleWithFixedDelay(this::writeSnapshot, config.snapshotInterval().toMillis(),
+                config.snapshotInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(config.port()), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushHits();
+            writeSnapshot();
+        }));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getRawPath();
+            if ("/actuator/health".equals(path)) {
+                health(exchange);
+                return;
+            }
+
+            String shortCode = path.substring(1);
+            long nowMillis = System.currentTimeMillis();
+            boolean valid = ShortCodeGenerator.isValidBase62(shortCode);
+            RedirectTable.Target target = valid ? table.lookup(shortCode, nowMillis) : null;
+            if (target == null && valid && table.isSplit(shortCode, nowMillis)) {
+                handOverSplit(exchange, shortCode);
+                return;
+            }
+            if (target == null) {
+                // Same status and body shape as the main application
+                sendJson(exchange, 400, "{\"status\":400,\"message\":\"URL not found or expired: "
+                        + escape(shortCode) + "\",\"errors\":null,\"timestamp\":\"" + Instant.now() + "\"}");
+                return;
+            }
+
+            hits.record(shortCode);
+            exchange.getResponseHeaders().set("Location", target.originalUrl());
+            exchange.sendResponseHeaders(302, -1);
+        }
+    }
+
+    /**
+     * Send a visitor of a split link to the main application, which picks
+     * the destination and counts the hit
+     */
+    private void handOverSplit(HttpExchange exchange, String shortCode) throws IOException {
+        if (config.splitLinkBaseUrl().isEmpty()) {
+            sendJson(exchange, 503, "{\"status\":503,\"message\":\"Split link is served by the main application: "
+                    + escape(shortCode) + "\",\"errors\":null,\"timestamp\":\"" + Instant.now() + "\"}");
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", config.splitLinkBaseUrl() + "/" + shortCode);
+        exchange.sendResponseHeaders(302, -1);
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        String body = "{\"status\":\"" + (ready ? "UP" : "DOWN") + "\",\"redirects\":" + table.size()
+                + ",\"splitLinks\":" + table.splitCount()
+                + ",\"changeFeedPosition\":" + feedPosition
+                + ",\"urlBytes\":" + table.urlBytes() + ",\"urlBytesAsStrings\":" + table.stringBytes()
+                + ",\"hosts\":" + RedirectTable.hostCount()
+                + ",\"urlDecodeNanos\":" + Math.round(RedirectTable.decodeNanos())
+                + ",\"heapUsedBytes\":" + (runtime.totalMemory() - runtime.freeMemory()) + "}";
+        sendJson(exchange, ready ? 200 : 503, body);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Bootstrap on the first run, then apply new changes from the feed
+     */
+    private void sync() {
+        try {
+            Connection db = connection();
+            if (!ready || snapshotPosition.isPresent()) {
+                bootstrap(db);
+            }
+            feed.poll(db);
+            feedPosition = feed.position();
+        } catch (SQLException e) {
+            logger.log(System.Logger.Level.WARNING, "Change feed sync failed: {0}", e.getMessage());
+            closeConnection();
+        }
+    }
+
+    private void bootstrap(Connection db) throws SQLException {
+        if (snapshotPosition.isPresent() && feed.resume(db, snapshotPosition.getAsLong())) {
+            snapshotPosition = OptionalLong.empty();
+            return;
+        }
+
+        long start = System.nanoTime();
+        int loaded = feed.loadAll(db);
+        snapshotPosition = OptionalLong.empty();
+        ready = true;
+        logger.log(System.Logger.Level.INFO, "Loaded {0} redirects from the database in {1} ms",
+                String.valueOf(loaded), String.valueOf((System.nanoTime() - start) / 1_000_000));
+        writeSnapshot();
+    }
+
+    private void flushHits() {
+        try {
+            hits.flush(connection());
+        } catch (SQLException e) {
+            logger.log(System.Logger.Level.WARNING, "Hit flush failed, will retry: {0}", e.getMessage());
+            closeConnection();
+        }
+    }
+
+    private void writeSnapshot() {
+        if (!ready || snapshotPosition.isPresent()) {
+            return;
+        }
+        try {
+            table.evictExpired(System.currentTimeMillis());
+            snapshot.write(table, feed.position());
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Writing snapshot failed: {0}", e.getMessage());
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || !connection.isValid(2)) {
+            closeConnection();
+            connection = DriverManager.getConnection(config.jdbcUrl(), config.username(), config.password());
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Already broken
+            }
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com._cortex.url_management.redirect;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import com._cortex.url_management.util.CompactUrlCodec;
+import com._cortex.url_management.util.ShortCodeKeys;
+
+/**
+ * In-memory short code to redirect target table. Codes that fit a 64-bit
+ * key (see ShortCodeKeys) are stored under that key, which is far smaller
+ * than a String; longer custom codes are stored by string. Destinations are
+ * held in CompactUrlCodec form and only decoded when a redirect is sent.
+ * <p>
+ * Links that split their traffic across weighted destinations are not
+ * served here: only their codes and expiry are kept, so a visit can be
+ * handed to the main application, which picks the destination and counts
+ * it against that destination.
+ */
+final class RedirectTable {
+
+    // Shared by every table so a freshly loaded table can replace the live one
+    private static final CompactUrlCodec URLS = new CompactUrlCodec(1 << 16);
+
+    /**
+     * Redirect target; {@code expireAtMillis} is {@link Long#MAX_VALUE} for
+     * links that never expire
+     */
+    static final class Target {
+
+        private final byte[] url;
+        private final long expireAtMillis;
+
+        Target(String originalUrl, long expireAtMillis) {
+            this.url = URLS.encode(originalUrl);
+            this.expireAtMillis = expireAtMillis;
+        }
+
+        String originalUrl() {
+            return URLS.decode(url);
+        }
+
+        long expireAtMillis() {
+            return expireAtMillis;
+        }
+    }
+
+    private volatile Map<Long, Target> byKey = new ConcurrentHashMap<>();
+    private volatile Map<String, Target> byCode = new ConcurrentHashMap<>();
+    // Split links by short code, with their expiry
+    private volatile Map<String, Long> splitCodes = new ConcurrentHashMap<>();
+    // Heap held by destinations as stored, and as plain Strings would take
+    private volatile AtomicLong urlBytes = new AtomicLong();
+    private volatile AtomicLong stringBytes = new AtomicLong();
+
+    /**
+     * Find the target of a short code that has not expired
+     */
+    Target lookup(String shortCode, long nowMillis) {
+        long key = ShortCodeKeys.toKey(shortCode);
+        Target target = key >= 0 ? byKey.get(key) : byCode.get(shortCode);
+        return target == null || target.expireAtMillis() <= nowMillis ? null : target;
+    }
+
+    /**
+     * Whether a short code is a split link that has not expired
+     */
+    boolean isSplit(String shortCode, long nowMillis) {
+        Long expireAtMillis = splitCodes.get(shortCode);
+        return expireAtMillis != null && expireAtMillis > nowMillis;
+    }
+
+    void put(String shortCode, Target target) {
+        long key = ShortCodeKeys.toKey(shortCode);
+        Target previous = key >= 0 ? byKey.put(key, target) : byCode.put(shortCode, target);
+        account(target, 1);
+        account(previous, -1);
+        splitCodes.remove(shortCode);
+    }
+
+    /**
+     * Mark a short code as a split link, dropping any target held for it
+     */
+    void putSplit(String shortCode, long expireAtMillis) {
+        removeTarget(shortCode);
+        splitCodes.put(shortCode, expireAtMillis);
+    }
+
+    void remove(String shortCode) {
+        removeTarget(shortCode);
+        splitCodes.remove(shortCode);
+    }
+
+    private void removeTarget(String shortCode) {
+        long key = ShortCodeKeys.toKey(shortCode);
+        account(key >= 0 ? byKey.remove(key) : byCode.remove(shortCode), -1);
+    }
+
+    /**
+     * Drop expired entries
+     */
+    void evictExpired(long nowMillis) {
+        byKey.entrySet().removeIf(entry -> evict(entry.getValue(), nowMillis));
+        byCode.entrySet().removeIf(entry -> evict(entry.getValue(), nowMillis));
+        splitCodes.values().removeIf(expireAtMillis -> expireAtMillis <= nowMillis);
+    }
+
+    private boolean evict(Target target, long nowMillis) {
+        if (target.expireAtMillis() > nowMillis) {
+            return false;
+        }
+        account(target, -1);
+        return true;
+    }
+
+    private void account(Target target, int sign) {
+        if (target != null) {
+            urlBytes.addAndGet(sign * CompactUrlCodec.encodedFootprint(target.url));
+            stringBytes.addAndGet(sign * CompactUrlCodec.stringFootprint(target.originalUrl()));
+        }
+    }
+
+    void forEach(BiConsumer<String, Target> action) {
+        byKey.forEach((key, target) -> action.accept(ShortCodeKeys.toShortCode(key), target));
+        byCode.forEach(action);
+    }
+
+    /**
+     * Visit the split links with their expiry
+     */
+    void forEachSplit(BiConsumer<String, Long> action) {
+        splitCodes.forEach(action);
+    }
+
+    /**
+     * Number of redirect targets held, not counting split links
+     */
+    int size() {
+        return byKey.size() + byCode.size();
+    }
+
+    int splitCount() {
+        return splitCodes.size();
+    }
+
+    /**
+     * Approximate heap bytes of the stored destinations
+     */
+    long urlBytes() {
+        return urlBytes.get();
+    }
+
+    /**
+     * Approximate heap bytes the same destinations would take as Strings
+     */
+    long stringBytes() {
+        return stringBytes.get();
+    }
+
+    /**
+     * Number of distinct scheme and host prefixes interned
+     */
+    static int hostCount() {
+        return URLS.prefixCount();
+    }
+
+    /**
+     * Mean nanoseconds to decode a destination, the price of
+     * {@link #urlBytes()} over {@link #stringBytes()}
+     */
+    static double decodeNanos() {
+        return URLS.meanDecodeNanos();
+    }
+
+    void clear() {
+        byKey = new ConcurrentHashMap<>();
+        byCode = new ConcurrentHashMap<>();
+        splitCodes = new ConcurrentHashMap<>();
+        urlBytes = new AtomicLong();
+        stringBytes = new AtomicLong();
+    }
+
+    /**
+     * Take over the contents of a freshly loaded table in one step, so readers
+     * never see a partially loaded table
+     */
+    void replaceWith(RedirectTable loaded) {
+        byKey = loaded.byKey;
+        byCode = loaded.byCode;
+        splitCodes = loaded.splitCodes;
+        urlBytes = loaded.urlBytes;
+        stringBytes = loaded.stringBytes;
+    }
+}
@@ -0,0 +1,121 @@
+package com._cortex.url_management.redirect;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary snapshot of the redirect table: a header with the change
+ * feed position it reflects, then (short code, original URL, expiry) entries
+ * and (short code, expiry) entries for split links, gzip-compressed. Written
+ * to a temporary file and moved into place.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x55524C53; // "URLS"
+    private static final int VERSION = 2;
+
+    private final Path path;
+
+    SnapshotFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Load the snapshot into the table
+     *
+     * @return the change feed ID the snapshot reflects, or empty if there is
+     *         no usable snapshot
+     */
+    OptionalLong load(RedirectTable table, long nowMillis) throws IOException {
+        if (!Files.exists(path)) {
+            return OptionalLong.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path), 1 << 16)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return OptionalLong.empty();
+            }
+            long changeId = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String shortCode = in.readUTF();
+                String originalUrl = in.readUTF();
+                long expireAtMillis = in.readLong();
+                if (expireAtMillis > nowMillis) {
+                    table.put(shortCode, new RedirectTable.Target(originalUrl, expireAtMillis));
+                }
+            }
+            int splitCount = in.readInt();
+            for (int i = 0; i < splitCount; i++) {
+                String shortCode = in.readUTF();
+                long expireAtMillis = in.readLong();
+                if (expireAtMillis > nowMillis) {
+                    table.putSplit(shortCode, expireAtMillis);
+                }
+            }
+            return OptionalLong.of(changeId);
+        }
+    }
+
+    /**
+     * Write the table and its change feed position
+     */
+    void write(RedirectTable table, long changeId) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        int[] written = { 0 };
+        int expected = table.size();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(changeId);
+            out.writeInt(expected);
+            IOException[] failure = { null };
+            table.forEach((shortCode, target) -> {
+                if (failure[0] != null || written[0] == expected) {
+                    return;
+                }
+                try {
+                    out.writeUTF(shortCode);
+                    out.writeUTF(target.originalUrl());
+                    out.writeLong(target.expireAtMillis());
+                    written[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+
+            Map<String, Long> splits = new HashMap<>();
+            table.forEachSplit(splits::put);
+            out.writeInt(splits.size());
+            for (Map.Entry<String, Long> split : splits.entrySet()) {
+                out.writeUTF(split.getKey());
+                out.writeLong(split.getValue());
+            }
+        }
+
+        if (written[0] != expected) {
+            // The table shrank while writing; the count in the header would be wrong
+            Files.deleteIfExists(temp);
+            throw new IOException("Redirect table changed size while writing the snapshot");
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,100 @@
+package com._cortex.url_management.redirect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ChangeFeedReaderTest {
+
+    private Connection connection;
+    private RedirectTable table;
+    private ChangeFeedReader feed;
+
+    @BeforeEach
+    void createSchema() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:feed-" + System.nanoTime(), "sa", "");
+        execute("CREATE TABLE urls (id BIGINT AUTO_INCREMENT PRIMARY KEY, short_code VARCHAR(32), "
+                + "original_url VARCHAR(2048), expire_at TIMESTAMP WITH TIME ZONE, destinations_version BIGINT)");
+        execute("CREATE TABLE urls_archive (id BIGINT PRIMARY KEY, short_code VARCHAR(32), "
+                + "original_url VARCHAR(2048), expire_at TIMESTAMP WITH TIME ZONE, destinations_version BIGINT)");
+        execute("CREATE TABLE url_changes (id BIGINT AUTO_INCREMENT PRIMARY KEY, short_code VARCHAR(32), "
+                + "original_url VARCHAR(2048), expire_at TIMESTAMP WITH TIME ZONE, change_type VARCHAR(16), "
+                + "changed_at TIMESTAMP WITH TIME ZONE, split BOOLEAN)");
+        table = new RedirectTable();
+        feed = new ChangeFeedReader(table, 10_000);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void fullLoadKeepsSplitLinksAsCodesOnly() throws SQLException {
+        execute("INSERT INTO urls (short_code, original_url) VALUES ('plain1', 'https://example.com/a')");
+        execute("INSERT INTO urls (short_code, original_url, destinations_version) "
+                + "VALUES ('split1', 'https://example.com/b', 7)");
+        execute("INSERT INTO urls_archive (id, short_code, original_url, destinations_version) "
+                + "VALUES (100, 'split2', 'https://example.com/c', 9)");
+
+        assertThat(feed.loadAll(connection)).isEqualTo(3);
+
+        long now = System.currentTimeMillis();
+        assertThat(table.lookup("plain1", now).originalUrl()).isEqualTo("https://example.com/a");
+        assertThat(table.lookup("split1", now)).isNull();
+        assertThat(table.isSplit("split1", now)).isTrue();
+        assertThat(table.isSplit("split2", now)).isTrue();
+        assertThat(table.isSplit("plain1", now)).isFalse();
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(table.splitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void feedMovesLinksInAndOutOfSplitting() throws SQLException {
+        long now = System.currentTimeMillis();
+        change("abc123", "https://example.com/a", "UPSERT", null);
+        feed.poll(connection);
+        assertThat(table.lookup("abc123", now)).isNotNull();
+
+        change("abc123", "https://example.com/a", "UPSERT", true);
+        feed.poll(connection);
+        assertThat(table.lookup("abc123", now)).isNull();
+        assertThat(table.isSplit("abc123", now)).isTrue();
+
+        change("abc123", "https://example.com/a", "UPSERT", false);
+        feed.poll(connection);
+        assertThat(table.lookup("abc123", now).originalUrl()).isEqualTo("https://example.com/a");
+        assertThat(table.isSplit("abc123", now)).isFalse();
+
+        change("abc123", null, "UPSERT", true);
+        change("abc123", null, "DELETE", null);
+        feed.poll(connection);
+        assertThat(table.isSplit("abc123", now)).isFalse();
+        assertThat(table.size()).isZero();
+        assertThat(feed.position()).isEqualTo(5);
+    }
+
+    private void change(String shortCode, String originalUrl, String type, Boolean split) throws SQLException {
+        try (var statement = connection.prepareStatement("INSERT INTO url_changes "
+                + "(short_code, original_url, change_type, changed_at, split) VALUES (?, ?, ?, CURRENT_TIMESTAMP, ?)")) {
+            statement.setString(1, shortCode);
+            statement.setString(2, originalUrl);
+            statement.setString(3, type);
+            statement.setObject(4, split);
+            statement.executeUpdate();
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com._cortex.url_management.redirect;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsTargetsAndSplitLinks() throws IOException {
+        long now = System.currentTimeMillis();
+        RedirectTable table = new RedirectTable();
+        table.put("abc123", new RedirectTable.Target("https://example.com/a", Long.MAX_VALUE));
+        table.put("custom-code-that-is-long", new RedirectTable.Target("https://example.com/b", now + 60_000));
+        table.putSplit("split1", Long.MAX_VALUE);
+        table.putSplit("gone01", now - 1);
+
+        SnapshotFile snapshot = new SnapshotFile(directory.resolve("snapshot.bin"));
+        snapshot.write(table, 42);
+        RedirectTable loaded = new RedirectTable();
+
+        assertThat(snapshot.load(loaded, now)).hasValue(42);
+        assertThat(loaded.lookup("abc123", now).originalUrl()).isEqualTo("https://example.com/a");
+        assertThat(loaded.lookup("custom-code-that-is-long", now).originalUrl()).isEqualTo("https://example.com/b");
+        assertThat(loaded.isSplit("split1", now)).isTrue();
+        assertThat(loaded.splitCount()).isEqualTo(1);
+    }
+}
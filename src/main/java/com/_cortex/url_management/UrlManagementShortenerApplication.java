@@ -2,8 +2,10 @@ package com._cortex.url_management;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UrlManagementShortenerApplication {
 
 	public static void main(String[] args) {
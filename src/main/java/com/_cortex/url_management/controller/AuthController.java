@@ -5,6 +5,7 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,12 +15,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com._cortex.url_management.dto.CreateUserRequest;
 import com._cortex.url_management.dto.LoginRequest;
 import com._cortex.url_management.model.User;
+import com._cortex.url_management.security.TokenService;
 import com._cortex.url_management.service.UserService;
 
 import lombok.RequiredArgsConstructor;
@@ -33,6 +36,7 @@ public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     private final AuthenticationManager authenticationManager;
     private final UserService userService;
+    private final TokenService tokenService;
 
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody CreateUserRequest request) {
@@ -61,11 +65,19 @@ public class AuthController {
                     new UsernamePasswordAuthenticationToken(loginRequest.getUsername(),
                             loginRequest.getPassword()));
             
+            User user = userService.findByUsername(authentication.getName())
+                    .orElseThrow(() -> new BadCredentialsException("User no longer exists"));
+            TokenService.IssuedToken issued = tokenService.issue(user.getId());
+
             logger.info("User logged in successfully: {}", loginRequest.getUsername());
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Login successful");
             response.put("username", authentication.getName());
+            response.put("userId", user.getId());
+            response.put("token", issued.token());
+            response.put("tokenType", "Bearer");
+            response.put("expiresAt", issued.claims().expiresAt());
             
             return ResponseEntity.ok(response);
         } catch (BadCredentialsException e) {
@@ -80,4 +92,18 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
         }
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Missing bearer token");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+
+        tokenService.verify(authorization.substring("Bearer ".length()).trim())
+                .ifPresent(tokenService::revoke);
+
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,61 @@
+package com._cortex.url_management.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.service.ShardedRedirectCache;
+import com._cortex.url_management.service.UrlService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Internal endpoints through which application nodes share their redirect
+ * cache slices. Only callers presenting the shared peer secret are served.
+ */
+@RestController
+@RequestMapping("/internal/cache/redirects")
+@RequiredArgsConstructor
+public class PeerCacheController {
+
+    private final UrlService urlService;
+    private final ShardedRedirectCache redirectCache;
+
+    /**
+     * Resolve a short code owned by this node, from its cache slice or the
+     * database
+     * GET /internal/cache/redirects/{shortCode}
+     */
+    @GetMapping("/{shortCode}")
+    public ResponseEntity<RedirectTarget> getRedirectTarget(
+            @PathVariable String shortCode,
+            @RequestHeader(value = ShardedRedirectCache.SECRET_HEADER, required = false) String secret) {
+        if (!redirectCache.isTrustedPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return urlService.findRedirectTargetForPeer(shortCode)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Drop a short code from this node's cache slice
+     * DELETE /internal/cache/redirects/{shortCode}
+     */
+    @DeleteMapping("/{shortCode}")
+    public ResponseEntity<Void> evict(
+            @PathVariable String shortCode,
+            @RequestHeader(value = ShardedRedirectCache.SECRET_HEADER, required = false) String secret) {
+        if (!redirectCache.isTrustedPeer(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        redirectCache.evictLocal(shortCode);
+        return ResponseEntity.noContent().build();
+    }
+}
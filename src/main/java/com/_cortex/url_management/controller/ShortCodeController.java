@@ -0,0 +1,106 @@
+package com._cortex.url_management.controller;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com._cortex.url_management.dto.ShortCodeAvailabilityResponse;
+import com._cortex.url_management.security.TokenClaims;
+import com._cortex.url_management.service.UrlService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * REST Controller for short code availability, suggestions and listings,
+ * served from the in-memory code index
+ */
+@RestController
+@RequestMapping("/api/short-codes")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ShortCodeController {
+
+    // Same rules as CreateCustomUrlRequest.customShortCode
+    private static final Pattern CUSTOM_CODE = Pattern.compile("^[0-9A-Za-z]{3,20}$");
+    private static final Pattern PREFIX = Pattern.compile("^[0-9A-Za-z]{0,20}$");
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_LISTING = 1000;
+
+    private final UrlService urlService;
+
+    @Value("${short-codes.listing.min-prefix-length:3}")
+    private int minPrefixLength;
+
+    // Comma-separated user IDs allowed to list codes; empty allows any signed-in user
+    @Value("${short-codes.listing.allowed-user-ids:}")
+    private String allowedUserIds;
+
+    /**
+     * Check whether a custom short code is free, suggesting nearby free codes
+     * when it is taken
+     * GET /api/short-codes/{shortCode}/availability?suggestions=5
+     */
+    @GetMapping("/{shortCode}/availability")
+    public ResponseEntity<ShortCodeAvailabilityResponse> checkAvailability(
+            @PathVariable String shortCode,
+            @RequestParam(defaultValue = "5") int suggestions) {
+        if (!CUSTOM_CODE.matcher(shortCode).matches()) {
+            throw new IllegalArgumentException("Short code must be 3 to 20 alphanumeric characters");
+        }
+
+        boolean available = urlService.isShortCodeAvailable(shortCode);
+        List<String> alternatives = available
+                ? List.of()
+                : urlService.suggestShortCodes(shortCode, Math.max(0, Math.min(suggestions, MAX_SUGGESTIONS)));
+
+        return ResponseEntity.ok(new ShortCodeAvailabilityResponse(shortCode, available, alternatives));
+    }
+
+    /**
+     * List short codes in use starting with a prefix. Requires a bearer
+     * token, and a prefix long enough that the codes cannot be enumerated
+     * with a handful of requests.
+     * GET /api/short-codes?prefix=abc&limit=100
+     */
+    @GetMapping
+    public ResponseEntity<List<String>> listByPrefix(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof TokenClaims claims)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!isAllowedToList(claims.userId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!PREFIX.matcher(prefix).matches() || prefix.length() < minPrefixLength) {
+            throw new IllegalArgumentException(
+                    "Prefix must be " + minPrefixLength + " to 20 alphanumeric characters");
+        }
+
+        return ResponseEntity.ok(urlService.findShortCodesByPrefix(prefix, Math.max(1, Math.min(limit, MAX_LISTING))));
+    }
+
+    private boolean isAllowedToList(long userId) {
+        if (allowedUserIds.isBlank()) {
+            return true;
+        }
+        Set<String> allowed = Arrays.stream(allowedUserIds.split(","))
+                .map(String::trim)
+                .collect(Collectors.toSet());
+        return allowed.contains(Long.toString(userId));
+    }
+}
@@ -2,26 +2,37 @@ package com._cortex.url_management.controller;
 
 import com._cortex.url_management.dto.CreateCustomUrlRequest;
 import com._cortex.url_management.dto.CreateUrlRequest;
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.dto.SetDestinationsRequest;
 import com._cortex.url_management.dto.UrlResponse;
+import com._cortex.url_management.dto.UrlSearchResponse;
+import com._cortex.url_management.dto.UrlSummary;
 import com._cortex.url_management.model.Url;
 import com._cortex.url_management.model.User;
+import com._cortex.url_management.profiling.DtoMappingEvent;
+import com._cortex.url_management.security.TokenClaims;
 import com._cortex.url_management.service.UrlService;
 import com._cortex.url_management.service.UserService;
 import com._cortex.url_management.util.DtoMapper;
+import com._cortex.url_management.util.UrlResponseStreamer;
+import com._cortex.url_management.web.ServerTiming;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import lombok.RequiredArgsConstructor;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * REST Controller for URL shortening operations
@@ -31,8 +42,11 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class UrlController {
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
     private final UrlService urlService;
     private final UserService userService;
+    private final UrlResponseStreamer urlResponseStreamer;
 
     /**
      * Build base URL from the incoming request
@@ -51,6 +65,51 @@ public class UrlController {
         return scheme + "://" + serverName + ":" + serverPort;
     }
 
+    /**
+     * Resolve the client IP. X-Forwarded-For is never read here: with
+     * server.forward-headers-strategy=native the container replaces the
+     * remote address with the last untrusted X-Forwarded-For hop, and only
+     * for connections from a trusted proxy
+     * (server.tomcat.remoteip.internal-proxies), so clients cannot spoof it
+     */
+    private String getClientIp(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Map a URL to its response DTO, recorded as a flight recorder event and
+     * in Server-Timing
+     */
+    private UrlResponse toResponse(Url url, String baseUrl) {
+        DtoMappingEvent event = new DtoMappingEvent();
+        event.begin();
+        long start = ServerTiming.start();
+        UrlResponse response = DtoMapper.toUrlResponse(url, baseUrl);
+        ServerTiming.stop(ServerTiming.Phase.DTO_MAPPING, start);
+        if (event.shouldCommit()) {
+            event.shortCode = url.getShortCode();
+            event.commit();
+        }
+        return response;
+    }
+
+    /**
+     * Map a URL summary to its response DTO, recorded as a flight recorder
+     * event and in Server-Timing
+     */
+    private UrlResponse toResponse(UrlSummary summary, String baseUrl) {
+        DtoMappingEvent event = new DtoMappingEvent();
+        event.begin();
+        long start = ServerTiming.start();
+        UrlResponse response = DtoMapper.toUrlResponse(summary, baseUrl);
+        ServerTiming.stop(ServerTiming.Phase.DTO_MAPPING, start);
+        if (event.shouldCommit()) {
+            event.shortCode = summary.shortCode();
+            event.commit();
+        }
+        return response;
+    }
+
     /**
      * Create a shortened URL with auto-generated short code
      * POST /api/urls
@@ -71,7 +130,7 @@ public class UrlController {
                 request.getExpireAt());
 
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(DtoMapper.toUrlResponse(url, getBaseUrl(httpRequest)));
+                .body(toResponse(url, getBaseUrl(httpRequest)));
     }
 
     /**
@@ -95,7 +154,7 @@ public class UrlController {
                 request.getExpireAt());
 
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(DtoMapper.toUrlResponse(url, getBaseUrl(httpRequest)));
+                .body(toResponse(url, getBaseUrl(httpRequest)));
     }
 
     /**
@@ -109,7 +168,33 @@ public class UrlController {
         Url url = urlService.findByShortCode(shortCode)
                 .orElseThrow(() -> new IllegalArgumentException("URL not found with short code: " + shortCode));
 
-        return ResponseEntity.ok(DtoMapper.toUrlResponse(url, getBaseUrl(httpRequest)));
+        UrlResponse response = toResponse(url, getBaseUrl(httpRequest));
+        response.setUniqueVisitors(urlService.estimateUniqueVisitors(url));
+        if (url.getDestinationsVersion() != null) {
+            response.setDestinations(urlService.findDestinations(url));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Split a URL's traffic across weighted destinations. Requires a bearer
+     * token of the user who created the URL.
+     * PUT /api/urls/{id}/destinations
+     */
+    @PutMapping("/api/urls/{id}/destinations")
+    public ResponseEntity<UrlResponse> setDestinations(
+            @PathVariable Long id,
+            @Valid @RequestBody SetDestinationsRequest request,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof TokenClaims claims)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Url url = urlService.setDestinations(id, claims.userId(), request.getDestinations());
+
+        UrlResponse response = toResponse(url, getBaseUrl(httpRequest));
+        response.setDestinations(urlService.findDestinations(url));
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -117,11 +202,15 @@ public class UrlController {
      * GET /{shortCode}
      */
     @GetMapping("/{shortCode}")
-    public void redirectToOriginalUrl(@PathVariable String shortCode, HttpServletResponse response) throws IOException {
-        Url url = urlService.findByShortCodeAndTrack(shortCode)
+    public void redirectToOriginalUrl(
+            @PathVariable String shortCode,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        RedirectTarget target = urlService.findByShortCodeAndTrack(
+                shortCode, getClientIp(request), request.getHeader(HttpHeaders.USER_AGENT))
                 .orElseThrow(() -> new IllegalArgumentException("URL not found or expired: " + shortCode));
 
-        response.sendRedirect(url.getOriginalUrl());
+        response.sendRedirect(target.originalUrl());
     }
 
     /**
@@ -135,35 +224,56 @@ public class UrlController {
     }
 
     /**
-     * Get all URLs created by a specific user
+     * Get all URLs created by a specific user, streamed as they are read
      * GET /api/users/{userId}/urls
      */
     @GetMapping("/api/users/{userId}/urls")
-    public ResponseEntity<List<UrlResponse>> getUserUrls(
+    public void getUserUrls(
             @PathVariable Long userId,
-            HttpServletRequest httpRequest) {
-        List<Url> urls = urlService.findByUserId(userId);
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) throws IOException {
         String baseUrl = getBaseUrl(httpRequest);
-        List<UrlResponse> responses = urls.stream()
-                .map(url -> DtoMapper.toUrlResponse(url, baseUrl))
-                .collect(Collectors.toList());
+        UrlResponseStreamer.ArrayWriter writer = urlResponseStreamer.open(httpRequest, httpResponse);
+        urlService.forEachByUserId(userId, url -> writer.write(toResponse(url, baseUrl)));
+        writer.finish();
+    }
+
+    /**
+     * Search a user's URLs by substring of the original URL and/or by domain,
+     * newest first
+     * GET /api/users/{userId}/urls/search?q=docs&domain=example.com&page=0&size=20
+     */
+    @GetMapping("/api/users/{userId}/urls/search")
+    public ResponseEntity<UrlSearchResponse> searchUserUrls(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String domain,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest httpRequest) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE)));
+        Page<UrlSummary> results = urlService.searchUserUrls(userId, q, domain, pageRequest);
 
-        return ResponseEntity.ok(responses);
+        String baseUrl = getBaseUrl(httpRequest);
+        List<UrlResponse> items = results.getContent().stream()
+                .map(summary -> toResponse(summary, baseUrl))
+                .toList();
+        return ResponseEntity.ok(new UrlSearchResponse(items, results.getNumber(), results.getSize(),
+                results.getTotalElements()));
     }
 
     /**
-     * Get most popular URLs
+     * Get most popular URLs, streamed as they are read
      * GET /api/urls/stats/popular
      */
     @GetMapping("/api/urls/stats/popular")
-    public ResponseEntity<List<UrlResponse>> getPopularUrls(HttpServletRequest httpRequest) {
-        List<Url> urls = urlService.getMostPopularUrls();
+    public void getPopularUrls(
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) throws IOException {
         String baseUrl = getBaseUrl(httpRequest);
-        List<UrlResponse> responses = urls.stream()
-                .map(url -> DtoMapper.toUrlResponse(url, baseUrl))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        UrlResponseStreamer.ArrayWriter writer = urlResponseStreamer.open(httpRequest, httpResponse);
+        urlService.forEachMostPopular(url -> writer.write(toResponse(url, baseUrl)));
+        writer.finish();
     }
 
     /**
@@ -2,8 +2,10 @@ package com._cortex.url_management.controller;
 
 import com._cortex.url_management.dto.CreateUserRequest;
 import com._cortex.url_management.dto.UserResponse;
+import com._cortex.url_management.dto.UserStatsResponse;
 import com._cortex.url_management.model.User;
 import com._cortex.url_management.service.UserService;
+import com._cortex.url_management.service.UserStatsService;
 import com._cortex.url_management.util.DtoMapper;
 
 import jakarta.validation.Valid;
@@ -24,6 +26,7 @@ import lombok.RequiredArgsConstructor;
 public class UserController {
 
     private final UserService userService;
+    private final UserStatsService userStatsService;
 
     /**
      * Create a new user
@@ -54,6 +57,19 @@ public class UserController {
         return ResponseEntity.ok(DtoMapper.toUserResponse(user));
     }
 
+    /**
+     * Get a user's link count, total clicks and clicks in the last 24 hours
+     * GET /api/users/{id}/stats
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<UserStatsResponse> getUserStats(@PathVariable Long id) {
+        if (userService.findById(id).isEmpty()) {
+            throw new IllegalArgumentException("User not found with ID: " + id);
+        }
+
+        return ResponseEntity.ok(userStatsService.getStats(id));
+    }
+
     /**
      * Get user by username
      * GET /api/users/username/{username}
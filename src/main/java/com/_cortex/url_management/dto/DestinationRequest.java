@@ -0,0 +1,31 @@
+package com._cortex.url_management.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One weighted destination of a split link
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationRequest {
+
+    @NotBlank(message = "Destination URL is required")
+    @Size(max = 2048, message = "URL must not exceed 2048 characters")
+    @Pattern(regexp = "^https?://.*", message = "URL must start with http:// or https://")
+    private String url;
+
+    @NotNull(message = "Weight is required")
+    @Min(value = 1, message = "Weight must be at least 1")
+    @Max(value = 1000000, message = "Weight must not exceed 1000000")
+    private Integer weight;
+}
@@ -0,0 +1,22 @@
+package com._cortex.url_management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for one destination of a split link
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationResponse {
+
+    private Long id;
+
+    private String url;
+
+    private Integer weight;
+
+    private Long hits;
+}
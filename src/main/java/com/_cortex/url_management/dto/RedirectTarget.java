@@ -0,0 +1,55 @@
+package com._cortex.url_management.dto;
+
+import java.time.Instant;
+
+import com._cortex.url_management.model.Url;
+
+/**
+ * What a redirect needs to know about a URL: where to send the visitor,
+ * until when, and which counters a hit updates. Immutable, so it can be
+ * cached and handed between requests and nodes.
+ * <p>
+ * {@code destinationsVersion} is non-null when the link splits its traffic
+ * across weighted destinations; {@code originalUrl} is then the primary
+ * destination until one is chosen for the visitor.
+ */
+public record RedirectTarget(
+        Long id,
+        String shortCode,
+        String originalUrl,
+        Long createdById,
+        Instant expireAt,
+        Long destinationsVersion) {
+
+    /**
+     * Redirect target of a URL entity
+     *
+     * @param url the URL
+     * @return its redirect target
+     */
+    public static RedirectTarget from(Url url) {
+        return new RedirectTarget(url.getId(), url.getShortCode(), url.getOriginalUrl(),
+                url.getCreatedBy() == null ? null : url.getCreatedBy().getId(), url.getExpireAt(),
+                url.getDestinationsVersion());
+    }
+
+    /**
+     * Whether the URL has expired at a given time
+     *
+     * @param now the time to check
+     * @return true if the URL has an expiry before now
+     */
+    public boolean isExpired(Instant now) {
+        return expireAt != null && expireAt.isBefore(now);
+    }
+
+    /**
+     * The same target sending visitors somewhere else
+     *
+     * @param url the destination chosen for this visit
+     * @return a copy with {@code originalUrl} replaced
+     */
+    public RedirectTarget withOriginalUrl(String url) {
+        return new RedirectTarget(id, shortCode, url, createdById, expireAt, destinationsVersion);
+    }
+}
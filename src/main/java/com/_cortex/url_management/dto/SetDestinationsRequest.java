@@ -0,0 +1,26 @@
+package com._cortex.url_management.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for splitting a link's traffic across weighted destinations;
+ * an empty list turns the split off
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SetDestinationsRequest {
+
+    @NotNull(message = "Destinations are required")
+    @Size(max = 20, message = "A link can have at most 20 destinations")
+    @Valid
+    private List<DestinationRequest> destinations;
+}
@@ -0,0 +1,22 @@
+package com._cortex.url_management.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for a short code availability check
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShortCodeAvailabilityResponse {
+
+    private String shortCode;
+
+    private boolean available;
+
+    private List<String> suggestions;
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.List;
 
 /**
  * Response DTO for URL information
@@ -33,4 +34,8 @@ public class UrlResponse {
     private Instant expireAt;
 
     private Long hits;
+
+    private Long uniqueVisitors;
+
+    private List<DestinationResponse> destinations;
 }
@@ -0,0 +1,24 @@
+package com._cortex.url_management.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for one page of URL search results
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlSearchResponse {
+
+    private List<UrlResponse> items;
+
+    private int page;
+
+    private int size;
+
+    private long totalMatches;
+}
@@ -0,0 +1,19 @@
+package com._cortex.url_management.dto;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a URL and its owner, selected in a single query
+ * with a join so listing URLs never touches the lazy createdBy association
+ */
+public record UrlSummary(
+        Long id,
+        String shortCode,
+        String originalUrl,
+        Long createdByUserId,
+        String createdByUsername,
+        Instant createdAt,
+        Instant lastAccessedAt,
+        Instant expireAt,
+        Long hits) {
+}
@@ -0,0 +1,11 @@
+package com._cortex.url_management.dto;
+
+/**
+ * Link count and summed hits of one user's links
+ *
+ * @param userId the user ID
+ * @param links  number of links
+ * @param clicks total hits of those links
+ */
+public record UserLinkTotals(Long userId, Long links, Long clicks) {
+}
@@ -0,0 +1,22 @@
+package com._cortex.url_management.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for a user's link statistics
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStatsResponse {
+
+    private Long userId;
+
+    private long linkCount;
+
+    private long totalClicks;
+
+    private long clicksLast24h;
+}
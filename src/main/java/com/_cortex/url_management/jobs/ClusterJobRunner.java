@@ -0,0 +1,204 @@
+package com._cortex.url_management.jobs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs periodic maintenance jobs safely when several application instances
+ * share one database.
+ * <ul>
+ * <li>{@link #runAsLeader} - only one instance runs the job at a time. The
+ * instance that takes the job's PostgreSQL session advisory lock is the
+ * leader for that run; the others skip it. The lock is held on a dedicated
+ * connection, so it is released if the leader dies mid-run.</li>
+ * <li>{@link #runChunked} - every instance works on the job, claiming
+ * disjoint chunks of rows with {@code FOR UPDATE SKIP LOCKED} in the chunk
+ * query. Each chunk is processed in its own transaction until none is
+ * left.</li>
+ * </ul>
+ * On databases without advisory locks (the local H2 default) leadership
+ * falls back to a per-instance lock. Runs are exported as
+ * {@code jobs.runs{job,result}} and {@code jobs.duration{job}}.
+ */
+@Component
+public class ClusterJobRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterJobRunner.class);
+
+    /**
+     * First key of the two-key advisory lock space ("URLJ"); the single-key
+     * space is used for short-code locks in partitioned mode
+     */
+    private static final int JOB_LOCK_CLASS = 0x55524C4A;
+
+    /**
+     * Work on one chunk of a parallel job, called inside a transaction
+     */
+    @FunctionalInterface
+    public interface Chunk {
+
+        /**
+         * Claim and process the next chunk
+         *
+         * @return number of rows processed, 0 when no work is left
+         */
+        int process();
+    }
+
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ReentrantLock> localLocks = new ConcurrentHashMap<>();
+
+    private volatile Boolean advisoryLocks;
+
+    public ClusterJobRunner(DataSource dataSource, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run a job on this instance if no other instance is running it
+     *
+     * @param job  the job name, which identifies its lock
+     * @param task the job
+     * @return true if this instance ran the job, false if it was skipped
+     */
+    public boolean runAsLeader(String job, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!supportsAdvisoryLocks(connection)) {
+                return runWithLocalLock(job, task);
+            }
+            if (!tryAdvisoryLock(connection, "SELECT pg_try_advisory_lock(?, hashtext(?))", job)) {
+                record(job, "skipped");
+                logger.debug("Job {} is running on another instance, skipping", job);
+                return false;
+            }
+            try {
+                run(job, task);
+                return true;
+            } finally {
+                unlock(connection, job);
+            }
+        } catch (SQLException e) {
+            record(job, "failed");
+            logger.error("Job {} could not acquire its lock: {}", job, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Run a parallel job on this instance alongside any other instance,
+     * processing chunks until none is left
+     *
+     * @param job   the job name
+     * @param chunk claims (with SKIP LOCKED) and processes one chunk
+     * @return total rows processed by this instance
+     */
+    public int runChunked(String job, Chunk chunk) {
+        int[] total = new int[1];
+        run(job, () -> {
+            while (true) {
+                Integer processed = transactionTemplate.execute(status -> chunk.process());
+                if (processed == null || processed == 0) {
+                    break;
+                }
+                total[0] += processed;
+            }
+        });
+        return total[0];
+    }
+
+    private boolean runWithLocalLock(String job, Runnable task) {
+        ReentrantLock lock = localLocks.computeIfAbsent(job, name -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            record(job, "skipped");
+            return false;
+        }
+        try {
+            run(job, task);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run(String job, Runnable task) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            task.run();
+            record(job, "completed");
+        } catch (RuntimeException e) {
+            record(job, "failed");
+            logger.error("Job {} failed: {}", job, e.getMessage(), e);
+        } finally {
+            sample.stop(Timer.builder("jobs.duration")
+                    .description("Duration of maintenance job runs on this instance")
+                    .tag("job", job)
+                    .register(meterRegistry));
+        }
+    }
+
+    private boolean supportsAdvisoryLocks(Connection connection) throws SQLException {
+        Boolean supported = advisoryLocks;
+        if (supported == null) {
+            supported = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            advisoryLocks = supported;
+            if (!supported) {
+                logger.info("Database has no advisory locks; maintenance jobs are coordinated per instance only");
+            }
+        }
+        return supported;
+    }
+
+    private static void unlock(Connection connection, String job) {
+        try {
+            tryAdvisoryLock(connection, "SELECT pg_advisory_unlock(?, hashtext(?))", job);
+        } catch (SQLException e) {
+            // Session locks survive returning the connection to the pool, so evict it instead
+            logger.warn("Could not release lock of job {}, closing its connection: {}", job, e.getMessage());
+            try {
+                connection.abort(Runnable::run);
+            } catch (SQLException ignored) {
+                // Already broken
+            }
+        }
+    }
+
+    private static boolean tryAdvisoryLock(Connection connection, String sql, String job) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, JOB_LOCK_CLASS);
+            statement.setString(2, job);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void record(String job, String result) {
+        Counter.builder("jobs.runs")
+                .description("Maintenance job runs by outcome")
+                .tag("job", job)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
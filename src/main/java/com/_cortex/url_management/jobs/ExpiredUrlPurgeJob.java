@@ -0,0 +1,105 @@
+package com._cortex.url_management.jobs;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com._cortex.url_management.service.RemovedUrlCleanup;
+import com._cortex.url_management.service.RemovedUrlCleanup.RemovedUrl;
+
+/**
+ * Deletes expired URLs from the hot and cold tiers.
+ * <p>
+ * Runs as a parallel job: every instance claims chunks of expired rows with
+ * {@code FOR UPDATE SKIP LOCKED}, so replicas delete disjoint rows instead
+ * of blocking on each other. Each chunk's deletes, destination splits,
+ * change feed entries, sketch cleanup and owner stats commit together; the
+ * short code and search indexes drop the URLs after the commit.
+ * <p>
+ * In partitioned schema mode the hot table is left to
+ * {@code UrlPartitionManager}, which drops whole expired partitions; deleting
+ * the same rows one by one here would only add churn. Expired links are
+ * already refused by redirects until their partition goes.
+ */
+@Component
+public class ExpiredUrlPurgeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredUrlPurgeJob.class);
+    private static final String JOB_NAME = "expired-urls";
+    private static final List<String> TABLES = List.of("urls", "urls_archive");
+    private static final List<String> PARTITIONED_TABLES = List.of("urls_archive");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final RemovedUrlCleanup removedUrlCleanup;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final List<String> tables;
+
+    public ExpiredUrlPurgeJob(
+            JdbcTemplate jdbcTemplate,
+            ClusterJobRunner clusterJobRunner,
+            RemovedUrlCleanup removedUrlCleanup,
+            @Value("${jobs.expired-urls.enabled:true}") boolean enabled,
+            @Value("${jobs.expired-urls.chunk-size:500}") int chunkSize,
+            @Value("${urls.partitioning.enabled:false}") boolean partitioned) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterJobRunner = clusterJobRunner;
+        this.removedUrlCleanup = removedUrlCleanup;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.tables = partitioned ? PARTITIONED_TABLES : TABLES;
+    }
+
+    /**
+     * Periodic purge
+     */
+    @Scheduled(fixedDelayString = "${jobs.expired-urls.interval-ms:300000}",
+            initialDelayString = "${jobs.expired-urls.initial-delay-ms:60000}")
+    public void run() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    /**
+     * Delete all URLs that have expired, working alongside other instances
+     *
+     * @return number of URLs deleted by this instance
+     */
+    public int purge() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        int deleted = 0;
+        for (String table : tables) {
+            deleted += clusterJobRunner.runChunked(JOB_NAME, () -> purgeChunk(table, now));
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} expired URLs", deleted);
+        }
+        return deleted;
+    }
+
+    private int purgeChunk(String table, OffsetDateTime now) {
+        List<RemovedUrl> claimed = jdbcTemplate.query("SELECT id, short_code, created_by, hits FROM " + table
+                + " WHERE expire_at < ? ORDER BY expire_at LIMIT ? FOR UPDATE SKIP LOCKED",
+                RemovedUrlCleanup.ROW_MAPPER, now, chunkSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = claimed.stream().map(RemovedUrl::id).toList();
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (" + placeholders + ")",
+                ids.toArray());
+        removedUrlCleanup.cleanUp(claimed);
+        return deleted;
+    }
+}
@@ -0,0 +1,58 @@
+package com._cortex.url_management.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Cold-tier copy of a URL that has been idle beyond the tiering threshold.
+ * Keeps the original ID so hits, sketches and links survive a round trip;
+ * rows are moved with set-based inserts and never updated in place.
+ */
+@Entity
+@Table(name = "urls_archive", indexes = {
+        @Index(name = "idx_urls_archive_createdby", columnList = "created_by"),
+        @Index(name = "idx_urls_archive_expire", columnList = "expire_at")
+})
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedUrl {
+
+    @Id
+    private Long id;
+
+    @Column(name = "short_code", nullable = false, unique = true)
+    private String shortCode;
+
+    @Column(name = "original_url", nullable = false, length = 2048)
+    private String originalUrl;
+
+    @Column(name = "created_by")
+    private Long createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_accessed_at")
+    private Instant lastAccessedAt;
+
+    @Column(name = "expire_at")
+    private Instant expireAt;
+
+    @Column(name = "hits", nullable = false)
+    private Long hits;
+
+    @Column(name = "destinations_version")
+    private Long destinationsVersion;
+
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+}
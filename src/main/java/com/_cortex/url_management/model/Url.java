@@ -11,8 +11,9 @@ import lombok.ToString;
 
 @Entity
 @Table(name = "urls", indexes = {
-        @Index(name = "idx_urls_shortcode", columnList = "short_code"),
-        @Index(name = "idx_urls_createdby", columnList = "created_by")
+        @Index(name = "idx_urls_codekey", columnList = "code_key", unique = true),
+        @Index(name = "idx_urls_createdby", columnList = "created_by"),
+        @Index(name = "idx_urls_expire", columnList = "expire_at")
 })
 @Getter
 @Setter
@@ -28,6 +29,10 @@ public class Url {
     @Column(name = "short_code", nullable = false, unique = true)
     private String shortCode;
 
+    // Base62 short code as a 64-bit key (see ShortCodeKeys); null for codes that do not fit
+    @Column(name = "code_key")
+    private Long codeKey;
+
     @Column(name = "original_url", nullable = false, length = 2048)
     private String originalUrl;
 
@@ -47,6 +52,10 @@ public class Url {
     @Column(name = "hits", nullable = false)
     private Long hits = 0L;
 
+    // ID of the newest row of the current destination split; null if the link has a single destination
+    @Column(name = "destinations_version")
+    private Long destinationsVersion;
+
     @PrePersist
     protected void onCreate() {
         createdAt = Instant.now();
@@ -0,0 +1,57 @@
+package com._cortex.url_management.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One entry of the URL change feed read by the standalone redirect service.
+ * An UPSERT carries the redirect target and expiry of a short code, a DELETE
+ * only the short code. Entries are applied in ID order. {@code split} marks
+ * an UPSERT of a link that splits its traffic, which the redirect service
+ * leaves to the main application (null in entries written before the
+ * column existed, meaning not split).
+ */
+@Entity
+@Table(name = "url_changes", indexes = {
+        @Index(name = "idx_url_changes_changed_at", columnList = "changed_at")
+})
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlChange {
+
+    public enum ChangeType {
+        UPSERT, DELETE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "short_code", nullable = false)
+    private String shortCode;
+
+    @Column(name = "original_url", length = 2048)
+    private String originalUrl;
+
+    @Column(name = "expire_at")
+    private Instant expireAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private ChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    @Column(name = "split")
+    private Boolean split;
+}
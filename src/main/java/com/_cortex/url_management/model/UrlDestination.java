@@ -0,0 +1,46 @@
+package com._cortex.url_management.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One weighted destination of a split link. A link's destinations are
+ * replaced as a set, never edited in place; the URL's
+ * {@code destinationsVersion} is the ID of the newest row of its current set.
+ * Rows refer to the URL by ID without a foreign key, so they survive the URL
+ * moving between the hot and archive tiers.
+ */
+@Entity
+@Table(name = "url_destinations", indexes = {
+        @Index(name = "idx_url_destinations_url", columnList = "url_id")
+})
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlDestination {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "url_id", nullable = false)
+    private Long urlId;
+
+    @Column(name = "position", nullable = false)
+    private int position;
+
+    @Column(name = "destination_url", nullable = false, length = 2048)
+    private String destinationUrl;
+
+    @Column(name = "weight", nullable = false)
+    private int weight;
+
+    @Column(name = "hits", nullable = false)
+    private long hits;
+}
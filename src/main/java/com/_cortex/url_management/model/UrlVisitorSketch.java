@@ -0,0 +1,43 @@
+package com._cortex.url_management.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Daily HyperLogLog sketch of distinct visitors for one URL.
+ * Not a foreign key to urls so sketches never block URL deletion;
+ * orphans age out with the retention window.
+ */
+@Entity
+@Table(name = "url_visitor_sketches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_visitor_sketch_url_day", columnNames = { "url_id", "bucket_date" })
+})
+@Getter
+@Setter
+@ToString(exclude = "registers")
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlVisitorSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "url_id", nullable = false)
+    private Long urlId;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "registers", nullable = false, length = 2048)
+    private byte[] registers;
+
+    @Version
+    private Long version;
+}
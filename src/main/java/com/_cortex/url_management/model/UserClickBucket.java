@@ -0,0 +1,41 @@
+package com._cortex.url_management.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Clicks on one user's links within one hour, used for rolling "last 24
+ * hours" totals. Buckets older than two days are pruned.
+ */
+@Entity
+@Table(name = "user_click_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_click_bucket_user_hour", columnNames = { "user_id", "bucket_start" })
+}, indexes = {
+        @Index(name = "idx_user_click_buckets_start", columnList = "bucket_start")
+})
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserClickBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "clicks", nullable = false)
+    private long clicks;
+}
@@ -0,0 +1,39 @@
+package com._cortex.url_management.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Per-user link count and click total, kept up to date incrementally as
+ * links are created, deleted and clicked. Counts cover links in both the
+ * hot and cold tiers. Not a foreign key to users so stats writes never block
+ * on user rows; a background reconciler repairs any drift.
+ */
+@Entity
+@Table(name = "user_url_stats")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserUrlStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "link_count", nullable = false)
+    private long linkCount;
+
+    @Column(name = "total_clicks", nullable = false)
+    private long totalClicks;
+
+    @Column(name = "reconciled_at")
+    private Instant reconciledAt;
+}
@@ -0,0 +1,22 @@
+package com._cortex.url_management.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Mapping a URL entity or summary to its response DTO
+ */
+@Name("url_management.DtoMapping")
+@Label("DTO Mapping")
+@Category({ "URL Shortener" })
+@Description("Mapping a URL entity or summary to its response DTO")
+@StackTrace(false)
+public class DtoMappingEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+}
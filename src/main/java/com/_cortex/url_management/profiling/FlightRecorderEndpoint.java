@@ -0,0 +1,205 @@
+package com._cortex.url_management.profiling;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Actuator endpoint controlling a continuous JDK Flight Recorder recording
+ * that includes the application's URL events.
+ * <ul>
+ * <li>{@code GET /actuator/flightrecorder} - recording status</li>
+ * <li>{@code POST /actuator/flightrecorder/start} - start a recording</li>
+ * <li>{@code POST /actuator/flightrecorder/stop} - stop and discard it</li>
+ * <li>{@code GET /actuator/flightrecorder/dump} - download the recorded window as a .jfr file</li>
+ * </ul>
+ * The recording uses the JDK "default" settings unless configured otherwise,
+ * which keep overhead around one percent, and is bounded by max age and size.
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+
+    private static final String RECORDING_NAME = "url-management";
+    private static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(
+            RedirectLookupEvent.class,
+            HitUpdateEvent.class,
+            ShortCodeGenerationEvent.class,
+            DtoMappingEvent.class,
+            PoolSizeDecisionEvent.class);
+
+    private final String settings;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private final boolean startOnStartup;
+
+    private Recording recording;
+
+    public FlightRecorderEndpoint(
+            @Value("${profiling.jfr.settings:default}") String settings,
+            @Value("${profiling.jfr.max-age:PT30M}") Duration maxAge,
+            @Value("${profiling.jfr.max-size:100MB}") DataSize maxSize,
+            @Value("${profiling.jfr.start-on-startup:false}") boolean startOnStartup) {
+        this.settings = settings;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+        this.startOnStartup = startOnStartup;
+    }
+
+    /**
+     * Start the continuous recording at boot when configured
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnStartup() {
+        if (startOnStartup) {
+            start();
+        }
+    }
+
+    /**
+     * Describe the current recording
+     */
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("recording", isRunning());
+        status.put("settings", settings);
+        status.put("maxAge", maxAge.toString());
+        status.put("maxSize", maxSize.toString());
+        if (recording != null) {
+            status.put("state", recording.getState().name());
+            status.put("startTime", recording.getStartTime());
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+    /**
+     * Start or stop the recording
+     *
+     * @param action {@code start} or {@code stop}
+     * @return the resulting status
+     */
+    @WriteOperation
+    public synchronized Map<String, Object> control(@Selector String action) {
+        switch (action) {
+            case "start" -> start();
+            case "stop" -> stop();
+            default -> throw new InvalidEndpointRequestException("Unknown action: " + action,
+                    "Action must be start or stop");
+        }
+        return status();
+    }
+
+    /**
+     * Dump the recorded window to a file and stream it back
+     *
+     * @param action must be {@code dump}
+     * @return the .jfr file, or 404 if nothing is being recorded
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump(@Selector String action) {
+        if (!"dump".equals(action)) {
+            throw new InvalidEndpointRequestException("Unknown action: " + action, "Action must be dump");
+        }
+        if (!isRunning()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+
+        try {
+            Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            recording.dump(file);
+            return new WebEndpointResponse<>(new TemporaryFileResource(file), WebEndpointResponse.STATUS_OK);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to dump flight recording", e);
+        }
+    }
+
+    private synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+
+        try {
+            Recording created = new Recording(Configuration.getConfiguration(settings));
+            created.setName(RECORDING_NAME);
+            created.setToDisk(true);
+            created.setMaxAge(maxAge);
+            created.setMaxSize(maxSize.toBytes());
+            APPLICATION_EVENTS.forEach(created::enable);
+            created.start();
+            recording = created;
+            logger.info("Started flight recording with '{}' settings", settings);
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown recording settings: " + settings,
+                    "Recording settings could not be loaded");
+        }
+    }
+
+    private synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            logger.info("Stopped flight recording");
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * Dump file that is deleted once it has been streamed to the client
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
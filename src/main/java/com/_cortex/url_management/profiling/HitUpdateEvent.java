@@ -0,0 +1,25 @@
+package com._cortex.url_management.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recording a hit for a redirected URL (ring buffer, journal or synchronous update)
+ */
+@Name("url_management.HitUpdate")
+@Label("Hit Update")
+@Category({ "URL Shortener" })
+@Description("Recording a hit for a redirected URL (ring buffer, journal or synchronous update)")
+@StackTrace(false)
+public class HitUpdateEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("URL ID")
+    public long urlId;
+}
@@ -0,0 +1,50 @@
+package com._cortex.url_management.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One sizing decision of the connection pool tuner
+ */
+@Name("url_management.PoolSizeDecision")
+@Label("Pool Size Decision")
+@Category({ "URL Shortener" })
+@Description("One sizing decision of the connection pool tuner")
+@StackTrace(false)
+public class PoolSizeDecisionEvent extends Event {
+
+    @Label("Previous Size")
+    public int previous;
+
+    @Label("Next Size")
+    public int next;
+
+    @Label("Action")
+    public String action;
+
+    @Label("Reason")
+    public String reason;
+
+    @Label("Borrows Per Second")
+    public double borrowRate;
+
+    @Label("Demand")
+    @Description("Mean busy connections over the interval (borrow rate times hold time)")
+    public double demand;
+
+    @Label("Hold Time (ms)")
+    public double usageMillis;
+
+    @Label("Acquire Time (ms)")
+    public double acquireMillis;
+
+    @Label("Threads Awaiting")
+    public int threadsAwaiting;
+
+    @Label("Concurrency Limit Bound")
+    public int concurrencyLimit;
+}
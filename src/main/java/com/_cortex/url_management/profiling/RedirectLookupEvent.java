@@ -0,0 +1,25 @@
+package com._cortex.url_management.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Short code lookup on the redirect path, including cold-tier promotion
+ */
+@Name("url_management.RedirectLookup")
+@Label("Redirect Lookup")
+@Category({ "URL Shortener" })
+@Description("Short code lookup on the redirect path, including cold-tier promotion")
+@StackTrace(false)
+public class RedirectLookupEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Found")
+    public boolean found;
+}
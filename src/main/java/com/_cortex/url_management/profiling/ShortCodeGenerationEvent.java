@@ -0,0 +1,28 @@
+package com._cortex.url_management.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One attempt to generate and claim a random short code
+ */
+@Name("url_management.ShortCodeGeneration")
+@Label("Short Code Generation")
+@Category({ "URL Shortener" })
+@Description("One attempt to generate and claim a random short code")
+@StackTrace(false)
+public class ShortCodeGenerationEvent extends Event {
+
+    @Label("Short Code")
+    public String shortCode;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Claimed")
+    public boolean claimed;
+}
@@ -0,0 +1,143 @@
+package com._cortex.url_management.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com._cortex.url_management.dto.UrlSummary;
+import com._cortex.url_management.dto.UserLinkTotals;
+import com._cortex.url_management.model.ArchivedUrl;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ArchivedUrlRepository extends JpaRepository<ArchivedUrl, Long> {
+
+    /**
+     * Check whether a short code is held by an archived URL
+     * 
+     * @param shortCode the short code
+     * @return true if an archived URL uses the code
+     */
+    boolean existsByShortCode(String shortCode);
+
+    /**
+     * Copy hot URLs into the archive, keeping their IDs
+     * 
+     * @param ids        IDs of the URLs to archive
+     * @param archivedAt the archive timestamp
+     * @return number of archived rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO urls_archive (id, short_code, original_url, created_by, created_at, "
+            + "last_accessed_at, expire_at, hits, destinations_version, archived_at) "
+            + "SELECT id, short_code, original_url, created_by, created_at, last_accessed_at, expire_at, hits, "
+            + "destinations_version, :archivedAt "
+            + "FROM urls WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromHot(@Param("ids") List<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    /**
+     * Copy an archived URL back into the hot table. The owner is dropped if the
+     * user was deleted while the URL was archived.
+     * 
+     * @param shortCode the short code to promote
+     * @param codeKey   the code key to store, or null (the archive keeps none)
+     * @return number of promoted rows (0 or 1)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO urls (id, short_code, code_key, original_url, created_by, created_at, "
+            + "last_accessed_at, expire_at, hits, destinations_version) "
+            + "SELECT a.id, a.short_code, :codeKey, a.original_url, "
+            + "(SELECT us.id FROM users us WHERE us.id = a.created_by), "
+            + "a.created_at, a.last_accessed_at, a.expire_at, a.hits, a.destinations_version "
+            + "FROM urls_archive a WHERE a.short_code = :shortCode", nativeQuery = true)
+    int copyToHot(@Param("shortCode") String shortCode, @Param("codeKey") Long codeKey);
+
+    /**
+     * Add a batch of hits to an archived URL, keeping the latest access time
+     * 
+     * @param id         the URL ID
+     * @param count      number of hits to add
+     * @param accessTime the latest access time in the batch
+     * @return number of updated rows (0 if the URL is not archived)
+     */
+    @Modifying
+    @Query("UPDATE ArchivedUrl a SET a.hits = a.hits + :count, a.lastAccessedAt = CASE "
+            + "WHEN a.lastAccessedAt IS NULL OR a.lastAccessedAt < :accessTime THEN :accessTime "
+            + "ELSE a.lastAccessedAt END WHERE a.id = :id")
+    int addHits(@Param("id") Long id, @Param("count") long count, @Param("accessTime") Instant accessTime);
+
+    /**
+     * Delete an archived URL by short code
+     * 
+     * @param shortCode the short code
+     * @return number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM ArchivedUrl a WHERE a.shortCode = :shortCode")
+    int deleteByShortCode(@Param("shortCode") String shortCode);
+
+    /**
+     * Stream summaries of archived URLs created by a user
+     * 
+     * @param userId the ID of the user
+     * @return stream of archived URL summaries
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "256"))
+    @Query("SELECT new com._cortex.url_management.dto.UrlSummary(a.id, a.shortCode, a.originalUrl, c.id, c.username, "
+            + "a.createdAt, a.lastAccessedAt, a.expireAt, a.hits) "
+            + "FROM ArchivedUrl a JOIN User c ON c.id = a.createdBy WHERE a.createdBy = :userId")
+    Stream<UrlSummary> streamSummariesByCreatedBy(@Param("userId") Long userId);
+
+    /**
+     * Find summaries of a user's archived URLs by ID
+     * 
+     * @param userId the ID of the owner
+     * @param ids    the URL IDs
+     * @return summaries of the archived URLs that still exist, in no particular order
+     */
+    @Query("SELECT new com._cortex.url_management.dto.UrlSummary(a.id, a.shortCode, a.originalUrl, c.id, c.username, "
+            + "a.createdAt, a.lastAccessedAt, a.expireAt, a.hits) "
+            + "FROM ArchivedUrl a JOIN User c ON c.id = a.createdBy WHERE a.createdBy = :userId AND a.id IN :ids")
+    List<UrlSummary> findSummariesByCreatedByAndIdIn(@Param("userId") Long userId,
+            @Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream every archived short code.
+     * Must be consumed inside a transaction and closed afterwards.
+     * 
+     * @return stream of short codes
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1024"))
+    @Query("SELECT a.shortCode FROM ArchivedUrl a")
+    Stream<String> streamAllShortCodes();
+
+    /**
+     * Find archived short codes starting with a prefix, in code order
+     * 
+     * @param prefix   the prefix (alphanumeric, so no LIKE escaping is needed)
+     * @param pageable the page to fetch
+     * @return matching short codes
+     */
+    @Query("SELECT a.shortCode FROM ArchivedUrl a WHERE a.shortCode LIKE CONCAT(:prefix, '%') ORDER BY a.shortCode")
+    List<String> findShortCodesByPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * Count archived links and sum their hits per creator
+     * 
+     * @param userIds the creators to aggregate
+     * @return totals of creators that have at least one archived URL
+     */
+    @Query("SELECT new com._cortex.url_management.dto.UserLinkTotals(a.createdBy, COUNT(a), COALESCE(SUM(a.hits), 0L)) "
+            + "FROM ArchivedUrl a WHERE a.createdBy IN :userIds GROUP BY a.createdBy")
+    List<UserLinkTotals> sumByCreators(@Param("userIds") Collection<Long> userIds);
+}
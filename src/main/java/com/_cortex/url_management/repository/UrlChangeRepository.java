@@ -0,0 +1,25 @@
+package com._cortex.url_management.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com._cortex.url_management.model.UrlChange;
+
+@Repository
+public interface UrlChangeRepository extends JpaRepository<UrlChange, Long> {
+
+    /**
+     * Delete change feed entries older than the retention window
+     * 
+     * @param before the oldest change time to keep
+     * @return number of deleted entries
+     */
+    @Modifying
+    @Query("DELETE FROM UrlChange c WHERE c.changedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
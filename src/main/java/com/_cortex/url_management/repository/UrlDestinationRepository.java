@@ -0,0 +1,34 @@
+package com._cortex.url_management.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com._cortex.url_management.model.UrlDestination;
+
+@Repository
+public interface UrlDestinationRepository extends JpaRepository<UrlDestination, Long> {
+
+    /**
+     * Find the destinations of a split link in their configured order
+     * 
+     * @param urlId the URL ID
+     * @return the destinations, empty if the link is not split
+     */
+    List<UrlDestination> findByUrlIdOrderByPosition(Long urlId);
+
+    /**
+     * Delete all destinations of URLs
+     * 
+     * @param urlIds the URL IDs
+     * @return number of deleted destinations
+     */
+    @Modifying
+    @Query("DELETE FROM UrlDestination d WHERE d.urlId IN :urlIds")
+    int deleteByUrlIdIn(@Param("urlIds") Collection<Long> urlIds);
+}
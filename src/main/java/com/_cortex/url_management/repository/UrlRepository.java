@@ -1,15 +1,26 @@
 package com._cortex.url_management.repository;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.dto.UrlSummary;
+import com._cortex.url_management.dto.UserLinkTotals;
 import com._cortex.url_management.model.Url;
 import com._cortex.url_management.model.User;
 
@@ -24,6 +35,66 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
      */
     Optional<Url> findByShortCode(String shortCode);
 
+    /**
+     * Find a URL by its integer short code key
+     * 
+     * @param codeKey the key (see ShortCodeKeys)
+     * @return Optional containing the URL if found
+     */
+    Optional<Url> findByCodeKey(Long codeKey);
+
+    /**
+     * Find what a redirect needs by short code, without loading the entity.
+     * On PostgreSQL the covering index idx_urls_shortcode_redirect, when
+     * built, answers it with an index-only scan.
+     * 
+     * @param shortCode the short code
+     * @return Optional containing the redirect target if found
+     */
+    @Query("SELECT new com._cortex.url_management.dto.RedirectTarget(u.id, u.shortCode, u.originalUrl, "
+            + "u.createdBy.id, u.expireAt, u.destinationsVersion) FROM Url u WHERE u.shortCode = :shortCode")
+    Optional<RedirectTarget> findRedirectTargetByShortCode(@Param("shortCode") String shortCode);
+
+    /**
+     * Find what a redirect needs by integer short code key, without loading
+     * the entity (covered by idx_urls_codekey_redirect on PostgreSQL)
+     * 
+     * @param codeKey the key (see ShortCodeKeys)
+     * @return Optional containing the redirect target if found
+     */
+    @Query("SELECT new com._cortex.url_management.dto.RedirectTarget(u.id, u.shortCode, u.originalUrl, "
+            + "u.createdBy.id, u.expireAt, u.destinationsVersion) FROM Url u WHERE u.codeKey = :codeKey")
+    Optional<RedirectTarget> findRedirectTargetByCodeKey(@Param("codeKey") Long codeKey);
+
+    /**
+     * Find URLs without a code key, in ID order
+     * 
+     * @param afterId  only return URLs with a greater ID
+     * @param pageable the batch to fetch
+     * @return URLs still to be assigned a code key
+     */
+    @Query("SELECT u FROM Url u WHERE u.codeKey IS NULL AND u.id > :afterId ORDER BY u.id")
+    List<Url> findWithoutCodeKey(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Set the code key of a URL without touching its other columns
+     * 
+     * @param id      the URL ID
+     * @param codeKey the key
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE Url u SET u.codeKey = :codeKey WHERE u.id = :id")
+    int assignCodeKey(@Param("id") Long id, @Param("codeKey") Long codeKey);
+
+    /**
+     * Check whether a short code is used by a hot URL
+     * 
+     * @param shortCode the short code
+     * @return true if a URL uses the code
+     */
+    boolean existsByShortCode(String shortCode);
+
     /**
      * Find all URLs created by a specific user
      * 
@@ -38,8 +109,66 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
      * @param userId the ID of the user
      * @return list of URLs created by the user
      */
+    @EntityGraph(attributePaths = "createdBy")
     List<Url> findByCreatedById(Long userId);
 
+    /**
+     * Count links and sum hits per creator
+     * 
+     * @param userIds the creators to aggregate
+     * @return totals of creators that have at least one URL
+     */
+    @Query("SELECT new com._cortex.url_management.dto.UserLinkTotals(u.createdBy.id, COUNT(u), COALESCE(SUM(u.hits), 0L)) "
+            + "FROM Url u WHERE u.createdBy.id IN :userIds GROUP BY u.createdBy.id")
+    List<UserLinkTotals> sumByCreators(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Stream summaries of all URLs created by a specific user ID, joined with
+     * the owner in one query and fetched from a cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     * 
+     * @param userId the ID of the user
+     * @return stream of URL summaries created by the user
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "256"))
+    @Query("SELECT new com._cortex.url_management.dto.UrlSummary(u.id, u.shortCode, u.originalUrl, c.id, c.username, "
+            + "u.createdAt, u.lastAccessedAt, u.expireAt, u.hits) "
+            + "FROM Url u JOIN u.createdBy c WHERE c.id = :userId")
+    Stream<UrlSummary> streamSummariesByCreatedById(@Param("userId") Long userId);
+
+    /**
+     * Find summaries of a user's URLs by ID
+     * 
+     * @param userId the ID of the owner
+     * @param ids    the URL IDs
+     * @return summaries of the URLs that still exist, in no particular order
+     */
+    @Query("SELECT new com._cortex.url_management.dto.UrlSummary(u.id, u.shortCode, u.originalUrl, c.id, c.username, "
+            + "u.createdAt, u.lastAccessedAt, u.expireAt, u.hits) "
+            + "FROM Url u JOIN u.createdBy c WHERE c.id = :userId AND u.id IN :ids")
+    List<UrlSummary> findSummariesByCreatedByIdAndIdIn(@Param("userId") Long userId,
+            @Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream every short code in the hot table.
+     * Must be consumed inside a transaction and closed afterwards.
+     * 
+     * @return stream of short codes
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1024"))
+    @Query("SELECT u.shortCode FROM Url u")
+    Stream<String> streamAllShortCodes();
+
+    /**
+     * Find short codes starting with a prefix, in code order
+     * 
+     * @param prefix   the prefix (alphanumeric, so no LIKE escaping is needed)
+     * @param pageable the page to fetch
+     * @return matching short codes
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.shortCode LIKE CONCAT(:prefix, '%') ORDER BY u.shortCode")
+    List<String> findShortCodesByPrefix(@Param("prefix") String prefix, Pageable pageable);
+
     /**
      * Find all URLs that have expired
      * 
@@ -50,30 +179,118 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
     List<Url> findExpiredUrls(@Param("now") Instant now);
 
     /**
-     * Increment the hit counter for a URL
+     * Increment the hit counter for a URL. The expiry is matched too, so on
+     * the partitioned table the update touches a single partition. It is
+     * matched to the millisecond, the precision hits carry it in.
      * 
      * @param shortCode  the short code of the URL
+     * @param expireAt   the URL's expiry, null if it never expires
      * @param accessTime the time of access
      */
+    default void incrementHits(String shortCode, Instant expireAt, Instant accessTime) {
+        if (expireAt == null) {
+            incrementHitsNeverExpiring(shortCode, accessTime);
+        } else {
+            Instant from = expireAt.truncatedTo(ChronoUnit.MILLIS);
+            incrementHitsExpiringWithin(shortCode, from, from.plusMillis(1), accessTime);
+        }
+    }
+
+    @Modifying
+    @Query("UPDATE Url u SET u.hits = u.hits + 1, u.lastAccessedAt = :accessTime "
+            + "WHERE u.shortCode = :shortCode AND u.expireAt >= :expireFrom AND u.expireAt < :expireUntil")
+    void incrementHitsExpiringWithin(@Param("shortCode") String shortCode, @Param("expireFrom") Instant expireFrom,
+            @Param("expireUntil") Instant expireUntil, @Param("accessTime") Instant accessTime);
+
+    @Modifying
+    @Query("UPDATE Url u SET u.hits = u.hits + 1, u.lastAccessedAt = :accessTime "
+            + "WHERE u.shortCode = :shortCode AND u.expireAt IS NULL")
+    void incrementHitsNeverExpiring(@Param("shortCode") String shortCode, @Param("accessTime") Instant accessTime);
+
+    /**
+     * Add a batch of hits to a URL, keeping the latest access time. The
+     * expiry is matched too (to the millisecond), so on the partitioned table
+     * the update touches a single partition.
+     * 
+     * @param id         the URL ID
+     * @param expireAt   the URL's expiry, null if it never expires
+     * @param count      number of hits to add
+     * @param accessTime the latest access time in the batch
+     * @return number of updated rows (0 if the URL no longer exists)
+     */
+    default int addHits(Long id, Instant expireAt, long count, Instant accessTime) {
+        if (expireAt == null) {
+            return addHitsNeverExpiring(id, count, accessTime);
+        }
+        Instant from = expireAt.truncatedTo(ChronoUnit.MILLIS);
+        return addHitsExpiringWithin(id, from, from.plusMillis(1), count, accessTime);
+    }
+
+    @Modifying
+    @Query("UPDATE Url u SET u.hits = u.hits + :count, u.lastAccessedAt = CASE "
+            + "WHEN u.lastAccessedAt IS NULL OR u.lastAccessedAt < :accessTime THEN :accessTime "
+            + "ELSE u.lastAccessedAt END "
+            + "WHERE u.id = :id AND u.expireAt >= :expireFrom AND u.expireAt < :expireUntil")
+    int addHitsExpiringWithin(@Param("id") Long id, @Param("expireFrom") Instant expireFrom,
+            @Param("expireUntil") Instant expireUntil, @Param("count") long count,
+            @Param("accessTime") Instant accessTime);
+
     @Modifying
-    @Query("UPDATE Url u SET u.hits = u.hits + 1, u.lastAccessedAt = :accessTime WHERE u.shortCode = :shortCode")
-    void incrementHits(@Param("shortCode") String shortCode, @Param("accessTime") Instant accessTime);
+    @Query("UPDATE Url u SET u.hits = u.hits + :count, u.lastAccessedAt = CASE "
+            + "WHEN u.lastAccessedAt IS NULL OR u.lastAccessedAt < :accessTime THEN :accessTime "
+            + "ELSE u.lastAccessedAt END WHERE u.id = :id AND u.expireAt IS NULL")
+    int addHitsNeverExpiring(@Param("id") Long id, @Param("count") long count,
+            @Param("accessTime") Instant accessTime);
 
     /**
      * Find top N most visited URLs
      * 
      * @return list of most visited URLs ordered by hits
      */
+    @EntityGraph(attributePaths = "createdBy")
     @Query("SELECT u FROM Url u ORDER BY u.hits DESC")
     List<Url> findTopByOrderByHitsDesc();
 
     /**
-     * Delete all expired URLs
+     * Stream summaries of URLs ordered by hits, joined with the (optional)
+     * owner in one query and fetched from a cursor.
+     * Must be consumed inside a transaction and closed afterwards.
      * 
-     * @param now the current timestamp
+     * @return stream of URL summaries ordered by hits
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "256"))
+    @Query("SELECT new com._cortex.url_management.dto.UrlSummary(u.id, u.shortCode, u.originalUrl, c.id, c.username, "
+            + "u.createdAt, u.lastAccessedAt, u.expireAt, u.hits) "
+            + "FROM Url u LEFT JOIN u.createdBy c ORDER BY u.hits DESC")
+    Stream<UrlSummary> streamSummariesByOrderByHitsDesc();
+
+    /**
+     * Find IDs of URLs not accessed (or, if never accessed, not created) since a cutoff
+     * 
+     * @param cutoff   the idle threshold
+     * @param pageable the batch to fetch
+     * @return IDs of idle URLs
+     */
+    @Query("SELECT u.id FROM Url u WHERE COALESCE(u.lastAccessedAt, u.createdAt) < :cutoff ORDER BY u.id")
+    List<Long> findIdleIds(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    /**
+     * Lock URLs by ID until the end of the transaction, so hit updates either
+     * commit before they are copied or find them gone
+     * 
+     * @param ids the IDs to lock
+     * @return IDs of the locked URLs
+     */
+    @Query(value = "SELECT id FROM urls WHERE id IN (:ids) FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * Delete URLs by ID
+     * 
+     * @param ids the IDs to delete
      * @return number of deleted URLs
      */
     @Modifying
-    @Query("DELETE FROM Url u WHERE u.expireAt IS NOT NULL AND u.expireAt < :now")
-    int deleteExpiredUrls(@Param("now") Instant now);
+    @Query("DELETE FROM Url u WHERE u.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
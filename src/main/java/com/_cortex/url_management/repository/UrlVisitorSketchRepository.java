@@ -0,0 +1,66 @@
+package com._cortex.url_management.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com._cortex.url_management.model.UrlVisitorSketch;
+
+@Repository
+public interface UrlVisitorSketchRepository extends JpaRepository<UrlVisitorSketch, Long> {
+
+    /**
+     * Find the sketch of a URL for one day
+     * 
+     * @param urlId      the URL ID
+     * @param bucketDate the day
+     * @return Optional containing the sketch if any visits were recorded
+     */
+    Optional<UrlVisitorSketch> findByUrlIdAndBucketDate(Long urlId, LocalDate bucketDate);
+
+    /**
+     * Find all daily sketches of a URL from a given day onwards
+     * 
+     * @param urlId the URL ID
+     * @param from  the first day to include
+     * @return list of daily sketches
+     */
+    List<UrlVisitorSketch> findByUrlIdAndBucketDateGreaterThanEqual(Long urlId, LocalDate from);
+
+    /**
+     * Delete all sketches of a URL
+     * 
+     * @param urlId the URL ID
+     * @return number of deleted sketches
+     */
+    @Modifying
+    @Query("DELETE FROM UrlVisitorSketch s WHERE s.urlId = :urlId")
+    int deleteByUrlId(@Param("urlId") Long urlId);
+
+    /**
+     * Delete all sketches of several URLs
+     * 
+     * @param urlIds the URL IDs
+     * @return number of deleted sketches
+     */
+    @Modifying
+    @Query("DELETE FROM UrlVisitorSketch s WHERE s.urlId IN :urlIds")
+    int deleteByUrlIdIn(@Param("urlIds") Collection<Long> urlIds);
+
+    /**
+     * Delete sketches older than the retention window
+     * 
+     * @param before the first day to keep
+     * @return number of deleted sketches
+     */
+    @Modifying
+    @Query("DELETE FROM UrlVisitorSketch s WHERE s.bucketDate < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
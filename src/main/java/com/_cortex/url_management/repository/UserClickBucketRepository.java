@@ -0,0 +1,45 @@
+package com._cortex.url_management.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com._cortex.url_management.model.UserClickBucket;
+
+@Repository
+public interface UserClickBucketRepository extends JpaRepository<UserClickBucket, Long> {
+
+    /**
+     * Sum a user's clicks from a bucket onwards
+     * 
+     * @param userId the user ID
+     * @param from   start of the first bucket to include
+     * @return number of clicks
+     */
+    @Query("SELECT COALESCE(SUM(b.clicks), 0) FROM UserClickBucket b WHERE b.userId = :userId AND b.bucketStart >= :from")
+    long sumClicksSince(@Param("userId") Long userId, @Param("from") Instant from);
+
+    /**
+     * Delete buckets that started before a cutoff
+     * 
+     * @param before the cutoff
+     * @return number of deleted buckets
+     */
+    @Modifying
+    @Query("DELETE FROM UserClickBucket b WHERE b.bucketStart < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+
+    /**
+     * Delete all buckets of a user
+     * 
+     * @param userId the user ID
+     * @return number of deleted buckets
+     */
+    @Modifying
+    @Query("DELETE FROM UserClickBucket b WHERE b.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
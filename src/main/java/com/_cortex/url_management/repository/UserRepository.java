@@ -1,8 +1,12 @@
 package com._cortex.url_management.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com._cortex.url_management.model.User;
@@ -25,4 +29,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Optional containing the user if found
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Find user IDs in ID order, for batch jobs over all users
+     * 
+     * @param afterId  return IDs greater than this
+     * @param pageable the batch size
+     * @return the next user IDs
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,42 @@
+package com._cortex.url_management.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com._cortex.url_management.model.UserUrlStats;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface UserUrlStatsRepository extends JpaRepository<UserUrlStats, Long> {
+
+    /**
+     * Adjust a user's link count and click total
+     * 
+     * @param userId the user ID
+     * @param links  change in link count
+     * @param clicks change in click total
+     * @return number of updated rows (0 if the user has no stats row yet)
+     */
+    @Modifying
+    @Query("UPDATE UserUrlStats s SET s.linkCount = s.linkCount + :links, s.totalClicks = s.totalClicks + :clicks "
+            + "WHERE s.userId = :userId")
+    int addTotals(@Param("userId") Long userId, @Param("links") long links, @Param("clicks") long clicks);
+
+    /**
+     * Find and lock the stats rows of several users
+     * 
+     * @param userIds the user IDs
+     * @return existing stats rows
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserUrlStats s WHERE s.userId IN :userIds")
+    List<UserUrlStats> findAllForUpdate(@Param("userIds") Collection<Long> userIds);
+}
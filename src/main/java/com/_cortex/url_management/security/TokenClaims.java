@@ -0,0 +1,13 @@
+package com._cortex.url_management.security;
+
+import java.time.Instant;
+
+/**
+ * Claims carried by a signed session token
+ *
+ * @param userId    the authenticated user's ID
+ * @param expiresAt when the token stops being accepted
+ * @param tokenId   random identifier used for revocation
+ */
+public record TokenClaims(long userId, Instant expiresAt, long tokenId) {
+}
@@ -0,0 +1,227 @@
+package com._cortex.url_management.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and verifies compact HMAC-SHA256 signed session tokens.
+ * <p>
+ * Token format: {@code <keyId>.<payload>.<signature>}, where the payload is the
+ * base64url encoding of userId (8 bytes), expiry in epoch seconds (8 bytes) and
+ * a random token ID (8 bytes). Verification needs no database access.
+ * <p>
+ * Keys are configured as {@code auth.token.keys=kid1:base64Secret,kid2:base64Secret};
+ * new tokens are signed with {@code auth.token.active-key-id} while every
+ * configured key is still accepted, which allows rotating keys without logging
+ * everyone out. Revocations are held in memory until the token would have
+ * expired anyway.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_LENGTH = 24;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, ThreadLocal<Mac>> macsByKeyId = new LinkedHashMap<>();
+    private final String activeKeyId;
+    private final Duration ttl;
+    private final int revocationCapacity;
+    private final Map<Long, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    @Autowired
+    public TokenService(
+            @Value("${auth.token.keys:}") String keys,
+            @Value("${auth.token.active-key-id:}") String activeKeyId,
+            @Value("${auth.token.ttl:PT1H}") Duration ttl,
+            @Value("${auth.token.revocation-capacity:10000}") int revocationCapacity) {
+        this(keys, activeKeyId, ttl, revocationCapacity, Clock.systemUTC());
+    }
+
+    TokenService(String keys, String activeKeyId, Duration ttl, int revocationCapacity, Clock clock) {
+        this.ttl = ttl;
+        this.revocationCapacity = Math.max(1, revocationCapacity);
+        this.clock = clock;
+
+        if (keys == null || keys.isBlank()) {
+            // Development fallback: tokens will not survive a restart or work across nodes
+            byte[] secret = new byte[32];
+            RANDOM.nextBytes(secret);
+            registerKey("dev", secret);
+            this.activeKeyId = "dev";
+            logger.warn("No auth.token.keys configured, signing session tokens with an ephemeral key");
+            return;
+        }
+
+        for (String entry : keys.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Invalid auth.token.keys entry, expected kid:base64Secret");
+            }
+            registerKey(parts[0], Base64.getDecoder().decode(parts[1]));
+        }
+
+        String active = (activeKeyId == null || activeKeyId.isBlank())
+                ? macsByKeyId.keySet().iterator().next()
+                : activeKeyId;
+        if (!macsByKeyId.containsKey(active)) {
+            throw new IllegalArgumentException("auth.token.active-key-id does not name a configured key: " + active);
+        }
+        this.activeKeyId = active;
+    }
+
+    private void registerKey(String keyId, byte[] secret) {
+        if (keyId.contains(".")) {
+            throw new IllegalArgumentException("Token key IDs must not contain '.': " + keyId);
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        macsByKeyId.put(keyId, ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialise " + HMAC_ALGORITHM, e);
+            }
+        }));
+    }
+
+    /**
+     * Issue a token for a user, signed with the active key
+     *
+     * @param userId the authenticated user's ID
+     * @return the encoded token and its claims
+     */
+    public IssuedToken issue(long userId) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        TokenClaims claims = new TokenClaims(userId, expiresAt, RANDOM.nextLong());
+
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH);
+        payload.putLong(claims.userId());
+        payload.putLong(expiresAt.getEpochSecond());
+        payload.putLong(claims.tokenId());
+
+        String signedPart = activeKeyId + "." + ENCODER.encodeToString(payload.array());
+        String signature = ENCODER.encodeToString(sign(activeKeyId, signedPart));
+        return new IssuedToken(signedPart + "." + signature, claims);
+    }
+
+    /**
+     * Verify a token's signature, expiry and revocation status
+     *
+     * @param token the encoded token
+     * @return the claims if the token is valid
+     */
+    public Optional<TokenClaims> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            return Optional.empty();
+        }
+
+        String keyId = token.substring(0, firstDot);
+        if (!macsByKeyId.containsKey(keyId)) {
+            return Optional.empty();
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(firstDot + 1, lastDot));
+            signature = DECODER.decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (payload.length != PAYLOAD_LENGTH) {
+            return Optional.empty();
+        }
+
+        byte[] expected = sign(keyId, token.substring(0, lastDot));
+        if (!MessageDigest.isEqual(expected, signature)) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        TokenClaims claims = new TokenClaims(buffer.getLong(), Instant.ofEpochSecond(buffer.getLong()), buffer.getLong());
+
+        if (!claims.expiresAt().isAfter(clock.instant()) || revokedTokens.containsKey(claims.tokenId())) {
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
+    /**
+     * Revoke a token on this node until it expires. When the revocation list
+     * is full even after purging expired entries, the revocation closest to
+     * expiry is dropped to make room, so logging out never fails.
+     *
+     * @param claims the claims of the token to revoke
+     */
+    public void revoke(TokenClaims claims) {
+        if (revokedTokens.size() >= revocationCapacity) {
+            purgeExpiredRevocations();
+            while (revokedTokens.size() >= revocationCapacity) {
+                evictSoonestExpiring();
+            }
+        }
+        revokedTokens.put(claims.tokenId(), claims.expiresAt());
+    }
+
+    /**
+     * Drop revocations for tokens that have expired on their own
+     */
+    void purgeExpiredRevocations() {
+        Instant now = clock.instant();
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    }
+
+    private void evictSoonestExpiring() {
+        revokedTokens.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .ifPresent(eldest -> {
+                    // The token becomes usable again for the rest of its (shortest remaining) lifetime
+                    revokedTokens.remove(eldest.getKey(), eldest.getValue());
+                    logger.warn("Token revocation list is full ({} entries), dropped the revocation expiring at {}",
+                            revocationCapacity, eldest.getValue());
+                });
+    }
+
+    private byte[] sign(String keyId, String signedPart) {
+        Mac mac = macsByKeyId.get(keyId).get();
+        return mac.doFinal(signedPart.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * A freshly issued token and the claims it carries
+     */
+    public record IssuedToken(String token, TokenClaims claims) {
+    }
+}
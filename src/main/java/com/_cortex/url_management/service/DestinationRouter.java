@@ -0,0 +1,168 @@
+package com._cortex.url_management.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.model.UrlDestination;
+import com._cortex.url_management.repository.UrlDestinationRepository;
+import com._cortex.url_management.util.AliasTable;
+import com._cortex.url_management.util.StripedAccumulator;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Picks the destination of each visit to a split link.
+ * <p>
+ * A link's destinations are loaded once into an alias table and cached
+ * under the link's {@code destinationsVersion}, so choosing is O(1) however
+ * many destinations there are; replacing the set bumps the version and the
+ * next redirect rebuilds the table. Per-destination hits are counted in
+ * memory and added to the rows by a scheduled flush, like the URL hit
+ * counters.
+ */
+@Service
+public class DestinationRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DestinationRouter.class);
+    private static final String ADD_HITS_SQL = "UPDATE url_destinations SET hits = hits + ? WHERE id = ?";
+
+    private final UrlDestinationRepository destinationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxSplits;
+
+    private final Map<Long, Split> splits = new ConcurrentHashMap<>();
+    private final StripedAccumulator<Long, LongAdder> pendingHits =
+            new StripedAccumulator<>(id -> new LongAdder(), (into, hits) -> into.add(hits.sum()));
+
+    public DestinationRouter(
+            UrlDestinationRepository destinationRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${links.destinations.max-cached-splits:10000}") int maxSplits) {
+        this.destinationRepository = destinationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxSplits = maxSplits;
+
+        Gauge.builder("urls.destinations.cached", splits, Map::size)
+                .description("Split links whose alias table is cached on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Choose where to send a visitor and count the visit against that
+     * destination
+     *
+     * @param target the link being visited
+     * @return the target itself if it is not split, otherwise a copy pointing
+     *         at a destination drawn by weight
+     */
+    public RedirectTarget choose(RedirectTarget target) {
+        if (target.destinationsVersion() == null) {
+            return target;
+        }
+        Split split = splits.get(target.id());
+        if (split == null || split.version() != target.destinationsVersion()) {
+            try {
+                split = load(target.id(), target.destinationsVersion());
+            } catch (DataAccessException e) {
+                // Database unavailable: send the visitor to the primary destination
+                logger.debug("Could not load destinations of URL {}: {}", target.id(), e.getMessage());
+                return target;
+            }
+            if (split == null) {
+                // Destinations removed since the target was cached
+                return target;
+            }
+        }
+
+        int chosen = split.table().sample(ThreadLocalRandom.current());
+        pendingHits.update(split.ids()[chosen], LongAdder::increment);
+        return target.withOriginalUrl(split.urls()[chosen]);
+    }
+
+    /**
+     * Hits counted on this node that have not been flushed yet
+     *
+     * @param destinationId the destination ID
+     * @return the unflushed hit count
+     */
+    public long unflushedHits(long destinationId) {
+        long[] hits = new long[1];
+        pendingHits.forEachPending(id -> id == destinationId, (id, pending) -> hits[0] += pending.sum());
+        return hits[0];
+    }
+
+    /**
+     * Drop the cached split of a link whose destinations changed or that was
+     * deleted
+     *
+     * @param urlId the URL ID
+     */
+    public void forget(long urlId) {
+        splits.remove(urlId);
+    }
+
+    /**
+     * Add in-memory destination hits to their rows
+     */
+    @Scheduled(fixedDelayString = "${links.destinations.hit-flush-interval-ms:5000}")
+    public void flushHits() {
+        Map<Long, LongAdder> batch = pendingHits.drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        batch.forEach((id, hits) -> rows.add(new Object[] { hits.sum(), id }));
+        try {
+            jdbcTemplate.batchUpdate(ADD_HITS_SQL, rows);
+        } catch (RuntimeException e) {
+            logger.warn("Destination hit flush failed for {} destinations, will retry: {}", rows.size(), e.getMessage());
+            batch.forEach(pendingHits::requeue);
+        }
+    }
+
+    private Split load(long urlId, long version) {
+        List<UrlDestination> destinations = destinationRepository.findByUrlIdOrderByPosition(urlId);
+        if (destinations.isEmpty()) {
+            splits.remove(urlId);
+            return null;
+        }
+
+        int n = destinations.size();
+        long[] ids = new long[n];
+        String[] urls = new String[n];
+        long[] weights = new long[n];
+        for (int i = 0; i < n; i++) {
+            UrlDestination destination = destinations.get(i);
+            ids[i] = destination.getId();
+            urls[i] = destination.getDestinationUrl();
+            weights[i] = destination.getWeight();
+        }
+
+        Split split = new Split(version, ids, urls, new AliasTable(weights));
+        if (splits.size() >= maxSplits && !splits.containsKey(urlId)) {
+            // Rebuilding is one indexed query per link, so a full reset is cheaper than tracking recency
+            splits.clear();
+        }
+        splits.put(urlId, split);
+        return split;
+    }
+
+    private record Split(long version, long[] ids, String[] urls, AliasTable table) {
+    }
+}
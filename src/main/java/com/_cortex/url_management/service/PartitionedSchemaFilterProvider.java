@@ -0,0 +1,64 @@
+package com._cortex.url_management.service;
+
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+/**
+ * Keeps Hibernate's schema tooling away from the range-partitioned urls
+ * table of the "partitioned" profile.
+ * <p>
+ * That table is created by {@code db/partitioned/schema.sql} without a
+ * primary key or unique short_code/code_key indexes, which PostgreSQL does
+ * not allow on a partitioned table unless they include the partition key.
+ * Left to {@code ddl-auto=update}, Hibernate would try to add the
+ * constraints the {@code Url} mapping declares and fail at startup, so the
+ * table is excluded from every schema action; all other tables are still
+ * managed by Hibernate.
+ */
+public class PartitionedSchemaFilterProvider implements SchemaFilterProvider {
+
+    private static final SchemaFilter EXCLUDE_URLS = new SchemaFilter() {
+        @Override
+        public boolean includeNamespace(Namespace namespace) {
+            return true;
+        }
+
+        @Override
+        public boolean includeTable(Table table) {
+            return !"urls".equalsIgnoreCase(table.getName());
+        }
+
+        @Override
+        public boolean includeSequence(Sequence sequence) {
+            return true;
+        }
+    };
+
+    @Override
+    public SchemaFilter getCreateFilter() {
+        return EXCLUDE_URLS;
+    }
+
+    @Override
+    public SchemaFilter getDropFilter() {
+        return EXCLUDE_URLS;
+    }
+
+    @Override
+    public SchemaFilter getTruncatorFilter() {
+        return EXCLUDE_URLS;
+    }
+
+    @Override
+    public SchemaFilter getMigrateFilter() {
+        return EXCLUDE_URLS;
+    }
+
+    @Override
+    public SchemaFilter getValidateFilter() {
+        return EXCLUDE_URLS;
+    }
+}
@@ -0,0 +1,87 @@
+package com._cortex.url_management.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import com._cortex.url_management.dto.UserLinkTotals;
+import com._cortex.url_management.tracking.VisitorSketchService;
+
+/**
+ * Cleans up everything that refers to URLs removed in bulk, by the expired
+ * URL purge or by dropping a partition.
+ * <p>
+ * Destination splits, change feed entries, visitor sketches and owner stats
+ * are updated in the caller's transaction, so they commit or roll back with
+ * the removal; the short code and search indexes drop the URLs after the
+ * commit.
+ */
+@Service
+public class RemovedUrlCleanup {
+
+    /**
+     * Maps the {@code id, short_code, created_by, hits} columns of a urls or
+     * urls_archive row
+     */
+    public static final RowMapper<RemovedUrl> ROW_MAPPER = (row, rowNum) -> new RemovedUrl(row.getLong("id"),
+            row.getString("short_code"), row.getObject("created_by", Long.class), row.getLong("hits"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShortCodeIndex shortCodeIndex;
+    private final UrlChangeFeed urlChangeFeed;
+    private final VisitorSketchService visitorSketchService;
+    private final UserStatsService userStatsService;
+    private final UrlSearchIndex urlSearchIndex;
+
+    public RemovedUrlCleanup(
+            JdbcTemplate jdbcTemplate,
+            ShortCodeIndex shortCodeIndex,
+            UrlChangeFeed urlChangeFeed,
+            VisitorSketchService visitorSketchService,
+            UserStatsService userStatsService,
+            UrlSearchIndex urlSearchIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shortCodeIndex = shortCodeIndex;
+        this.urlChangeFeed = urlChangeFeed;
+        this.visitorSketchService = visitorSketchService;
+        this.userStatsService = userStatsService;
+        this.urlSearchIndex = urlSearchIndex;
+    }
+
+    /**
+     * Clean up after URLs that were removed in the current transaction
+     *
+     * @param removed the removed URLs
+     */
+    public void cleanUp(List<RemovedUrl> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = removed.stream().map(RemovedUrl::id).toList();
+        List<String> shortCodes = removed.stream().map(RemovedUrl::shortCode).toList();
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM url_destinations WHERE url_id IN (" + placeholders + ")", ids.toArray());
+
+        urlChangeFeed.recordDeletes(shortCodes);
+        visitorSketchService.forgetAll(ids);
+        userStatsService.recordLinksDeleted(removed.stream()
+                .filter(url -> url.createdBy() != null)
+                .collect(Collectors.groupingBy(RemovedUrl::createdBy)).entrySet().stream()
+                .map(owned -> new UserLinkTotals(owned.getKey(), (long) owned.getValue().size(),
+                        owned.getValue().stream().mapToLong(RemovedUrl::hits).sum()))
+                .toList());
+        shortCodeIndex.removeAfterCommit(shortCodes);
+        removed.forEach(url -> urlSearchIndex.removeAfterCommit(url.createdBy(), url.id()));
+    }
+
+    /**
+     * A removed URL, as far as its dependents are concerned
+     */
+    public record RemovedUrl(long id, String shortCode, Long createdBy, long hits) {
+    }
+}
@@ -0,0 +1,382 @@
+package com._cortex.url_management.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.util.CompactUrlCodec;
+import com._cortex.url_management.util.ConsistentHashRing;
+import com._cortex.url_management.util.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Redirect cache sharded across application nodes.
+ * <p>
+ * The nodes form a consistent-hash ring over short codes, and each node
+ * caches only the codes it owns, so every hot code is held once in the
+ * cluster and total capacity grows with the number of nodes. A lookup of an
+ * owned code is served from the local slice or loaded from the database and
+ * cached. A lookup of another node's code is sent to that owner over
+ * {@code GET /internal/cache/redirects/{shortCode}}; if the owner cannot be
+ * reached it is skipped for {@code retry-after} and the code is loaded from
+ * the database instead.
+ * <p>
+ * Entries live for {@code ttl} at most and are dropped on the owner when the
+ * URL is deleted on any node. Destinations are held in CompactUrlCodec form.
+ * Peers authenticate with a shared secret. Lookups are exported as
+ * {@code urls.cache.lookups{result=hit|miss|peer|peer_fallback}}.
+ */
+@Service
+public class ShardedRedirectCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedRedirectCache.class);
+
+    /**
+     * Header carrying the shared peer secret
+     */
+    public static final String SECRET_HEADER = "X-Peer-Secret";
+
+    /**
+     * Base path of the internal peer endpoint
+     */
+    public static final String PEER_PATH = "/internal/cache/redirects/";
+
+    private static final int SEGMENTS = 16;
+
+    private final boolean enabled;
+    private final String self;
+    private final ConsistentHashRing ring;
+    private final byte[] secret;
+    private final Duration timeout;
+    private final long retryAfterNanos;
+    private final long ttlNanos;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final CompactUrlCodec urls = new CompactUrlCodec(1 << 16);
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final SingleFlight<String, Optional<RedirectTarget>> peerFetches = new SingleFlight<>(10_000);
+    private final Map<String, Long> peerDownUntil = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter peerLookups;
+    private final Counter peerFallbacks;
+
+    public ShardedRedirectCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cache.peers.enabled:false}") boolean enabled,
+            @Value("${cache.peers.self:}") String self,
+            @Value("${cache.peers.nodes:}") List<String> nodes,
+            @Value("${cache.peers.secret:}") String secret,
+            @Value("${cache.peers.virtual-nodes:128}") int virtualNodes,
+            @Value("${cache.peers.timeout:PT0.3S}") Duration timeout,
+            @Value("${cache.peers.retry-after:PT5S}") Duration retryAfter,
+            @Value("${cache.redirects.max-entries:100000}") int maxEntries,
+            @Value("${cache.redirects.ttl:PT5M}") Duration ttl) {
+        this.enabled = enabled;
+        this.self = normalize(self);
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.timeout = timeout;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.ttlNanos = ttl.toNanos();
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS));
+        }
+
+        List<String> members = new ArrayList<>();
+        nodes.stream().filter(node -> !node.isBlank()).map(ShardedRedirectCache::normalize).forEach(members::add);
+        if (enabled && !this.self.isEmpty() && !members.contains(this.self)) {
+            members.add(this.self);
+        }
+        if (enabled && members.size() > 1 && (this.self.isEmpty() || secret.isBlank())) {
+            throw new IllegalStateException("cache.peers.self and cache.peers.secret are required with several nodes");
+        }
+        this.ring = enabled && !members.isEmpty() ? new ConsistentHashRing(members, virtualNodes) : null;
+        if (enabled) {
+            logger.info("Redirect cache enabled on {} as one of {} nodes", this.self.isEmpty() ? "this node" : this.self,
+                    ring == null ? 1 : ring.nodes().size());
+        }
+
+        Gauge.builder("urls.cache.entries", this, ShardedRedirectCache::size)
+                .description("Redirect targets cached in this node's slice")
+                .register(meterRegistry);
+        Gauge.builder("urls.cache.decode.nanos", urls, CompactUrlCodec::meanDecodeNanos)
+                .description("Mean time to decode a cached destination, from sampled decodes")
+                .register(meterRegistry);
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.peerLookups = lookups(meterRegistry, "peer");
+        this.peerFallbacks = lookups(meterRegistry, "peer_fallback");
+    }
+
+    /**
+     * Resolve a short code through the cluster cache
+     *
+     * @param shortCode the short code
+     * @param loader    loads the target from the database
+     * @return the target, or empty if the code does not exist
+     */
+    public Optional<RedirectTarget> find(String shortCode, Supplier<Optional<RedirectTarget>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String owner = ownerOf(shortCode);
+        if (owner == null) {
+            return findOwned(shortCode, loader);
+        }
+        Long downUntil = peerDownUntil.get(owner);
+        if (downUntil != null && System.nanoTime() - downUntil < 0) {
+            peerFallbacks.increment();
+            return loader.get();
+        }
+
+        try {
+            Optional<RedirectTarget> target = peerFetches.execute(shortCode, () -> fetch(owner, shortCode)).value();
+            peerLookups.increment();
+            return target;
+        } catch (PeerUnavailableException e) {
+            peerDownUntil.put(owner, System.nanoTime() + retryAfterNanos);
+            logger.warn("Cache peer {} unavailable, loading from the database for {}s: {}", owner,
+                    Duration.ofNanos(retryAfterNanos).toSeconds(), e.getMessage());
+            peerFallbacks.increment();
+            return loader.get();
+        }
+    }
+
+    /**
+     * Resolve a short code this node is asked to own: from the local slice,
+     * else through the loader, caching what it finds
+     *
+     * @param shortCode the short code
+     * @param loader    loads the target from the database
+     * @return the target, or empty if the code does not exist
+     */
+    public Optional<RedirectTarget> findOwned(String shortCode, Supplier<Optional<RedirectTarget>> loader) {
+        Segment segment = segmentOf(shortCode);
+        Entry cached;
+        synchronized (segment) {
+            cached = segment.get(shortCode);
+        }
+        if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+            hits.increment();
+            return Optional.of(cached.toTarget(shortCode, urls));
+        }
+
+        misses.increment();
+        Optional<RedirectTarget> loaded = loader.get();
+        loaded.ifPresent(target -> {
+            Entry entry = Entry.of(target, urls);
+            synchronized (segment) {
+                segment.put(shortCode, entry);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Drop a short code from its owner's slice once the current transaction
+     * commits
+     *
+     * @param shortCode the short code
+     */
+    public void evictAfterCommit(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(shortCode);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(shortCode);
+            }
+        });
+    }
+
+    /**
+     * Drop a short code from this node's slice
+     *
+     * @param shortCode the short code
+     */
+    public void evictLocal(String shortCode) {
+        Segment segment = segmentOf(shortCode);
+        synchronized (segment) {
+            segment.remove(shortCode);
+        }
+    }
+
+    /**
+     * Check the secret presented by a peer
+     *
+     * @param presented the secret header value, or null
+     * @return true if peering is enabled and the secret matches
+     */
+    public boolean isTrustedPeer(String presented) {
+        return enabled && secret.length > 0 && presented != null
+                && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void evict(String shortCode) {
+        String owner = ownerOf(shortCode);
+        if (owner == null) {
+            evictLocal(shortCode);
+            return;
+        }
+        // Best effort; the entry expires after the TTL if the owner misses this
+        httpClient.sendAsync(request(owner, shortCode).DELETE().build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null || response.statusCode() != 204) {
+                        logger.debug("Could not evict {} on cache peer {}", shortCode, owner);
+                    }
+                });
+    }
+
+    private Optional<RedirectTarget> fetch(String owner, String shortCode) {
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request(owner, shortCode).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new PeerUnavailableException(e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PeerUnavailableException("interrupted");
+        }
+
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() != 200) {
+            throw new PeerUnavailableException("status " + response.statusCode());
+        }
+        try {
+            return Optional.of(objectMapper.readValue(response.body(), RedirectTarget.class));
+        } catch (IOException e) {
+            throw new PeerUnavailableException("unreadable response: " + e.getMessage());
+        }
+    }
+
+    private HttpRequest.Builder request(String owner, String shortCode) {
+        return HttpRequest.newBuilder(URI.create(owner + PEER_PATH + URLEncoder.encode(shortCode, StandardCharsets.UTF_8)))
+                .timeout(timeout)
+                .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Owning peer of a short code, or null if this node owns it
+     */
+    private String ownerOf(String shortCode) {
+        if (ring == null) {
+            return null;
+        }
+        String owner = ring.ownerOf(shortCode);
+        return owner.equals(self) ? null : owner;
+    }
+
+    private Segment segmentOf(String shortCode) {
+        return segments[Math.floorMod(shortCode.hashCode(), SEGMENTS)];
+    }
+
+    private int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("urls.cache.lookups")
+                .description("Redirect cache lookups by where they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String normalize(String node) {
+        String trimmed = node.strip();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    /**
+     * Cached target in compact form; {@code createdById},
+     * {@code expireAtMillis} and {@code destinationsVersion} use
+     * {@link Long#MIN_VALUE} for "none"
+     */
+    private record Entry(long id, long createdById, long expireAtMillis, long destinationsVersion, byte[] url,
+            long loadedAt) {
+
+        static Entry of(RedirectTarget target, CompactUrlCodec urls) {
+            return new Entry(target.id(),
+                    target.createdById() == null ? Long.MIN_VALUE : target.createdById(),
+                    target.expireAt() == null ? Long.MIN_VALUE : target.expireAt().toEpochMilli(),
+                    target.destinationsVersion() == null ? Long.MIN_VALUE : target.destinationsVersion(),
+                    urls.encode(target.originalUrl()), System.nanoTime());
+        }
+
+        RedirectTarget toTarget(String shortCode, CompactUrlCodec urls) {
+            return new RedirectTarget(id, shortCode, urls.decode(url),
+                    createdById == Long.MIN_VALUE ? null : createdById,
+                    expireAtMillis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(expireAtMillis),
+                    destinationsVersion == Long.MIN_VALUE ? null : destinationsVersion);
+        }
+    }
+
+    /**
+     * One LRU slice of the local cache, guarded by its own monitor
+     */
+    private static final class Segment extends LinkedHashMap<String, Entry> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static final class PeerUnavailableException extends RuntimeException {
+
+        private PeerUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
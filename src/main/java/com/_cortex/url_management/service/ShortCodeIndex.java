@@ -0,0 +1,237 @@
+package com._cortex.url_management.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.util.ShortCodeTrie;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory radix trie of every short code in the hot and cold tiers, used to
+ * answer availability checks, suggestions and prefix listings without a
+ * database round trip.
+ * <p>
+ * The trie is loaded on startup and kept in sync with creates and deletes
+ * after their transactions commit. It is advisory: inserts still check the
+ * database. A periodic rebuild picks up changes this node did not see
+ * (other instances, dropped partitions); mutations that happen while a
+ * rebuild is loading are replayed onto the new trie before it is swapped in.
+ */
+@Service
+public class ShortCodeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeIndex.class);
+
+    private final UrlRepository urlRepository;
+    private final ArchivedUrlRepository archivedUrlRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ShortCodeTrie trie = new ShortCodeTrie();
+    private List<Mutation> mutationsDuringRebuild;
+    private volatile boolean ready;
+
+    public ShortCodeIndex(
+            UrlRepository urlRepository,
+            ArchivedUrlRepository archivedUrlRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${urls.code-index.enabled:true}") boolean enabled) {
+        this.urlRepository = urlRepository;
+        this.archivedUrlRepository = archivedUrlRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+
+        Gauge.builder("urls.code-index.size", this, ShortCodeIndex::size)
+                .description("Short codes held by the in-memory code index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the index is loaded and can answer queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Check whether a code is present in the index
+     *
+     * @param shortCode the short code
+     * @return true if the code is in use
+     */
+    public boolean contains(String shortCode) {
+        lock.readLock().lock();
+        try {
+            return trie.contains(shortCode);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * List indexed codes starting with a prefix, in code order
+     *
+     * @param prefix the prefix
+     * @param limit  maximum number of codes to return
+     * @return matching short codes
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return trie.withPrefix(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a code once the current transaction commits
+     *
+     * @param shortCode the created short code
+     */
+    public void addAfterCommit(String shortCode) {
+        afterCommit(new Mutation(shortCode, true));
+    }
+
+    /**
+     * Remove codes once the current transaction commits
+     *
+     * @param shortCodes the deleted short codes
+     */
+    public void removeAfterCommit(Collection<String> shortCodes) {
+        for (String shortCode : shortCodes) {
+            afterCommit(new Mutation(shortCode, false));
+        }
+    }
+
+    private void afterCommit(Mutation mutation) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(mutation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(mutation);
+            }
+        });
+    }
+
+    private void apply(Mutation mutation) {
+        lock.writeLock().lock();
+        try {
+            mutation.applyTo(trie);
+            if (mutationsDuringRebuild != null) {
+                mutationsDuringRebuild.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load the index once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reload the index from both tiers and swap it in
+     */
+    @Scheduled(fixedDelayString = "${urls.code-index.rebuild-interval-ms:3600000}",
+            initialDelayString = "${urls.code-index.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            mutationsDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        ShortCodeTrie fresh = new ShortCodeTrie();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> codes = urlRepository.streamAllShortCodes()) {
+                    codes.forEach(fresh::add);
+                }
+                try (Stream<String> codes = archivedUrlRepository.streamAllShortCodes()) {
+                    codes.forEach(fresh::add);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Loading the short code index failed: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                mutationsDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            mutationsDuringRebuild.forEach(mutation -> mutation.applyTo(fresh));
+            mutationsDuringRebuild = null;
+            trie = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Short code index loaded {} codes in {} ms", fresh.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return trie.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Mutation(String shortCode, boolean add) {
+
+        void applyTo(ShortCodeTrie target) {
+            if (add) {
+                target.add(shortCode);
+            } else {
+                target.remove(shortCode);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com._cortex.url_management.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.util.ShortCodeKeys;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Integer code key storage mode. When enabled, every URL whose short code is
+ * Base62 and at most 10 characters long also stores the code as a bigint
+ * {@code code_key}, and hot-table lookups probe that index instead of the
+ * varchar one. Longer custom codes keep a null key and are looked up by
+ * short code.
+ * <p>
+ * Every insert path stores the key. Rows without one (created before the
+ * mode was enabled, or by an instance running with it off) are backfilled
+ * in batches, and a key miss always falls back to the short code index, so
+ * such a row is never reported missing. Lookup latency is exported per
+ * index as {@code urls.lookup}. Short code lookups use the index of the
+ * unique constraint on short_code, so a plain {@code idx_urls_shortcode}
+ * left by older versions is dropped once the mode is on.
+ * <p>
+ * Redirects read a projection of the columns they need rather than the
+ * entity. On PostgreSQL both lookup columns can get a covering index that
+ * INCLUDEs those columns, built concurrently in the background when
+ * enabled, so a redirect is an index-only scan. It fits under the btree row
+ * limit because original URLs are capped at
+ * {@link UrlService#MAX_ORIGINAL_URL_BYTES} bytes when they are created.
+ */
+@Service
+public class ShortCodeKeyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeKeyService.class);
+    private static final String REDIRECT_COLUMNS = "original_url, expire_at, id, created_by, destinations_version";
+    private static final String SHORT_CODE_INDEX = "idx_urls_shortcode";
+    // Name, key column and predicate; code_key is null for every row while the mode is off
+    private static final List<String[]> REDIRECT_INDEXES = List.of(
+            new String[] { "idx_urls_shortcode_redirect", "short_code", "" },
+            new String[] { "idx_urls_codekey_redirect", "code_key", " WHERE code_key IS NOT NULL" });
+
+    private final UrlRepository urlRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final boolean enabled;
+    private final int batchSize;
+    private final boolean redirectIndexes;
+
+    private final Timer keyLookupTimer;
+    private final Timer shortCodeLookupTimer;
+
+    private long backfillCursor;
+
+    public ShortCodeKeyService(
+            UrlRepository urlRepository,
+            TransactionTemplate transactionTemplate,
+            JdbcTemplate jdbcTemplate,
+            ClusterJobRunner clusterJobRunner,
+            MeterRegistry meterRegistry,
+            @Value("${urls.code-key.enabled:false}") boolean enabled,
+            @Value("${urls.code-key.backfill-batch-size:1000}") int batchSize,
+            @Value("${urls.redirect-index.enabled:false}") boolean redirectIndexes) {
+        this.urlRepository = urlRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterJobRunner = clusterJobRunner;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.redirectIndexes = redirectIndexes;
+
+        this.keyLookupTimer = Timer.builder("urls.lookup").tag("index", "code_key")
+                .description("Latency of hot-table short code lookups")
+                .register(meterRegistry);
+        this.shortCodeLookupTimer = Timer.builder("urls.lookup").tag("index", "short_code")
+                .description("Latency of hot-table short code lookups")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Key to store for a short code
+     *
+     * @param shortCode the short code
+     * @return the key, or null if the mode is disabled or the code does not fit
+     */
+    public Long keyFor(String shortCode) {
+        if (!enabled) {
+            return null;
+        }
+        long key = ShortCodeKeys.toKey(shortCode);
+        return key < 0 ? null : key;
+    }
+
+    /**
+     * Find a hot URL by short code, through the code key index when possible
+     *
+     * @param shortCode the short code
+     * @return Optional containing the URL if found
+     */
+    public Optional<Url> findByShortCode(String shortCode) {
+        return lookup(shortCode, urlRepository::findByShortCode, urlRepository::findByCodeKey);
+    }
+
+    /**
+     * Find what a redirect needs of a hot URL, through the code key index
+     * when possible. Runs without a transaction and leaves nothing in the
+     * persistence context.
+     *
+     * @param shortCode the short code
+     * @return Optional containing the redirect target if found
+     */
+    public Optional<RedirectTarget> findRedirectTarget(String shortCode) {
+        return lookup(shortCode, urlRepository::findRedirectTargetByShortCode,
+                urlRepository::findRedirectTargetByCodeKey);
+    }
+
+    private <T> Optional<T> lookup(String shortCode, Function<String, Optional<T>> byShortCode,
+            Function<Long, Optional<T>> byKey) {
+        Long key = keyFor(shortCode);
+        if (key == null) {
+            return shortCodeLookupTimer.record(() -> byShortCode.apply(shortCode));
+        }
+
+        Optional<T> found = keyLookupTimer.record(() -> byKey.apply(key));
+        if (found.isPresent()) {
+            return found;
+        }
+        // Not (yet) keyed, e.g. written by an instance with the mode off
+        return shortCodeLookupTimer.record(() -> byShortCode.apply(shortCode));
+    }
+
+    /**
+     * Start building the redirect indexes once the application is ready, on
+     * a background thread so startup never waits for a table scan
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRedirectIndexBuild() {
+        if (!redirectIndexes) {
+            return;
+        }
+        Thread builder = new Thread(
+                () -> clusterJobRunner.runAsLeader("redirect-indexes", this::ensureRedirectIndexes),
+                "redirect-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Drop the redundant short code index once the application is ready, on
+     * a background thread so startup never waits for the lock
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startShortCodeIndexDrop() {
+        if (!enabled) {
+            return;
+        }
+        Thread dropper = new Thread(
+                () -> clusterJobRunner.runAsLeader("short-code-index-drop", this::dropRedundantShortCodeIndex),
+                "short-code-index-drop");
+        dropper.setDaemon(true);
+        dropper.start();
+    }
+
+    /**
+     * Drop the plain short_code index that older versions created next to
+     * the unique constraint, which indexes the same column. The partitioned
+     * table has no such constraint, so there it is the only short_code index
+     * and is kept.
+     *
+     * @return true if the index was dropped
+     */
+    public boolean dropRedundantShortCodeIndex() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) this::shortCodeIndexRedundant))) {
+            return false;
+        }
+        boolean postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+
+        try {
+            jdbcTemplate.execute("DROP INDEX " + (postgres ? "CONCURRENTLY " : "") + "IF EXISTS " + SHORT_CODE_INDEX);
+            logger.info("Dropped {}; short code lookups use the unique constraint's index", SHORT_CODE_INDEX);
+            return true;
+        } catch (DataAccessException e) {
+            logger.warn("Could not drop {}: {}", SHORT_CODE_INDEX, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether urls has the plain short code index as well as a unique index
+     * on short_code alone
+     */
+    private boolean shortCodeIndexRedundant(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? "URLS" : "urls";
+        Map<String, List<String>> uniqueColumns = new HashMap<>();
+        boolean present = false;
+        try (ResultSet indexes = metaData.getIndexInfo(null, connection.getSchema(), table, false, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                String column = indexes.getString("COLUMN_NAME");
+                if (name == null || column == null) {
+                    continue;
+                }
+                present |= SHORT_CODE_INDEX.equalsIgnoreCase(name);
+                if (!indexes.getBoolean("NON_UNIQUE")) {
+                    uniqueColumns.computeIfAbsent(name, key -> new ArrayList<>()).add(column);
+                }
+            }
+        }
+        return present && uniqueColumns.values().stream()
+                .anyMatch(columns -> columns.size() == 1 && "short_code".equalsIgnoreCase(columns.get(0)));
+    }
+
+    /**
+     * Build the redirect indexes on PostgreSQL if they are missing, without
+     * blocking writes to urls
+     */
+    public void ensureRedirectIndexes() {
+        if (!"PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()))) {
+            return;
+        }
+
+        for (String[] index : REDIRECT_INDEXES) {
+            String name = index[0];
+            try {
+                List<Boolean> usable = jdbcTemplate.queryForList("SELECT indisvalid "
+                        + "AND pg_get_indexdef(indexrelid) LIKE '%original_url%' FROM pg_index "
+                        + "WHERE indexrelid = to_regclass(?)", Boolean.class, name);
+                if (!usable.isEmpty() && usable.get(0)) {
+                    continue;
+                }
+                if (!usable.isEmpty()) {
+                    // Left behind by an interrupted concurrent build, or built without original_url
+                    jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+                }
+                long start = System.nanoTime();
+                jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON urls (" + index[1]
+                        + ") INCLUDE (" + REDIRECT_COLUMNS + ")" + index[2]);
+                logger.info("Created redirect index {} in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+            } catch (DataAccessException e) {
+                // Concurrent DDL on urls, a row from before the URL size cap, or urls is partitioned
+                // (schema.sql creates them there)
+                logger.warn("Could not create redirect index {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Assign code keys to URLs stored without one, one batch per transaction.
+     * Each run continues after the last URL seen, so later runs pick up rows
+     * inserted by instances that have the mode off.
+     */
+    @Scheduled(fixedDelayString = "${urls.code-key.backfill-interval-ms:60000}")
+    public synchronized void backfill() {
+        if (!enabled) {
+            return;
+        }
+
+        int assigned = 0;
+        while (true) {
+            long[] progress = transactionTemplate.execute(status -> {
+                List<Url> batch = urlRepository.findWithoutCodeKey(backfillCursor, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    return null;
+                }
+                int count = 0;
+                for (Url url : batch) {
+                    Long key = keyFor(url.getShortCode());
+                    if (key != null) {
+                        count += urlRepository.assignCodeKey(url.getId(), key);
+                    }
+                }
+                return new long[] { batch.get(batch.size() - 1).getId(), count };
+            });
+            if (progress == null) {
+                break;
+            }
+            // Only advance past a batch once it has committed
+            backfillCursor = progress[0];
+            assigned += (int) progress[1];
+        }
+
+        if (assigned > 0) {
+            logger.info("Code key backfill assigned {} URLs", assigned);
+        }
+    }
+}
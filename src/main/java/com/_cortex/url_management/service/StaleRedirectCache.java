@@ -0,0 +1,282 @@
+package com._cortex.url_management.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com._cortex.url_management.dto.RedirectTarget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Node-local record of recently resolved redirect targets, used to keep
+ * redirects working while the database is failing over or stalled.
+ * <p>
+ * Every target loaded from the database is remembered for {@code hard-ttl}.
+ * What happens on the next lookup depends on {@code mode}:
+ * <ul>
+ * <li>{@code OFF} - lookups always go to the database</li>
+ * <li>{@code OUTAGE} - lookups go to the database; if it throws a data
+ * access or transaction error, a remembered target younger than
+ * {@code hard-ttl} is served instead</li>
+ * <li>{@code REVALIDATE} - a target younger than {@code soft-ttl} is served
+ * without a query; an older one (up to {@code hard-ttl}) is served at once
+ * and refreshed in the background, one refresh per code at a time. Errors
+ * are handled as in {@code OUTAGE}</li>
+ * </ul>
+ * A target whose {@code expireAt} has passed is never served from here.
+ * Deletes and destination changes made on this node evict the code after
+ * commit; changes made on other nodes show up within {@code soft-ttl} in
+ * {@code REVALIDATE} mode, but may be served up to {@code hard-ttl} during
+ * an outage. Lookups are exported as
+ * {@code urls.stale_cache.lookups{result=fresh|stale_revalidate|stale_outage|loaded|failed}}.
+ */
+@Service
+public class StaleRedirectCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleRedirectCache.class);
+    private static final int SEGMENTS = 16;
+
+    /**
+     * When remembered targets are served
+     */
+    public enum Mode {
+        OFF, OUTAGE, REVALIDATE
+    }
+
+    private final Mode mode;
+    private final long softTtlNanos;
+    private final long hardTtlNanos;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor refresher;
+
+    private final Counter fresh;
+    private final Counter staleRevalidate;
+    private final Counter staleOutage;
+    private final Counter loaded;
+    private final Counter failed;
+
+    public StaleRedirectCache(
+            MeterRegistry meterRegistry,
+            @Value("${cache.stale.mode:OUTAGE}") Mode mode,
+            @Value("${cache.stale.soft-ttl:PT30S}") Duration softTtl,
+            @Value("${cache.stale.hard-ttl:PT1H}") Duration hardTtl,
+            @Value("${cache.stale.max-entries:100000}") int maxEntries,
+            @Value("${cache.stale.refresh-threads:2}") int refreshThreads) {
+        if (softTtl.compareTo(hardTtl) > 0) {
+            throw new IllegalStateException("cache.stale.soft-ttl must not exceed cache.stale.hard-ttl");
+        }
+        this.mode = mode;
+        this.softTtlNanos = softTtl.toNanos();
+        this.hardTtlNanos = hardTtl.toNanos();
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS));
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // Refreshes beyond the queue are dropped: the code is still served stale and retried on a later hit
+        this.refresher = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+                    Thread thread = new Thread(runnable, "redirect-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("urls.stale_cache.entries", this, StaleRedirectCache::size)
+                .description("Redirect targets remembered for stale serving")
+                .register(meterRegistry);
+        this.fresh = lookups(meterRegistry, "fresh");
+        this.staleRevalidate = lookups(meterRegistry, "stale_revalidate");
+        this.staleOutage = lookups(meterRegistry, "stale_outage");
+        this.loaded = lookups(meterRegistry, "loaded");
+        this.failed = lookups(meterRegistry, "failed");
+    }
+
+    /**
+     * Resolve a short code, falling back to a remembered target as the mode
+     * allows
+     *
+     * @param shortCode the short code
+     * @param loader    loads the target from the database
+     * @return the target, or empty if the code does not exist
+     * @throws DataAccessException  if the database fails and nothing usable is
+     *                              remembered
+     * @throws TransactionException likewise, when no connection can be opened
+     */
+    public Optional<RedirectTarget> find(String shortCode, Supplier<Optional<RedirectTarget>> loader) {
+        if (mode == Mode.OFF) {
+            return loader.get();
+        }
+
+        Entry cached = usable(shortCode);
+        if (mode == Mode.REVALIDATE && cached != null) {
+            long age = System.nanoTime() - cached.loadedAt();
+            if (age < softTtlNanos) {
+                fresh.increment();
+                return Optional.of(cached.target());
+            }
+            staleRevalidate.increment();
+            refreshAsync(shortCode, loader);
+            return Optional.of(cached.target());
+        }
+
+        try {
+            Optional<RedirectTarget> target = load(shortCode, loader);
+            loaded.increment();
+            return target;
+        } catch (DataAccessException | TransactionException e) {
+            if (cached == null) {
+                failed.increment();
+                throw e;
+            }
+            staleOutage.increment();
+            logger.debug("Serving stale redirect for {} after database error: {}", shortCode, e.getMessage());
+            return Optional.of(cached.target());
+        }
+    }
+
+    /**
+     * Forget a short code once the current transaction commits
+     *
+     * @param shortCode the short code
+     */
+    public void evictAfterCommit(String shortCode) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(shortCode);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(shortCode);
+            }
+        });
+    }
+
+    private Optional<RedirectTarget> load(String shortCode, Supplier<Optional<RedirectTarget>> loader) {
+        Optional<RedirectTarget> target = loader.get();
+        Segment segment = segmentOf(shortCode);
+        synchronized (segment) {
+            if (target.isPresent()) {
+                segment.put(shortCode, new Entry(target.get(), System.nanoTime()));
+            } else {
+                segment.remove(shortCode);
+            }
+        }
+        return target;
+    }
+
+    private void refreshAsync(String shortCode, Supplier<Optional<RedirectTarget>> loader) {
+        if (!refreshing.add(shortCode)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(shortCode, loader);
+                } catch (RuntimeException e) {
+                    // Keep serving the old target until hard-ttl; the next stale hit retries
+                    logger.debug("Background refresh of {} failed: {}", shortCode, e.getMessage());
+                } finally {
+                    refreshing.remove(shortCode);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(shortCode);
+        }
+    }
+
+    /**
+     * Remembered entry that may still be served: younger than hard-ttl and
+     * not past its expireAt
+     */
+    private Entry usable(String shortCode) {
+        Segment segment = segmentOf(shortCode);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(shortCode);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.loadedAt() >= hardTtlNanos || entry.target().isExpired(Instant.now())) {
+            evict(shortCode);
+            return null;
+        }
+        return entry;
+    }
+
+    private void evict(String shortCode) {
+        Segment segment = segmentOf(shortCode);
+        synchronized (segment) {
+            segment.remove(shortCode);
+        }
+    }
+
+    private Segment segmentOf(String shortCode) {
+        return segments[Math.floorMod(shortCode.hashCode(), SEGMENTS)];
+    }
+
+    private int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("urls.stale_cache.lookups")
+                .description("Redirect lookups by whether a remembered target was served")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(RedirectTarget target, long loadedAt) {
+    }
+
+    /**
+     * One LRU slice, guarded by its own monitor
+     */
+    private static final class Segment extends LinkedHashMap<String, Entry> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+}
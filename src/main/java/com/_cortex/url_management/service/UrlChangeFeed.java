@@ -0,0 +1,86 @@
+package com._cortex.url_management.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.model.UrlChange;
+import com._cortex.url_management.repository.UrlChangeRepository;
+
+/**
+ * Writes the url_changes feed consumed by the standalone redirect service.
+ * Entries are written in the same transaction as the URL change itself, so
+ * the feed never shows a change that was rolled back. Old entries are pruned
+ * after the retention period; a redirect service that falls further behind
+ * reloads from the urls tables instead.
+ */
+@Service
+public class UrlChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlChangeFeed.class);
+
+    private final UrlChangeRepository urlChangeRepository;
+    private final boolean enabled;
+    private final Duration retention;
+
+    public UrlChangeFeed(
+            UrlChangeRepository urlChangeRepository,
+            @Value("${urls.change-feed.enabled:false}") boolean enabled,
+            @Value("${urls.change-feed.retention:P7D}") Duration retention) {
+        this.urlChangeRepository = urlChangeRepository;
+        this.enabled = enabled;
+        this.retention = retention;
+    }
+
+    /**
+     * Record a created or updated URL, including a change to its destinations
+     * 
+     * @param url the URL
+     */
+    public void recordUpsert(Url url) {
+        if (enabled) {
+            urlChangeRepository.save(new UrlChange(null, url.getShortCode(), url.getOriginalUrl(), url.getExpireAt(),
+                    UrlChange.ChangeType.UPSERT, Instant.now(), url.getDestinationsVersion() != null));
+        }
+    }
+
+    /**
+     * Record deleted short codes
+     * 
+     * @param shortCodes the deleted codes
+     */
+    public void recordDeletes(Collection<String> shortCodes) {
+        if (!enabled || shortCodes.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<UrlChange> changes = shortCodes.stream()
+                .map(shortCode -> new UrlChange(null, shortCode, null, null, UrlChange.ChangeType.DELETE, now, null))
+                .toList();
+        urlChangeRepository.saveAll(changes);
+    }
+
+    /**
+     * Drop entries older than the retention period
+     */
+    @Scheduled(cron = "${urls.change-feed.prune-cron:0 30 3 * * *}")
+    @Transactional
+    public void prune() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = urlChangeRepository.deleteOlderThan(Instant.now().minus(retention));
+        if (deleted > 0) {
+            logger.info("Pruned {} URL change feed entries", deleted);
+        }
+    }
+}
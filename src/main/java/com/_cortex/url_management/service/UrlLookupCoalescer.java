@@ -0,0 +1,59 @@
+package com._cortex.url_management.service;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.util.SingleFlight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deduplicates concurrent redirect lookups of the same short code, so a burst
+ * of requests for one viral link costs one database query at a time instead
+ * of one per request. Waiters share the loaded redirect target, which is immutable.
+ * <p>
+ * Queries and shared results are exported as {@code urls.lookup.calls} with
+ * a {@code result} tag of {@code loaded} or {@code shared}.
+ */
+@Service
+public class UrlLookupCoalescer {
+
+    private final SingleFlight<String, Optional<RedirectTarget>> flights;
+    private final Counter loaded;
+    private final Counter shared;
+
+    public UrlLookupCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${urls.lookup.coalescing.max-keys:10000}") int maxKeys) {
+        this.flights = new SingleFlight<>(maxKeys);
+
+        Gauge.builder("urls.lookup.inflight", flights, SingleFlight::inFlight)
+                .description("Short codes with a coalesced lookup in flight")
+                .register(meterRegistry);
+        this.loaded = Counter.builder("urls.lookup.calls").tag("result", "loaded")
+                .description("Redirect lookups by whether they queried or shared another request's query")
+                .register(meterRegistry);
+        this.shared = Counter.builder("urls.lookup.calls").tag("result", "shared")
+                .description("Redirect lookups by whether they queried or shared another request's query")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Look up a short code, joining a lookup of the same code already in flight
+     *
+     * @param shortCode the short code
+     * @param loader    performs the actual lookup
+     * @return the lookup result
+     */
+    public Optional<RedirectTarget> find(String shortCode, Supplier<Optional<RedirectTarget>> loader) {
+        SingleFlight.Outcome<Optional<RedirectTarget>> outcome = flights.execute(shortCode, loader);
+        (outcome.shared() ? shared : loaded).increment();
+        return outcome.value();
+    }
+}
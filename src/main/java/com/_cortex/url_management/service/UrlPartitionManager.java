@@ -0,0 +1,198 @@
+package com._cortex.url_management.service;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.jobs.ClusterJobRunner;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Maintains the expire_at range partitions of the urls table in the
+ * "partitioned" schema mode (PostgreSQL only).
+ * <p>
+ * Buckets of {@code bucket-days} are created ahead of time, moving any rows
+ * that were parked in the default partition into them, and partitions whose
+ * upper bound has passed are detached and dropped, so expiring a whole bucket
+ * costs O(1) instead of a row-by-row delete. Before a drop, the partition's
+ * rows are read in ID order to clean up their dependents (destinations,
+ * change feed, visitor sketches, owner stats, indexes) in the same
+ * transaction, so a failed drop leaves nothing half cleaned. Partitions are named
+ * {@code urls_p_<from>_<to>} with both bounds as yyyyMMdd (UTC).
+ * <p>
+ * Because a partitioned table cannot have a unique index on short_code alone,
+ * this class also provides the per-code advisory lock used to keep
+ * short-code uniqueness checks race-free.
+ */
+@Service
+@ConditionalOnProperty(name = "urls.partitioning.enabled", havingValue = "true")
+public class UrlPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlPartitionManager.class);
+    private static final String DEFAULT_PARTITION = "urls_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("urls_p_(\\d{8})_(\\d{8})");
+    private static final DateTimeFormatter NAME_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int CLEANUP_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final RemovedUrlCleanup removedUrlCleanup;
+    private final int bucketDays;
+    private final int premakeBuckets;
+    private final AtomicLong partitionCount = new AtomicLong(-1);
+
+    public UrlPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ClusterJobRunner clusterJobRunner,
+            RemovedUrlCleanup removedUrlCleanup,
+            MeterRegistry meterRegistry,
+            @Value("${urls.partitioning.bucket-days:7}") int bucketDays,
+            @Value("${urls.partitioning.premake-buckets:8}") int premakeBuckets) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterJobRunner = clusterJobRunner;
+        this.removedUrlCleanup = removedUrlCleanup;
+        this.bucketDays = bucketDays;
+        this.premakeBuckets = premakeBuckets;
+
+        // Lookups by short code cannot be pruned, so each one probes this many short_code indexes
+        Gauge.builder("urls.partitions", partitionCount, AtomicLong::get)
+                .description("Partitions of the urls table, including the default partition")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Serialize inserts of the same short code for the rest of the current
+     * transaction (must be called inside one)
+     * 
+     * @param shortCode the short code about to be checked and inserted
+     */
+    public void lockShortCode(String shortCode) {
+        jdbcTemplate.queryForObject("SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext(?))) l",
+                Integer.class, shortCode);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    /**
+     * Create upcoming partitions and drop fully expired ones. Only one
+     * instance runs this at a time, since concurrent DDL on the same
+     * partitions would fail; every instance then refreshes its partition
+     * count.
+     */
+    @Scheduled(cron = "${urls.partitioning.maintenance-cron:0 5 * * * *}")
+    public void maintain() {
+        clusterJobRunner.runAsLeader("url-partitions", () -> {
+            createUpcomingPartitions();
+            dropExpiredPartitions();
+        });
+        partitionCount.set(listPartitions().size());
+    }
+
+    private void createUpcomingPartitions() {
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        LocalDate bucketStart = LocalDate.ofEpochDay(today - Math.floorMod(today, bucketDays));
+        Set<String> existing = new HashSet<>(listPartitions());
+
+        for (int i = 0; i <= premakeBuckets; i++) {
+            LocalDate from = bucketStart.plusDays((long) i * bucketDays);
+            LocalDate to = from.plusDays(bucketDays);
+            String name = "urls_p_" + NAME_DATE.format(from) + "_" + NAME_DATE.format(to);
+            if (!existing.contains(name)) {
+                createPartition(name, from, to);
+            }
+        }
+    }
+
+    private void createPartition(String name, LocalDate from, LocalDate to) {
+        OffsetDateTime lower = from.atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime upper = to.atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        Integer moved = transactionTemplate.execute(status -> {
+            // Keep new rows for this range out of the default partition until it is attached
+            jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN EXCLUSIVE MODE");
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE urls INCLUDING DEFAULTS)");
+            int rows = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                    + " WHERE expire_at >= ? AND expire_at < ? RETURNING *) INSERT INTO " + name
+                    + " SELECT * FROM moved", lower, upper);
+            jdbcTemplate.execute("ALTER TABLE urls ATTACH PARTITION " + name
+                    + " FOR VALUES FROM ('" + lower + "') TO ('" + upper + "')");
+            return rows;
+        });
+        logger.info("Created URL partition {} ({} rows moved from default partition)", name, moved);
+    }
+
+    private void dropExpiredPartitions() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (String name : listPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate upper = LocalDate.parse(matcher.group(2), NAME_DATE);
+            if (!upper.isAfter(today)) {
+                Integer removed = transactionTemplate.execute(status -> {
+                    int cleaned = cleanUpDependents(name);
+                    jdbcTemplate.execute("ALTER TABLE urls DETACH PARTITION " + name);
+                    jdbcTemplate.execute("DROP TABLE " + name);
+                    return cleaned;
+                });
+                logger.info("Dropped expired URL partition {} ({} URLs)", name, removed);
+            }
+        }
+    }
+
+    /**
+     * Clean up the dependents of every row in a partition about to be
+     * dropped, reading it in ID order
+     *
+     * @return number of rows in the partition
+     */
+    private int cleanUpDependents(String partition) {
+        int cleaned = 0;
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<RemovedUrlCleanup.RemovedUrl> chunk = jdbcTemplate.query("SELECT id, short_code, created_by, hits FROM "
+                    + partition + " WHERE id > ? ORDER BY id LIMIT ?", RemovedUrlCleanup.ROW_MAPPER, afterId,
+                    CLEANUP_CHUNK);
+            if (chunk.isEmpty()) {
+                return cleaned;
+            }
+            removedUrlCleanup.cleanUp(chunk);
+            cleaned += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).id();
+        }
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "JOIN pg_class p ON p.oid = i.inhparent "
+                + "WHERE p.relname = 'urls'", String.class);
+    }
+}
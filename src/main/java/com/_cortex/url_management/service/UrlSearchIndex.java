@@ -0,0 +1,267 @@
+package com._cortex.url_management.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.dto.UrlSummary;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.util.TrigramIndex;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-user trigram indexes over original URLs, backing substring and domain
+ * search of a user's links.
+ * <p>
+ * A user's index is built from both tiers on their first search and kept in
+ * an LRU of {@code max-users} entries. Creates and deletes on this node are
+ * applied after commit (and replayed onto an index that is loading at the
+ * time); changes made by other instances are picked up when the index is
+ * rebuilt after {@code index-ttl}.
+ */
+@Service
+public class UrlSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlSearchIndex.class);
+
+    private final UrlRepository urlRepository;
+    private final ArchivedUrlRepository archivedUrlRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long ttlNanos;
+    private final Timer buildTimer;
+    private final Map<Long, UserIndex> indexes;
+
+    public UrlSearchIndex(
+            UrlRepository urlRepository,
+            ArchivedUrlRepository archivedUrlRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${urls.search.max-users:1000}") int maxUsers,
+            @Value("${urls.search.index-ttl:PT10M}") Duration ttl) {
+        this.urlRepository = urlRepository;
+        this.archivedUrlRepository = archivedUrlRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ttlNanos = ttl.toNanos();
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserIndex> eldest) {
+                return size() > maxUsers;
+            }
+        };
+
+        Gauge.builder("urls.search.indexed-users", this, UrlSearchIndex::indexedUsers)
+                .description("Users whose URL search index is in memory")
+                .register(meterRegistry);
+        this.buildTimer = Timer.builder("urls.search.build")
+                .description("Time to load one user's URL search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find a user's URLs by substring and/or domain, newest first
+     *
+     * @param userId    the owner
+     * @param substring text the original URL must contain, or null
+     * @param domain    host the URL must be on (including subdomains), or null
+     * @return IDs of all matching URLs
+     */
+    public List<Long> search(Long userId, String substring, String domain) {
+        UserIndex userIndex = userIndex(userId);
+        userIndex.ensureFresh(userId);
+        userIndex.lock.readLock().lock();
+        try {
+            return userIndex.index.search(substring, domain);
+        } finally {
+            userIndex.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a URL to its owner's index once the current transaction commits
+     *
+     * @param userId      the owner, or null for guest URLs
+     * @param id          the URL ID
+     * @param originalUrl the original URL
+     */
+    public void addAfterCommit(Long userId, long id, String originalUrl) {
+        if (userId != null) {
+            afterCommit(userId, new Mutation(id, originalUrl));
+        }
+    }
+
+    /**
+     * Remove a URL from its owner's index once the current transaction commits
+     *
+     * @param userId the owner, or null for guest URLs
+     * @param id     the URL ID
+     */
+    public void removeAfterCommit(Long userId, long id) {
+        if (userId != null) {
+            afterCommit(userId, new Mutation(id, null));
+        }
+    }
+
+    private void afterCommit(Long userId, Mutation mutation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, mutation);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, mutation);
+            }
+        });
+    }
+
+    private void apply(Long userId, Mutation mutation) {
+        UserIndex userIndex;
+        synchronized (indexes) {
+            userIndex = indexes.get(userId);
+        }
+        if (userIndex == null) {
+            // Not loaded; the next search builds it from the database
+            return;
+        }
+
+        userIndex.lock.writeLock().lock();
+        try {
+            if (userIndex.index != null) {
+                mutation.applyTo(userIndex.index);
+            }
+            if (userIndex.mutationsDuringBuild != null) {
+                userIndex.mutationsDuringBuild.add(mutation);
+            }
+        } finally {
+            userIndex.lock.writeLock().unlock();
+        }
+    }
+
+    private UserIndex userIndex(Long userId) {
+        synchronized (indexes) {
+            return indexes.computeIfAbsent(userId, id -> new UserIndex());
+        }
+    }
+
+    private int indexedUsers() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+
+    private TrigramIndex load(Long userId) {
+        List<UrlSummary> owned = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<UrlSummary> urls = urlRepository.streamSummariesByCreatedById(userId)) {
+                urls.forEach(owned::add);
+            }
+            try (Stream<UrlSummary> archived = archivedUrlRepository.streamSummariesByCreatedBy(userId)) {
+                archived.forEach(owned::add);
+            }
+        });
+
+        // Index in ID order so results come back newest first
+        owned.sort(Comparator.comparing(UrlSummary::id));
+        TrigramIndex index = new TrigramIndex();
+        owned.forEach(url -> index.add(url.id(), url.originalUrl()));
+        return index;
+    }
+
+    /**
+     * One user's index; built by one thread at a time, searched under the
+     * read lock
+     */
+    private final class UserIndex {
+
+        private final ReentrantLock buildLock = new ReentrantLock();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private TrigramIndex index;
+        private List<Mutation> mutationsDuringBuild;
+        private volatile long builtAt;
+
+        private void ensureFresh(Long userId) {
+            if (isFresh()) {
+                return;
+            }
+            buildLock.lock();
+            try {
+                if (!isFresh()) {
+                    build(userId);
+                }
+            } finally {
+                buildLock.unlock();
+            }
+        }
+
+        private boolean isFresh() {
+            return builtAt != 0 && System.nanoTime() - builtAt < ttlNanos;
+        }
+
+        private void build(Long userId) {
+            lock.writeLock().lock();
+            try {
+                mutationsDuringBuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long start = System.nanoTime();
+            TrigramIndex fresh;
+            try {
+                fresh = load(userId);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    mutationsDuringBuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            buildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            lock.writeLock().lock();
+            try {
+                mutationsDuringBuild.forEach(mutation -> mutation.applyTo(fresh));
+                mutationsDuringBuild = null;
+                index = fresh;
+                builtAt = System.nanoTime();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.debug("Loaded URL search index of user {} ({} URLs)", userId, fresh.size());
+        }
+    }
+
+    private record Mutation(long id, String originalUrl) {
+
+        void applyTo(TrigramIndex target) {
+            if (originalUrl != null) {
+                target.add(id, originalUrl);
+            } else {
+                target.remove(id);
+            }
+        }
+    }
+}
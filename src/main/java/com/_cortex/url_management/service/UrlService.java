@@ -1,15 +1,44 @@
 package com._cortex.url_management.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com._cortex.url_management.dto.DestinationRequest;
+import com._cortex.url_management.dto.DestinationResponse;
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.dto.UrlSummary;
+import com._cortex.url_management.dto.UserLinkTotals;
+import com._cortex.url_management.jobs.ExpiredUrlPurgeJob;
 import com._cortex.url_management.model.*;
+import com._cortex.url_management.profiling.HitUpdateEvent;
+import com._cortex.url_management.profiling.RedirectLookupEvent;
+import com._cortex.url_management.profiling.ShortCodeGenerationEvent;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlDestinationRepository;
 import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.tracking.HitTracker;
+import com._cortex.url_management.tracking.VisitorSketchService;
+import com._cortex.url_management.util.DtoMapper;
 import com._cortex.url_management.util.ShortCodeGenerator;
+import com._cortex.url_management.web.ServerTiming;
 
 import lombok.RequiredArgsConstructor;
 
@@ -17,7 +46,34 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UrlService {
 
+    private static final int MAX_CUSTOM_CODE_LENGTH = 20;
+    /**
+     * Longest original URL in UTF-8 bytes, so it fits in the covering
+     * redirect indexes (see ShortCodeKeyService) under PostgreSQL's btree
+     * row limit of about 2.7 KB
+     */
+    static final int MAX_ORIGINAL_URL_BYTES = 2048;
+    // Candidates checked per suggestion request: cheap against the index, one query each without it
+    private static final int INDEXED_SUGGESTION_CANDIDATES = 400;
+    private static final int UNINDEXED_SUGGESTION_CANDIDATES = 20;
+
     private final UrlRepository urlRepository;
+    private final ArchivedUrlRepository archivedUrlRepository;
+    private final UrlTieringService urlTieringService;
+    private final HitTracker hitTracker;
+    private final VisitorSketchService visitorSketchService;
+    private final ObjectProvider<UrlPartitionManager> urlPartitionManager;
+    private final ShortCodeIndex shortCodeIndex;
+    private final ShortCodeKeyService shortCodeKeyService;
+    private final UrlLookupCoalescer urlLookupCoalescer;
+    private final UrlChangeFeed urlChangeFeed;
+    private final ExpiredUrlPurgeJob expiredUrlPurgeJob;
+    private final UserStatsService userStatsService;
+    private final UrlSearchIndex urlSearchIndex;
+    private final ShardedRedirectCache redirectCache;
+    private final StaleRedirectCache staleRedirectCache;
+    private final UrlDestinationRepository destinationRepository;
+    private final DestinationRouter destinationRouter;
 
     /**
      * Create a shortened URL with auto-generated short code
@@ -26,18 +82,27 @@ public class UrlService {
      * @param createdBy   the user creating the URL (optional)
      * @param expireAt    the expiration time (optional)
      * @return the created URL
+     * @throws IllegalArgumentException if the original URL is too long
      */
     @Transactional
     public Url createShortUrl(String originalUrl, User createdBy, Instant expireAt) {
+        checkOriginalUrlSize(originalUrl);
         String shortCode = generateUniqueShortCode();
 
         Url url = new Url();
         url.setShortCode(shortCode);
+        url.setCodeKey(shortCodeKeyService.keyFor(shortCode));
         url.setOriginalUrl(originalUrl);
         url.setCreatedBy(createdBy);
         url.setExpireAt(expireAt);
 
-        return urlRepository.save(url);
+        Url saved = urlRepository.save(url);
+        shortCodeIndex.addAfterCommit(saved.getShortCode());
+        urlChangeFeed.recordUpsert(saved);
+        userStatsService.recordLinkCreated(createdBy);
+        urlSearchIndex.addAfterCommit(createdBy == null ? null : createdBy.getId(), saved.getId(),
+                saved.getOriginalUrl());
+        return saved;
     }
 
     /**
@@ -48,51 +113,117 @@ public class UrlService {
      * @param createdBy       the user creating the URL (optional)
      * @param expireAt        the expiration time (optional)
      * @return the created URL
-     * @throws IllegalArgumentException if short code already exists
+     * @throws IllegalArgumentException if short code already exists or the
+     *                                  original URL is too long
      */
     @Transactional
     public Url createCustomShortUrl(String originalUrl, String customShortCode, User createdBy, Instant expireAt) {
-        // Check if short code already exists
-        if (urlRepository.findByShortCode(customShortCode).isPresent()) {
+        checkOriginalUrlSize(originalUrl);
+        // Check if short code already exists (in either tier)
+        if (!claimShortCode(customShortCode)) {
             throw new IllegalArgumentException("Short code already exists: " + customShortCode);
         }
 
         Url url = new Url();
         url.setShortCode(customShortCode);
+        url.setCodeKey(shortCodeKeyService.keyFor(customShortCode));
         url.setOriginalUrl(originalUrl);
         url.setCreatedBy(createdBy);
         url.setExpireAt(expireAt);
 
-        return urlRepository.save(url);
+        Url saved = urlRepository.save(url);
+        shortCodeIndex.addAfterCommit(saved.getShortCode());
+        urlChangeFeed.recordUpsert(saved);
+        userStatsService.recordLinkCreated(createdBy);
+        urlSearchIndex.addAfterCommit(createdBy == null ? null : createdBy.getId(), saved.getId(),
+                saved.getOriginalUrl());
+        return saved;
     }
 
     /**
-     * Find a URL by short code and increment hit counter
+     * Find a URL by short code and increment hit counter. Runs outside a
+     * transaction: the lookup is a read-only projection and hit tracking
+     * manages its own writes.
      * 
      * @param shortCode the short code
+     * @param clientIp  the visitor's IP address
+     * @param userAgent the visitor's User-Agent header
      * @return Optional containing the URL if found and not expired
      */
-    @Transactional
-    public Optional<Url> findByShortCodeAndTrack(String shortCode) {
-        Optional<Url> urlOpt = urlRepository.findByShortCode(shortCode);
+    public Optional<RedirectTarget> findByShortCodeAndTrack(String shortCode, String clientIp, String userAgent) {
+        RedirectLookupEvent lookupEvent = new RedirectLookupEvent();
+        lookupEvent.begin();
+        // Served by the owning node's cache when peering is on; concurrent misses share one query
+        Optional<RedirectTarget> targetOpt = redirectCache.find(shortCode, () -> loadRedirectTarget(shortCode));
+        if (lookupEvent.shouldCommit()) {
+            lookupEvent.shortCode = shortCode;
+            lookupEvent.found = targetOpt.isPresent();
+            lookupEvent.commit();
+        }
 
-        if (urlOpt.isPresent()) {
-            Url url = urlOpt.get();
+        if (targetOpt.isPresent()) {
+            RedirectTarget target = targetOpt.get();
 
             // Check if URL has expired
-            if (url.getExpireAt() != null && url.getExpireAt().isBefore(Instant.now())) {
+            if (target.isExpired(Instant.now())) {
                 return Optional.empty();
             }
 
+            // Split links pick a destination by weight
+            target = destinationRouter.choose(target);
+
             // Increment hit counter
-            urlRepository.incrementHits(shortCode, Instant.now());
+            HitUpdateEvent hitEvent = new HitUpdateEvent();
+            hitEvent.begin();
+            long hitStart = ServerTiming.start();
+            hitTracker.recordHit(target, Instant.now(), clientIp, userAgent);
+            ServerTiming.stop(ServerTiming.Phase.HIT_UPDATE, hitStart);
+            if (hitEvent.shouldCommit()) {
+                hitEvent.shortCode = shortCode;
+                hitEvent.urlId = target.id();
+                hitEvent.commit();
+            }
 
-            return urlOpt;
+            return Optional.of(target);
         }
 
         return Optional.empty();
     }
 
+    /**
+     * Resolve a short code owned by this node for a cache peer, without
+     * tracking a hit (the peer tracks it)
+     * 
+     * @param shortCode the short code
+     * @return the redirect target if the URL exists
+     */
+    public Optional<RedirectTarget> findRedirectTargetForPeer(String shortCode) {
+        return redirectCache.findOwned(shortCode, () -> loadRedirectTarget(shortCode));
+    }
+
+    private Optional<RedirectTarget> loadRedirectTarget(String shortCode) {
+        // Falls back to the last known target while the database is unavailable
+        return staleRedirectCache.find(shortCode,
+                () -> urlLookupCoalescer.find(shortCode, () -> findRedirectTargetOrPromote(shortCode)));
+    }
+
+    /**
+     * Projection of a hot URL, promoting it from the cold tier if needed
+     */
+    private Optional<RedirectTarget> findRedirectTargetOrPromote(String shortCode) {
+        Optional<RedirectTarget> target = shortCodeKeyService.findRedirectTarget(shortCode);
+        if (target.isPresent() || !urlTieringService.isEnabled()) {
+            return target;
+        }
+
+        try {
+            return urlTieringService.promote(shortCode).map(RedirectTarget::from);
+        } catch (DataIntegrityViolationException e) {
+            // Promoted concurrently by another request
+            return shortCodeKeyService.findRedirectTarget(shortCode);
+        }
+    }
+
     /**
      * Find a URL by short code without tracking
      * 
@@ -100,7 +231,25 @@ public class UrlService {
      * @return Optional containing the URL if found
      */
     public Optional<Url> findByShortCode(String shortCode) {
-        return urlRepository.findByShortCode(shortCode);
+        return findHotOrPromote(shortCode);
+    }
+
+    /**
+     * Look up a short code in the hot table, falling through to the cold tier
+     * (which promotes the URL back) on a miss
+     */
+    private Optional<Url> findHotOrPromote(String shortCode) {
+        Optional<Url> urlOpt = shortCodeKeyService.findByShortCode(shortCode);
+        if (urlOpt.isPresent() || !urlTieringService.isEnabled()) {
+            return urlOpt;
+        }
+
+        try {
+            return urlTieringService.promote(shortCode);
+        } catch (DataIntegrityViolationException e) {
+            // Promoted concurrently by another request
+            return shortCodeKeyService.findByShortCode(shortCode);
+        }
     }
 
     /**
@@ -123,6 +272,59 @@ public class UrlService {
         return urlRepository.findByCreatedById(userId);
     }
 
+    /**
+     * Visit summaries of all URLs created by a user without materializing the
+     * full list
+     * 
+     * @param userId the user ID
+     * @param action callback invoked once per URL, inside the read transaction
+     */
+    @Transactional(readOnly = true)
+    public void forEachByUserId(Long userId, Consumer<UrlSummary> action) {
+        try (Stream<UrlSummary> urls = urlRepository.streamSummariesByCreatedById(userId)) {
+            urls.forEach(action);
+        }
+        try (Stream<UrlSummary> archived = archivedUrlRepository.streamSummariesByCreatedBy(userId)) {
+            archived.forEach(action);
+        }
+    }
+
+    /**
+     * Search a user's URLs (both tiers) through their trigram index
+     * 
+     * @param userId   the owner
+     * @param text     substring the original URL must contain (at least 3
+     *                 characters), or blank
+     * @param domain   host the URL must be on, including subdomains, or blank
+     * @param pageable the page to return
+     * @return one page of matches, newest first
+     * @throws IllegalArgumentException if neither text nor domain is given
+     */
+    public Page<UrlSummary> searchUserUrls(Long userId, String text, String domain, Pageable pageable) {
+        String substring = text == null || text.isBlank() ? null : text.strip();
+        String host = domain == null || domain.isBlank() ? null : domain.strip();
+        if (substring == null && host == null) {
+            throw new IllegalArgumentException("Search text (q) or domain is required");
+        }
+
+        List<Long> matches = urlSearchIndex.search(userId, substring, host);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        List<Long> pageIds = matches.subList(from, Math.min(from + pageable.getPageSize(), matches.size()));
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, matches.size());
+        }
+
+        Map<Long, UrlSummary> byId = new HashMap<>();
+        urlRepository.findSummariesByCreatedByIdAndIdIn(userId, pageIds).forEach(url -> byId.put(url.id(), url));
+        if (byId.size() < pageIds.size()) {
+            archivedUrlRepository.findSummariesByCreatedByAndIdIn(userId, pageIds)
+                    .forEach(url -> byId.putIfAbsent(url.id(), url));
+        }
+        // URLs deleted on another instance since the index was built are skipped
+        List<UrlSummary> page = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(page, pageable, matches.size());
+    }
+
     /**
      * Get most popular URLs
      * 
@@ -132,6 +334,19 @@ public class UrlService {
         return urlRepository.findTopByOrderByHitsDesc();
     }
 
+    /**
+     * Visit summaries of the most popular URLs without materializing the full
+     * list
+     * 
+     * @param action callback invoked once per URL, inside the read transaction
+     */
+    @Transactional(readOnly = true)
+    public void forEachMostPopular(Consumer<UrlSummary> action) {
+        try (Stream<UrlSummary> urls = urlRepository.streamSummariesByOrderByHitsDesc()) {
+            urls.forEach(action);
+        }
+    }
+
     /**
      * Delete a URL by ID
      * 
@@ -139,17 +354,187 @@ public class UrlService {
      */
     @Transactional
     public void deleteUrl(Long id) {
+        urlRepository.findById(id).ifPresentOrElse(
+                url -> recordDeleted(id, url.getShortCode(),
+                        url.getCreatedBy() == null ? null : url.getCreatedBy().getId(), url.getHits()),
+                () -> archivedUrlRepository.findById(id).ifPresent(archived -> recordDeleted(id,
+                        archived.getShortCode(), archived.getCreatedBy(), archived.getHits())));
+
         urlRepository.deleteById(id);
+        archivedUrlRepository.deleteById(id);
+        destinationRepository.deleteByUrlIdIn(List.of(id));
+        destinationRouter.forget(id);
+        visitorSketchService.forget(id);
+    }
+
+    private void recordDeleted(long id, String shortCode, Long createdBy, long hits) {
+        shortCodeIndex.removeAfterCommit(List.of(shortCode));
+        urlSearchIndex.removeAfterCommit(createdBy, id);
+        redirectCache.evictAfterCommit(shortCode);
+        staleRedirectCache.evictAfterCommit(shortCode);
+        urlChangeFeed.recordDeletes(List.of(shortCode));
+        userStatsService.recordLinksDeleted(List.of(new UserLinkTotals(createdBy, 1L, hits)));
     }
 
     /**
-     * Delete all expired URLs
+     * Replace the weighted destinations a link splits its traffic across.
+     * The link's original URL is kept as its primary destination for
+     * consumers that do not split. An archived link is promoted back to the
+     * hot table first.
      * 
-     * @return number of deleted URLs
+     * @param id           the URL ID
+     * @param ownerId      the ID of the user making the change
+     * @param destinations the new destinations in order, or an empty list to
+     *                     stop splitting
+     * @return the updated URL
+     * @throws IllegalArgumentException if the URL is not found or only one
+     *                                  destination is given
+     * @throws AccessDeniedException    if the user does not own the URL
      */
     @Transactional
+    public Url setDestinations(Long id, long ownerId, List<DestinationRequest> destinations) {
+        if (destinations.size() == 1) {
+            throw new IllegalArgumentException("A split needs at least two destinations; use an empty list to remove it");
+        }
+        Url url = findForOwner(id, ownerId);
+
+        destinationRepository.deleteByUrlIdIn(List.of(id));
+        long version = 0;
+        for (int i = 0; i < destinations.size(); i++) {
+            DestinationRequest request = destinations.get(i);
+            UrlDestination destination = new UrlDestination();
+            destination.setUrlId(id);
+            destination.setPosition(i);
+            destination.setDestinationUrl(request.getUrl());
+            destination.setWeight(request.getWeight());
+            version = Math.max(version, destinationRepository.save(destination).getId());
+        }
+
+        // Newest row ID: changes on every replacement, so cached alias tables know to rebuild
+        url.setDestinationsVersion(destinations.isEmpty() ? null : version);
+        // The redirect service does not split, so it hands split links over to this application
+        urlChangeFeed.recordUpsert(url);
+        redirectCache.evictAfterCommit(url.getShortCode());
+        staleRedirectCache.evictAfterCommit(url.getShortCode());
+        destinationRouter.forget(id);
+        return url;
+    }
+
+    /**
+     * Find a URL by ID in either tier for a change by its owner, promoting
+     * it back to the hot table if it is archived
+     */
+    private Url findForOwner(Long id, long ownerId) {
+        Optional<Url> hot = urlRepository.findById(id);
+        if (hot.isPresent()) {
+            User createdBy = hot.get().getCreatedBy();
+            checkOwner(createdBy == null ? null : createdBy.getId(), ownerId);
+            return hot.get();
+        }
+
+        ArchivedUrl archived = archivedUrlRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("URL not found with ID: " + id));
+        checkOwner(archived.getCreatedBy(), ownerId);
+        // Commits separately, so the row is visible to this transaction's next read
+        urlTieringService.promote(archived.getShortCode());
+        return urlRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("URL not found with ID: " + id));
+    }
+
+    private static void checkOwner(Long createdBy, long userId) {
+        if (createdBy == null || createdBy != userId) {
+            throw new AccessDeniedException("Only the owner can change this URL");
+        }
+    }
+
+    /**
+     * Get the destinations of a split link with their hit counts, including
+     * hits not yet flushed by this node
+     * 
+     * @param url the URL
+     * @return the destinations in order, empty if the link is not split
+     */
+    public List<DestinationResponse> findDestinations(Url url) {
+        if (url.getDestinationsVersion() == null) {
+            return List.of();
+        }
+        return destinationRepository.findByUrlIdOrderByPosition(url.getId()).stream()
+                .map(destination -> DtoMapper.toDestinationResponse(destination,
+                        destinationRouter.unflushedHits(destination.getId())))
+                .toList();
+    }
+
+    /**
+     * Estimate distinct visitors of a URL
+     * 
+     * @param url the URL
+     * @return estimated unique visitors, or null if visitor tracking is disabled
+     */
+    public Long estimateUniqueVisitors(Url url) {
+        return visitorSketchService.estimateUniqueVisitors(url.getId());
+    }
+
+    /**
+     * Delete all expired URLs now, in chunks that commit separately (other
+     * instances may be purging at the same time)
+     * 
+     * @return number of URLs deleted by this instance
+     */
     public int deleteExpiredUrls() {
-        return urlRepository.deleteExpiredUrls(Instant.now());
+        return expiredUrlPurgeJob.purge();
+    }
+
+    /**
+     * Check whether a short code is free, using the in-memory code index when
+     * it is loaded
+     * 
+     * @param shortCode the short code
+     * @return true if no hot or archived URL uses the code
+     */
+    public boolean isShortCodeAvailable(String shortCode) {
+        if (shortCodeIndex.isReady()) {
+            return !shortCodeIndex.contains(shortCode);
+        }
+        return !isShortCodeTaken(shortCode);
+    }
+
+    /**
+     * Suggest free short codes close to a requested one
+     * 
+     * @param shortCode the requested short code
+     * @param count     maximum number of suggestions
+     * @return available codes, nearest first
+     */
+    public List<String> suggestShortCodes(String shortCode, int count) {
+        int candidates = shortCodeIndex.isReady() ? INDEXED_SUGGESTION_CANDIDATES : UNINDEXED_SUGGESTION_CANDIDATES;
+        List<String> suggestions = new ArrayList<>(count);
+        for (String candidate : ShortCodeGenerator.variantsOf(shortCode, MAX_CUSTOM_CODE_LENGTH, candidates)) {
+            if (suggestions.size() >= count) {
+                break;
+            }
+            if (isShortCodeAvailable(candidate)) {
+                suggestions.add(candidate);
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * List short codes in use that start with a prefix
+     * 
+     * @param prefix the prefix
+     * @param limit  maximum number of codes to return
+     * @return matching codes in code order
+     */
+    public List<String> findShortCodesByPrefix(String prefix, int limit) {
+        if (shortCodeIndex.isReady()) {
+            return shortCodeIndex.findByPrefix(prefix, limit);
+        }
+
+        PageRequest page = PageRequest.of(0, limit);
+        List<String> codes = new ArrayList<>(urlRepository.findShortCodesByPrefix(prefix, page));
+        codes.addAll(archivedUrlRepository.findShortCodesByPrefix(prefix, page));
+        return codes.stream().sorted().limit(limit).toList();
     }
 
     /**
@@ -161,16 +546,59 @@ public class UrlService {
         String shortCode;
         int attempts = 0;
         int maxAttempts = 10;
+        boolean claimed;
 
         do {
+            ShortCodeGenerationEvent event = new ShortCodeGenerationEvent();
+            event.begin();
             shortCode = ShortCodeGenerator.generate();
             attempts++;
+            claimed = !isKnownToIndex(shortCode) && claimShortCode(shortCode);
+            if (event.shouldCommit()) {
+                event.shortCode = shortCode;
+                event.attempt = attempts;
+                event.claimed = claimed;
+                event.commit();
+            }
 
-            if (attempts >= maxAttempts) {
+            if (!claimed && attempts >= maxAttempts) {
                 throw new RuntimeException("Failed to generate unique short code after " + maxAttempts + " attempts");
             }
-        } while (urlRepository.findByShortCode(shortCode).isPresent());
+        } while (!claimed);
 
         return shortCode;
     }
+
+    private static void checkOriginalUrlSize(String originalUrl) {
+        if (originalUrl.getBytes(StandardCharsets.UTF_8).length > MAX_ORIGINAL_URL_BYTES) {
+            throw new IllegalArgumentException("URL must not exceed " + MAX_ORIGINAL_URL_BYTES + " bytes");
+        }
+    }
+
+    /**
+     * Check that a short code is free for the current transaction to insert.
+     * In partitioned mode the database cannot enforce short-code uniqueness,
+     * so concurrent creates of the same code are serialized with a lock first.
+     */
+    private boolean claimShortCode(String shortCode) {
+        UrlPartitionManager partitionManager = urlPartitionManager.getIfAvailable();
+        if (partitionManager != null) {
+            partitionManager.lockShortCode(shortCode);
+        }
+        return !isShortCodeTaken(shortCode);
+    }
+
+    /**
+     * Skip random codes the in-memory index already knows without a query
+     */
+    private boolean isKnownToIndex(String shortCode) {
+        return shortCodeIndex.isReady() && shortCodeIndex.contains(shortCode);
+    }
+
+    /**
+     * Check whether a short code is used by a hot or archived URL
+     */
+    private boolean isShortCodeTaken(String shortCode) {
+        return urlRepository.existsByShortCode(shortCode) || archivedUrlRepository.existsByShortCode(shortCode);
+    }
 }
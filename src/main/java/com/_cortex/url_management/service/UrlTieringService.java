@@ -0,0 +1,184 @@
+package com._cortex.url_management.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Moves idle URLs out of the hot urls table into the urls_archive cold tier,
+ * and promotes them back when they are accessed again.
+ * <p>
+ * Archiving runs in batches, each a set-based copy plus delete in its own
+ * transaction, so the hot table and its short-code index only hold links that
+ * were used within the idle threshold. Only the leader instance archives, so
+ * replicas do not race to copy the same rows. Hot/cold sizes, cold lookup latency
+ * and promotions are exported as metrics.
+ */
+@Service
+public class UrlTieringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlTieringService.class);
+    private static final String ARCHIVE_JOB = "url-tiering-archive";
+
+    private final UrlRepository urlRepository;
+    private final ArchivedUrlRepository archivedUrlRepository;
+    private final ShortCodeKeyService shortCodeKeyService;
+    private final ObjectProvider<UrlPartitionManager> urlPartitionManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final boolean enabled;
+    private final Duration idleThreshold;
+    private final int batchSize;
+
+    private final AtomicLong hotSize = new AtomicLong(-1);
+    private final AtomicLong coldSize = new AtomicLong(-1);
+    private final Timer coldLookupTimer;
+    private final Counter promotions;
+
+    public UrlTieringService(
+            UrlRepository urlRepository,
+            ArchivedUrlRepository archivedUrlRepository,
+            ShortCodeKeyService shortCodeKeyService,
+            ObjectProvider<UrlPartitionManager> urlPartitionManager,
+            TransactionTemplate transactionTemplate,
+            ClusterJobRunner clusterJobRunner,
+            MeterRegistry meterRegistry,
+            @Value("${urls.tiering.enabled:false}") boolean enabled,
+            @Value("${urls.tiering.idle-threshold:P90D}") Duration idleThreshold,
+            @Value("${urls.tiering.batch-size:1000}") int batchSize) {
+        this.urlRepository = urlRepository;
+        this.archivedUrlRepository = archivedUrlRepository;
+        this.shortCodeKeyService = shortCodeKeyService;
+        this.urlPartitionManager = urlPartitionManager;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterJobRunner = clusterJobRunner;
+        this.enabled = enabled;
+        this.idleThreshold = idleThreshold;
+        this.batchSize = batchSize;
+
+        Gauge.builder("urls.hot.size", hotSize, AtomicLong::get)
+                .description("Rows in the hot urls table as of the last tiering run")
+                .register(meterRegistry);
+        Gauge.builder("urls.cold.size", coldSize, AtomicLong::get)
+                .description("Rows in the urls_archive cold tier as of the last tiering run")
+                .register(meterRegistry);
+        this.coldLookupTimer = Timer.builder("urls.cold.lookup")
+                .description("Latency of short-code lookups that fell through to the cold tier")
+                .register(meterRegistry);
+        this.promotions = Counter.builder("urls.cold.promotions")
+                .description("Archived URLs promoted back to the hot table")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether cold-tier fall-through is active
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a short code that missed the hot table in the cold tier, and
+     * promote it back to the hot table if found. A concurrent promotion of
+     * the same code shows up as a unique violation, except in partitioned
+     * mode, where there is no unique constraint: there promotions of a code
+     * are serialized with its lock and the later one finds the URL already
+     * hot.
+     * 
+     * @param shortCode the short code
+     * @return Optional containing the promoted URL
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<Url> promote(String shortCode) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        return coldLookupTimer.record(() -> {
+            UrlPartitionManager partitionManager = urlPartitionManager.getIfAvailable();
+            if (partitionManager != null) {
+                partitionManager.lockShortCode(shortCode);
+                Optional<Url> hot = urlRepository.findByShortCode(shortCode);
+                if (hot.isPresent()) {
+                    return hot;
+                }
+            }
+            if (archivedUrlRepository.copyToHot(shortCode, shortCodeKeyService.keyFor(shortCode)) == 0) {
+                return Optional.<Url>empty();
+            }
+            archivedUrlRepository.deleteByShortCode(shortCode);
+            promotions.increment();
+            logger.info("Promoted archived URL back to hot tier: {}", shortCode);
+            return urlRepository.findByShortCode(shortCode);
+        });
+    }
+
+    /**
+     * Move URLs idle beyond the threshold into the cold tier, on the leader
+     * instance only
+     * 
+     * @return number of archived URLs (0 when another instance ran the job)
+     */
+    @Scheduled(fixedDelayString = "${urls.tiering.interval-ms:3600000}")
+    public int archiveIdleUrls() {
+        if (!enabled) {
+            return 0;
+        }
+
+        int[] archived = new int[1];
+        clusterJobRunner.runAsLeader(ARCHIVE_JOB, () -> archived[0] = archiveIdleBatches());
+        return archived[0];
+    }
+
+    private int archiveIdleBatches() {
+        Instant cutoff = Instant.now().minus(idleThreshold);
+        int archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<Long> ids = urlRepository.findIdleIds(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                // A hit flush waiting on these locks then finds the rows archived
+                urlRepository.lockByIds(ids);
+                archivedUrlRepository.copyFromHot(ids, Instant.now());
+                return urlRepository.deleteByIds(ids);
+            });
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+
+        hotSize.set(urlRepository.count());
+        coldSize.set(archivedUrlRepository.count());
+        if (archived > 0) {
+            logger.info("Archived {} URLs idle since {} (hot: {}, cold: {})", archived, cutoff, hotSize.get(),
+                    coldSize.get());
+        }
+        return archived;
+    }
+}
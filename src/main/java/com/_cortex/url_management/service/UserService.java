@@ -17,6 +17,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStatsService userStatsService;
 
     /**
      * Create a new user
@@ -41,7 +42,9 @@ public class UserService {
         String hashedPassword = passwordEncoder.encode(user.getPasswordHash());
         user.setPasswordHash(hashedPassword);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatsService.initialize(saved.getId());
+        return saved;
     }
 
     /**
@@ -93,5 +96,6 @@ public class UserService {
     @Transactional
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        userStatsService.forget(id);
     }
 }
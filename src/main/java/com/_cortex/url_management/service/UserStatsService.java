@@ -0,0 +1,319 @@
+package com._cortex.url_management.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.dto.UserLinkTotals;
+import com._cortex.url_management.dto.UserStatsResponse;
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.model.User;
+import com._cortex.url_management.model.UserUrlStats;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.repository.UserClickBucketRepository;
+import com._cortex.url_management.repository.UserRepository;
+import com._cortex.url_management.repository.UserUrlStatsRepository;
+import com._cortex.url_management.tracking.HitCount;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Maintains per-user link statistics so the dashboard can read them in
+ * constant time instead of loading every link.
+ * <p>
+ * Link counts and click totals live in one user_url_stats row per user and
+ * are adjusted in the same transaction as the change that causes them:
+ * creates, deletes, expiry purges and hit flushes. Clicks are also added to
+ * hourly user_click_buckets, summed over the last 24 buckets. Rows are
+ * updated in user ID order so concurrent flushes cannot deadlock. Hits are
+ * only ever written in batches, in the same transaction as their urls.hits
+ * increment, so no redirect queues on a popular owner's row and the totals
+ * always agree with the hits already in the urls tables.
+ * <p>
+ * A leader-only reconciler recomputes the totals from the urls tables in
+ * batches, with the stats rows locked so in-flight increments land on the
+ * corrected values, creates missing rows and prunes old buckets. Users
+ * without a stats row (created before it existed) are reconciled on first
+ * read.
+ */
+@Service
+public class UserStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+    private static final String RECONCILE_JOB = "user-stats-reconcile";
+    private static final int WINDOW_BUCKETS = 24;
+    private static final Duration BUCKET_RETENTION = Duration.ofHours(2L * WINDOW_BUCKETS);
+    private static final int OWNER_LOOKUP_BATCH = 1000;
+
+    private static final String BUCKET_UPSERT_POSTGRES = "INSERT INTO user_click_buckets (user_id, bucket_start, clicks) "
+            + "VALUES (?, ?, ?) ON CONFLICT (user_id, bucket_start) "
+            + "DO UPDATE SET clicks = user_click_buckets.clicks + EXCLUDED.clicks";
+    private static final String BUCKET_UPSERT_MERGE = "MERGE INTO user_click_buckets b USING (SELECT "
+            + "CAST(? AS BIGINT) AS user_id, CAST(? AS TIMESTAMP WITH TIME ZONE) AS bucket_start, "
+            + "CAST(? AS BIGINT) AS clicks) v ON (b.user_id = v.user_id AND b.bucket_start = v.bucket_start) "
+            + "WHEN MATCHED THEN UPDATE SET clicks = b.clicks + v.clicks "
+            + "WHEN NOT MATCHED THEN INSERT (user_id, bucket_start, clicks) VALUES (v.user_id, v.bucket_start, v.clicks)";
+
+    private final UserUrlStatsRepository statsRepository;
+    private final UserClickBucketRepository bucketRepository;
+    private final UrlRepository urlRepository;
+    private final ArchivedUrlRepository archivedUrlRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobRunner clusterJobRunner;
+    private final int reconcileBatchSize;
+    private final Counter drift;
+
+    private volatile String bucketUpsertSql;
+
+    public UserStatsService(
+            UserUrlStatsRepository statsRepository,
+            UserClickBucketRepository bucketRepository,
+            UrlRepository urlRepository,
+            ArchivedUrlRepository archivedUrlRepository,
+            UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ClusterJobRunner clusterJobRunner,
+            MeterRegistry meterRegistry,
+            @Value("${users.stats.reconcile-batch-size:500}") int reconcileBatchSize) {
+        this.statsRepository = statsRepository;
+        this.bucketRepository = bucketRepository;
+        this.urlRepository = urlRepository;
+        this.archivedUrlRepository = archivedUrlRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterJobRunner = clusterJobRunner;
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.drift = Counter.builder("users.stats.drift")
+                .description("User stats rows corrected by the reconciler")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Read a user's statistics
+     *
+     * @param userId the user ID
+     * @return link count, click total and clicks in the last 24 hours
+     */
+    public UserStatsResponse getStats(Long userId) {
+        UserUrlStats stats = statsRepository.findById(userId).orElseGet(() -> reconcileUser(userId));
+        Instant from = currentBucket().minus(WINDOW_BUCKETS - 1, ChronoUnit.HOURS);
+        long recentClicks = bucketRepository.sumClicksSince(userId, from);
+        return new UserStatsResponse(userId, stats.getLinkCount(), stats.getTotalClicks(), recentClicks);
+    }
+
+    /**
+     * Create the empty stats row of a new user (inside the creating transaction)
+     *
+     * @param userId the new user's ID
+     */
+    public void initialize(Long userId) {
+        statsRepository.save(new UserUrlStats(userId, 0, 0, Instant.now()));
+    }
+
+    /**
+     * Drop the statistics of a deleted user
+     *
+     * @param userId the user ID
+     */
+    public void forget(Long userId) {
+        statsRepository.deleteById(userId);
+        bucketRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Count a new link (inside the creating transaction)
+     *
+     * @param createdBy the link's owner, or null for guest links
+     */
+    public void recordLinkCreated(User createdBy) {
+        if (createdBy != null) {
+            statsRepository.addTotals(createdBy.getId(), 1, 0);
+        }
+    }
+
+    /**
+     * Remove deleted links and their hits (inside the deleting transaction)
+     *
+     * @param removed links and hits removed per owner
+     */
+    public void recordLinksDeleted(Collection<UserLinkTotals> removed) {
+        removed.stream()
+                .filter(totals -> totals.userId() != null)
+                .sorted((a, b) -> Long.compare(a.userId(), b.userId()))
+                .forEach(totals -> statsRepository.addTotals(totals.userId(), -totals.links(), -totals.clicks()));
+    }
+
+    /**
+     * Count a flushed batch of hits (inside the flushing transaction).
+     * Hits of a URL go to the bucket of its latest access.
+     *
+     * @param hitsByUrlId hits accumulated per URL ID
+     */
+    public void recordClicks(Map<Long, HitCount> hitsByUrlId) {
+        if (hitsByUrlId.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> clicksByUser = new TreeMap<>();
+        Map<Long, Map<Instant, Long>> clicksByUserBucket = new TreeMap<>();
+        findOwners(hitsByUrlId.keySet()).forEach((urlId, userId) -> {
+            HitCount hits = hitsByUrlId.get(urlId);
+            clicksByUser.merge(userId, hits.count(), Long::sum);
+            clicksByUserBucket.computeIfAbsent(userId, id -> new TreeMap<>())
+                    .merge(bucketOf(hits.lastAccessedAt()), hits.count(), Long::sum);
+        });
+
+        clicksByUser.forEach((userId, clicks) -> statsRepository.addTotals(userId, 0, clicks));
+        List<Object[]> bucketRows = new ArrayList<>();
+        clicksByUserBucket.forEach((userId, buckets) -> buckets.forEach((bucket, clicks) -> bucketRows
+                .add(new Object[] { userId, bucket.atOffset(ZoneOffset.UTC), clicks })));
+        addToBuckets(bucketRows);
+    }
+
+    /**
+     * Recompute all users' totals from the urls tables and prune old buckets
+     */
+    @Scheduled(fixedDelayString = "${users.stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${users.stats.reconcile-initial-delay-ms:300000}")
+    public void reconcile() {
+        clusterJobRunner.runAsLeader(RECONCILE_JOB, () -> {
+            long corrected = 0;
+            long afterId = 0;
+            while (true) {
+                List<Long> userIds = userRepository.findIdsAfter(afterId, PageRequest.of(0, reconcileBatchSize));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                Integer fixed = transactionTemplate.execute(status -> reconcileBatch(userIds));
+                corrected += fixed == null ? 0 : fixed;
+                afterId = userIds.get(userIds.size() - 1);
+            }
+
+            Integer pruned = transactionTemplate.execute(
+                    status -> bucketRepository.deleteOlderThan(currentBucket().minus(BUCKET_RETENTION)));
+            if (corrected > 0) {
+                logger.warn("Corrected drifted stats of {} users", corrected);
+            }
+            logger.debug("Pruned {} user click buckets", pruned);
+        });
+    }
+
+    private UserUrlStats reconcileUser(Long userId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> reconcileBatch(List.of(userId)));
+        } catch (DataIntegrityViolationException e) {
+            // Another request created the row first
+        }
+        return statsRepository.findById(userId)
+                .orElseThrow(() -> new IllegalStateException("No stats for user " + userId));
+    }
+
+    /**
+     * Recompute the totals of a batch of users, with their stats rows locked
+     *
+     * @return number of existing rows that had drifted
+     */
+    private int reconcileBatch(List<Long> userIds) {
+        Map<Long, UserUrlStats> existing = statsRepository.findAllForUpdate(userIds).stream()
+                .collect(Collectors.toMap(UserUrlStats::getUserId, Function.identity()));
+        Map<Long, UserLinkTotals> actual = new HashMap<>();
+        for (UserLinkTotals totals : urlRepository.sumByCreators(userIds)) {
+            actual.put(totals.userId(), totals);
+        }
+        for (UserLinkTotals totals : archivedUrlRepository.sumByCreators(userIds)) {
+            actual.merge(totals.userId(), totals, (hot, cold) -> new UserLinkTotals(hot.userId(),
+                    hot.links() + cold.links(), hot.clicks() + cold.clicks()));
+        }
+
+        Instant now = Instant.now();
+        int corrected = 0;
+        for (Long userId : userIds) {
+            UserLinkTotals totals = actual.getOrDefault(userId, new UserLinkTotals(userId, 0L, 0L));
+            UserUrlStats stats = existing.get(userId);
+            if (stats == null) {
+                statsRepository.save(new UserUrlStats(userId, totals.links(), totals.clicks(), now));
+                continue;
+            }
+            if (stats.getLinkCount() != totals.links() || stats.getTotalClicks() != totals.clicks()) {
+                logger.debug("User {} stats drifted: links {} -> {}, clicks {} -> {}", userId,
+                        stats.getLinkCount(), totals.links(), stats.getTotalClicks(), totals.clicks());
+                corrected++;
+                drift.increment();
+            }
+            stats.setLinkCount(totals.links());
+            stats.setTotalClicks(totals.clicks());
+            stats.setReconciledAt(now);
+        }
+        return corrected;
+    }
+
+    private Map<Long, Long> findOwners(Collection<Long> urlIds) {
+        Map<Long, Long> owners = new HashMap<>();
+        List<Long> ids = new ArrayList<>(urlIds);
+        for (int from = 0; from < ids.size(); from += OWNER_LOOKUP_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(from + OWNER_LOOKUP_BATCH, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            // Either tier: hits may be flushed after their URL was archived
+            jdbcTemplate.query("SELECT id, created_by FROM urls WHERE created_by IS NOT NULL AND id IN ("
+                    + placeholders + ") UNION ALL SELECT id, created_by FROM urls_archive "
+                    + "WHERE created_by IS NOT NULL AND id IN (" + placeholders + ")",
+                    row -> {
+                        owners.put(row.getLong("id"), row.getLong("created_by"));
+                    }, Stream.concat(batch.stream(), batch.stream()).toArray());
+        }
+        return owners;
+    }
+
+    private void addToBuckets(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(bucketUpsertSql(), rows);
+        }
+    }
+
+    private String bucketUpsertSql() {
+        String sql = bucketUpsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            sql = "PostgreSQL".equals(product) ? BUCKET_UPSERT_POSTGRES : BUCKET_UPSERT_MERGE;
+            bucketUpsertSql = sql;
+        }
+        return sql;
+    }
+
+    private static Instant currentBucket() {
+        return bucketOf(Instant.now());
+    }
+
+    private static Instant bucketOf(Instant time) {
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+}
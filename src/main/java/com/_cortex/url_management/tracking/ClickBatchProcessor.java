@@ -0,0 +1,81 @@
+package com._cortex.url_management.tracking;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import com._cortex.url_management.util.VisitorHasher;
+
+/**
+ * Consumes click events in batches off the request thread: feeds the visitor
+ * sketches, then either appends to the click journal or aggregates hits per
+ * URL and writes them in one transaction at the end of the batch.
+ * <p>
+ * Not thread-safe; called only from the ring buffer's consumer thread.
+ */
+@Service
+public class ClickBatchProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickBatchProcessor.class);
+
+    private final HitCountWriter hitCountWriter;
+    private final VisitorSketchService visitorSketchService;
+    private final ClickJournal clickJournal;
+
+    // Hits not yet written; kept across batches when a write fails so they are retried
+    private final Map<Long, HitCount> pendingHits = new HashMap<>();
+
+    public ClickBatchProcessor(HitCountWriter hitCountWriter, VisitorSketchService visitorSketchService,
+            ObjectProvider<ClickJournal> clickJournal) {
+        this.hitCountWriter = hitCountWriter;
+        this.visitorSketchService = visitorSketchService;
+        this.clickJournal = clickJournal.getIfAvailable();
+    }
+
+    /**
+     * Handle one click event
+     */
+    void onEvent(long urlId, long expireAtMillis, long accessTimeMillis, String clientIp, String userAgent) {
+        visitorSketchService.offer(urlId, VisitorHasher.hash(clientIp, userAgent));
+
+        Instant accessTime = Instant.ofEpochMilli(accessTimeMillis);
+        if (clickJournal != null) {
+            try {
+                clickJournal.append(urlId, expireAtMillis, accessTime);
+                return;
+            } catch (UncheckedIOException e) {
+                logger.error("Click journal append failed, writing hit directly: {}", e.getMessage());
+            }
+        }
+        pendingHits.merge(urlId, HitCount.of(accessTime, expireAtMillis), HitCount::plus);
+    }
+
+    /**
+     * Write the hits aggregated since the last successful batch
+     */
+    void endOfBatch() {
+        if (pendingHits.isEmpty()) {
+            return;
+        }
+        try {
+            hitCountWriter.apply(pendingHits);
+            pendingHits.clear();
+        } catch (RuntimeException e) {
+            logger.warn("Writing {} aggregated hits failed, will retry: {}", pendingHits.size(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Number of URLs with hits waiting for a write
+     */
+    int pendingHitCount() {
+        return pendingHits.size();
+    }
+}
@@ -0,0 +1,259 @@
+package com._cortex.url_management.tracking;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pre-allocated ring buffer that moves click handling off the redirect thread.
+ * <p>
+ * Producers claim a sequence with a CAS, fill the slot for that sequence (each
+ * slot has exactly one writer per lap) and publish it with a release write, so
+ * publishing never allocates. A single consumer thread drains published slots
+ * in order and hands them to {@link ClickBatchProcessor} in batches.
+ * <p>
+ * When the buffer is full the configured {@link OverflowPolicy} applies: DROP
+ * discards the event immediately, BLOCK waits up to the block timeout for the
+ * consumer and then drops. Dropped events and consumer lag are exported as
+ * {@code clicks.ring.dropped} and {@code clicks.ring.lag}.
+ * <p>
+ * Hits whose write failed stay with the processor and are retried with the
+ * next batch, or after the retry interval when no events arrive. Stopping
+ * drains the published events and makes one last write attempt.
+ */
+@Component
+@ConditionalOnProperty(name = "clicks.ring.enabled", havingValue = "true")
+public class ClickEventRingBuffer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickEventRingBuffer.class);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * What to do with an event when the buffer is full
+     */
+    public enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
+    private final ClickEvent[] slots;
+    private final int mask;
+    private final int maxBatch;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final long retryIntervalNanos;
+    private final ClickBatchProcessor processor;
+
+    // Next sequence to claim, and next sequence the consumer will read
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile long consumedSequence;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    public ClickEventRingBuffer(
+            @Value("${clicks.ring.capacity:65536}") int capacity,
+            @Value("${clicks.ring.max-batch:4096}") int maxBatch,
+            @Value("${clicks.ring.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+            @Value("${clicks.ring.block-timeout-ms:5}") long blockTimeoutMillis,
+            @Value("${clicks.ring.retry-interval-ms:1000}") long retryIntervalMillis,
+            ClickBatchProcessor processor,
+            MeterRegistry meterRegistry) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new ClickEvent[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ClickEvent();
+        }
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(retryIntervalMillis);
+        this.processor = processor;
+
+        Gauge.builder("clicks.ring.capacity", () -> slots.length)
+                .description("Click event ring buffer capacity")
+                .register(meterRegistry);
+        Gauge.builder("clicks.ring.lag", this, ClickEventRingBuffer::lag)
+                .description("Click events claimed but not yet consumed")
+                .register(meterRegistry);
+        FunctionCounter.builder("clicks.ring.dropped", dropped, AtomicLong::get)
+                .description("Click events dropped because the ring buffer was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publish a click event
+     *
+     * @param expireAtMillis the URL's expiry in epoch millis, or
+     *                       {@link HitCount#NO_EXPIRY}
+     * @return false if the event was dropped because the buffer was full
+     */
+    public boolean publish(long urlId, long expireAtMillis, long accessTimeMillis, String clientIp,
+            String userAgent) {
+        long deadline = 0;
+        long sequence;
+        while (true) {
+            sequence = nextSequence.get();
+            if (sequence - consumedSequence >= slots.length) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + blockTimeoutNanos;
+                } else if (now - deadline > 0) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                continue;
+            }
+            if (nextSequence.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        slots[(int) (sequence & mask)].set(sequence, urlId, expireAtMillis, accessTimeMillis, clientIp, userAgent);
+        return true;
+    }
+
+    /**
+     * Events claimed by producers but not yet taken by the consumer
+     */
+    public long lag() {
+        return nextSequence.get() - consumedSequence;
+    }
+
+    private void consume() {
+        long next = consumedSequence;
+        long lastWrite = System.nanoTime();
+        while (running || next < nextSequence.get()) {
+            int processed = 0;
+            while (processed < maxBatch) {
+                ClickEvent slot = slots[(int) (next & mask)];
+                if (slot.publishedSequence() != next) {
+                    break;
+                }
+                processor.onEvent(slot.urlId, slot.expireAtMillis, slot.accessTimeMillis, slot.clientIp,
+                        slot.userAgent);
+                slot.clear();
+                next++;
+                processed++;
+            }
+
+            if (processed == 0) {
+                // Without new events a failed write would otherwise wait for the next click
+                if (processor.pendingHitCount() > 0 && System.nanoTime() - lastWrite >= retryIntervalNanos) {
+                    endOfBatch();
+                    lastWrite = System.nanoTime();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                continue;
+            }
+
+            // Free the slots before the (possibly slow) downstream write
+            consumedSequence = next;
+            endOfBatch();
+            lastWrite = System.nanoTime();
+        }
+
+        if (processor.pendingHitCount() > 0) {
+            endOfBatch();
+            if (processor.pendingHitCount() > 0) {
+                logger.warn("Click event consumer stopped with unwritten hits for {} URLs",
+                        processor.pendingHitCount());
+            }
+        }
+    }
+
+    private void endOfBatch() {
+        try {
+            processor.endOfBatch();
+        } catch (RuntimeException e) {
+            logger.error("Click batch processing failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        consumer = new Thread(this::consume, "click-event-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (consumer != null) {
+            try {
+                consumer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (lag() > 0) {
+            logger.warn("Click event consumer stopped with {} events unconsumed", lag());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Lower than the web server's lifecycle phases, so the consumer stops after
+        // the server and drains what in-flight redirects published
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * One pre-allocated slot, overwritten on every lap of the ring
+     */
+    private static final class ClickEvent {
+
+        private volatile long sequence = -1;
+        private long urlId;
+        private long expireAtMillis;
+        private long accessTimeMillis;
+        private String clientIp;
+        private String userAgent;
+
+        private void set(long sequence, long urlId, long expireAtMillis, long accessTimeMillis, String clientIp,
+                String userAgent) {
+            this.urlId = urlId;
+            this.expireAtMillis = expireAtMillis;
+            this.accessTimeMillis = accessTimeMillis;
+            this.clientIp = clientIp;
+            this.userAgent = userAgent;
+            // Volatile write publishes the plain fields above to the consumer
+            this.sequence = sequence;
+        }
+
+        private long publishedSequence() {
+            return sequence;
+        }
+
+        private void clear() {
+            clientIp = null;
+            userAgent = null;
+        }
+    }
+}
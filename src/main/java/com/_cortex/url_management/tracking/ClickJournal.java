@@ -0,0 +1,345 @@
+package com._cortex.url_management.tracking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only, memory-mapped journal of redirect clicks.
+ * <p>
+ * Each click is a fixed 24-byte record (URL ID, access time and the URL's
+ * expiry in epoch millis) written into a pre-sized segment file, so the redirect path pays only a
+ * memory write. A background applier folds records into {@code urls.hits} and
+ * {@code last_accessed_at}, then persists a checkpoint (segment, record index)
+ * and deletes fully applied segments. Records survive a JVM crash because they
+ * live in the OS page cache; segments are also forced to disk on every applier
+ * pass. On startup a fresh segment is opened and everything after the last
+ * checkpoint is replayed.
+ * <p>
+ * Delivery is at-least-once: a crash between the database commit and the
+ * checkpoint write replays that batch.
+ */
+@Component
+@ConditionalOnProperty(name = "clicks.journal.enabled", havingValue = "true")
+public class ClickJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickJournal.class);
+
+    private static final int RECORD_SIZE = 24;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    // A sealed segment may still have slots claimed by writers that have not stored yet;
+    // only after this grace period are empty slots treated as permanent gaps
+    private static final long SEALED_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Aligned 8-byte access with release/acquire semantics on the mapped buffer
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxBatch;
+    private final HitCountWriter hitCountWriter;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object rollLock = new Object();
+    private volatile Segment current;
+
+    private long checkpointSegment;
+    private int checkpointIndex;
+
+    public ClickJournal(
+            @Value("${clicks.journal.directory:./data/click-journal}") String directory,
+            @Value("${clicks.journal.records-per-segment:1048576}") int recordsPerSegment,
+            @Value("${clicks.journal.max-batch:100000}") int maxBatch,
+            HitCountWriter hitCountWriter) throws IOException {
+        this.directory = Paths.get(directory);
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxBatch = maxBatch;
+        this.hitCountWriter = hitCountWriter;
+
+        Files.createDirectories(this.directory);
+        recover();
+    }
+
+    /**
+     * Append one click. Lock-free except when rolling to a new segment.
+     *
+     * @param urlId      the ID of the clicked URL (must be positive)
+     * @param expireAt   the URL's expiry, null if it never expires
+     * @param accessTime the time of the click
+     * @throws UncheckedIOException if a new segment cannot be created
+     */
+    public void append(long urlId, Instant expireAt, Instant accessTime) {
+        append(urlId, HitCount.toMillis(expireAt), accessTime);
+    }
+
+    /**
+     * Append one click. Lock-free except when rolling to a new segment.
+     *
+     * @param urlId          the ID of the clicked URL (must be positive)
+     * @param expireAtMillis the URL's expiry in epoch millis, or
+     *                       {@link HitCount#NO_EXPIRY}
+     * @param accessTime     the time of the click
+     * @throws UncheckedIOException if a new segment cannot be created
+     */
+    public void append(long urlId, long expireAtMillis, Instant accessTime) {
+        long epochMillis = accessTime.toEpochMilli();
+        while (true) {
+            Segment segment = current;
+            int index = segment.nextIndex.getAndIncrement();
+            if (index < recordsPerSegment) {
+                int offset = index * RECORD_SIZE;
+                LONGS.set(segment.buffer, offset + 8, epochMillis);
+                LONGS.set(segment.buffer, offset + 16, expireAtMillis);
+                // Publishing the non-zero URL ID last marks the record complete for the applier
+                LONGS.setRelease(segment.buffer, offset, urlId);
+                return;
+            }
+            roll(segment);
+        }
+    }
+
+    private void roll(Segment full) {
+        synchronized (rollLock) {
+            if (current != full) {
+                return;
+            }
+            try {
+                Segment next = openSegment(full.sequence + 1);
+                full.seal();
+                segments.put(next.sequence, next);
+                current = next;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to roll click journal segment", e);
+            }
+        }
+    }
+
+    /**
+     * Replay journal records written before startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        int applied = applyPending();
+        if (applied > 0) {
+            logger.info("Replayed {} click journal records from {}", applied, directory);
+        }
+    }
+
+    /**
+     * Fold records after the checkpoint into the database, then advance the
+     * checkpoint and delete fully applied segments
+     *
+     * @return number of records applied
+     */
+    @Scheduled(fixedDelayString = "${clicks.journal.apply-interval-ms:1000}")
+    public synchronized int applyPending() {
+        segments.values().forEach(segment -> segment.buffer.force());
+
+        Map<Long, HitCount> batch = new HashMap<>();
+        long position = checkpointSegment;
+        int index = checkpointIndex;
+        int read = 0;
+
+        for (Segment segment : segments.tailMap(checkpointSegment, true).values()) {
+            position = segment.sequence;
+            index = segment.sequence == checkpointSegment ? checkpointIndex : 0;
+            boolean gapsAreFinal = segment.gapsAreFinal();
+
+            while (index < recordsPerSegment && read < maxBatch) {
+                int offset = index * RECORD_SIZE;
+                long urlId = (long) LONGS.getAcquire(segment.buffer, offset);
+                if (urlId == 0) {
+                    if (!gapsAreFinal) {
+                        break;
+                    }
+                } else {
+                    Instant accessTime = Instant.ofEpochMilli((long) LONGS.get(segment.buffer, offset + 8));
+                    long expireAtMillis = (long) LONGS.get(segment.buffer, offset + 16);
+                    batch.merge(urlId, HitCount.of(accessTime, expireAtMillis), HitCount::plus);
+                    read++;
+                }
+                index++;
+            }
+
+            if (index < recordsPerSegment || segment == current) {
+                break;
+            }
+        }
+
+        if (position == checkpointSegment && index == checkpointIndex) {
+            return 0;
+        }
+        if (index == recordsPerSegment && segments.higherKey(position) != null) {
+            position = segments.higherKey(position);
+            index = 0;
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                hitCountWriter.apply(batch);
+            } catch (RuntimeException e) {
+                logger.warn("Applying click journal failed, will retry: {}", e.getMessage());
+                return 0;
+            }
+        }
+
+        writeCheckpoint(position, index);
+        deleteAppliedSegments();
+        return read;
+    }
+
+    private void recover() throws IOException {
+        long lastSequence = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long sequence = Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    Segment segment = openSegment(sequence);
+                    segment.sealAtStartup();
+                    segments.put(sequence, segment);
+                    lastSequence = Math.max(lastSequence, sequence);
+                }
+            }
+        }
+
+        // Never append into a segment written by a previous process
+        current = openSegment(lastSequence + 1);
+        segments.put(current.sequence, current);
+
+        readCheckpoint();
+        if (checkpointSegment == 0) {
+            // No checkpoint yet: everything on disk is unapplied
+            checkpointSegment = segments.firstKey();
+            checkpointIndex = 0;
+        } else if (checkpointSegment > lastSequence) {
+            // Everything on disk was applied before the restart
+            checkpointSegment = current.sequence;
+            checkpointIndex = 0;
+        }
+        writeCheckpoint(checkpointSegment, checkpointIndex);
+
+        if (segments.size() > 1) {
+            logger.info("Click journal recovered {} segment(s) in {}", segments.size() - 1, directory);
+        }
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) recordsPerSegment * RECORD_SIZE);
+            return new Segment(sequence, path, buffer);
+        }
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        checkpointSegment = buffer.getLong();
+        checkpointIndex = buffer.getInt();
+    }
+
+    private void writeCheckpoint(long segment, int index) {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putLong(segment).putInt(index);
+
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.flip();
+            channel.write(buffer);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write click journal checkpoint", e);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write click journal checkpoint", e);
+        }
+
+        checkpointSegment = segment;
+        checkpointIndex = index;
+    }
+
+    private void deleteAppliedSegments() {
+        for (Segment segment : segments.headMap(checkpointSegment, false).values()) {
+            segments.remove(segment.sequence);
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                logger.warn("Unable to delete applied click journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One memory-mapped segment file
+     */
+    private static final class Segment {
+
+        private final long sequence;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private volatile boolean sealed;
+        private volatile long sealedAtNanos;
+        private volatile boolean recovered;
+
+        private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        private void seal() {
+            sealedAtNanos = System.nanoTime();
+            sealed = true;
+        }
+
+        private void sealAtStartup() {
+            recovered = true;
+            nextIndex.set(Integer.MAX_VALUE);
+        }
+
+        private boolean gapsAreFinal() {
+            return recovered || (sealed && System.nanoTime() - sealedAtNanos > SEALED_GRACE_NANOS);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com._cortex.url_management.tracking;
+
+import java.time.Instant;
+
+/**
+ * Hits accumulated for one URL since the last flush
+ *
+ * @param count          number of hits
+ * @param lastAccessedAt most recent access time among those hits
+ * @param expireAt       the URL's expiry (null if it never expires), which
+ *                       lets the update prune to one partition
+ */
+public record HitCount(long count, Instant lastAccessedAt, Instant expireAt) {
+
+    /**
+     * Stand-in for "never expires" where an expiry is stored as epoch millis
+     */
+    public static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    /**
+     * One hit
+     */
+    public static HitCount of(Instant accessTime, long expireAtMillis) {
+        return new HitCount(1, accessTime, expireAtMillis == NO_EXPIRY ? null : Instant.ofEpochMilli(expireAtMillis));
+    }
+
+    /**
+     * Expiry as epoch millis, or {@link #NO_EXPIRY}
+     */
+    public static long toMillis(Instant expireAt) {
+        return expireAt == null ? NO_EXPIRY : expireAt.toEpochMilli();
+    }
+
+    /**
+     * Combine two partial counts for the same URL
+     */
+    public HitCount plus(HitCount other) {
+        Instant latest = other.lastAccessedAt.isAfter(lastAccessedAt) ? other.lastAccessedAt : lastAccessedAt;
+        return new HitCount(count + other.count, latest, expireAt);
+    }
+}
@@ -0,0 +1,38 @@
+package com._cortex.url_management.tracking;
+
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.service.UserStatsService;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class HitCountWriter {
+
+    private final UrlRepository urlRepository;
+    private final ArchivedUrlRepository archivedUrlRepository;
+    private final UserStatsService userStatsService;
+
+    /**
+     * Fold a batch of aggregated hits into the urls table and the owners'
+     * stats in one transaction. Hits of a URL archived since they were
+     * recorded go to its archived row.
+     * 
+     * @param hitsByUrlId hits accumulated per URL ID
+     */
+    @Transactional
+    public void apply(Map<Long, HitCount> hitsByUrlId) {
+        hitsByUrlId.forEach((urlId, hits) -> {
+            if (urlRepository.addHits(urlId, hits.expireAt(), hits.count(), hits.lastAccessedAt()) == 0) {
+                archivedUrlRepository.addHits(urlId, hits.count(), hits.lastAccessedAt());
+            }
+        });
+        userStatsService.recordClicks(hitsByUrlId);
+    }
+}
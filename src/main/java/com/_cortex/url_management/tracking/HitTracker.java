@@ -0,0 +1,131 @@
+package com._cortex.url_management.tracking;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.util.StripedAccumulator;
+import com._cortex.url_management.util.VisitorHasher;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Records redirect hits. With the click ring buffer enabled a hit is published
+ * as an event and all processing happens on the consumer thread. Otherwise it
+ * is handled inline: when the click journal is enabled a hit costs one memory
+ * write and is folded into the database in the background, else it is added
+ * to a per-URL count in memory. A scheduled flush writes those counts and the
+ * owners' click stats in one transaction, so the stats reconciler never sees
+ * hits that are not yet credited to their owner; a flush that fails because
+ * the database is unavailable keeps its counts for the next one.
+ */
+@Service
+public class HitTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HitTracker.class);
+
+    private final VisitorSketchService visitorSketchService;
+    private final HitCountWriter hitCountWriter;
+    private final ClickJournal clickJournal;
+    private final ClickEventRingBuffer ringBuffer;
+
+    private final StripedAccumulator<Long, PendingHits> pendingHits =
+            new StripedAccumulator<>(urlId -> new PendingHits(), PendingHits::add);
+
+    public HitTracker(VisitorSketchService visitorSketchService, HitCountWriter hitCountWriter,
+            ObjectProvider<ClickJournal> clickJournal, ObjectProvider<ClickEventRingBuffer> ringBuffer) {
+        this.visitorSketchService = visitorSketchService;
+        this.hitCountWriter = hitCountWriter;
+        this.clickJournal = clickJournal.getIfAvailable();
+        this.ringBuffer = ringBuffer.getIfAvailable();
+    }
+
+    /**
+     * Record one hit on a URL
+     * 
+     * @param target     the URL that was accessed
+     * @param accessTime the time of access
+     * @param clientIp   the visitor's IP, for unique-visitor estimates
+     * @param userAgent  the visitor's User-Agent, for unique-visitor estimates
+     */
+    public void recordHit(RedirectTarget target, Instant accessTime, String clientIp, String userAgent) {
+        if (ringBuffer != null) {
+            // Dropped events (full buffer) are counted by the ring buffer itself
+            ringBuffer.publish(target.id(), HitCount.toMillis(target.expireAt()), accessTime.toEpochMilli(), clientIp,
+                    userAgent);
+            return;
+        }
+
+        visitorSketchService.offer(target.id(), VisitorHasher.hash(clientIp, userAgent));
+
+        if (clickJournal != null) {
+            try {
+                clickJournal.append(target.id(), target.expireAt(), accessTime);
+                return;
+            } catch (UncheckedIOException e) {
+                logger.error("Click journal append failed, counting hit in memory: {}", e.getMessage());
+            }
+        }
+
+        long accessMillis = accessTime.toEpochMilli();
+        pendingHits.update(target.id(), hits -> hits.record(accessMillis, target.expireAt()));
+    }
+
+    /**
+     * Write the hits counted in memory since the last flush, with their
+     * owners' click stats
+     */
+    @Scheduled(fixedDelayString = "${urls.hits.flush-interval-ms:1000}")
+    public void flushHits() {
+        Map<Long, PendingHits> batch = pendingHits.drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, HitCount> hitsByUrlId = new HashMap<>(batch.size());
+        batch.forEach((urlId, hits) -> hitsByUrlId.put(urlId, hits.toHitCount()));
+        try {
+            hitCountWriter.apply(hitsByUrlId);
+        } catch (RuntimeException e) {
+            logger.warn("Writing hits of {} URLs failed, will retry: {}", batch.size(), e.getMessage());
+            batch.forEach(pendingHits::requeue);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushHits();
+    }
+
+    private static final class PendingHits {
+        private long count;
+        private long lastAccessMillis;
+        private Instant expireAt;
+
+        private void record(long accessMillis, Instant urlExpireAt) {
+            count++;
+            lastAccessMillis = Math.max(lastAccessMillis, accessMillis);
+            expireAt = urlExpireAt;
+        }
+
+        private static void add(PendingHits into, PendingHits from) {
+            into.count += from.count;
+            into.lastAccessMillis = Math.max(into.lastAccessMillis, from.lastAccessMillis);
+            if (into.expireAt == null) {
+                into.expireAt = from.expireAt;
+            }
+        }
+
+        private HitCount toHitCount() {
+            return new HitCount(count, Instant.ofEpochMilli(lastAccessMillis), expireAt);
+        }
+    }
+}
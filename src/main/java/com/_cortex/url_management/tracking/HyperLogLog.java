@@ -0,0 +1,115 @@
+package com._cortex.url_management.tracking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-size HyperLogLog sketch for estimating distinct visitors.
+ * <p>
+ * Uses 2^11 one-byte registers (2 KB per sketch, ~2.3% standard error).
+ * Register updates are lock-free, and two sketches merge by taking the
+ * register-wise maximum, so sketches from different nodes or time windows
+ * can be combined without loss.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 11;
+    public static final int REGISTER_COUNT = 1 << PRECISION;
+
+    private static final VarHandle REGISTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(new byte[REGISTER_COUNT]);
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * Restore a sketch from its serialized registers
+     *
+     * @param registers bytes produced by {@link #toBytes()}
+     * @return the sketch
+     * @throws IllegalArgumentException if the length does not match
+     */
+    public static HyperLogLog fromBytes(byte[] registers) {
+        if (registers.length != REGISTER_COUNT) {
+            throw new IllegalArgumentException("Expected " + REGISTER_COUNT + " registers, got " + registers.length);
+        }
+        return new HyperLogLog(registers.clone());
+    }
+
+    /**
+     * Add a 64-bit hash of a visitor to the sketch
+     *
+     * @param hash well-mixed 64-bit hash
+     */
+    public void offer(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Rank of the first set bit in the remaining bits; the sentinel bit caps it
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        raise(index, rank);
+    }
+
+    /**
+     * Merge another sketch into this one
+     *
+     * @param other the sketch to merge
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            raise(i, (byte) REGISTERS.getVolatile(other.registers, i));
+        }
+    }
+
+    private void raise(int index, byte rank) {
+        byte current = (byte) REGISTERS.getVolatile(registers, index);
+        while (rank > current) {
+            if (REGISTERS.compareAndSet(registers, index, current, rank)) {
+                return;
+            }
+            current = (byte) REGISTERS.getVolatile(registers, index);
+        }
+    }
+
+    /**
+     * Estimate the number of distinct hashes offered
+     *
+     * @return cardinality estimate
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            byte value = (byte) REGISTERS.getVolatile(registers, i);
+            sum += 1.0 / (1L << value);
+            if (value == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            // Small-range correction: linear counting is more accurate here
+            estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Serialize the registers for storage
+     *
+     * @return a copy of the registers
+     */
+    public byte[] toBytes() {
+        byte[] copy = new byte[REGISTER_COUNT];
+        for (int i = 0; i < REGISTER_COUNT; i++) {
+            copy[i] = (byte) REGISTERS.getVolatile(registers, i);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,177 @@
+package com._cortex.url_management.tracking;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.model.UrlVisitorSketch;
+import com._cortex.url_management.repository.UrlVisitorSketchRepository;
+import com._cortex.url_management.util.StripedAccumulator;
+
+/**
+ * Maintains per-URL daily HyperLogLog sketches of distinct visitors.
+ * <p>
+ * Redirects offer a visitor hash into an in-memory sketch (2 KB per active
+ * URL per day); a scheduled flush merges those into the persisted daily row
+ * with optimistic locking, so several nodes can flush the same URL safely.
+ * Estimates merge the daily rows inside the retention window.
+ */
+@Service
+public class VisitorSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisitorSketchService.class);
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final UrlVisitorSketchRepository sketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int retentionDays;
+
+    private final StripedAccumulator<SketchKey, HyperLogLog> pending =
+            new StripedAccumulator<>(key -> new HyperLogLog(), HyperLogLog::merge);
+
+    public VisitorSketchService(
+            UrlVisitorSketchRepository sketchRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${visitors.sketch.enabled:true}") boolean enabled,
+            @Value("${visitors.sketch.retention-days:90}") int retentionDays) {
+        this.sketchRepository = sketchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Record a visit to a URL
+     * 
+     * @param urlId       the URL ID
+     * @param visitorHash 64-bit hash identifying the visitor
+     */
+    public void offer(long urlId, long visitorHash) {
+        if (!enabled) {
+            return;
+        }
+        pending.update(new SketchKey(urlId, today()), sketch -> sketch.offer(visitorHash));
+    }
+
+    /**
+     * Estimate distinct visitors of a URL over the retention window,
+     * including visits not yet flushed by this node
+     * 
+     * @param urlId the URL ID
+     * @return estimated number of unique visitors, or null when tracking is disabled
+     */
+    public Long estimateUniqueVisitors(long urlId) {
+        if (!enabled) {
+            return null;
+        }
+
+        HyperLogLog union = new HyperLogLog();
+        for (UrlVisitorSketch row : sketchRepository.findByUrlIdAndBucketDateGreaterThanEqual(urlId, retentionStart())) {
+            union.merge(HyperLogLog.fromBytes(row.getRegisters()));
+        }
+        pending.forEachPending(key -> key.urlId() == urlId, (key, sketch) -> union.merge(sketch));
+        return union.estimate();
+    }
+
+    /**
+     * Drop all sketches of a deleted URL
+     * 
+     * @param urlId the URL ID
+     */
+    public void forget(long urlId) {
+        pending.removeIf(key -> key.urlId() == urlId);
+        sketchRepository.deleteByUrlId(urlId);
+    }
+
+    /**
+     * Drop all sketches of several deleted URLs
+     * 
+     * @param urlIds the URL IDs
+     */
+    public void forgetAll(Collection<Long> urlIds) {
+        if (urlIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(urlIds);
+        pending.removeIf(key -> ids.contains(key.urlId()));
+        sketchRepository.deleteByUrlIdIn(ids);
+    }
+
+    /**
+     * Merge in-memory sketches into their persisted daily rows
+     */
+    @Scheduled(fixedDelayString = "${visitors.sketch.flush-interval-ms:30000}")
+    public void flush() {
+        Map<SketchKey, HyperLogLog> batch = pending.drain();
+
+        batch.forEach((key, sketch) -> {
+            for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> mergeIntoRow(key, sketch));
+                    return;
+                } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+                    // Another node flushed the same row concurrently; re-read and merge again
+                    logger.debug("Visitor sketch flush conflict for URL {} (attempt {})", key.urlId(), attempt);
+                } catch (RuntimeException e) {
+                    logger.warn("Visitor sketch flush failed for URL {}, will retry: {}", key.urlId(), e.getMessage());
+                    pending.requeue(key, sketch);
+                    return;
+                }
+            }
+            logger.warn("Visitor sketch flush for URL {} conflicted {} times, will retry", key.urlId(),
+                    MAX_FLUSH_ATTEMPTS);
+            pending.requeue(key, sketch);
+        });
+    }
+
+    private void mergeIntoRow(SketchKey key, HyperLogLog sketch) {
+        UrlVisitorSketch row = sketchRepository.findByUrlIdAndBucketDate(key.urlId(), key.day())
+                .orElseGet(() -> {
+                    UrlVisitorSketch created = new UrlVisitorSketch();
+                    created.setUrlId(key.urlId());
+                    created.setBucketDate(key.day());
+                    created.setRegisters(new byte[HyperLogLog.REGISTER_COUNT]);
+                    return created;
+                });
+
+        HyperLogLog merged = HyperLogLog.fromBytes(row.getRegisters());
+        merged.merge(sketch);
+        row.setRegisters(merged.toBytes());
+        sketchRepository.saveAndFlush(row);
+    }
+
+    /**
+     * Delete sketches that fell out of the retention window
+     */
+    @Scheduled(cron = "${visitors.sketch.prune-cron:0 15 3 * * *}")
+    public void pruneExpired() {
+        Integer deleted = transactionTemplate.execute(status -> sketchRepository.deleteOlderThan(retentionStart()));
+        if (deleted != null && deleted > 0) {
+            logger.info("Pruned {} visitor sketches older than {} days", deleted, retentionDays);
+        }
+    }
+
+    private LocalDate retentionStart() {
+        return today().minusDays(retentionDays);
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private record SketchKey(long urlId, LocalDate day) {
+    }
+}
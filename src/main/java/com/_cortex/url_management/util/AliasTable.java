@@ -0,0 +1,94 @@
+package com._cortex.url_management.util;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Walker alias table for sampling from a fixed discrete distribution in
+ * constant time, built with Vose's method in linear time.
+ * <p>
+ * Each of the n columns holds a probability and an alias. Sampling picks a
+ * column uniformly, then keeps it with its probability or takes its alias
+ * otherwise: one random int and one random double whatever the number of
+ * outcomes. Immutable and thread-safe.
+ */
+public final class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Build a table
+     *
+     * @param weights positive weight of each outcome
+     * @throws IllegalArgumentException if there are no weights or one is not
+     *                                  positive
+     */
+    public AliasTable(long[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("An alias table needs at least one weight");
+        }
+        double total = 0;
+        for (long weight : weights) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weights must be positive");
+            }
+            total += weight;
+        }
+
+        probability = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is 1 up to rounding
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0;
+        }
+    }
+
+    /**
+     * Draw an outcome
+     *
+     * @param random the random source
+     * @return index of the outcome, with probability proportional to its
+     *         weight
+     */
+    public int sample(RandomGenerator random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Number of outcomes
+     */
+    public int size() {
+        return probability.length;
+    }
+}
@@ -0,0 +1,304 @@
+package com._cortex.url_management.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Encodes URLs as compact byte arrays for in-memory tables that hold
+ * millions of them, decoding only when a URL is actually needed.
+ * <p>
+ * An encoded URL is a varint header followed by the rest of the URL:
+ * <ul>
+ * <li>the scheme and authority ({@code https://docs.example.com}) are
+ * interned, and the header carries their ID, so each host is stored once
+ * however many links point at it</li>
+ * <li>the path and query are UTF-8 with common fragments ({@code /watch?v=},
+ * {@code &utm_medium=}, {@code .html}, ...) replaced by single control bytes,
+ * which never occur in a valid URL. A URL that does contain control
+ * characters is flagged in the header and stored without substitution</li>
+ * </ul>
+ * Compared with a {@code String} (24-byte object plus a 16-byte array header
+ * plus the characters) an entry drops the String object and the host, and
+ * usually a few more bytes from the dictionary. Decoding sizes the output
+ * first and copies each part once.
+ * <p>
+ * Interned prefixes are never removed; past {@code maxPrefixes} new hosts
+ * are stored inline. They are kept in fixed-size chunks that are never
+ * copied, so interning a host is O(1) however many came before it. One
+ * decode in 1024 is timed, so the CPU paid for the
+ * saved bytes can be reported next to them ({@link #meanDecodeNanos()}).
+ * Thread-safe; encode and decode can run concurrently.
+ */
+public class CompactUrlCodec {
+
+    private static final String[] DICTIONARY = {
+            "?utm_source=", "&utm_medium=", "&utm_campaign=", "&utm_content=", "&utm_term=", "utm_",
+            "/watch?v=", "/index.html", ".html", ".php", ".pdf", "/blog/", "/docs/", "/products/", "/product/",
+            "/article/", "/articles/", "/en-us/", "/en/", "/api/", "/search?q=", "?ref=", "&ref=", "?id=", "&id=",
+            "%20", "/status/", "/p/", "/post/", "/share/", "/item/" };
+
+    // Dictionary entry i is written as byte i + 1, so every entry fits below 0x20
+    private static final byte[][] TOKENS = new byte[DICTIONARY.length + 1][];
+    // Token codes by first character, longest token first
+    private static final byte[][] CANDIDATES = new byte[128][];
+
+    static {
+        List<List<Integer>> byFirst = new ArrayList<>();
+        for (int c = 0; c < 128; c++) {
+            byFirst.add(new ArrayList<>());
+        }
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            TOKENS[i + 1] = DICTIONARY[i].getBytes(StandardCharsets.US_ASCII);
+            byFirst.get(DICTIONARY[i].charAt(0)).add(i + 1);
+        }
+        for (int c = 0; c < 128; c++) {
+            List<Integer> codes = byFirst.get(c);
+            codes.sort(Comparator.comparingInt((Integer code) -> TOKENS[code].length).reversed());
+            CANDIDATES[c] = new byte[codes.size()];
+            for (int i = 0; i < codes.size(); i++) {
+                CANDIDATES[c][i] = codes.get(i).byteValue();
+            }
+        }
+    }
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int DECODE_SAMPLE_RATE = 1024;
+
+    private final int maxPrefixes;
+    private final Map<String, Integer> prefixIds = new ConcurrentHashMap<>();
+    private final Object prefixLock = new Object();
+    // Prefix i is prefixChunks[i >>> CHUNK_BITS][i & (CHUNK_SIZE - 1)]; index 0 is the empty prefix,
+    // used when the URL has no authority or the table is full
+    private final byte[][][] prefixChunks;
+    // Written under prefixLock after the prefix bytes, so reading it first makes them visible
+    private volatile int prefixTotal = 1;
+    private final LongAdder sampledDecodes = new LongAdder();
+    private final LongAdder sampledDecodeNanos = new LongAdder();
+
+    public CompactUrlCodec(int maxPrefixes) {
+        this.maxPrefixes = maxPrefixes;
+        this.prefixChunks = new byte[(maxPrefixes >>> CHUNK_BITS) + 1][][];
+        prefixChunks[0] = new byte[CHUNK_SIZE][];
+        prefixChunks[0][0] = new byte[0];
+    }
+
+    /**
+     * Encode a URL
+     *
+     * @param url the URL
+     * @return the compact form, to be passed to {@link #decode}
+     */
+    public byte[] encode(String url) {
+        int split = authorityEnd(url);
+        int prefixId = split > 0 ? intern(url.substring(0, split)) : 0;
+        byte[] rest = (prefixId == 0 ? url : url.substring(split)).getBytes(StandardCharsets.UTF_8);
+
+        boolean raw = false;
+        for (byte b : rest) {
+            if (b >= 0 && b < 0x20) {
+                raw = true;
+                break;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rest.length + 3);
+        writeVarint(out, (prefixId << 1) | (raw ? 1 : 0));
+        if (raw) {
+            out.write(rest, 0, rest.length);
+            return out.toByteArray();
+        }
+
+        int i = 0;
+        while (i < rest.length) {
+            int code = rest[i] >= 0 ? longestToken(rest, i) : 0;
+            if (code == 0) {
+                out.write(rest[i++]);
+            } else {
+                out.write(code);
+                i += TOKENS[code].length;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a URL
+     *
+     * @param encoded a value returned by {@link #encode} on this codec
+     * @return the URL
+     */
+    public String decode(byte[] encoded) {
+        if (ThreadLocalRandom.current().nextInt(DECODE_SAMPLE_RATE) != 0) {
+            return decodeUntimed(encoded);
+        }
+        long start = System.nanoTime();
+        String url = decodeUntimed(encoded);
+        sampledDecodeNanos.add(System.nanoTime() - start);
+        sampledDecodes.increment();
+        return url;
+    }
+
+    private String decodeUntimed(byte[] encoded) {
+        int header = 0;
+        int shift = 0;
+        int pos = 0;
+        byte b;
+        do {
+            b = encoded[pos++];
+            header |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        byte[] prefix = prefix(header >>> 1);
+        if ((header & 1) != 0) {
+            byte[] out = Arrays.copyOf(prefix, prefix.length + encoded.length - pos);
+            System.arraycopy(encoded, pos, out, prefix.length, encoded.length - pos);
+            return new String(out, StandardCharsets.UTF_8);
+        }
+
+        int length = prefix.length;
+        for (int i = pos; i < encoded.length; i++) {
+            int value = encoded[i];
+            length += value > 0 && value < 0x20 ? TOKENS[value].length : 1;
+        }
+
+        byte[] out = Arrays.copyOf(prefix, length);
+        int at = prefix.length;
+        for (int i = pos; i < encoded.length; i++) {
+            int value = encoded[i];
+            if (value > 0 && value < 0x20) {
+                byte[] token = TOKENS[value];
+                System.arraycopy(token, 0, out, at, token.length);
+                at += token.length;
+            } else {
+                out[at++] = (byte) value;
+            }
+        }
+        return new String(out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Number of interned scheme and host prefixes
+     */
+    public int prefixCount() {
+        return prefixTotal - 1;
+    }
+
+    /**
+     * Mean time of the sampled decodes; a URL held as a {@code String} costs
+     * nothing to read, so this is the CPU paid per redirect for the bytes
+     * saved
+     *
+     * @return nanoseconds per decode, or 0 before the first sample
+     */
+    public double meanDecodeNanos() {
+        long samples = sampledDecodes.sum();
+        return samples == 0 ? 0 : (double) sampledDecodeNanos.sum() / samples;
+    }
+
+    /**
+     * Approximate heap bytes of a URL held as a plain {@code String}, for
+     * comparison with the encoded length (compressed oops, compact strings)
+     *
+     * @param url the URL
+     * @return object header and fields plus the backing array
+     */
+    public static long stringFootprint(String url) {
+        boolean latin1 = url.chars().allMatch(c -> c < 0x100);
+        return 24 + align(16L + (latin1 ? url.length() : 2L * url.length()));
+    }
+
+    /**
+     * Approximate heap bytes of an encoded URL
+     *
+     * @param encoded the encoded URL
+     * @return the array header plus its contents
+     */
+    public static long encodedFootprint(byte[] encoded) {
+        return align(16L + encoded.length);
+    }
+
+    private int intern(String prefix) {
+        Integer id = prefixIds.get(prefix);
+        if (id != null) {
+            return id;
+        }
+        synchronized (prefixLock) {
+            id = prefixIds.get(prefix);
+            if (id != null) {
+                return id;
+            }
+            int next = prefixTotal;
+            if (next > maxPrefixes) {
+                return 0;
+            }
+            byte[][] chunk = prefixChunks[next >>> CHUNK_BITS];
+            if (chunk == null) {
+                chunk = new byte[CHUNK_SIZE][];
+                prefixChunks[next >>> CHUNK_BITS] = chunk;
+            }
+            chunk[next & (CHUNK_SIZE - 1)] = prefix.getBytes(StandardCharsets.UTF_8);
+            // Publish the bytes before the ID can appear in an encoded URL
+            prefixTotal = next + 1;
+            prefixIds.put(prefix, next);
+            return next;
+        }
+    }
+
+    private byte[] prefix(int id) {
+        if (id >= prefixTotal) {
+            throw new IllegalArgumentException("Unknown prefix " + id + "; URL was encoded by another codec");
+        }
+        return prefixChunks[id >>> CHUNK_BITS][id & (CHUNK_SIZE - 1)];
+    }
+
+    private static int longestToken(byte[] bytes, int from) {
+        for (byte code : CANDIDATES[bytes[from]]) {
+            byte[] token = TOKENS[code];
+            if (from + token.length <= bytes.length
+                    && Arrays.equals(bytes, from, from + token.length, token, 0, token.length)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * End of {@code scheme://authority}, or -1 if the URL does not start with
+     * one
+     */
+    private static int authorityEnd(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme <= 0) {
+            return -1;
+        }
+        for (int i = scheme + 3; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,75 @@
+package com._cortex.url_management.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring mapping keys to nodes.
+ * <p>
+ * Every node is placed on the ring at {@code virtualNodes} pseudo-random
+ * points, and a key belongs to the first point at or after its own hash. The
+ * points even out the share each node owns, and adding or removing a node
+ * only moves the keys next to its points. Immutable and thread-safe.
+ */
+public class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    /**
+     * Build a ring
+     *
+     * @param nodes        node names (for example base URLs); duplicates are
+     *                     ignored
+     * @param virtualNodes points per node
+     * @throws IllegalArgumentException if there are no nodes
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        this.nodes = nodes.stream().distinct().sorted().toList();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On a collision the node that sorts first keeps the point, on every instance alike
+                ring.putIfAbsent(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Find the node owning a key
+     *
+     * @param key the key
+     * @return the owning node
+     */
+    public String ownerOf(String key) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+        return (owner != null ? owner : ring.firstEntry()).getValue();
+    }
+
+    /**
+     * All nodes on the ring, sorted
+     */
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over UTF-8, finished with the SplitMix64 mixer so nearby
+     * strings land far apart
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
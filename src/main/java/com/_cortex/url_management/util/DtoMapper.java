@@ -1,8 +1,11 @@
 package com._cortex.url_management.util;
 
+import com._cortex.url_management.dto.DestinationResponse;
 import com._cortex.url_management.dto.UrlResponse;
+import com._cortex.url_management.dto.UrlSummary;
 import com._cortex.url_management.dto.UserResponse;
 import com._cortex.url_management.model.Url;
+import com._cortex.url_management.model.UrlDestination;
 import com._cortex.url_management.model.User;
 
 /**
@@ -54,4 +57,34 @@ public class DtoMapper {
 
         return response;
     }
+
+    /**
+     * Convert UrlSummary projection to UrlResponse DTO
+     */
+    public static UrlResponse toUrlResponse(UrlSummary summary, String baseUrl) {
+        if (summary == null) {
+            return null;
+        }
+
+        UrlResponse response = new UrlResponse();
+        response.setId(summary.id());
+        response.setShortCode(summary.shortCode());
+        response.setShortUrl(baseUrl + "/" + summary.shortCode());
+        response.setOriginalUrl(summary.originalUrl());
+        response.setCreatedByUserId(summary.createdByUserId());
+        response.setCreatedByUsername(summary.createdByUsername());
+        response.setCreatedAt(summary.createdAt());
+        response.setLastAccessedAt(summary.lastAccessedAt());
+        response.setExpireAt(summary.expireAt());
+        response.setHits(summary.hits());
+        return response;
+    }
+
+    /**
+     * Convert UrlDestination entity to DestinationResponse DTO
+     */
+    public static DestinationResponse toDestinationResponse(UrlDestination destination, long unflushedHits) {
+        return new DestinationResponse(destination.getId(), destination.getDestinationUrl(),
+                destination.getWeight(), destination.getHits() + unflushedHits);
+    }
 }
@@ -1,6 +1,9 @@
 package com._cortex.url_management.util;
 
 import java.security.SecureRandom;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Utility class for generating short codes using Base62 encoding
@@ -42,6 +45,44 @@ public class ShortCodeGenerator {
         return sb.toString();
     }
 
+    /**
+     * Build alternative codes close to a requested one, nearest first:
+     * numeric suffixes, the last character swapped, then one extra character
+     * 
+     * @param shortCode the requested short code
+     * @param maxLength the longest acceptable code
+     * @param limit     maximum number of variants to build
+     * @return distinct variants, excluding the code itself
+     */
+    public static List<String> variantsOf(String shortCode, int maxLength, int limit) {
+        Set<String> variants = new LinkedHashSet<>();
+
+        if (shortCode.length() < maxLength) {
+            for (int n = 1; n <= 9 && variants.size() < limit; n++) {
+                variants.add(shortCode + n);
+            }
+        }
+        if (shortCode.length() + 2 <= maxLength) {
+            for (int n = 10; n <= 99 && variants.size() < limit; n++) {
+                variants.add(shortCode + n);
+            }
+        }
+
+        String stem = shortCode.substring(0, shortCode.length() - 1);
+        for (int i = 0; i < BASE62_CHARS.length() && variants.size() < limit; i++) {
+            variants.add(stem + BASE62_CHARS.charAt(i));
+        }
+
+        if (shortCode.length() < maxLength) {
+            for (int i = 10; i < BASE62_CHARS.length() && variants.size() < limit; i++) {
+                variants.add(shortCode + BASE62_CHARS.charAt(i));
+            }
+        }
+
+        variants.remove(shortCode);
+        return List.copyOf(variants);
+    }
+
     /**
      * Validate if a string is a valid Base62 short code
      * 
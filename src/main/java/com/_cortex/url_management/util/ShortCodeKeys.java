@@ -0,0 +1,90 @@
+package com._cortex.url_management.util;
+
+import java.util.Arrays;
+
+/**
+ * Maps Base62 short codes of up to 10 characters to non-negative 64-bit keys
+ * and back.
+ * <p>
+ * Codes are numbered bijectively by length first, then by Base62 value, so
+ * "0" and "00" get different keys. Decoding uses a 128-entry lookup table
+ * with no per-character branches: invalid characters map to -1, and all
+ * digits are OR-ed together so one sign check at the end rejects the code.
+ */
+public final class ShortCodeKeys {
+
+    public static final int MAX_LENGTH = 10;
+    private static final String BASE62_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private static final int[] DIGITS = new int[128];
+    // OFFSETS[n] = number of codes shorter than n characters (excluding the empty code)
+    private static final long[] OFFSETS = new long[MAX_LENGTH + 2];
+
+    static {
+        Arrays.fill(DIGITS, -1);
+        for (int i = 0; i < BASE62_CHARS.length(); i++) {
+            DIGITS[BASE62_CHARS.charAt(i)] = i;
+        }
+
+        long power = 1;
+        for (int n = 1; n <= MAX_LENGTH; n++) {
+            power *= 62;
+            OFFSETS[n + 1] = OFFSETS[n] + power;
+        }
+    }
+
+    private ShortCodeKeys() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Encode a short code as a key
+     * 
+     * @param shortCode the short code
+     * @return the key, or -1 if the code is empty, longer than 10 characters
+     *         or not Base62
+     */
+    public static long toKey(String shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return -1;
+        }
+
+        long value = 0;
+        int invalid = 0;
+        for (int i = 0; i < length; i++) {
+            char c = shortCode.charAt(i);
+            // Characters >= 128 make (127 - c) negative; mask keeps the table index in range
+            int digit = DIGITS[c & 0x7F];
+            invalid |= digit | (127 - c);
+            value = value * 62 + digit;
+        }
+        return invalid < 0 ? -1 : OFFSETS[length] + value;
+    }
+
+    /**
+     * Decode a key back into its short code
+     * 
+     * @param key a key produced by {@link #toKey}
+     * @return the short code
+     * @throws IllegalArgumentException if the key is out of range
+     */
+    public static String toShortCode(long key) {
+        if (key < 0 || key >= OFFSETS[MAX_LENGTH + 1]) {
+            throw new IllegalArgumentException("Short code key out of range: " + key);
+        }
+
+        int length = 1;
+        while (key >= OFFSETS[length + 1]) {
+            length++;
+        }
+
+        long value = key - OFFSETS[length];
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = BASE62_CHARS.charAt((int) (value % 62));
+            value /= 62;
+        }
+        return new String(chars);
+    }
+}
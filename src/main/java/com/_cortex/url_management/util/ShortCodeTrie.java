@@ -0,0 +1,251 @@
+package com._cortex.url_management.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed radix trie of short codes. Each edge carries a multi-character
+ * label and children are kept in arrays sorted by their first character, so
+ * lookups touch one node per label and prefix listings come out in code order.
+ * <p>
+ * Not thread-safe; callers guard it with a read/write lock.
+ */
+public class ShortCodeTrie {
+
+    private final Node root = new Node("");
+    private int size;
+
+    /**
+     * Add a code
+     *
+     * @param code the code to add
+     * @return true if the code was not present before
+     */
+    public boolean add(String code) {
+        Node node = root;
+        int i = 0;
+        while (true) {
+            if (i == code.length()) {
+                if (node.terminal) {
+                    return false;
+                }
+                node.terminal = true;
+                size++;
+                return true;
+            }
+
+            int idx = node.indexOf(code.charAt(i));
+            if (idx < 0) {
+                Node leaf = new Node(code.substring(i));
+                leaf.terminal = true;
+                node.insertChild(-idx - 1, leaf);
+                size++;
+                return true;
+            }
+
+            Node child = node.children[idx];
+            int common = commonPrefixLength(child.label, code, i);
+            if (common < child.label.length()) {
+                // Split the edge at the first mismatch
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.insertChild(0, child);
+                node.children[idx] = middle;
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+    }
+
+    /**
+     * Remove a code
+     *
+     * @param code the code to remove
+     * @return true if the code was present
+     */
+    public boolean remove(String code) {
+        Node parent = null;
+        Node node = root;
+        int i = 0;
+        while (i < code.length()) {
+            int idx = node.indexOf(code.charAt(i));
+            if (idx < 0) {
+                return false;
+            }
+            Node child = node.children[idx];
+            if (!code.startsWith(child.label, i)) {
+                return false;
+            }
+            parent = node;
+            node = child;
+            i += child.label.length();
+        }
+        if (!node.terminal) {
+            return false;
+        }
+
+        node.terminal = false;
+        size--;
+
+        if (node == root) {
+            return true;
+        }
+        if (node.childCount == 0) {
+            parent.removeChild(parent.indexOf(node.label.charAt(0)));
+            if (parent != root && !parent.terminal && parent.childCount == 1) {
+                parent.absorbOnlyChild();
+            }
+        } else if (node.childCount == 1) {
+            node.absorbOnlyChild();
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a code is present
+     *
+     * @param code the code
+     * @return true if present
+     */
+    public boolean contains(String code) {
+        Node node = root;
+        int i = 0;
+        while (i < code.length()) {
+            int idx = node.indexOf(code.charAt(i));
+            if (idx < 0) {
+                return false;
+            }
+            node = node.children[idx];
+            if (!code.startsWith(node.label, i)) {
+                return false;
+            }
+            i += node.label.length();
+        }
+        return node.terminal;
+    }
+
+    /**
+     * List codes starting with a prefix, in code order
+     *
+     * @param prefix the prefix (empty for all codes)
+     * @param limit  maximum number of codes to return
+     * @return matching codes
+     */
+    public List<String> withPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        Node node = root;
+        StringBuilder path = new StringBuilder(prefix.length() + 16);
+        int i = 0;
+        while (i < prefix.length()) {
+            int idx = node.indexOf(prefix.charAt(i));
+            if (idx < 0) {
+                return result;
+            }
+            node = node.children[idx];
+            int remaining = prefix.length() - i;
+            if (remaining < node.label.length()) {
+                // The prefix ends inside this edge
+                if (!node.label.startsWith(prefix.substring(i))) {
+                    return result;
+                }
+            } else if (!prefix.startsWith(node.label, i)) {
+                return result;
+            }
+            path.append(node.label);
+            i += node.label.length();
+        }
+        collect(node, path, result, limit);
+        return result;
+    }
+
+    private static void collect(Node node, StringBuilder path, List<String> result, int limit) {
+        if (node.terminal) {
+            result.add(path.toString());
+        }
+        for (int c = 0; c < node.childCount && result.size() < limit; c++) {
+            Node child = node.children[c];
+            int length = path.length();
+            path.append(child.label);
+            collect(child, path, result, limit);
+            path.setLength(length);
+        }
+    }
+
+    /**
+     * Number of codes in the trie
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int commonPrefixLength(String label, String code, int offset) {
+        int max = Math.min(label.length(), code.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == code.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String label;
+        private boolean terminal;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Binary search children by first label character; returns
+         * {@code -(insertionPoint + 1)} when absent
+         */
+        private int indexOf(char first) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(int index, Node child) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+
+        private void removeChild(int index) {
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+
+        /**
+         * Merge a non-terminal node with its single child to keep edges compressed
+         */
+        private void absorbOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            terminal = child.terminal;
+            children = child.children;
+            childCount = child.childCount;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com._cortex.url_management.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the
+ * loader, callers arriving while it is in flight wait on the same future and
+ * share its result or exception. Entries are removed as soon as the call
+ * completes, so nothing is cached beyond the call itself.
+ * <p>
+ * The number of keys in flight is bounded; once the bound is reached further
+ * keys are loaded directly without coalescing.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    public SingleFlight(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Run the loader for a key, or join the call already in flight for it
+     *
+     * @param key    the key
+     * @param loader loads the value; runs on the calling thread
+     * @return the loaded value
+     */
+    public Outcome<V> execute(K key, Supplier<V> loader) {
+        if (calls.size() >= maxKeys) {
+            return new Outcome<>(loader.get(), false);
+        }
+
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight != null) {
+            return new Outcome<>(await(inFlight), true);
+        }
+
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return new Outcome<>(value, false);
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Number of keys currently in flight
+     */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Result of a call, and whether it was shared from another caller's load
+     */
+    public record Outcome<V>(V value, boolean shared) {
+    }
+}
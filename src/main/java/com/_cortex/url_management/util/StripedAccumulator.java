@@ -0,0 +1,135 @@
+package com._cortex.url_management.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Per-key accumulators that are updated on hot paths and periodically
+ * drained by a flush, without losing updates that race the drain.
+ * <p>
+ * Swapping a shared map and then iterating the old one loses every update
+ * made by a thread that fetched a value from the old map just before the
+ * swap. Here keys are spread over stripes by hash, each key's accumulator
+ * is updated under its stripe's lock, and {@link #drain()} takes each
+ * stripe's map under the same lock, so an update lands either in the
+ * drained batch or in the next one. Writers of different keys rarely
+ * contend, and each key has a single accumulator, so memory is the same as
+ * one shared map.
+ *
+ * @param <K> key type
+ * @param <V> mutable accumulator type
+ */
+public class StripedAccumulator<K, V> {
+
+    private final Function<K, V> factory;
+    private final BiConsumer<V, V> mergeInto;
+    private final Stripe<K, V>[] stripes;
+    private final int mask;
+
+    /**
+     * @param factory   creates an empty accumulator for a key
+     * @param mergeInto adds the second accumulator into the first
+     */
+    @SuppressWarnings("unchecked")
+    public StripedAccumulator(Function<K, V> factory, BiConsumer<V, V> mergeInto) {
+        this.factory = factory;
+        this.mergeInto = mergeInto;
+        // Two stripes per core or more, rounded up to a power of two
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Update the accumulator of a key
+     *
+     * @param key    the key
+     * @param update applied under the stripe lock; must not block
+     */
+    public void update(K key, Consumer<V> update) {
+        Stripe<K, V> stripe = stripeOf(key);
+        synchronized (stripe) {
+            update.accept(stripe.values.computeIfAbsent(key, factory));
+        }
+    }
+
+    /**
+     * Put back an accumulator taken by {@link #drain()} that could not be
+     * flushed, so it is retried with the next batch
+     *
+     * @param key   the key
+     * @param value the unflushed accumulator
+     */
+    public void requeue(K key, V value) {
+        update(key, current -> mergeInto.accept(current, value));
+    }
+
+    /**
+     * Take everything accumulated so far
+     *
+     * @return the batch; later updates go to the next batch
+     */
+    public Map<K, V> drain() {
+        Map<K, V> batch = new HashMap<>();
+        for (Stripe<K, V> stripe : stripes) {
+            Map<K, V> taken;
+            synchronized (stripe) {
+                if (stripe.values.isEmpty()) {
+                    continue;
+                }
+                taken = stripe.values;
+                stripe.values = new HashMap<>();
+            }
+            batch.putAll(taken);
+        }
+        return batch;
+    }
+
+    /**
+     * Visit the not yet drained accumulators of matching keys
+     *
+     * @param filter selects keys
+     * @param into   receives each matching accumulator, under its stripe lock;
+     *               must not keep a reference to it
+     */
+    public void forEachPending(Predicate<K> filter, BiConsumer<K, V> into) {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values.forEach((key, value) -> {
+                    if (filter.test(key)) {
+                        into.accept(key, value);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Discard the not yet drained accumulators of matching keys
+     *
+     * @param filter selects keys
+     */
+    public void removeIf(Predicate<K> filter) {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values.keySet().removeIf(filter);
+            }
+        }
+    }
+
+    private Stripe<K, V> stripeOf(K key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Stripe<K, V> {
+        private Map<K, V> values = new HashMap<>();
+    }
+}
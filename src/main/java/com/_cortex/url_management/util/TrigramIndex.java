@@ -0,0 +1,274 @@
+package com._cortex.url_management.util;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Trigram inverted index over URLs for case-insensitive substring and domain
+ * search.
+ * <p>
+ * Every URL is stored lower-cased at a position, and each distinct trigram
+ * of it maps to an ascending posting list of positions; hosts map to
+ * positions the same way, keyed by their labels in reverse order
+ * ({@code com.example.www.}) in a sorted map, so a domain and all its
+ * subdomains are one range of keys. A substring query intersects the posting lists of
+ * its trigrams, smallest first, and only the surviving candidates are
+ * compared against the query, so the work depends on how selective the
+ * query is rather than on the number of URLs. Removed URLs leave a hole that
+ * is skipped until enough holes build up to compact the index.
+ * <p>
+ * Not thread-safe; callers guard it with a read/write lock.
+ */
+public class TrigramIndex {
+
+    /**
+     * Shortest substring that can be answered from the index
+     */
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private long[] ids = new long[16];
+    private String[] texts = new String[16];
+    private String[] hosts = new String[16];
+    private int positions;
+    private int size;
+
+    private final Map<Long, Integer> positionById = new HashMap<>();
+    private Map<Long, Postings> byTrigram = new HashMap<>();
+    private NavigableMap<String, Postings> byHost = new TreeMap<>();
+
+    // Hosts and positions visited by the last search
+    private int lastSearchWork;
+
+    /**
+     * Add a URL
+     *
+     * @param id  the URL ID
+     * @param url the original URL
+     * @return true if the ID was not indexed before
+     */
+    public boolean add(long id, String url) {
+        if (positionById.containsKey(id)) {
+            return false;
+        }
+        if (positions == ids.length) {
+            int capacity = positions * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            hosts = Arrays.copyOf(hosts, capacity);
+        }
+
+        int position = positions++;
+        String text = url.toLowerCase(Locale.ROOT);
+        String host = hostOf(text);
+        ids[position] = id;
+        texts[position] = text;
+        hosts[position] = host;
+        positionById.put(id, position);
+        size++;
+
+        for (long trigram : trigramsOf(text)) {
+            byTrigram.computeIfAbsent(trigram, key -> new Postings()).add(position);
+        }
+        if (host != null) {
+            byHost.computeIfAbsent(reversedHost(host), key -> new Postings()).add(position);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a URL
+     *
+     * @param id the URL ID
+     * @return true if the ID was indexed
+     */
+    public boolean remove(long id) {
+        Integer position = positionById.remove(id);
+        if (position == null) {
+            return false;
+        }
+        texts[position] = null;
+        hosts[position] = null;
+        size--;
+        if (positions > 64 && size < positions / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Number of indexed URLs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find URLs containing a substring and/or on a domain, most recently
+     * added first
+     *
+     * @param substring text the URL must contain (case-insensitive, at least
+     *                  {@value #MIN_QUERY_LENGTH} characters), or null
+     * @param domain    host the URL must be on, including subdomains, or null
+     * @return IDs of matching URLs
+     */
+    public List<Long> search(String substring, String domain) {
+        String needle = substring == null ? null : substring.toLowerCase(Locale.ROOT);
+        String site = domain == null ? null : domain.toLowerCase(Locale.ROOT);
+        lastSearchWork = 0;
+        if (needle != null && needle.length() < MIN_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Search text must be at least " + MIN_QUERY_LENGTH + " characters");
+        }
+
+        List<Postings> lists = new ArrayList<>();
+        if (needle != null) {
+            for (long trigram : trigramsOf(needle)) {
+                Postings postings = byTrigram.get(trigram);
+                if (postings == null) {
+                    return List.of();
+                }
+                lists.add(postings);
+            }
+        }
+        if (site != null) {
+            Postings onDomain = domainPostings(site);
+            if (onDomain.size == 0) {
+                return List.of();
+            }
+            lists.add(onDomain);
+        }
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        Postings smallest = lists.get(0);
+        List<Long> matches = new ArrayList<>();
+        for (int i = smallest.size - 1; i >= 0; i--) {
+            int position = smallest.values[i];
+            lastSearchWork++;
+            String text = texts[position];
+            if (text == null || !inAll(lists, position)) {
+                continue;
+            }
+            if (needle != null && !text.contains(needle)) {
+                continue;
+            }
+            matches.add(ids[position]);
+        }
+        return matches;
+    }
+
+    /**
+     * Hosts and candidate positions visited by the last {@link #search}, which
+     * grows with the size of the answer rather than of the index
+     */
+    int lastSearchWork() {
+        return lastSearchWork;
+    }
+
+    private Postings domainPostings(String domain) {
+        // "com.example." up to "com.example/" holds the domain and its subdomains, not "com.examples."
+        String from = reversedHost(domain);
+        String to = from.substring(0, from.length() - 1) + (char) ('.' + 1);
+        List<Postings> parts = new ArrayList<>(byHost.subMap(from, true, to, false).values());
+        lastSearchWork += parts.size();
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        Postings union = new Postings();
+        for (Postings part : parts) {
+            for (int i = 0; i < part.size; i++) {
+                union.add(part.values[i]);
+            }
+        }
+        Arrays.sort(union.values, 0, union.size);
+        return union;
+    }
+
+    private static boolean inAll(List<Postings> lists, int position) {
+        for (int i = 1; i < lists.size(); i++) {
+            Postings postings = lists.get(i);
+            if (Arrays.binarySearch(postings.values, 0, postings.size, position) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compact() {
+        long[] liveIds = new long[size];
+        String[] liveTexts = new String[size];
+        int live = 0;
+        for (int position = 0; position < positions; position++) {
+            if (texts[position] != null) {
+                liveIds[live] = ids[position];
+                liveTexts[live] = texts[position];
+                live++;
+            }
+        }
+
+        ids = new long[Math.max(16, live)];
+        texts = new String[ids.length];
+        hosts = new String[ids.length];
+        positions = 0;
+        size = 0;
+        positionById.clear();
+        byTrigram = new HashMap<>();
+        byHost = new TreeMap<>();
+        for (int i = 0; i < live; i++) {
+            add(liveIds[i], liveTexts[i]);
+        }
+    }
+
+    private static Set<Long> trigramsOf(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + MIN_QUERY_LENGTH <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private static String reversedHost(String host) {
+        String[] labels = host.split("\\.");
+        StringBuilder reversed = new StringBuilder(host.length() + 1);
+        for (int i = labels.length - 1; i >= 0; i--) {
+            reversed.append(labels[i]).append('.');
+        }
+        return reversed.toString();
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null || host.isEmpty() ? null : host;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Growable ascending list of positions
+     */
+    private static final class Postings {
+
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+    }
+}
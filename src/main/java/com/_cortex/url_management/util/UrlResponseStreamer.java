@@ -0,0 +1,153 @@
+package com._cortex.url_management.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com._cortex.url_management.dto.UrlResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Streams UrlResponse lists straight into a Jackson generator, one element at
+ * a time, instead of materializing the whole list before serialization.
+ * Supports JSON, Smile and CBOR, negotiated from the Accept header.
+ */
+@Component
+public class UrlResponseStreamer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType APPLICATION_CBOR = new MediaType("application", "cbor");
+
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter smileWriter;
+    private final ObjectWriter cborWriter;
+
+    public UrlResponseStreamer(ObjectMapper objectMapper) {
+        this.jsonWriter = writerFor(objectMapper);
+        this.smileWriter = writerFor(objectMapper.copyWith(new SmileFactory()));
+        this.cborWriter = writerFor(objectMapper.copyWith(new CBORFactory()));
+    }
+
+    private static ObjectWriter writerFor(ObjectMapper mapper) {
+        // Let the generator buffer; flushing after every element would emit one chunk per URL
+        return mapper.writerFor(UrlResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Open a streaming array on the response, choosing the encoding from the
+     * request's Accept header (JSON unless Smile or CBOR is preferred)
+     *
+     * @param request  the incoming request
+     * @param response the response to write to
+     * @return an open array writer, to be finished once all elements are written
+     * @throws IOException if the response stream cannot be opened
+     */
+    public ArrayWriter open(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaType mediaType = negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        ObjectWriter writer = writerFor(mediaType);
+
+        response.setContentType(mediaType.toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        JsonGenerator generator = writer.createGenerator(response.getOutputStream());
+        generator.writeStartArray();
+        return new ArrayWriter(writer, generator);
+    }
+
+    private ObjectWriter writerFor(MediaType mediaType) {
+        if (APPLICATION_SMILE.equals(mediaType)) {
+            return smileWriter;
+        }
+        if (APPLICATION_CBOR.equals(mediaType)) {
+            return cborWriter;
+        }
+        return jsonWriter;
+    }
+
+    /**
+     * Pick the preferred supported media type, falling back to JSON
+     */
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+
+        for (MediaType candidate : accepted) {
+            if (candidate.isCompatibleWith(APPLICATION_SMILE) && !candidate.isWildcardType()
+                    && !candidate.isWildcardSubtype()) {
+                return APPLICATION_SMILE;
+            }
+            if (candidate.isCompatibleWith(APPLICATION_CBOR) && !candidate.isWildcardType()
+                    && !candidate.isWildcardSubtype()) {
+                return APPLICATION_CBOR;
+            }
+            if (candidate.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * An open array on the response body. Elements are serialized as they are
+     * written; nothing is retained after each call. If the producer fails the
+     * array is deliberately left unterminated so clients see a broken body
+     * rather than a silently truncated list.
+     */
+    public static class ArrayWriter {
+
+        private final ObjectWriter writer;
+        private final JsonGenerator generator;
+
+        private ArrayWriter(ObjectWriter writer, JsonGenerator generator) {
+            this.writer = writer;
+            this.generator = generator;
+        }
+
+        /**
+         * Serialize one element into the array
+         *
+         * @param response the element to write
+         * @throws UncheckedIOException if the client connection fails
+         */
+        public void write(UrlResponse response) {
+            try {
+                writer.writeValue(generator, response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Terminate the array and flush the response
+         *
+         * @throws IOException if the client connection fails
+         */
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+}
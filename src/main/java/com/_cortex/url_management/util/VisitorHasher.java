@@ -0,0 +1,52 @@
+package com._cortex.url_management.util;
+
+/**
+ * Utility class for hashing a visitor's identity (client IP + user agent)
+ * into a well-mixed 64-bit value for unique-visitor sketches
+ */
+public class VisitorHasher {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private VisitorHasher() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Hash a visitor identity
+     * 
+     * @param clientIp  the client IP address (may be null)
+     * @param userAgent the User-Agent header (may be null)
+     * @return 64-bit hash
+     */
+    public static long hash(String clientIp, String userAgent) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = update(hash, clientIp);
+        hash *= FNV_PRIME; // separator so "a"+"bc" differs from "ab"+"c"
+        hash = update(hash, userAgent);
+        return mix(hash);
+    }
+
+    private static long update(long hash, String value) {
+        if (value == null) {
+            return hash;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer, spreads FNV output across all bits
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
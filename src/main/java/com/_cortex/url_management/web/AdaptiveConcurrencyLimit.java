@@ -0,0 +1,183 @@
+package com._cortex.url_management.web;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Gradient-style adaptive concurrency limit.
+ * <p>
+ * Every completed request reports its latency. The limit moves towards
+ * {@code limit * (minRtt / rtt) + sqrt(limit)}: while latency stays near the
+ * best observed round-trip time the limit grows by a small queue allowance,
+ * and when the database slows down and latency inflates the limit shrinks
+ * proportionally, so excess requests are shed instead of queueing on threads.
+ * The minimum RTT is re-probed periodically so the baseline can follow a
+ * permanently slower backend.
+ * <p>
+ * Requests have a priority, and each priority keeps its own limit and RTT
+ * baseline. A redirect and a streamed URL listing have very different
+ * latencies; judged against one shared minimum, every listing would look
+ * congested (a slow client reading a large listing even more so) and drag
+ * the redirect limit down to its floor. Redirects are admitted while
+ * everything in flight is under the redirect limit; other DB-bound
+ * requests only while everything in flight is under
+ * {@code lowPriorityShare} of it and their own limit, leaving headroom for
+ * redirects under pressure.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * Request classes competing for the limit
+     */
+    public enum Priority {
+        REDIRECT, STANDARD
+    }
+
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final int MIN_RTT_PROBE_SAMPLES = 1000;
+
+    private final int minLimit;
+    private final double lowPriorityShare;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double lowPriorityShare,
+            MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.lowPriorityShare = lowPriorityShare;
+
+        Gauge.builder("http.concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("DB-bound requests currently in flight")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            Lane lane = new Lane(initialLimit, maxLimit, Counter.builder("http.concurrency.shed")
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Requests rejected by the adaptive concurrency limit")
+                    .register(meterRegistry));
+            lanes.put(priority, lane);
+            Gauge.builder("http.concurrency.limit", lane, current -> current.limit)
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Current adaptive concurrency limit for DB-bound requests")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Try to admit a request
+     *
+     * @param priority the request's class
+     * @return true if admitted; the caller must then call {@link #release}
+     *         with the same priority
+     */
+    public boolean tryAcquire(Priority priority) {
+        Lane lane = lanes.get(priority);
+        int redirectLimit = (int) lanes.get(Priority.REDIRECT).limit;
+        int allowed = priority == Priority.REDIRECT
+                ? redirectLimit
+                : Math.max(1, (int) (redirectLimit * lowPriorityShare));
+
+        if (priority != Priority.REDIRECT && lane.inFlight.get() >= (int) lane.limit) {
+            lane.shed.increment();
+            return false;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                lane.shed.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        lane.inFlight.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Release an admitted request and feed its latency into its priority's
+     * limit
+     *
+     * @param priority the priority it was admitted with
+     * @param rttNanos how long the request took
+     */
+    public void release(Priority priority, long rttNanos) {
+        inFlight.decrementAndGet();
+        Lane lane = lanes.get(priority);
+        lane.update(rttNanos, lane.inFlight.getAndDecrement());
+    }
+
+    /**
+     * Current limit of a priority, rounded down
+     */
+    public int getLimit(Priority priority) {
+        return (int) lanes.get(priority).limit;
+    }
+
+    /**
+     * DB-bound requests currently admitted
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Change the upper bound of the limit at runtime
+     *
+     * @param maxLimit the new upper bound (at least the minimum limit)
+     */
+    public void setMaxLimit(int maxLimit) {
+        for (Lane lane : lanes.values()) {
+            lane.setMaxLimit(Math.max(minLimit, maxLimit));
+        }
+    }
+
+    /**
+     * Limit and RTT baseline of one priority
+     */
+    private final class Lane {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter shed;
+        private volatile double limit;
+        private int maxLimit;
+        private long minRttNanos = Long.MAX_VALUE;
+        private int samplesSinceProbe;
+
+        private Lane(int initialLimit, int maxLimit, Counter shed) {
+            this.limit = initialLimit;
+            this.maxLimit = maxLimit;
+            this.shed = shed;
+        }
+
+        private synchronized void update(long rttNanos, int inFlightAtRelease) {
+            if (++samplesSinceProbe >= MIN_RTT_PROBE_SAMPLES) {
+                // Forget the old baseline so it can rise if the backend got slower for good
+                samplesSinceProbe = 0;
+                minRttNanos = rttNanos;
+            }
+            minRttNanos = Math.min(minRttNanos, rttNanos);
+
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * minRttNanos / (double) rttNanos));
+            double queueAllowance = Math.sqrt(limit);
+            double target = limit * gradient + queueAllowance;
+
+            // Do not grow the limit while it is not actually being used
+            if (target > limit && inFlightAtRelease < limit / 2) {
+                return;
+            }
+
+            double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+        }
+
+        private synchronized void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            limit = Math.min(limit, maxLimit);
+        }
+    }
+}
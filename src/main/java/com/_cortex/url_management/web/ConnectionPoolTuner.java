@@ -0,0 +1,249 @@
+package com._cortex.url_management.web;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com._cortex.url_management.profiling.PoolSizeDecisionEvent;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Resizes the HikariCP pool behind the repositories from what it observes,
+ * instead of a hand-picked {@code maximum-pool-size}.
+ * <p>
+ * Every interval the pool's own Micrometer timers give the number of
+ * checkouts, the mean time a connection was held and the mean time
+ * borrowers waited; the pool MXBean gives the borrowers still waiting.
+ * {@link PoolSizePolicy} turns that into a new maximum pool size, which is
+ * applied through the pool's config MXBean. The adaptive concurrency limit,
+ * when enabled, is bounded to {@code requests-per-connection} times the
+ * pool size, so requests are shed at the filter rather than queueing for a
+ * connection the pool will not have.
+ * <p>
+ * A pool whose minimum idle equals its maximum (Hikari's default) is kept
+ * fixed-size at the new maximum; otherwise the minimum idle is only lowered
+ * when it would exceed the maximum. Shrinking takes effect as surplus idle
+ * connections are retired, not by closing connections in use.
+ * <p>
+ * Decisions are exported as {@code db.pool.tuner.decisions{action}} and the
+ * {@code db.pool.size.target}, {@code db.pool.demand} and
+ * {@code db.pool.baseline} gauges, and recorded as
+ * {@link PoolSizeDecisionEvent} flight recorder events.
+ */
+@Component
+@ConditionalOnProperty(name = "limits.pool-tuner.enabled", havingValue = "true")
+public class ConnectionPoolTuner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolTuner.class);
+
+    private final HikariDataSource hikari;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<AdaptiveConcurrencyLimit> concurrencyLimit;
+    private final PoolSizePolicy policy;
+    private final double requestsPerConnection;
+
+    private final AtomicInteger targetSize = new AtomicInteger();
+    private volatile double demand;
+    private volatile double baselineMillis;
+    private final Map<String, Counter> decisions;
+
+    private boolean fixedSize;
+    private long lastSampleNanos;
+    private long lastBorrows;
+    private double lastUsageMillis;
+    private long lastAcquires;
+    private double lastAcquireMillis;
+
+    public ConnectionPoolTuner(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            ObjectProvider<AdaptiveConcurrencyLimit> concurrencyLimit,
+            @Value("${limits.pool-tuner.min-size:4}") int minSize,
+            @Value("${limits.pool-tuner.max-size:40}") int maxSize,
+            @Value("${limits.pool-tuner.max-step:4}") int maxStep,
+            @Value("${limits.pool-tuner.target-utilization:0.7}") double targetUtilization,
+            @Value("${limits.pool-tuner.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${limits.pool-tuner.acquire-threshold-ms:1}") double acquireThresholdMillis,
+            @Value("${limits.pool-tuner.requests-per-connection:2.0}") double requestsPerConnection) {
+        this.hikari = unwrap(dataSource);
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimit = concurrencyLimit;
+        this.policy = new PoolSizePolicy(minSize, maxSize, maxStep, targetUtilization, latencyTolerance,
+                acquireThresholdMillis);
+        this.requestsPerConnection = requestsPerConnection;
+
+        if (hikari != null) {
+            HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+            fixedSize = config.getMinimumIdle() >= config.getMaximumPoolSize();
+            targetSize.set(config.getMaximumPoolSize());
+        } else {
+            logger.warn("Connection pool tuner disabled: the DataSource is not a HikariCP pool");
+        }
+
+        Gauge.builder("db.pool.size.target", targetSize, AtomicInteger::get)
+                .description("Maximum pool size chosen by the connection pool tuner")
+                .register(meterRegistry);
+        Gauge.builder("db.pool.demand", this, tuner -> tuner.demand)
+                .description("Mean busy connections over the last tuner interval")
+                .register(meterRegistry);
+        Gauge.builder("db.pool.baseline", this, tuner -> tuner.baselineMillis)
+                .description("Best recent connection hold time in milliseconds")
+                .register(meterRegistry);
+        this.decisions = Map.of(
+                "grow", decisionCounter(meterRegistry, "grow"),
+                "shrink", decisionCounter(meterRegistry, "shrink"),
+                "hold", decisionCounter(meterRegistry, "hold"));
+    }
+
+    /**
+     * Sample the pool and apply one sizing decision
+     */
+    @Scheduled(fixedDelayString = "${limits.pool-tuner.interval-ms:10000}",
+            initialDelayString = "${limits.pool-tuner.interval-ms:10000}")
+    public void tune() {
+        if (hikari == null) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        Timer usage = poolTimer("hikaricp.connections.usage");
+        Timer acquire = poolTimer("hikaricp.connections.acquire");
+        if (pool == null || usage == null || acquire == null) {
+            // Pool not started yet, or its metrics are not bound to the registry
+            logger.debug("Connection pool tuner skipped: pool metrics not available");
+            return;
+        }
+
+        long now = System.nanoTime();
+        long borrows = usage.count();
+        double usageMillis = usage.totalTime(TimeUnit.MILLISECONDS);
+        long acquires = acquire.count();
+        double acquireMillis = acquire.totalTime(TimeUnit.MILLISECONDS);
+        if (lastSampleNanos == 0) {
+            remember(now, borrows, usageMillis, acquires, acquireMillis);
+            return;
+        }
+
+        long intervalBorrows = borrows - lastBorrows;
+        long intervalAcquires = acquires - lastAcquires;
+        PoolSizePolicy.Sample sample = new PoolSizePolicy.Sample(
+                (now - lastSampleNanos) / 1e9,
+                intervalBorrows,
+                intervalBorrows == 0 ? 0 : (usageMillis - lastUsageMillis) / intervalBorrows,
+                intervalAcquires == 0 ? 0 : (acquireMillis - lastAcquireMillis) / intervalAcquires,
+                pool.getThreadsAwaitingConnection());
+        remember(now, borrows, usageMillis, acquires, acquireMillis);
+
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        PoolSizePolicy.Decision decision = policy.decide(sample, config.getMaximumPoolSize());
+        apply(config, decision.next());
+        int limitBound = boundConcurrency(decision.next());
+
+        targetSize.set(decision.next());
+        demand = decision.demand();
+        baselineMillis = decision.baselineMillis();
+        decisions.get(decision.action()).increment();
+        record(decision, sample, limitBound);
+
+        if (decision.next() != decision.previous()) {
+            logger.info("Connection pool {} from {} to {} ({}): {} borrows/s, {} ms held, {} ms waited, {} waiting",
+                    decision.action(), decision.previous(), decision.next(), decision.reason(),
+                    String.format("%.1f", decision.borrowRate()), String.format("%.2f", sample.usageMillis()),
+                    String.format("%.2f", sample.acquireMillis()), sample.threadsAwaiting());
+        } else {
+            logger.debug("Connection pool held at {} ({}), demand {}", decision.next(), decision.reason(),
+                    String.format("%.2f", decision.demand()));
+        }
+    }
+
+    private void apply(HikariConfigMXBean config, int size) {
+        if (size > config.getMaximumPoolSize()) {
+            config.setMaximumPoolSize(size);
+            if (fixedSize) {
+                config.setMinimumIdle(size);
+            }
+        } else if (size < config.getMaximumPoolSize()) {
+            // Lower the floor first so the pool never has minimum idle above its maximum
+            if (fixedSize || config.getMinimumIdle() > size) {
+                config.setMinimumIdle(size);
+            }
+            config.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * @return the concurrency limit's new upper bound, or 0 if load
+     *         shedding is disabled
+     */
+    private int boundConcurrency(int poolSize) {
+        AdaptiveConcurrencyLimit limit = concurrencyLimit.getIfAvailable();
+        if (limit == null) {
+            return 0;
+        }
+        int bound = (int) Math.ceil(poolSize * requestsPerConnection);
+        limit.setMaxLimit(bound);
+        return bound;
+    }
+
+    private void record(PoolSizePolicy.Decision decision, PoolSizePolicy.Sample sample, int limitBound) {
+        PoolSizeDecisionEvent event = new PoolSizeDecisionEvent();
+        if (event.shouldCommit()) {
+            event.previous = decision.previous();
+            event.next = decision.next();
+            event.action = decision.action();
+            event.reason = decision.reason();
+            event.borrowRate = decision.borrowRate();
+            event.demand = decision.demand();
+            event.usageMillis = sample.usageMillis();
+            event.acquireMillis = sample.acquireMillis();
+            event.threadsAwaiting = sample.threadsAwaiting();
+            event.concurrencyLimit = limitBound;
+            event.commit();
+        }
+    }
+
+    private void remember(long now, long borrows, double usageMillis, long acquires, double acquireMillis) {
+        lastSampleNanos = now;
+        lastBorrows = borrows;
+        lastUsageMillis = usageMillis;
+        lastAcquires = acquires;
+        lastAcquireMillis = acquireMillis;
+    }
+
+    private Timer poolTimer(String name) {
+        String poolName = hikari.getPoolName();
+        return poolName == null ? null : meterRegistry.find(name).tag("pool", poolName).timer();
+    }
+
+    private static HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("db.pool.tuner.decisions")
+                .description("Connection pool sizing decisions")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package com._cortex.url_management.web;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com._cortex.url_management.exception.GlobalExceptionHandler.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies the adaptive concurrency limit to the DB-bound URL endpoints.
+ * Requests over the limit are rejected immediately with 503 and
+ * {@code Retry-After}, so a slow database sheds load instead of piling
+ * requests up on server threads. Redirects get priority over the URL
+ * management and listing endpoints.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final Pattern USER_URLS = Pattern.compile("^/api/users/[^/]+/urls(/.*)?$");
+    private static final Pattern SINGLE_SEGMENT = Pattern.compile("^/[^/]+$");
+    private static final Set<String> NON_REDIRECT_PATHS = Set.of("/favicon.ico", "/error", "/actuator", "/h2-console");
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final ObjectMapper objectMapper;
+
+    public LoadSheddingFilter(AdaptiveConcurrencyLimit limit, ObjectMapper objectMapper) {
+        this.limit = limit;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimit.Priority priority = classify(request);
+        if (priority == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!limit.tryAcquire(priority)) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(priority, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Classify DB-bound requests handled by UrlController; null means not limited
+     */
+    private static AdaptiveConcurrencyLimit.Priority classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("OPTIONS".equals(method)) {
+            return null;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/urls") || USER_URLS.matcher(path).matches()) {
+            return AdaptiveConcurrencyLimit.Priority.STANDARD;
+        }
+        if ("GET".equals(method) && SINGLE_SEGMENT.matcher(path).matches() && !NON_REDIRECT_PATHS.contains(path)
+                && !path.startsWith("/api")) {
+            return AdaptiveConcurrencyLimit.Priority.REDIRECT;
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Server is overloaded, please retry shortly",
+                null,
+                Instant.now()));
+    }
+}
@@ -0,0 +1,164 @@
+package com._cortex.url_management.web;
+
+/**
+ * Connection pool sizing policy based on Little's law.
+ * <p>
+ * Over each sampling interval the pool served {@code borrows} connection
+ * checkouts, each holding its connection for {@code usageMillis} on average.
+ * By Little's law the mean number of busy connections is
+ * {@code L = lambda * S} (borrow rate times hold time); the policy sizes the
+ * pool so that {@code L} is {@code targetUtilization} of it, which leaves
+ * enough spare connections that a borrower rarely has to wait.
+ * <p>
+ * Borrowers waiting for a connection make the pool grow, unless the
+ * database itself is the bottleneck, in which case more connections would
+ * only queue inside it and make every query slower. Two signals reveal
+ * that:
+ * <ul>
+ * <li>hold time beyond {@code latencyTolerance} times the best recently
+ * observed hold time; the pool is then sized for the healthy hold time and
+ * never grown</li>
+ * <li>a growth step after which borrowers still wait, yet throughput rose
+ * by less than half as much as the pool size; the step is undone and the
+ * previous size becomes a ceiling</li>
+ * </ul>
+ * The baseline and the ceiling are re-probed every {@code BASELINE_PROBE}
+ * decisions, when no one is waiting, so they can follow a database that
+ * got faster or slower for good.
+ * <p>
+ * Each decision moves at most {@code maxStep} connections and stays within
+ * {@code [minSize, maxSize]}; changes of one connection without anyone
+ * waiting are ignored, so the size does not flap around its target. Not
+ * thread-safe; one tuner owns one policy.
+ */
+public class PoolSizePolicy {
+
+    private static final int BASELINE_PROBE = 30;
+    private static final double GROWTH_EFFICIENCY = 0.5;
+
+    /**
+     * What one sampling interval observed
+     *
+     * @param intervalSeconds  length of the interval
+     * @param borrows          connection checkouts completed in the interval
+     * @param usageMillis      mean time a connection was held
+     * @param acquireMillis    mean time a borrower waited for a connection
+     * @param threadsAwaiting  borrowers waiting at the end of the interval
+     */
+    public record Sample(double intervalSeconds, long borrows, double usageMillis, double acquireMillis,
+            int threadsAwaiting) {
+    }
+
+    /**
+     * Outcome of one sampling interval
+     *
+     * @param previous       pool size before the decision
+     * @param next           pool size to apply
+     * @param action         grow, shrink or hold
+     * @param reason         why, for logs and events
+     * @param borrowRate     connection checkouts per second
+     * @param demand         mean busy connections (Little's law)
+     * @param baselineMillis best recent hold time
+     */
+    public record Decision(int previous, int next, String action, String reason, double borrowRate, double demand,
+            double baselineMillis) {
+    }
+
+    private final int minSize;
+    private final int maxSize;
+    private final int maxStep;
+    private final double targetUtilization;
+    private final double latencyTolerance;
+    // Waits shorter than this are noise, not a shortage of connections
+    private final double acquireThresholdMillis;
+
+    private double baselineMillis = Double.MAX_VALUE;
+    private int decisionsSinceProbe;
+    private int ceiling = Integer.MAX_VALUE;
+    // Size and throughput before the last growth step, or 0 if the last decision did not grow
+    private int grewFrom;
+    private double throughputBeforeGrowth;
+
+    public PoolSizePolicy(int minSize, int maxSize, int maxStep, double targetUtilization, double latencyTolerance,
+            double acquireThresholdMillis) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Pool size bounds must satisfy 1 <= min <= max");
+        }
+        if (targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("Target utilization must be in (0, 1]");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxStep = Math.max(1, maxStep);
+        this.targetUtilization = targetUtilization;
+        this.latencyTolerance = Math.max(1.0, latencyTolerance);
+        this.acquireThresholdMillis = acquireThresholdMillis;
+    }
+
+    /**
+     * Decide the pool size for the next interval
+     *
+     * @param sample  what the last interval observed
+     * @param current the current maximum pool size
+     * @return the decision; {@code next} is within the configured bounds
+     */
+    public Decision decide(Sample sample, int current) {
+        if (sample.borrows() == 0 || sample.intervalSeconds() <= 0) {
+            grewFrom = 0;
+            return decision(current, clamp(current, current), "no traffic", 0, 0);
+        }
+
+        double borrowRate = sample.borrows() / sample.intervalSeconds();
+        double demand = borrowRate * sample.usageMillis() / 1000.0;
+        boolean waiting = sample.threadsAwaiting() > 0 || sample.acquireMillis() > acquireThresholdMillis;
+
+        if (++decisionsSinceProbe >= BASELINE_PROBE && !waiting) {
+            decisionsSinceProbe = 0;
+            baselineMillis = sample.usageMillis();
+            ceiling = Integer.MAX_VALUE;
+        }
+        baselineMillis = Math.min(baselineMillis, sample.usageMillis());
+        boolean inflated = sample.usageMillis() > baselineMillis * latencyTolerance;
+
+        int target;
+        String reason;
+        if (waiting && grewFrom > 0 && grewFrom < current && borrowRate / throughputBeforeGrowth - 1
+                < GROWTH_EFFICIENCY * ((double) current / grewFrom - 1)) {
+            // Still waiting, and the extra connections did not buy throughput
+            target = grewFrom;
+            ceiling = grewFrom;
+            reason = "growth did not raise throughput";
+        } else if (inflated) {
+            // Size for the latency the database delivers when it is not overloaded
+            double healthyDemand = borrowRate * baselineMillis * latencyTolerance / 1000.0;
+            target = Math.min(current, (int) Math.ceil(healthyDemand / targetUtilization));
+            reason = "hold time inflated";
+        } else {
+            target = (int) Math.ceil(demand / targetUtilization);
+            if (waiting) {
+                target = Math.max(target, current + 1);
+            }
+            target = Math.min(target, Math.max(current, ceiling));
+            reason = waiting ? "borrowers waiting" : "utilization";
+        }
+
+        if (!waiting && Math.abs(target - current) <= 1) {
+            target = current;
+        }
+        int next = clamp(target, current);
+        grewFrom = next > current ? current : 0;
+        throughputBeforeGrowth = borrowRate;
+        return decision(current, next, reason, borrowRate, demand);
+    }
+
+    private int clamp(int target, int current) {
+        int stepped = Math.max(current - maxStep, Math.min(current + maxStep, target));
+        return Math.max(minSize, Math.min(maxSize, stepped));
+    }
+
+    private Decision decision(int current, int next, String reason, double borrowRate, double demand) {
+        String action = next > current ? "grow" : next < current ? "shrink" : "hold";
+        return new Decision(current, next, action, reason, borrowRate, demand,
+                baselineMillis == Double.MAX_VALUE ? 0 : baselineMillis);
+    }
+}
@@ -0,0 +1,154 @@
+package com._cortex.url_management.web;
+
+import java.util.Locale;
+
+/**
+ * Per-request phase timings reported in the {@code Server-Timing} response
+ * header.
+ * <p>
+ * The context lives in a thread-local that is only set for sampled
+ * requests. Instrumented code brackets a phase with {@link #start()} and
+ * {@link #stop(Phase, long)}; when the request is not sampled, {@code start}
+ * returns 0 without reading the clock and {@code stop} returns immediately.
+ * Durations are plain nanoTime sums, formatted once when the header is
+ * written.
+ */
+public final class ServerTiming {
+
+    /**
+     * Timed phases, in header order. Phases may overlap: DB time is part of
+     * the handler, for example.
+     */
+    public enum Phase {
+        SECURITY("sec", "security filter chain"),
+        HANDLER("handler", "handler"),
+        DB("db", "database statements"),
+        HIT_UPDATE("hit", "hit update"),
+        DTO_MAPPING("map", "DTO mapping"),
+        SERIALIZATION("ser", "serialization");
+
+        private final String metric;
+        private final String description;
+
+        Phase(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long requestStart;
+    private final long[] nanos = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private long securityDoneAt;
+
+    private ServerTiming(long requestStart) {
+        this.requestStart = requestStart;
+    }
+
+    /**
+     * Begin timing the current request on this thread
+     */
+    static ServerTiming open() {
+        ServerTiming timing = new ServerTiming(System.nanoTime());
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Stop timing on this thread
+     */
+    static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Record that the security filter chain has passed the request on
+     */
+    static void markSecurityDone() {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null && timing.securityDoneAt == 0) {
+            timing.securityDoneAt = System.nanoTime();
+            timing.add(Phase.SECURITY, timing.securityDoneAt - timing.requestStart);
+        }
+    }
+
+    /**
+     * Start a phase
+     *
+     * @return the start timestamp, or 0 if the current request is not timed
+     */
+    public static long start() {
+        return CURRENT.get() == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * End a phase started with {@link #start()}
+     *
+     * @param phase the phase
+     * @param start the value returned by {@link #start()}
+     */
+    public static void stop(Phase phase, long start) {
+        if (start == 0) {
+            return;
+        }
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(phase, System.nanoTime() - start);
+        }
+    }
+
+    void add(Phase phase, long durationNanos) {
+        nanos[phase.ordinal()] += durationNanos;
+        counts[phase.ordinal()]++;
+    }
+
+    /**
+     * Format the header value as of now. The handler phase runs from the end
+     * of the security chain until this call.
+     */
+    String format(long now) {
+        if (securityDoneAt != 0 && counts[Phase.HANDLER.ordinal()] == 0) {
+            add(Phase.HANDLER, now - securityDoneAt);
+        }
+
+        StringBuilder header = new StringBuilder(160);
+        for (Phase phase : PHASES) {
+            int count = counts[phase.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            appendMetric(header, phase.metric, nanos[phase.ordinal()]);
+            header.append(";desc=\"").append(phase.description);
+            if (count > 1) {
+                header.append(" x").append(count);
+            }
+            header.append('"');
+        }
+        appendMetric(header, "total", now - requestStart);
+        return header.toString();
+    }
+
+    /**
+     * Format a single metric, used for the trailer sent after a streamed body
+     */
+    static String formatMetric(String metric, long durationNanos) {
+        StringBuilder value = new StringBuilder(32);
+        appendMetric(value, metric, durationNanos);
+        return value.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String metric, long durationNanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(metric).append(";dur=")
+                .append(String.format(Locale.ROOT, "%.2f", durationNanos / 1_000_000.0));
+    }
+
+    long requestStart() {
+        return requestStart;
+    }
+}
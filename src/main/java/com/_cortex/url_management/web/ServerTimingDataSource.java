@@ -0,0 +1,93 @@
+package com._cortex.url_management.web;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource that times statement execution into the {@link ServerTiming}
+ * DB phase.
+ * <p>
+ * Only connections obtained while a sampled request is being timed are
+ * proxied; every other request gets the pool's connection untouched.
+ * Extends {@link DelegatingDataSource} so pool metrics and other code that
+ * unwraps the DataSource still reach the pool.
+ */
+public class ServerTimingDataSource extends DelegatingDataSource {
+
+    public ServerTimingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        if (ServerTiming.start() == 0) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement statement) {
+                return timed(CallableStatement.class, statement);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return timed(PreparedStatement.class, statement);
+            }
+            if (result instanceof Statement statement) {
+                return timed(Statement.class, statement);
+            }
+            return result;
+        });
+    }
+
+    private static <T extends Statement> T timed(Class<T> type, T statement) {
+        return proxy(type, statement, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            long start = ServerTiming.start();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                ServerTiming.stop(ServerTiming.Phase.DB, start);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ServerTimingDataSource.class.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Timed " + target;
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com._cortex.url_management.web;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Adds a {@code Server-Timing} header to sampled requests. A request is
+ * sampled when it sends {@value #REQUEST_HEADER} or falls within the
+ * configured sample rate.
+ * <p>
+ * The header must go out before the body, so it is written at the response's
+ * commit point: the first flush, the first write that overflows the response
+ * buffer, a redirect or error, or the end of the request. Serialization is
+ * timed from the first body write until then. When a streamed body commits
+ * early and the client accepts trailers ({@code TE: trailers}), the time
+ * spent writing the rest of the body follows as a trailer.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_HEADER = "X-Server-Timing";
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final double sampleRate;
+
+    public ServerTimingFilter(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!isSampled(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ServerTiming timing = ServerTiming.open();
+        TimingResponse timingResponse = new TimingResponse(response, timing, acceptsTrailers(request));
+        try {
+            filterChain.doFilter(request, timingResponse);
+        } finally {
+            timingResponse.finish();
+            ServerTiming.close();
+        }
+    }
+
+    private boolean isSampled(HttpServletRequest request) {
+        return request.getHeader(REQUEST_HEADER) != null
+                || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private static boolean acceptsTrailers(HttpServletRequest request) {
+        String te = request.getHeader("TE");
+        return te != null && te.contains("trailers") && !"HTTP/1.0".equals(request.getProtocol());
+    }
+
+    /**
+     * Marks the end of the security filter chain; registered right after it
+     */
+    public static class SecurityDoneFilter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                FilterChain filterChain) throws ServletException, IOException {
+            ServerTiming.markSecurityDone();
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Response wrapper that writes the header just before the response commits
+     */
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final ServerTiming timing;
+        private final boolean trailers;
+        private boolean headerWritten;
+        private long serializationStart;
+        private long committedAt;
+        private volatile String trailerValue;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private TimingResponse(HttpServletResponse response, ServerTiming timing, boolean trailers) {
+            super(response);
+            this.timing = timing;
+            this.trailers = trailers;
+        }
+
+        private void writeHeader() {
+            if (headerWritten) {
+                return;
+            }
+            headerWritten = true;
+            if (isCommitted()) {
+                return;
+            }
+
+            committedAt = System.nanoTime();
+            if (serializationStart != 0) {
+                timing.add(ServerTiming.Phase.SERIALIZATION, committedAt - serializationStart);
+            }
+            setHeader(SERVER_TIMING, timing.format(committedAt));
+
+            if (trailers) {
+                try {
+                    setTrailerFields(() -> trailerValue == null ? Map.of() : Map.of(SERVER_TIMING, trailerValue));
+                    setHeader("Trailer", SERVER_TIMING);
+                } catch (IllegalStateException e) {
+                    // Trailers are not supported on this connection
+                }
+            }
+        }
+
+        private void finish() {
+            boolean streamed = headerWritten;
+            if (writer != null) {
+                // Characters still buffered in the writer only reach the response through this
+                // flush, which also writes the header first if the body has not committed yet
+                writer.flush();
+            }
+            writeHeader();
+            if (streamed && trailers && committedAt != 0) {
+                long now = System.nanoTime();
+                trailerValue = ServerTiming.formatMetric("ser-rest", now - committedAt) + ", "
+                        + ServerTiming.formatMetric("total", now - timing.requestStart());
+            }
+        }
+
+        private void startSerialization() {
+            if (serializationStart == 0) {
+                serializationStart = System.nanoTime();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                startSerialization();
+                outputStream = new TimingOutputStream(super.getOutputStream(), this);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                startSerialization();
+                // Route characters through the timed stream so commit points are still seen
+                String encoding = getCharacterEncoding();
+                writer = new PrintWriter(new OutputStreamWriter(
+                        new TimingOutputStream(super.getOutputStream(), this), Charset.forName(encoding)));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            if (writer != null) {
+                writer.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+    }
+
+    /**
+     * Output stream that writes the header before the first flush or before a
+     * write that would overflow the container's response buffer
+     */
+    private static final class TimingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final TimingResponse response;
+        private long written;
+
+        private TimingOutputStream(ServletOutputStream delegate, TimingResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        private void beforeWrite(int length) {
+            if (!response.headerWritten && written + length > response.getBufferSize()) {
+                response.writeHeader();
+            }
+            written += length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            beforeWrite(1);
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            beforeWrite(len);
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            response.writeHeader();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.writeHeader();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com._cortex.url_management.web;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Registers servlet filters that must run around the security filter chain
+ */
+@Configuration
+public class WebFilterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "limits.adaptive.enabled", havingValue = "true")
+    public AdaptiveConcurrencyLimit adaptiveConcurrencyLimit(
+            @Value("${limits.adaptive.initial-limit:20}") int initialLimit,
+            @Value("${limits.adaptive.min-limit:4}") int minLimit,
+            @Value("${limits.adaptive.max-limit:200}") int maxLimit,
+            @Value("${limits.adaptive.low-priority-share:0.7}") double lowPriorityShare,
+            MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, lowPriorityShare, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "limits.adaptive.enabled", havingValue = "true")
+    public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(AdaptiveConcurrencyLimit limit,
+            ObjectMapper objectMapper) {
+        FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(
+                new LoadSheddingFilter(limit, objectMapper));
+        // Shed before spending any work on security or request parsing
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${server-timing.sample-rate:0.0}") double sampleRate) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(
+                new ServerTimingFilter(sampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+    public FilterRegistrationBean<ServerTimingFilter.SecurityDoneFilter> serverTimingSecurityDoneFilter() {
+        FilterRegistrationBean<ServerTimingFilter.SecurityDoneFilter> registration = new FilterRegistrationBean<>(
+                new ServerTimingFilter.SecurityDoneFilter());
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    /**
+     * Wrap the application DataSource so statement time shows up in Server-Timing
+     */
+    @Bean
+    @ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+    public static BeanPostProcessor serverTimingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ServerTimingDataSource)) {
+                    return new ServerTimingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+-- Range-partitioned urls table for the "partitioned" profile (PostgreSQL only).
+-- Rows are partitioned by expire_at so expiry becomes a partition drop; links that never
+-- expire (NULL) and links beyond the pre-created buckets live in the default partition.
+-- Partitioned tables cannot carry a primary key or a unique index that omits the partition
+-- key, so id/short_code uniqueness is guarded by the application (see UrlPartitionManager),
+-- and Hibernate's schema update skips this table (see PartitionedSchemaFilterProvider).
+-- Must be applied to an empty database: an existing plain urls table is left untouched.
+
+CREATE TABLE IF NOT EXISTS urls (
+    id               BIGSERIAL                NOT NULL,
+    short_code       VARCHAR(255)             NOT NULL,
+    code_key         BIGINT,
+    original_url     VARCHAR(2048)            NOT NULL,
+    created_by       BIGINT,
+    created_at       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_accessed_at TIMESTAMP(6) WITH TIME ZONE,
+    expire_at        TIMESTAMP(6) WITH TIME ZONE,
+    hits             BIGINT                   NOT NULL DEFAULT 0,
+    destinations_version BIGINT
+) PARTITION BY RANGE (expire_at);
+
+CREATE TABLE IF NOT EXISTS urls_default PARTITION OF urls DEFAULT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_urls_id_expire ON urls (id, expire_at);
+CREATE INDEX IF NOT EXISTS idx_urls_id ON urls (id);
+CREATE INDEX IF NOT EXISTS idx_urls_shortcode ON urls (short_code);
+CREATE INDEX IF NOT EXISTS idx_urls_codekey ON urls (code_key);
+CREATE INDEX IF NOT EXISTS idx_urls_createdby ON urls (created_by);
+CREATE INDEX IF NOT EXISTS idx_urls_expire ON urls (expire_at);
+-- Covering indexes for the redirect projection (see ShortCodeKeyService), answered by index-only scans.
+-- original_url fits under the btree row size limit because UrlService caps it at 2048 bytes.
+CREATE INDEX IF NOT EXISTS idx_urls_shortcode_redirect ON urls (short_code)
+    INCLUDE (original_url, expire_at, id, created_by, destinations_version);
+CREATE INDEX IF NOT EXISTS idx_urls_codekey_redirect ON urls (code_key)
+    INCLUDE (original_url, expire_at, id, created_by, destinations_version) WHERE code_key IS NOT NULL;
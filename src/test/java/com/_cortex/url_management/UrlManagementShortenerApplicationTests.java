@@ -0,0 +1,16 @@
+package com._cortex.url_management;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Starts the whole application on the default (H2) configuration, so wiring
+ * mistakes such as an ambiguous constructor fail the build
+ */
+@SpringBootTest
+class UrlManagementShortenerApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+}
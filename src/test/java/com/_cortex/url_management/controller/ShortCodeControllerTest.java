@@ -0,0 +1,93 @@
+package com._cortex.url_management.controller;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com._cortex.url_management.security.SecurityConfig;
+import com._cortex.url_management.security.TokenClaims;
+import com._cortex.url_management.security.TokenService;
+import com._cortex.url_management.service.CustomUserDetailsService;
+import com._cortex.url_management.service.UrlService;
+
+@WebMvcTest(ShortCodeController.class)
+@Import(SecurityConfig.class)
+@TestPropertySource(properties = "short-codes.listing.allowed-user-ids=7, 8")
+class ShortCodeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UrlService urlService;
+
+    @MockitoBean
+    private TokenService tokenService;
+
+    @MockitoBean
+    private CustomUserDetailsService userDetailsService;
+
+    private static UsernamePasswordAuthenticationToken signedIn(long userId) {
+        return new UsernamePasswordAuthenticationToken(
+                new TokenClaims(userId, Instant.now().plusSeconds(3600), 1L), null, List.of());
+    }
+
+    @Test
+    void anonymousCallersCannotListCodes() throws Exception {
+        mockMvc.perform(get("/api/short-codes").param("prefix", "abc"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/short-codes"))
+                .andExpect(status().isUnauthorized());
+
+        verify(urlService, never()).findShortCodesByPrefix(anyString(), anyInt());
+    }
+
+    @Test
+    void usersOutsideTheAllowListAreForbidden() throws Exception {
+        mockMvc.perform(get("/api/short-codes").param("prefix", "abc").with(authentication(signedIn(9))))
+                .andExpect(status().isForbidden());
+
+        verify(urlService, never()).findShortCodesByPrefix(anyString(), anyInt());
+    }
+
+    @Test
+    void shortPrefixesAreRejected() throws Exception {
+        mockMvc.perform(get("/api/short-codes").with(authentication(signedIn(7))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/short-codes").param("prefix", "ab").with(authentication(signedIn(7))))
+                .andExpect(status().isBadRequest());
+
+        verify(urlService, never()).findShortCodesByPrefix(anyString(), anyInt());
+    }
+
+    @Test
+    void allowedUsersListCodesByPrefix() throws Exception {
+        when(urlService.findShortCodesByPrefix("abc", 100)).thenReturn(List.of("abc1", "abc2"));
+
+        mockMvc.perform(get("/api/short-codes").param("prefix", "abc").with(authentication(signedIn(8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("abc1"))
+                .andExpect(jsonPath("$[1]").value("abc2"));
+
+        verify(urlService).findShortCodesByPrefix(eq("abc"), eq(100));
+    }
+}
@@ -0,0 +1,133 @@
+package com._cortex.url_management.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.model.User;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.security.TokenService;
+import com._cortex.url_management.service.UrlService;
+import com._cortex.url_management.service.UserService;
+
+/**
+ * Only the owner of a link may split its traffic, including a link that has
+ * been moved to the archive.
+ */
+@SpringBootTest(properties = "urls.tiering.enabled=true")
+@AutoConfigureMockMvc
+class UrlDestinationsControllerTest {
+
+    private static final String SPLIT = "{\"destinations\": [{\"url\": \"https://example.com/a\", \"weight\": 90}, "
+            + "{\"url\": \"https://example.com/b\", \"weight\": 10}]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ArchivedUrlRepository archivedUrlRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User other;
+    private Url url;
+
+    @BeforeEach
+    void createLink() {
+        long suffix = System.nanoTime();
+        owner = userService.createUser(new User(null, "owner" + suffix, "owner" + suffix + "@example.com", "secret"));
+        other = userService.createUser(new User(null, "other" + suffix, "other" + suffix + "@example.com", "secret"));
+        url = urlService.createShortUrl("https://example.com/original", owner, null);
+    }
+
+    @Test
+    void anonymousCallersCannotSplitALink() throws Exception {
+        mockMvc.perform(destinations(url.getId()))
+                .andExpect(status().isUnauthorized());
+
+        assertThat(storedVersion(url.getId())).isNull();
+    }
+
+    @Test
+    void otherUsersCannotSplitALink() throws Exception {
+        mockMvc.perform(destinations(url.getId()).header(HttpHeaders.AUTHORIZATION, bearer(other)))
+                .andExpect(status().isForbidden());
+
+        assertThat(storedVersion(url.getId())).isNull();
+    }
+
+    @Test
+    void ownerSplitsALink() throws Exception {
+        mockMvc.perform(destinations(url.getId()).header(HttpHeaders.AUTHORIZATION, bearer(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.destinations.length()").value(2));
+
+        assertThat(storedVersion(url.getId())).isNotNull();
+    }
+
+    @Test
+    void archivedLinkIsPromotedBeforeItIsSplit() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            archivedUrlRepository.copyFromHot(List.of(url.getId()), Instant.now());
+            urlRepository.deleteByIds(List.of(url.getId()));
+        });
+
+        mockMvc.perform(destinations(url.getId()).header(HttpHeaders.AUTHORIZATION, bearer(other)))
+                .andExpect(status().isForbidden());
+        assertThat(archivedUrlRepository.existsByShortCode(url.getShortCode())).isTrue();
+
+        mockMvc.perform(destinations(url.getId()).header(HttpHeaders.AUTHORIZATION, bearer(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shortCode").value(url.getShortCode()));
+
+        assertThat(archivedUrlRepository.existsByShortCode(url.getShortCode())).isFalse();
+        assertThat(storedVersion(url.getId())).isNotNull();
+    }
+
+    private MockHttpServletRequestBuilder destinations(long id) {
+        return put("/api/urls/{id}/destinations", id).contentType(MediaType.APPLICATION_JSON).content(SPLIT);
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + tokenService.issue(user.getId()).token();
+    }
+
+    private Long storedVersion(long id) {
+        return jdbcTemplate.queryForObject("SELECT destinations_version FROM urls WHERE id = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,98 @@
+package com._cortex.url_management.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com._cortex.url_management.model.ArchivedUrl;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.service.RemovedUrlCleanup;
+import com._cortex.url_management.service.RemovedUrlCleanup.RemovedUrl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@Import({ ClusterJobRunner.class, SimpleMeterRegistry.class })
+class ExpiredUrlPurgeJobTest {
+
+    private static final Instant EXPIRED = Instant.now().minusSeconds(3600);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClusterJobRunner clusterJobRunner;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ArchivedUrlRepository archivedUrlRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private RemovedUrlCleanup removedUrlCleanup;
+
+    private long archivedId;
+
+    @BeforeEach
+    void persistExpiredHotAndArchivedUrls() {
+        Url hot = new Url();
+        hot.setShortCode("hot1");
+        hot.setOriginalUrl("https://example.com/hot");
+        hot.setExpireAt(EXPIRED);
+        entityManager.persist(hot);
+
+        ArchivedUrl cold = new ArchivedUrl();
+        cold.setId(hot.getId() + 1000);
+        cold.setShortCode("cold1");
+        cold.setOriginalUrl("https://example.com/cold");
+        cold.setCreatedAt(EXPIRED.minusSeconds(3600));
+        cold.setExpireAt(EXPIRED);
+        cold.setHits(0L);
+        cold.setArchivedAt(EXPIRED);
+        entityManager.persist(cold);
+        entityManager.flush();
+        archivedId = cold.getId();
+    }
+
+    private ExpiredUrlPurgeJob purgeJob(boolean partitioned) {
+        return new ExpiredUrlPurgeJob(jdbcTemplate, clusterJobRunner, removedUrlCleanup, true, 500, partitioned);
+    }
+
+    @Test
+    void purgesBothTiers() {
+        assertThat(purgeJob(false).purge()).isEqualTo(2);
+
+        assertThat(urlRepository.count()).isZero();
+        assertThat(archivedUrlRepository.count()).isZero();
+    }
+
+    @Test
+    void partitionedModeLeavesTheHotTableToPartitionDrops() {
+        assertThat(purgeJob(true).purge()).isEqualTo(1);
+
+        assertThat(urlRepository.count()).isEqualTo(1);
+        assertThat(archivedUrlRepository.count()).isZero();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RemovedUrl>> removed = ArgumentCaptor.forClass(List.class);
+        verify(removedUrlCleanup).cleanUp(removed.capture());
+        assertThat(removed.getValue()).extracting(RemovedUrl::id).containsExactly(archivedId);
+    }
+}
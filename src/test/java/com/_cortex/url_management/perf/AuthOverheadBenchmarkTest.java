@@ -0,0 +1,190 @@
+package com._cortex.url_management.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com._cortex.url_management.security.TokenAuthenticationFilter;
+import com._cortex.url_management.security.TokenService;
+
+/**
+ * Compares the per-request cost of authenticating with the signed session
+ * token ({@link TokenAuthenticationFilter}) with the username and password
+ * check every request paid before tokens (the {@code DaoAuthenticationProvider}
+ * bean: user lookup plus BCrypt), against the users generated by
+ * {@link SyntheticDataGenerator} (generated first if urls is empty). Tagged
+ * {@code auth-bench} and excluded from the default build; run it with
+ * {@code ./mvnw test -Pauth-bench}.
+ * <p>
+ * Both paths authenticate the same sample of generated users, in rounds after
+ * a warm-up, on a single thread. BCrypt is slow by design, so the password
+ * path runs far fewer rounds than the token path. Latency is per request
+ * (median and p99) and CPU is the thread's CPU time per request. Results are
+ * logged and, with {@code auth-bench.report-file}, written as Markdown.
+ */
+@Tag("auth-bench")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({ "datagen", "auth-bench" })
+@Import(SyntheticDataGenerator.class)
+class AuthOverheadBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthOverheadBenchmarkTest.class);
+    private static final String DATAGEN_PASSWORD = "datagen";
+
+    private record Result(String name, String description, int requests, double medianMicros, double p99Micros,
+            double cpuMicros) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthenticationProvider authenticationProvider;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private SyntheticDataGenerator dataGenerator;
+
+    @Value("${auth-bench.sample-size:50}")
+    private int sampleSize;
+
+    @Value("${auth-bench.password-rounds:2}")
+    private int passwordRounds;
+
+    @Value("${auth-bench.token-rounds:2000}")
+    private int tokenRounds;
+
+    @Value("${auth-bench.report-file:}")
+    private String reportFile;
+
+    @Test
+    void compareAuthentication() throws IOException {
+        dataGenerator.generateIfEmpty();
+        benchmark();
+    }
+
+    private void benchmark() throws IOException {
+        List<String> usernames = jdbcTemplate.queryForList("SELECT username FROM users WHERE email LIKE "
+                + "'%@datagen.test' ORDER BY id FETCH FIRST ? ROWS ONLY", String.class, sampleSize);
+        if (usernames.isEmpty()) {
+            throw new IllegalStateException("users is empty; set datagen.users to a positive count");
+        }
+        List<Long> userIds = usernames.stream()
+                .map(username -> jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?",
+                        Long.class, username))
+                .toList();
+
+        IntPredicate password = i -> authenticationProvider
+                .authenticate(UsernamePasswordAuthenticationToken.unauthenticated(usernames.get(i),
+                        DATAGEN_PASSWORD))
+                .isAuthenticated();
+
+        String[] bearers = userIds.stream().map(id -> "Bearer " + tokenService.issue(id).token())
+                .toArray(String[]::new);
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(tokenService);
+        IntPredicate token = i -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/urls/1");
+            request.addHeader(HttpHeaders.AUTHORIZATION, bearers[i]);
+            try {
+                filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                return SecurityContextHolder.getContext().getAuthentication() != null;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+
+        IntPredicate login = i -> password.test(i) && tokenService.issue(userIds.get(i)).token() != null;
+
+        // Warm-up, which also checks that every sampled user authenticates both ways
+        for (int i = 0; i < usernames.size(); i++) {
+            assertThat(password.test(i)).as(usernames.get(i)).isTrue();
+        }
+        for (int round = 0; round < tokenRounds; round++) {
+            for (int i = 0; i < usernames.size(); i++) {
+                assertThat(token.test(i)).isTrue();
+            }
+        }
+
+        List<Result> results = List.of(
+                measure("token", "TokenAuthenticationFilter, HMAC-SHA256 verify", token, usernames.size(),
+                        tokenRounds),
+                measure("password", "DaoAuthenticationProvider, user lookup + BCrypt", password,
+                        usernames.size(), passwordRounds),
+                measure("login", "Password check + TokenService.issue, once per session", login,
+                        usernames.size(), passwordRounds));
+        report(results, usernames.size());
+    }
+
+    private Result measure(String name, String description, IntPredicate authenticate, int users, int rounds) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[users * Math.max(1, rounds)];
+        int n = 0;
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        for (int round = 0; round < Math.max(1, rounds); round++) {
+            for (int i = 0; i < users; i++) {
+                long start = System.nanoTime();
+                authenticate.test(i);
+                nanos[n++] = System.nanoTime() - start;
+            }
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+
+        Arrays.sort(nanos);
+        return new Result(name, description, n, nanos[n / 2] / 1000.0,
+                nanos[Math.min(n - 1, (int) (n * 0.99))] / 1000.0, cpu / 1000.0 / n);
+    }
+
+    private void report(List<Result> results, int users) throws IOException {
+        StringBuilder markdown = new StringBuilder()
+                .append("# Authentication overhead benchmark\n\n")
+                .append(users).append(" generated users\n\n")
+                .append("| Path | Check | Requests | Median us | p99 us | CPU us / request |\n")
+                .append("|------|-------|----------|-----------|--------|------------------|\n");
+        for (Result result : results) {
+            markdown.append(String.format("| %s | %s | %d | %.1f | %.1f | %.1f |%n", result.name(),
+                    result.description(), result.requests(), result.medianMicros(), result.p99Micros(),
+                    result.cpuMicros()));
+            logger.info("{}: median {} us, p99 {} us, {} us CPU per request", result.name(),
+                    String.format("%.1f", result.medianMicros()), String.format("%.1f", result.p99Micros()),
+                    String.format("%.1f", result.cpuMicros()));
+        }
+
+        if (!reportFile.isBlank()) {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, markdown);
+            logger.info("Wrote authentication overhead benchmark to {}", path.toAbsolutePath());
+        }
+    }
+}
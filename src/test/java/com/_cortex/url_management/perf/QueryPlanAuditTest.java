@@ -0,0 +1,300 @@
+package com._cortex.url_management.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Query plan regression suite for the URL repository queries, run against
+ * a database filled by {@link SyntheticDataGenerator} (generated first if
+ * urls is empty). Tagged {@code plan-audit} and excluded from the default
+ * build; run it with {@code ./mvnw test -Pplan-audit}, which fails if any
+ * query regressed, so it can gate a CI job.
+ * <p>
+ * Each audited query is the SQL that a repository method (or the expiry
+ * purge job) issues, with parameters drawn from the data: a mid-table short
+ * code, a typical owner and the heaviest owner. For every query the audit
+ * <ul>
+ * <li>captures the plan with {@code EXPLAIN} and fails it if the plan scans
+ * the whole urls table where an index is expected</li>
+ * <li>runs it {@code plan-audit.iterations} times after a warm-up, each in a
+ * rolled-back transaction, and fails it if the median time exceeds its
+ * budget ({@code plan-audit.budget.<query>}, an ISO-8601 duration)</li>
+ * </ul>
+ * Queries that legitimately read most of the table (the heaviest owner, the
+ * popularity ranking) are held to their time budget only. On PostgreSQL the
+ * size of every index on urls is reported as well. Results and plans are
+ * logged and, with {@code plan-audit.report-file}, written as Markdown.
+ */
+@Tag("plan-audit")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({ "datagen", "plan-audit" })
+@Import(SyntheticDataGenerator.class)
+class QueryPlanAuditTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanAuditTest.class);
+
+    // Full scans of urls (or one of its partitions) as PostgreSQL and H2 print them
+    private static final Pattern POSTGRES_SEQ_SCAN = Pattern.compile("Seq Scan on (urls\\w*)");
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("PUBLIC\\.(URLS\\w*)\\.tableScan",
+            Pattern.CASE_INSENSITIVE);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+    private static final String REDIRECT_COLUMNS = "id, short_code, original_url, created_by, expire_at, "
+            + "destinations_version";
+    private static final String SUMMARY_COLUMNS = "u.id, u.short_code, u.original_url, c.id, c.username, "
+            + "u.created_at, u.last_accessed_at, u.expire_at, u.hits";
+
+    private record AuditedQuery(String name, String source, String sql, boolean indexRequired) {
+    }
+
+    private record Result(AuditedQuery query, String plan, List<String> fullScans, double medianMillis,
+            double budgetMillis, long rows) {
+
+        boolean planRegressed() {
+            return query.indexRequired() && !fullScans.isEmpty();
+        }
+
+        boolean overBudget() {
+            return medianMillis > budgetMillis;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private SyntheticDataGenerator dataGenerator;
+
+    @Value("${plan-audit.iterations:5}")
+    private int iterations;
+
+    @Value("${plan-audit.default-budget:PT0.05S}")
+    private Duration defaultBudget;
+
+    @Value("${plan-audit.report-file:}")
+    private String reportFile;
+
+    @Test
+    void noQueryRegresses() throws IOException {
+        dataGenerator.generateIfEmpty();
+
+        List<String> failures = audit().stream()
+                .filter(result -> result.planRegressed() || result.overBudget())
+                .map(result -> result.query().name() + (result.planRegressed()
+                        ? " scans " + String.join(", ", result.fullScans())
+                        : String.format(" took %.2f ms (budget %.2f ms)", result.medianMillis(),
+                                result.budgetMillis())))
+                .toList();
+        assertThat(failures).as("regressed queries").isEmpty();
+    }
+
+    /**
+     * Audit every query
+     *
+     * @return the result of each query
+     */
+    private List<Result> audit() throws IOException {
+        boolean postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        long urlCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls", Long.class);
+        if (urlCount == 0) {
+            throw new IllegalStateException("urls is empty; set datagen.urls to a positive count");
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (AuditedQuery query : queries()) {
+            results.add(audit(query, postgres));
+        }
+        report(results, postgres ? indexSizes() : Map.of(), postgres, urlCount);
+        return results;
+    }
+
+    /**
+     * On-disk size of each index on urls, summed over the partitions of a
+     * partitioned index
+     */
+    private Map<String, Long> indexSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT i.indexrelid::regclass::text AS name, (SELECT SUM(pg_relation_size(p.relid)) "
+                + "FROM pg_partition_tree(i.indexrelid) p) AS bytes FROM pg_index i "
+                + "WHERE i.indrelid = 'urls'::regclass ORDER BY bytes DESC",
+                (RowCallbackHandler) row -> sizes.put(row.getString("name"), row.getLong("bytes")));
+        return sizes;
+    }
+
+    private List<AuditedQuery> queries() {
+        Map<String, Object> sample = jdbcTemplate.queryForMap("SELECT short_code, code_key FROM urls "
+                + "WHERE id >= (SELECT (MIN(id) + MAX(id)) / 2 FROM urls) ORDER BY id FETCH FIRST 1 ROWS ONLY");
+        String shortCode = (String) sample.get("short_code");
+        Object codeKey = sample.get("code_key");
+
+        // Owners by link count, heaviest first; one pass over the table when the audit starts
+        List<Long> owners = jdbcTemplate.queryForList("SELECT created_by FROM urls WHERE created_by IS NOT NULL "
+                + "GROUP BY created_by ORDER BY COUNT(*) DESC, created_by", Long.class);
+        Long heaviestOwner = owners.isEmpty() ? -1L : owners.get(0);
+        Long typicalOwner = owners.isEmpty() ? -1L : owners.get(owners.size() / 2);
+        String ownerBatch = owners.isEmpty() ? "-1"
+                : owners.subList(owners.size() / 2, Math.min(owners.size(), owners.size() / 2 + 100)).stream()
+                        .map(String::valueOf).collect(Collectors.joining(", "));
+        String now = "TIMESTAMP WITH TIME ZONE '" + OffsetDateTime.now(ZoneOffset.UTC).format(TIMESTAMP) + "'";
+        String idleCutoff = "TIMESTAMP WITH TIME ZONE '"
+                + OffsetDateTime.now(ZoneOffset.UTC).minusDays(90).format(TIMESTAMP) + "'";
+
+        List<AuditedQuery> queries = new ArrayList<>();
+        queries.add(new AuditedQuery("find-by-short-code", "UrlRepository.findByShortCode",
+                "SELECT * FROM urls WHERE short_code = '" + shortCode + "'", true));
+        queries.add(new AuditedQuery("find-redirect-target", "UrlRepository.findRedirectTargetByShortCode",
+                "SELECT " + REDIRECT_COLUMNS + " FROM urls WHERE short_code = '" + shortCode + "'", true));
+        if (codeKey != null) {
+            queries.add(new AuditedQuery("find-by-code-key", "UrlRepository.findByCodeKey",
+                    "SELECT * FROM urls WHERE code_key = " + codeKey, true));
+            queries.add(new AuditedQuery("find-redirect-target-by-code-key",
+                    "UrlRepository.findRedirectTargetByCodeKey",
+                    "SELECT " + REDIRECT_COLUMNS + " FROM urls WHERE code_key = " + codeKey, true));
+        }
+        queries.add(new AuditedQuery("find-by-created-by-typical", "UrlRepository.findByCreatedById",
+                "SELECT u.*, c.username FROM urls u LEFT JOIN users c ON c.id = u.created_by "
+                        + "WHERE u.created_by = " + typicalOwner, true));
+        queries.add(new AuditedQuery("find-by-created-by-heaviest", "UrlRepository.findByCreatedById",
+                "SELECT u.*, c.username FROM urls u LEFT JOIN users c ON c.id = u.created_by "
+                        + "WHERE u.created_by = " + heaviestOwner, false));
+        queries.add(new AuditedQuery("sum-by-creators", "UrlRepository.sumByCreators",
+                "SELECT created_by, COUNT(*), COALESCE(SUM(hits), 0) FROM urls WHERE created_by IN ("
+                        + ownerBatch + ") GROUP BY created_by", true));
+        queries.add(new AuditedQuery("top-by-hits", "UrlRepository.streamSummariesByOrderByHitsDesc (first 10)",
+                "SELECT " + SUMMARY_COLUMNS + " FROM urls u LEFT JOIN users c ON c.id = u.created_by "
+                        + "ORDER BY u.hits DESC FETCH FIRST 10 ROWS ONLY", false));
+        queries.add(new AuditedQuery("claim-expired", "ExpiredUrlPurgeJob (claim chunk)",
+                "SELECT id, short_code, created_by, hits FROM urls WHERE expire_at < " + now
+                        + " ORDER BY expire_at LIMIT 500 FOR UPDATE SKIP LOCKED", true));
+        queries.add(new AuditedQuery("find-short-codes-by-prefix", "UrlRepository.findShortCodesByPrefix",
+                "SELECT short_code FROM urls WHERE short_code LIKE '" + shortCode.substring(0, 3)
+                        + "%' ORDER BY short_code FETCH FIRST 100 ROWS ONLY", false));
+        queries.add(new AuditedQuery("find-idle-ids", "UrlRepository.findIdleIds",
+                "SELECT id FROM urls WHERE COALESCE(last_accessed_at, created_at) < " + idleCutoff
+                        + " ORDER BY id FETCH FIRST 1000 ROWS ONLY", false));
+        return queries;
+    }
+
+    private Result audit(AuditedQuery query, boolean postgres) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query.sql(), String.class));
+        Matcher matcher = (postgres ? POSTGRES_SEQ_SCAN : H2_TABLE_SCAN).matcher(plan);
+        Set<String> fullScans = new LinkedHashSet<>();
+        while (matcher.find()) {
+            fullScans.add(matcher.group(1).toLowerCase());
+        }
+
+        long rows = execute(query.sql());
+        double[] millis = new double[Math.max(1, iterations)];
+        for (int i = 0; i < millis.length; i++) {
+            long start = System.nanoTime();
+            execute(query.sql());
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+
+        Duration budget = environment.getProperty("plan-audit.budget." + query.name(), Duration.class,
+                defaultBudget);
+        return new Result(query, plan, List.copyOf(fullScans), millis[millis.length / 2],
+                budget.toNanos() / 1_000_000.0, rows);
+    }
+
+    private long execute(String sql) {
+        long[] rows = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.query(sql, (RowCallbackHandler) row -> rows[0]++);
+            // Leave the data (and the rows claimed FOR UPDATE) untouched
+            status.setRollbackOnly();
+        });
+        return rows[0];
+    }
+
+    private void report(List<Result> results, Map<String, Long> indexSizes, boolean postgres, long urlCount)
+            throws IOException {
+        StringBuilder markdown = new StringBuilder()
+                .append("# Query plan audit\n\n")
+                .append(postgres ? "PostgreSQL" : "H2").append(", ").append(urlCount).append(" URLs, median of ")
+                .append(Math.max(1, iterations)).append(" runs\n\n")
+                .append("| Query | Source | Full scans | Median ms | Budget ms | Rows | Result |\n")
+                .append("|-------|--------|------------|-----------|-----------|------|--------|\n");
+
+        for (Result result : results) {
+            String verdict = result.planRegressed() ? "FAIL (full scan)"
+                    : result.overBudget() ? "FAIL (over budget)" : "ok";
+            String scans = result.fullScans().isEmpty() ? "-" : String.join(", ", result.fullScans());
+            markdown.append(String.format("| %s | %s | %s | %.2f | %.2f | %d | %s |%n", result.query().name(),
+                    result.query().source(), scans, result.medianMillis(), result.budgetMillis(), result.rows(),
+                    verdict));
+
+            if ("ok".equals(verdict)) {
+                logger.info("{}: {} ms (budget {} ms), {} rows", result.query().name(),
+                        String.format("%.2f", result.medianMillis()), result.budgetMillis(), result.rows());
+            } else {
+                logger.warn("{}: {} - {} ms (budget {} ms), full scans: {}\n{}\n{}", result.query().name(), verdict,
+                        String.format("%.2f", result.medianMillis()), result.budgetMillis(), scans,
+                        result.query().sql(), result.plan());
+            }
+        }
+
+        if (!indexSizes.isEmpty()) {
+            markdown.append("\n## Index sizes\n\n")
+                    .append("| Index | MB | Bytes / URL |\n")
+                    .append("|-------|----|-------------|\n");
+            indexSizes.forEach((index, bytes) -> {
+                markdown.append(String.format("| %s | %.1f | %.1f |%n", index, bytes / 1e6, (double) bytes / urlCount));
+                logger.info("Index {}: {} MB", index, String.format("%.1f", bytes / 1e6));
+            });
+        }
+
+        markdown.append("\n## Plans\n");
+        for (Result result : results) {
+            markdown.append("\n### ").append(result.query().name()).append("\n\n```sql\n")
+                    .append(result.query().sql()).append("\n```\n\n```\n").append(result.plan()).append("\n```\n");
+        }
+        if (!reportFile.isBlank()) {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, markdown);
+            logger.info("Wrote query plan report to {}", path.toAbsolutePath());
+        }
+    }
+}
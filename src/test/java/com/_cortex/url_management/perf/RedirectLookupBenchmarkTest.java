@@ -0,0 +1,222 @@
+package com._cortex.url_management.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.service.ShortCodeKeyService;
+import com._cortex.url_management.util.CompactUrlCodec;
+
+/**
+ * Compares the per-redirect cost of loading the {@code Url} entity in a
+ * read-write transaction (the original redirect lookup) with the read-only
+ * projection, against a database filled by {@link SyntheticDataGenerator}
+ * (generated first if urls is empty). Tagged {@code redirect-bench} and
+ * excluded from the default build; run it with
+ * {@code ./mvnw test -Predirect-bench}.
+ * <p>
+ * Both variants resolve the same sample of short codes, in rounds after a
+ * warm-up, on a single thread: latency is per lookup (median and p99), and
+ * allocation is the bytes the thread allocated per lookup as reported by
+ * the JVM. The destinations of the sample are also held both as
+ * CompactUrlCodec bytes and as Strings, the two forms the in-memory redirect
+ * tables choose between, to weigh the bytes saved against the time each
+ * decode costs. Results are logged and, with
+ * {@code redirect-bench.report-file}, written as Markdown.
+ */
+@Tag("redirect-bench")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({ "datagen", "redirect-bench" })
+@Import(SyntheticDataGenerator.class)
+class RedirectLookupBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedirectLookupBenchmarkTest.class);
+    // A decode is far cheaper than a lookup, so it needs many more passes to be compiled and timed
+    private static final int CODEC_WARMUP_PASSES = 200;
+    private static final int CODEC_PASSES = 200;
+
+    private record Variant(String name, String description, Function<String, Optional<RedirectTarget>> lookup) {
+    }
+
+    private record Result(Variant variant, double medianMicros, double p99Micros, double bytesPerLookup) {
+    }
+
+    private record CodecResult(double encodedBytes, double stringBytes, double decodeNanos, double stringNanos) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ShortCodeKeyService shortCodeKeyService;
+
+    @Autowired
+    private SyntheticDataGenerator dataGenerator;
+
+    @Value("${redirect-bench.sample-size:2000}")
+    private int sampleSize;
+
+    @Value("${redirect-bench.warmup-rounds:3}")
+    private int warmupRounds;
+
+    @Value("${redirect-bench.rounds:5}")
+    private int rounds;
+
+    @Value("${redirect-bench.report-file:}")
+    private String reportFile;
+
+    @Test
+    void compareLookups() throws IOException {
+        dataGenerator.generateIfEmpty();
+        benchmark();
+    }
+
+    private void benchmark() throws IOException {
+        // Codes spread over the table, so lookups are not all served from the same pages
+        List<String> codes = jdbcTemplate.queryForList("SELECT short_code FROM urls WHERE id % "
+                + "GREATEST(1, (SELECT COUNT(*) FROM urls) / ?) = 0 ORDER BY id FETCH FIRST ? ROWS ONLY",
+                String.class, sampleSize, sampleSize);
+        if (codes.isEmpty()) {
+            throw new IllegalStateException("urls is empty; set datagen.urls to a positive count");
+        }
+        for (String code : codes) {
+            assertThat(shortCodeKeyService.findRedirectTarget(code)).as(code).isPresent();
+        }
+
+        List<Variant> variants = List.of(
+                new Variant("entity", "UrlRepository.findByShortCode + RedirectTarget.from, read-write transaction",
+                        code -> transactionTemplate.execute(
+                                status -> urlRepository.findByShortCode(code).map(RedirectTarget::from))),
+                new Variant("projection", "ShortCodeKeyService.findRedirectTarget, no transaction",
+                        shortCodeKeyService::findRedirectTarget));
+
+        for (int i = 0; i < warmupRounds; i++) {
+            for (Variant variant : variants) {
+                codes.forEach(variant.lookup()::apply);
+            }
+        }
+        List<Result> results = variants.stream().map(variant -> measure(variant, codes)).toList();
+        report(results, measureCodec(codes), codes.size());
+    }
+
+    private Result measure(Variant variant, List<String> codes) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[codes.size() * Math.max(1, rounds)];
+        int n = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < Math.max(1, rounds); round++) {
+            for (String code : codes) {
+                long start = System.nanoTime();
+                variant.lookup().apply(code);
+                nanos[n++] = System.nanoTime() - start;
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        Arrays.sort(nanos);
+        return new Result(variant, nanos[n / 2] / 1000.0, nanos[Math.min(n - 1, (int) (n * 0.99))] / 1000.0,
+                (double) allocated / n);
+    }
+
+    private CodecResult measureCodec(List<String> codes) {
+        String[] strings = codes.stream()
+                .map(code -> shortCodeKeyService.findRedirectTarget(code).orElseThrow().originalUrl())
+                .toArray(String[]::new);
+        CompactUrlCodec codec = new CompactUrlCodec(1 << 16);
+        byte[][] encoded = new byte[strings.length][];
+        long encodedBytes = 0;
+        long stringBytes = 0;
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = codec.encode(strings[i]);
+            assertThat(codec.decode(encoded[i])).isEqualTo(strings[i]);
+            encodedBytes += CompactUrlCodec.encodedFootprint(encoded[i]);
+            stringBytes += CompactUrlCodec.stringFootprint(strings[i]);
+        }
+
+        // Whole passes over the sample are timed, as a single decode is close to the clock's resolution
+        long checksum = 0;
+        long decodeNanos = 0;
+        long stringNanos = 0;
+        for (int pass = -CODEC_WARMUP_PASSES; pass < CODEC_PASSES; pass++) {
+            long start = System.nanoTime();
+            for (byte[] url : encoded) {
+                checksum += codec.decode(url).length();
+            }
+            long decoded = System.nanoTime();
+            for (String url : strings) {
+                checksum += url.length();
+            }
+            if (pass >= 0) {
+                decodeNanos += decoded - start;
+                stringNanos += System.nanoTime() - decoded;
+            }
+        }
+        assertThat(checksum).isPositive();
+
+        double reads = (double) strings.length * CODEC_PASSES;
+        return new CodecResult((double) encodedBytes / strings.length, (double) stringBytes / strings.length,
+                decodeNanos / reads, stringNanos / reads);
+    }
+
+    private void report(List<Result> results, CodecResult codec, int sample) throws IOException {
+        StringBuilder markdown = new StringBuilder()
+                .append("# Redirect lookup benchmark\n\n")
+                .append(sample).append(" short codes x ").append(Math.max(1, rounds)).append(" rounds\n\n")
+                .append("| Variant | Lookup | Median us | p99 us | Bytes allocated / lookup |\n")
+                .append("|---------|--------|-----------|--------|--------------------------|\n");
+        for (Result result : results) {
+            markdown.append(String.format("| %s | %s | %.1f | %.1f | %.0f |%n", result.variant().name(),
+                    result.variant().description(), result.medianMicros(), result.p99Micros(),
+                    result.bytesPerLookup()));
+            logger.info("{}: median {} us, p99 {} us, {} bytes allocated per lookup", result.variant().name(),
+                    String.format("%.1f", result.medianMicros()), String.format("%.1f", result.p99Micros()),
+                    String.format("%.0f", result.bytesPerLookup()));
+        }
+
+        markdown.append("\n## Destination storage\n\n")
+                .append("| Form | Heap bytes / URL | ns / read |\n")
+                .append("|------|------------------|-----------|\n")
+                .append(String.format("| String | %.0f | %.1f |%n", codec.stringBytes(), codec.stringNanos()))
+                .append(String.format("| CompactUrlCodec | %.0f | %.1f |%n", codec.encodedBytes(),
+                        codec.decodeNanos()));
+        logger.info("Destinations: {} bytes as String, {} encoded, {} ns per decode",
+                String.format("%.0f", codec.stringBytes()), String.format("%.0f", codec.encodedBytes()),
+                String.format("%.1f", codec.decodeNanos()));
+
+        if (!reportFile.isBlank()) {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, markdown);
+            logger.info("Wrote redirect lookup benchmark to {}", path.toAbsolutePath());
+        }
+    }
+}
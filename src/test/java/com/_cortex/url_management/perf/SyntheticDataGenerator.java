@@ -0,0 +1,286 @@
+package com._cortex.url_management.perf;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com._cortex.url_management.util.ShortCodeKeys;
+
+/**
+ * Test fixture that fills the database with a reproducible synthetic
+ * dataset of users and URLs at production scale, configured by the
+ * {@code datagen.*} properties ({@code application-datagen.properties}).
+ * The performance suites import it and fill an empty urls table before
+ * measuring, so a persistent database is only filled once.
+ * <p>
+ * The data is skewed the way real traffic is:
+ * <ul>
+ * <li>owners - a share of URLs are guest links; the rest follow a Zipf
+ * distribution over users, so a few users own most links</li>
+ * <li>destinations - hosts are Zipf-distributed too, with subdomains</li>
+ * <li>hits - many links are never clicked; clicked ones follow a Pareto
+ * tail</li>
+ * <li>expiry - most links never expire, some already have, the rest expire
+ * within a year</li>
+ * </ul>
+ * Every batch draws from its own generator seeded from
+ * {@code datagen.seed}, so the same settings produce the same rows no matter
+ * how many threads insert them (with one thread the IDs match as well).
+ * Short codes are 7-character Base62 codes from a bijection of the row
+ * number, so they are unique without checking. The tables are analyzed at
+ * the end so the planner sees the new distribution.
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String INSERT_USER = "INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)";
+    private static final String INSERT_URL = "INSERT INTO urls (short_code, code_key, original_url, created_by, "
+            + "created_at, last_accessed_at, expire_at, hits) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Row numbers are scrambled into the 62^7 space of 7-character codes; the multiplier is coprime to 62^7
+    private static final long CODE_SPACE = 3_521_614_606_208L;
+    private static final long CODE_MULTIPLIER = 2_654_435_761L;
+    private static final long FIRST_7_CHAR_KEY = ShortCodeKeys.toKey("0000000");
+    private static final long BATCH_SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    private static final String[] HOSTS = {
+            "www.youtube.com", "github.com", "docs.google.com", "www.amazon.com", "en.wikipedia.org",
+            "medium.com", "www.linkedin.com", "twitter.com", "www.reddit.com", "stackoverflow.com",
+            "drive.google.com", "www.nytimes.com", "news.ycombinator.com", "www.instagram.com", "example.com",
+            "docs.example.com", "shop.example.com", "blog.example.org", "www.bbc.co.uk", "open.spotify.com",
+            "www.figma.com", "zoom.us", "calendar.google.com", "www.notion.so", "gitlab.com",
+            "www.etsy.com", "www.imdb.com", "maps.google.com", "dev.to", "www.coursera.org" };
+    private static final String[] PATH_WORDS = {
+            "watch", "docs", "blog", "products", "article", "guide", "invite", "event", "share", "item",
+            "post", "release", "campaign", "download", "report" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final int users;
+    private final long urls;
+    private final long seed;
+    private final int batchSize;
+    private final int threads;
+    private final double guestFraction;
+    private final double ownerSkew;
+    private final double expiringFraction;
+    private final double expiredFraction;
+    private final double clickedFraction;
+    private final Duration history;
+    private final boolean append;
+
+    public SyntheticDataGenerator(
+            JdbcTemplate jdbcTemplate,
+            PasswordEncoder passwordEncoder,
+            @Value("${datagen.users:100000}") int users,
+            @Value("${datagen.urls:10000000}") long urls,
+            @Value("${datagen.seed:42}") long seed,
+            @Value("${datagen.batch-size:1000}") int batchSize,
+            @Value("${datagen.threads:4}") int threads,
+            @Value("${datagen.guest-fraction:0.3}") double guestFraction,
+            @Value("${datagen.owner-skew:1.1}") double ownerSkew,
+            @Value("${datagen.expiring-fraction:0.3}") double expiringFraction,
+            @Value("${datagen.expired-fraction:0.15}") double expiredFraction,
+            @Value("${datagen.clicked-fraction:0.6}") double clickedFraction,
+            @Value("${datagen.history:P730D}") Duration history,
+            @Value("${datagen.append:false}") boolean append) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.users = users;
+        this.urls = urls;
+        this.seed = seed;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.guestFraction = guestFraction;
+        this.ownerSkew = ownerSkew;
+        this.expiringFraction = expiringFraction;
+        this.expiredFraction = expiredFraction;
+        this.clickedFraction = clickedFraction;
+        this.history = history;
+        this.append = append;
+    }
+
+    /**
+     * Generate the dataset unless urls already holds rows and
+     * {@code datagen.append} is off
+     *
+     * @return number of URLs in the table afterwards
+     */
+    public long generateIfEmpty() {
+        long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls", Long.class);
+        if (existing > 0 && !append) {
+            logger.info("Using the {} URLs already in the database", existing);
+            return existing;
+        }
+        generate();
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls", Long.class);
+    }
+
+    /**
+     * Generate the dataset
+     *
+     * @throws IllegalStateException if urls already holds rows and
+     *                               {@code datagen.append} is off
+     */
+    public void generate() {
+        long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls", Long.class);
+        if (existing > 0 && !append) {
+            throw new IllegalStateException("urls already holds " + existing
+                    + " rows; set datagen.append=true to add to them");
+        }
+
+        long start = System.nanoTime();
+        long[] userIds = insertUsers(existing);
+        insertUrls(userIds, existing);
+        analyze();
+        logger.info("Generated {} users and {} URLs in {}s", users, urls,
+                Duration.ofNanos(System.nanoTime() - start).toSeconds());
+    }
+
+    /**
+     * Insert the users, returning their IDs with the heaviest owner (Zipf
+     * rank 1) first
+     */
+    private long[] insertUsers(long runOffset) {
+        String prefix = "datagen-" + Long.toString(seed, 36) + "-" + Long.toString(runOffset, 36) + "-";
+        String passwordHash = passwordEncoder.encode("datagen");
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < users; i++) {
+            batch.add(new Object[] { prefix + i, prefix + i + "@datagen.test", passwordHash });
+            if (batch.size() == batchSize || i == users - 1) {
+                jdbcTemplate.batchUpdate(INSERT_USER, batch);
+                batch.clear();
+            }
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE ? ORDER BY id", Long.class, prefix + "%");
+        logger.info("Inserted {} users", ids.size());
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void insertUrls(long[] userIds, long runOffset) {
+        double[] ownerCdf = zipfCdf(userIds.length, ownerSkew);
+        double[] hostCdf = zipfCdf(HOSTS.length, 1.0);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        long batches = (urls + batchSize - 1) / batchSize;
+        AtomicLong inserted = new AtomicLong();
+        long progressStep = Math.max(urls / 20, batchSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (long b = 0; b < batches; b++) {
+                long batch = b;
+                pending.add(executor.submit(() -> {
+                    int rows = insertUrlBatch(batch, runOffset, userIds, ownerCdf, hostCdf, now);
+                    long total = inserted.addAndGet(rows);
+                    if (total / progressStep != (total - rows) / progressStep) {
+                        logger.info("Inserted {} of {} URLs", total, urls);
+                    }
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while inserting URLs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("URL batch failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int insertUrlBatch(long batch, long runOffset, long[] userIds, double[] ownerCdf, double[] hostCdf,
+            OffsetDateTime now) {
+        SplittableRandom random = new SplittableRandom(seed + batch * BATCH_SEED_STRIDE);
+        long first = batch * batchSize;
+        int rows = (int) Math.min(batchSize, urls - first);
+        long historySeconds = history.toSeconds();
+
+        List<Object[]> values = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long row = runOffset + first + i;
+            long codeKey = FIRST_7_CHAR_KEY + Math.floorMod(row * CODE_MULTIPLIER, CODE_SPACE);
+
+            Long owner = random.nextDouble() < guestFraction || userIds.length == 0 ? null : userIds[sample(ownerCdf, random)];
+            String host = HOSTS[sample(hostCdf, random)];
+            String originalUrl = "https://" + host + "/" + PATH_WORDS[random.nextInt(PATH_WORDS.length)] + "/"
+                    + Long.toString(random.nextLong(Long.MAX_VALUE), 36)
+                    + (random.nextInt(4) == 0 ? "?utm_source=newsletter&utm_campaign=c" + random.nextInt(500) : "");
+
+            OffsetDateTime createdAt = now.minusSeconds(random.nextLong(historySeconds));
+            long hits = random.nextDouble() < clickedFraction ? paretoHits(random) : 0;
+            OffsetDateTime lastAccessedAt = hits == 0 ? null
+                    : createdAt.plusSeconds(random.nextLong(Math.max(1, now.toEpochSecond() - createdAt.toEpochSecond())));
+            OffsetDateTime expireAt = null;
+            if (random.nextDouble() < expiringFraction) {
+                expireAt = random.nextDouble() < expiredFraction
+                        ? now.minusSeconds(random.nextLong(1, Duration.ofDays(30).toSeconds()))
+                        : now.plusSeconds(random.nextLong(1, Duration.ofDays(365).toSeconds()));
+            }
+
+            values.add(new Object[] { ShortCodeKeys.toShortCode(codeKey), codeKey, originalUrl, owner,
+                    createdAt, lastAccessedAt, expireAt, hits });
+        }
+        jdbcTemplate.batchUpdate(INSERT_URL, values);
+        return rows;
+    }
+
+    private void analyze() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            jdbcTemplate.execute("ANALYZE users");
+            jdbcTemplate.execute("ANALYZE urls");
+        } else {
+            jdbcTemplate.execute("ANALYZE");
+        }
+    }
+
+    /**
+     * Pareto-distributed hit count of at least 1 (alpha 1.1), capped at ten
+     * million
+     */
+    private static long paretoHits(SplittableRandom random) {
+        double hits = Math.pow(1.0 - random.nextDouble(), -1.0 / 1.1);
+        return (long) Math.min(hits, 10_000_000d);
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1.0 / Math.pow(rank, exponent);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+}
@@ -0,0 +1,208 @@
+package com._cortex.url_management.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import com._cortex.url_management.dto.UrlResponse;
+import com._cortex.url_management.service.UrlService;
+import com._cortex.url_management.util.DtoMapper;
+import com._cortex.url_management.util.UrlResponseStreamer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Compares the bytes on the wire and the CPU per response of the streamed
+ * URL lists ({@code GET /api/users/{id}/urls}) in each encoding
+ * {@link UrlResponseStreamer} negotiates: JSON, Smile and CBOR, each as is
+ * and gzipped the way server compression would send it. Runs against a
+ * database filled by {@link SyntheticDataGenerator} (generated first if urls
+ * is empty). Tagged {@code wire-bench} and excluded from the default build;
+ * run it with {@code ./mvnw test -Pwire-bench}.
+ * <p>
+ * The list of the user with the most links is read once and cut to each of
+ * {@code wire-bench.list-sizes}, so only the encoding is timed, not the
+ * query. Each response is encoded through the streamer into a mock servlet
+ * response, in rounds after a warm-up, on a single thread; CPU is the
+ * thread's CPU time per response, for encoding and for gzip separately.
+ * Every body is decoded again to check it holds the whole list. Results are
+ * logged and, with {@code wire-bench.report-file}, written as Markdown.
+ */
+@Tag("wire-bench")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles({ "datagen", "wire-bench" })
+@Import(SyntheticDataGenerator.class)
+class WireFormatBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireFormatBenchmarkTest.class);
+    private static final String BASE_URL = "https://sho.rt";
+
+    private record Format(String name, MediaType mediaType, ObjectMapper reader) {
+    }
+
+    private record Result(int items, Format format, int bytes, int gzipBytes, double encodeMicros,
+            double gzipMicros) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private UrlResponseStreamer urlResponseStreamer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SyntheticDataGenerator dataGenerator;
+
+    @Value("${wire-bench.list-sizes:10,100,1000}")
+    private List<Integer> listSizes;
+
+    @Value("${wire-bench.warmup-rounds:200}")
+    private int warmupRounds;
+
+    @Value("${wire-bench.rounds:200}")
+    private int rounds;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private String compressionThreshold;
+
+    @Value("${wire-bench.report-file:}")
+    private String reportFile;
+
+    @Test
+    void compareFormats() throws IOException {
+        dataGenerator.generateIfEmpty();
+        benchmark();
+    }
+
+    private void benchmark() throws IOException {
+        Long owner = jdbcTemplate.queryForObject("SELECT created_by FROM urls WHERE created_by IS NOT NULL "
+                + "GROUP BY created_by ORDER BY COUNT(*) DESC FETCH FIRST 1 ROWS ONLY", Long.class);
+        int largest = listSizes.stream().mapToInt(Integer::intValue).max().orElseThrow();
+        List<UrlResponse> urls = new ArrayList<>(largest);
+        urlService.forEachByUserId(owner, summary -> {
+            if (urls.size() < largest) {
+                urls.add(DtoMapper.toUrlResponse(summary, BASE_URL));
+            }
+        });
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("urls is empty; set datagen.urls to a positive count");
+        }
+
+        List<Format> formats = List.of(
+                new Format("JSON", MediaType.APPLICATION_JSON, objectMapper),
+                new Format("Smile", UrlResponseStreamer.APPLICATION_SMILE, objectMapper.copyWith(new SmileFactory())),
+                new Format("CBOR", UrlResponseStreamer.APPLICATION_CBOR, objectMapper.copyWith(new CBORFactory())));
+
+        List<Result> results = new ArrayList<>();
+        for (int size : listSizes) {
+            List<UrlResponse> list = urls.subList(0, Math.min(size, urls.size()));
+            for (Format format : formats) {
+                results.add(measure(list, format));
+            }
+        }
+        report(results, owner);
+    }
+
+    private Result measure(List<UrlResponse> list, Format format) throws IOException {
+        byte[] body = encode(list, format);
+        byte[] gzipped = gzip(body);
+        UrlResponse[] decoded = format.reader().readValue(body, UrlResponse[].class);
+        assertThat(decoded).hasSize(list.size());
+        assertThat(decoded[0].getShortCode()).isEqualTo(list.get(0).getShortCode());
+
+        for (int i = 0; i < warmupRounds; i++) {
+            gzip(encode(list, format));
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long encodeNanos = 0;
+        long gzipNanos = 0;
+        for (int i = 0; i < Math.max(1, rounds); i++) {
+            long start = threads.getCurrentThreadCpuTime();
+            byte[] encoded = encode(list, format);
+            long encodedAt = threads.getCurrentThreadCpuTime();
+            gzip(encoded);
+            encodeNanos += encodedAt - start;
+            gzipNanos += threads.getCurrentThreadCpuTime() - encodedAt;
+        }
+        int n = Math.max(1, rounds);
+        return new Result(list.size(), format, body.length, gzipped.length, encodeNanos / 1000.0 / n,
+                gzipNanos / 1000.0 / n);
+    }
+
+    private byte[] encode(List<UrlResponse> list, Format format) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT, format.mediaType().toString());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        UrlResponseStreamer.ArrayWriter writer = urlResponseStreamer.open(request, response);
+        list.forEach(writer::write);
+        writer.finish();
+        return response.getContentAsByteArray();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private void report(List<Result> results, Long owner) throws IOException {
+        StringBuilder markdown = new StringBuilder()
+                .append("# Wire format benchmark\n\n")
+                .append("Links of user ").append(owner).append(", ").append(Math.max(1, rounds))
+                .append(" rounds; responses under ").append(compressionThreshold)
+                .append(" are sent uncompressed\n\n")
+                .append("| Links | Format | Bytes | Gzip bytes | Encode CPU us | Gzip CPU us |\n")
+                .append("|-------|--------|-------|------------|---------------|-------------|\n");
+        for (Result result : results) {
+            markdown.append(String.format("| %d | %s | %d | %d | %.1f | %.1f |%n", result.items(),
+                    result.format().name(), result.bytes(), result.gzipBytes(), result.encodeMicros(),
+                    result.gzipMicros()));
+            logger.info("{} links as {}: {} bytes ({} gzipped), {} us to encode, {} us to gzip", result.items(),
+                    result.format().name(), result.bytes(), result.gzipBytes(),
+                    String.format("%.1f", result.encodeMicros()), String.format("%.1f", result.gzipMicros()));
+        }
+
+        if (!reportFile.isBlank()) {
+            Path path = Path.of(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, markdown);
+            logger.info("Wrote wire format benchmark to {}", path.toAbsolutePath());
+        }
+    }
+}
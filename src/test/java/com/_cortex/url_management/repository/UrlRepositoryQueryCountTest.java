@@ -0,0 +1,149 @@
+package com._cortex.url_management.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com._cortex.url_management.dto.UrlSummary;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.model.User;
+
+/**
+ * Listing URLs must cost a constant number of statements however many URLs
+ * and owners are listed: the summary projections join the owner in the same
+ * query, and the entity finders fetch it through an entity graph.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UrlRepositoryQueryCountTest {
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void streamingAUsersSummariesIsOneStatementWhateverTheCount() {
+        for (int count : new int[] { 1, 25 }) {
+            User owner = persistOwnerWithUrls(count);
+            startCounting();
+
+            List<UrlSummary> summaries;
+            try (Stream<UrlSummary> stream = urlRepository.streamSummariesByCreatedById(owner.getId())) {
+                summaries = stream.toList();
+            }
+
+            assertThat(summaries).hasSize(count);
+            assertThat(summaries).allSatisfy(summary -> assertThat(summary.createdByUsername())
+                    .isEqualTo(owner.getUsername()));
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void streamingPopularSummariesIsOneStatementAcrossOwners() {
+        for (int i = 0; i < 10; i++) {
+            persistOwnerWithUrls(3);
+        }
+        persistUrl(null);
+        startCounting();
+
+        List<UrlSummary> summaries;
+        try (Stream<UrlSummary> stream = urlRepository.streamSummariesByOrderByHitsDesc()) {
+            summaries = stream.toList();
+        }
+
+        assertThat(summaries).hasSize(31);
+        assertThat(summaries).filteredOn(summary -> summary.createdByUserId() != null)
+                .allSatisfy(summary -> assertThat(summary.createdByUsername()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void summariesByIdIsOneStatement() {
+        User owner = persistOwnerWithUrls(5);
+        List<Long> ids = urlRepository.findByCreatedById(owner.getId()).stream().map(Url::getId).toList();
+        startCounting();
+
+        List<UrlSummary> summaries = urlRepository.findSummariesByCreatedByIdAndIdIn(owner.getId(), ids);
+
+        assertThat(summaries).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByCreatedByIdFetchesTheOwnerInTheSameStatement() {
+        User owner = persistOwnerWithUrls(20);
+        startCounting();
+
+        List<Url> urls = urlRepository.findByCreatedById(owner.getId());
+        List<String> usernames = urls.stream().map(url -> url.getCreatedBy().getUsername()).toList();
+
+        assertThat(usernames).hasSize(20).containsOnly(owner.getUsername());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void topByHitsFetchesEveryOwnerInTheSameStatement() {
+        for (int i = 0; i < 10; i++) {
+            persistOwnerWithUrls(2);
+        }
+        startCounting();
+
+        List<Url> urls = urlRepository.findTopByOrderByHitsDesc();
+        List<String> usernames = urls.stream().map(url -> url.getCreatedBy().getUsername()).toList();
+
+        assertThat(usernames).hasSize(20).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private User persistOwnerWithUrls(int urls) {
+        int n = ++sequence;
+        User owner = new User();
+        owner.setUsername("owner" + n);
+        owner.setEmail("owner" + n + "@example.com");
+        owner.setPasswordHash("x".repeat(60));
+        entityManager.persist(owner);
+        for (int i = 0; i < urls; i++) {
+            persistUrl(owner);
+        }
+        return owner;
+    }
+
+    private void persistUrl(User owner) {
+        Url url = new Url();
+        url.setShortCode("c" + (++sequence));
+        url.setOriginalUrl("https://example.com/" + sequence);
+        url.setCreatedBy(owner);
+        url.setHits((long) sequence);
+        entityManager.persist(url);
+    }
+
+    /**
+     * Detach everything written so far and reset the counters, so only the
+     * statements of the query under test are counted
+     */
+    private void startCounting() {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
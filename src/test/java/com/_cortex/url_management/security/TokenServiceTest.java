@@ -0,0 +1,112 @@
+package com._cortex.url_management.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class TokenServiceTest {
+
+    private static final String KEYS = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private TokenService tokenService(int revocationCapacity) {
+        return new TokenService(KEYS, "k1", Duration.ofHours(1), revocationCapacity, clock);
+    }
+
+    @Test
+    void issuedTokenVerifiesUntilRevoked() {
+        TokenService tokens = tokenService(10);
+        TokenService.IssuedToken issued = tokens.issue(42);
+
+        assertThat(tokens.verify(issued.token())).contains(issued.claims());
+
+        tokens.revoke(issued.claims());
+        assertThat(tokens.verify(issued.token())).isEmpty();
+    }
+
+    @Test
+    void fullRevocationListDropsTheRevocationClosestToExpiry() {
+        TokenService tokens = tokenService(2);
+        TokenService.IssuedToken first = tokens.issue(1);
+        clock.advance(Duration.ofMinutes(10));
+        TokenService.IssuedToken second = tokens.issue(2);
+        clock.advance(Duration.ofMinutes(10));
+        TokenService.IssuedToken third = tokens.issue(3);
+
+        tokens.revoke(first.claims());
+        tokens.revoke(second.claims());
+        tokens.revoke(third.claims());
+
+        assertThat(tokens.verify(third.token())).isEmpty();
+        assertThat(tokens.verify(second.token())).isEmpty();
+        assertThat(tokens.verify(first.token())).isPresent();
+    }
+
+    @Test
+    void expiredRevocationsArePurgedBeforeAnyIsDropped() {
+        TokenService tokens = tokenService(2);
+        TokenService.IssuedToken first = tokens.issue(1);
+        clock.advance(Duration.ofMinutes(30));
+        TokenService.IssuedToken second = tokens.issue(2);
+        tokens.revoke(first.claims());
+        tokens.revoke(second.claims());
+
+        // first has expired on its own; its slot is reused
+        clock.advance(Duration.ofMinutes(45));
+        TokenService.IssuedToken third = tokens.issue(3);
+        tokens.revoke(third.claims());
+
+        assertThat(tokens.verify(second.token())).isEmpty();
+        assertThat(tokens.verify(third.token())).isEmpty();
+    }
+
+    @Test
+    void tamperedOrExpiredTokensAreRejected() {
+        TokenService tokens = tokenService(10);
+        TokenService.IssuedToken issued = tokens.issue(7);
+        String token = issued.token();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(tokens.verify(tampered)).isEmpty();
+        assertThat(tokens.verify("garbage")).isEmpty();
+
+        clock.advance(Duration.ofHours(1));
+        assertThat(tokens.verify(token)).isEmpty();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
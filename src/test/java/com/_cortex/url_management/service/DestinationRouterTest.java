@@ -0,0 +1,111 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.model.UrlDestination;
+import com._cortex.url_management.repository.UrlDestinationRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Destination hits counted while a flush is running must land in that flush
+ * or the next one, never be lost.
+ */
+class DestinationRouterTest {
+
+    private static final RedirectTarget SPLIT = new RedirectTarget(1L, "split1", "https://example.com/primary",
+            null, null, 11L);
+
+    private final UrlDestinationRepository destinationRepository = mock(UrlDestinationRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final Map<Long, Long> flushed = new ConcurrentHashMap<>();
+    private DestinationRouter router;
+
+    @BeforeEach
+    void setUp() {
+        when(destinationRepository.findByUrlIdOrderByPosition(1L)).thenReturn(List.of(
+                new UrlDestination(10L, 1L, 0, "https://example.com/a", 1, 0),
+                new UrlDestination(11L, 1L, 1, "https://example.com/b", 3, 0)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                flushed.merge((Long) row[1], (Long) row[0], Long::sum);
+            }
+            return new int[rows.size()];
+        });
+        router = new DestinationRouter(destinationRepository, jdbcTemplate, new SimpleMeterRegistry(), 100);
+    }
+
+    @Test
+    void hitsCountedDuringFlushesAreNotLost() throws InterruptedException {
+        int threads = 4;
+        int visitsPerThread = 50_000;
+        AtomicBoolean visiting = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (visiting.get()) {
+                router.flushHits();
+            }
+        });
+        flusher.start();
+
+        List<Thread> visitors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread visitor = new Thread(() -> {
+                for (int i = 0; i < visitsPerThread; i++) {
+                    router.choose(SPLIT);
+                }
+            });
+            visitors.add(visitor);
+            visitor.start();
+        }
+        for (Thread visitor : visitors) {
+            visitor.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        visiting.set(false);
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        router.flushHits();
+
+        assertThat(flushed.values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo((long) threads * visitsPerThread);
+        assertThat(flushed).containsOnlyKeys(10L, 11L);
+        assertThat(router.unflushedHits(10L) + router.unflushedHits(11L)).isZero();
+    }
+
+    @Test
+    void failedFlushKeepsTheHitsForTheNextOne() {
+        for (int i = 0; i < 100; i++) {
+            router.choose(SPLIT);
+        }
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenAnswer(invocation -> {
+                    List<Object[]> rows = invocation.getArgument(1);
+                    rows.forEach(row -> flushed.merge((Long) row[1], (Long) row[0], Long::sum));
+                    return new int[rows.size()];
+                });
+
+        router.flushHits();
+        assertThat(flushed).isEmpty();
+        assertThat(router.unflushedHits(10L) + router.unflushedHits(11L)).isEqualTo(100);
+
+        router.flushHits();
+        assertThat(flushed.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(100);
+    }
+}
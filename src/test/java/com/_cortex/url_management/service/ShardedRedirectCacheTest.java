@@ -0,0 +1,214 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two nodes sharing one cluster cache over HTTP: each code is cached once,
+ * on its owner, evictions reach the owner, and an unreachable owner is
+ * bypassed for the retry period.
+ */
+class ShardedRedirectCacheTest {
+
+    private static final String SECRET = "peer-secret";
+    private static final int CODES = 60;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final Map<String, AtomicInteger> databaseLoads = new ConcurrentHashMap<>();
+
+    private Node first;
+    private Node second;
+
+    @BeforeEach
+    void startNodes() throws IOException {
+        HttpServer firstServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        HttpServer secondServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        List<String> nodes = List.of(address(firstServer), address(secondServer));
+        first = new Node(firstServer, nodes);
+        second = new Node(secondServer, nodes);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        first.server.stop(0);
+        second.server.stop(0);
+    }
+
+    @Test
+    void everyCodeIsLoadedOnceAndCachedOnlyOnItsOwner() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < CODES; i++) {
+                String code = "code" + i;
+                Node node = (i + round) % 2 == 0 ? first : second;
+                assertThat(node.find(code)).map(RedirectTarget::originalUrl)
+                        .contains("https://example.com/" + code);
+            }
+        }
+
+        assertThat(databaseLoads).hasSize(CODES);
+        assertThat(databaseLoads.values()).allSatisfy(loads -> assertThat(loads.get()).isEqualTo(1));
+        double firstEntries = first.gauge("urls.cache.entries");
+        double secondEntries = second.gauge("urls.cache.entries");
+        assertThat(firstEntries + secondEntries).isEqualTo(CODES);
+        // Both nodes own a fair share of the ring
+        assertThat(firstEntries).isBetween(CODES * 0.3, CODES * 0.7);
+        assertThat(first.lookups("peer") + second.lookups("peer")).isGreaterThan(0);
+    }
+
+    @Test
+    void unknownCodesAreNotCached() {
+        for (int i = 0; i < 20; i++) {
+            assertThat(first.find("missing" + i)).isEmpty();
+            assertThat(second.find("missing" + i)).isEmpty();
+        }
+
+        assertThat(first.gauge("urls.cache.entries") + second.gauge("urls.cache.entries")).isZero();
+    }
+
+    @Test
+    void evictionReachesTheOwner() throws InterruptedException {
+        String code = codeOwnedBy(second);
+        first.find(code);
+        assertThat(second.gauge("urls.cache.entries")).isEqualTo(1);
+
+        first.cache.evictAfterCommit(code);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (second.gauge("urls.cache.entries") > 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        assertThat(second.gauge("urls.cache.entries")).isZero();
+        first.find(code);
+        assertThat(databaseLoads.get(code).get()).isEqualTo(2);
+    }
+
+    @Test
+    void unreachableOwnerIsBypassedForTheRetryPeriod() {
+        String code = codeOwnedBy(second);
+        double peerLookups = first.lookups("peer");
+        second.server.stop(0);
+
+        assertThat(first.find(code)).isPresent();
+        assertThat(first.find(code)).isPresent();
+
+        // Both served from the database; only the first tried the peer
+        assertThat(databaseLoads.get(code).get()).isEqualTo(2);
+        assertThat(first.lookups("peer_fallback")).isEqualTo(2);
+        assertThat(first.lookups("peer")).isEqualTo(peerLookups);
+        assertThat(first.gauge("urls.cache.entries")).isZero();
+    }
+
+    @Test
+    void peersMustPresentTheSecret() {
+        assertThat(first.cache.isTrustedPeer(SECRET)).isTrue();
+        assertThat(first.cache.isTrustedPeer("wrong")).isFalse();
+        assertThat(first.cache.isTrustedPeer(null)).isFalse();
+    }
+
+    private String codeOwnedBy(Node owner) {
+        Node other = owner == first ? second : first;
+        for (int i = 0;; i++) {
+            String code = "owned" + i;
+            double before = other.lookups("peer");
+            other.find(code);
+            if (other.lookups("peer") > before) {
+                owner.cache.evictLocal(code);
+                databaseLoads.remove(code);
+                return code;
+            }
+            other.cache.evictLocal(code);
+            databaseLoads.remove(code);
+        }
+    }
+
+    private Optional<RedirectTarget> load(String code) {
+        databaseLoads.computeIfAbsent(code, key -> new AtomicInteger()).incrementAndGet();
+        if (code.startsWith("missing")) {
+            return Optional.empty();
+        }
+        return Optional.of(new RedirectTarget((long) code.hashCode(), code, "https://example.com/" + code, 7L,
+                Instant.parse("2030-01-01T00:00:00Z"), null));
+    }
+
+    private static String address(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * One application node: its cache plus a stand-in for PeerCacheController
+     */
+    private final class Node {
+
+        private final HttpServer server;
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final ShardedRedirectCache cache;
+
+        private Node(HttpServer server, List<String> nodes) {
+            this.server = server;
+            this.cache = new ShardedRedirectCache(objectMapper, meterRegistry, true, address(server), nodes, SECRET,
+                    128, Duration.ofMillis(300), Duration.ofSeconds(30), 1000, Duration.ofMinutes(5));
+            server.createContext(ShardedRedirectCache.PEER_PATH, this::serve);
+            server.start();
+        }
+
+        private Optional<RedirectTarget> find(String code) {
+            Supplier<Optional<RedirectTarget>> loader = () -> load(code);
+            return cache.find(code, loader);
+        }
+
+        private void serve(HttpExchange exchange) throws IOException {
+            String code = URLDecoder.decode(
+                    exchange.getRequestURI().getRawPath().substring(ShardedRedirectCache.PEER_PATH.length()),
+                    StandardCharsets.UTF_8);
+            if (!cache.isTrustedPeer(exchange.getRequestHeaders().getFirst(ShardedRedirectCache.SECRET_HEADER))) {
+                exchange.sendResponseHeaders(403, -1);
+            } else if ("DELETE".equals(exchange.getRequestMethod())) {
+                cache.evictLocal(code);
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                Optional<RedirectTarget> target = cache.findOwned(code, () -> load(code));
+                if (target.isEmpty()) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    byte[] body = objectMapper.writeValueAsBytes(target.get());
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    exchange.getResponseBody().write(body);
+                }
+            }
+            exchange.close();
+        }
+
+        private double gauge(String name) {
+            return meterRegistry.get(name).gauge().value();
+        }
+
+        private double lookups(String result) {
+            return meterRegistry.get("urls.cache.lookups").tag("result", result).counter().count();
+        }
+    }
+}
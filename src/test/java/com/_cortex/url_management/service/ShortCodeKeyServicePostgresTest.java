@@ -0,0 +1,111 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com._cortex.url_management.dto.RedirectTarget;
+
+/**
+ * With redirect indexes enabled, they are built in the background after
+ * startup and cover the whole redirect projection, an index built without
+ * original_url is replaced, and the longest URL allowed on create still fits
+ * in an index row. Skipped where Docker is not available.
+ */
+@SpringBootTest(properties = "urls.redirect-index.enabled=true")
+@Testcontainers(disabledWithoutDocker = true)
+class ShortCodeKeyServicePostgresTest {
+
+    private static final List<String> INDEXES = List.of("idx_urls_shortcode_redirect", "idx_urls_codekey_redirect");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShortCodeKeyService shortCodeKeyService;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Test
+    void longestAllowedUrlFitsTheCoveringIndexes() throws InterruptedException {
+        awaitIndexes();
+        assertThat(indexDefinitions()).hasSize(2).allMatch(definition -> definition.contains("original_url"));
+
+        // Incompressible two-byte characters after a 20-byte prefix, exactly up to the cap
+        StringBuilder url = new StringBuilder("https://example.com/");
+        while (url.toString().getBytes(StandardCharsets.UTF_8).length < UrlService.MAX_ORIGINAL_URL_BYTES) {
+            url.append((char) ('\u00e0' + ThreadLocalRandom.current().nextInt(32)));
+        }
+        String longest = url.toString();
+        urlService.createCustomShortUrl(longest, "longestCustomCode123", null, null);
+
+        assertThat(shortCodeKeyService.findRedirectTarget("longestCustomCode123"))
+                .map(RedirectTarget::originalUrl)
+                .hasValue(longest);
+        assertThatThrownBy(() -> urlService.createShortUrl(longest + "\u00e0", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(plan("EXPLAIN SELECT original_url, expire_at, id, created_by, destinations_version "
+                + "FROM urls WHERE short_code = 'longestCustomCode123'")).contains("Index Only Scan");
+    }
+
+    @Test
+    void indexesWithoutOriginalUrlAreReplaced() throws InterruptedException {
+        awaitIndexes();
+        jdbcTemplate.execute("DROP INDEX idx_urls_shortcode_redirect");
+        jdbcTemplate.execute("CREATE INDEX idx_urls_shortcode_redirect ON urls (short_code) INCLUDE (expire_at)");
+
+        shortCodeKeyService.ensureRedirectIndexes();
+
+        assertThat(indexDefinitions()).hasSize(2).allMatch(definition -> definition.contains("original_url"));
+    }
+
+    private String plan(String explain) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // The table is too small for the planner to prefer an index on its own
+                statement.execute("SET enable_seqscan = off");
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery(explain)) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                statement.execute("RESET enable_seqscan");
+                return plan.toString();
+            }
+        });
+    }
+
+    private void awaitIndexes() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (indexDefinitions().size() < INDEXES.size() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    private List<String> indexDefinitions() {
+        return jdbcTemplate.queryForList("SELECT indexdef FROM pg_indexes WHERE tablename = 'urls' "
+                + "AND indexname IN ('idx_urls_shortcode_redirect', 'idx_urls_codekey_redirect')", String.class);
+    }
+}
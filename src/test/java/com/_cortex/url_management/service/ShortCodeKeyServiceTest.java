@@ -0,0 +1,139 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.model.ArchivedUrl;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.repository.ArchivedUrlRepository;
+import com._cortex.url_management.repository.UrlRepository;
+import com._cortex.url_management.util.ShortCodeKeys;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * With code keys enabled, a URL stored without a key must still redirect,
+ * promotion from the archive must store the key, and short_code keeps a
+ * single index.
+ */
+@DataJpaTest(properties = {
+        "urls.code-key.enabled=true",
+})
+@Import({ ShortCodeKeyService.class, ClusterJobRunner.class, SimpleMeterRegistry.class })
+class ShortCodeKeyServiceTest {
+
+    @Autowired
+    private ShortCodeKeyService shortCodeKeyService;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ArchivedUrlRepository archivedUrlRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void unkeyedUrlIsFoundAfterTheBackfillHasCaughtUp() {
+        shortCodeKeyService.backfill();
+        // As written by an instance with the mode off
+        persistUrl("abc123", null);
+
+        assertThat(shortCodeKeyService.findRedirectTarget("abc123"))
+                .map(RedirectTarget::originalUrl)
+                .hasValue("https://example.com/abc123");
+        assertThat(shortCodeKeyService.findByShortCode("abc123")).isPresent();
+    }
+
+    @Test
+    void laterBackfillRunsKeyNewlyUnkeyedUrls() {
+        shortCodeKeyService.backfill();
+        Url url = persistUrl("late42", null);
+
+        shortCodeKeyService.backfill();
+        entityManager.clear();
+
+        assertThat(urlRepository.findById(url.getId()))
+                .map(Url::getCodeKey)
+                .hasValue(ShortCodeKeys.toKey("late42"));
+    }
+
+    @Test
+    void missingCodeIsStillEmpty() {
+        persistUrl("abc123", shortCodeKeyService.keyFor("abc123"));
+
+        assertThat(shortCodeKeyService.findRedirectTarget("zzz999")).isEmpty();
+    }
+
+    @Test
+    void promotedUrlGetsItsKeyOnInsert() {
+        ArchivedUrl archived = new ArchivedUrl();
+        archived.setId(9_001L);
+        archived.setShortCode("cold77");
+        archived.setOriginalUrl("https://example.com/cold77");
+        archived.setCreatedAt(Instant.now());
+        archived.setHits(3L);
+        archived.setArchivedAt(Instant.now());
+        entityManager.persist(archived);
+        entityManager.flush();
+
+        assertThat(archivedUrlRepository.copyToHot("cold77", shortCodeKeyService.keyFor("cold77"))).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(urlRepository.findByCodeKey(ShortCodeKeys.toKey("cold77")))
+                .map(Url::getShortCode)
+                .hasValue("cold77");
+    }
+
+    @Test
+    void shortCodeIsIndexedOnlyByItsUniqueConstraint() {
+        assertThat(indexCount("IDX_URLS_SHORTCODE")).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES i "
+                + "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c ON c.INDEX_NAME = i.INDEX_NAME "
+                + "AND c.TABLE_NAME = i.TABLE_NAME WHERE i.TABLE_NAME = 'URLS' AND c.COLUMN_NAME = 'SHORT_CODE' "
+                + "AND i.INDEX_TYPE_NAME = 'UNIQUE INDEX'", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void plainShortCodeIndexFromOlderVersionsIsDropped() {
+        // As created by versions that mapped it next to the unique constraint
+        jdbcTemplate.execute("CREATE INDEX idx_urls_shortcode ON urls (short_code)");
+
+        assertThat(shortCodeKeyService.dropRedundantShortCodeIndex()).isTrue();
+        assertThat(indexCount("IDX_URLS_SHORTCODE")).isZero();
+        assertThat(shortCodeKeyService.dropRedundantShortCodeIndex()).isFalse();
+    }
+
+    private int indexCount(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE TABLE_NAME = 'URLS' AND INDEX_NAME = ?", Integer.class, name);
+    }
+
+    private Url persistUrl(String shortCode, Long codeKey) {
+        Url url = new Url();
+        url.setShortCode(shortCode);
+        url.setCodeKey(codeKey);
+        url.setOriginalUrl("https://example.com/" + shortCode);
+        url.setCreatedAt(Instant.now());
+        entityManager.persist(url);
+        entityManager.flush();
+        return url;
+    }
+}
@@ -0,0 +1,193 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.service.StaleRedirectCache.Mode;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Remembered targets keep redirects working through a database outage, and
+ * in revalidate mode stale targets are served at once while one background
+ * refresh per code picks up changes.
+ */
+class StaleRedirectCacheTest {
+
+    private static final Supplier<Optional<RedirectTarget>> DATABASE_DOWN = () -> {
+        throw new DataAccessResourceFailureException("connection refused");
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void outageServesTheRememberedTarget() {
+        StaleRedirectCache cache = cache(Mode.OUTAGE, Duration.ofSeconds(30), Duration.ofHours(1));
+        RedirectTarget target = target("abc", "https://example.com/a", null);
+        assertThat(cache.find("abc", () -> Optional.of(target))).contains(target);
+
+        assertThat(cache.find("abc", DATABASE_DOWN)).contains(target);
+        assertThat(cache.find("abc", () -> {
+            throw new CannotCreateTransactionException("pool exhausted");
+        })).contains(target);
+
+        assertThat(lookups("loaded")).isEqualTo(1);
+        assertThat(lookups("stale_outage")).isEqualTo(2);
+    }
+
+    @Test
+    void outageWithoutARememberedTargetFails() {
+        StaleRedirectCache cache = cache(Mode.OUTAGE, Duration.ofSeconds(30), Duration.ofHours(1));
+
+        assertThatThrownBy(() -> cache.find("abc", DATABASE_DOWN))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(lookups("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void outageModeStillQueriesTheDatabaseEveryTime() {
+        StaleRedirectCache cache = cache(Mode.OUTAGE, Duration.ofSeconds(30), Duration.ofHours(1));
+        cache.find("abc", () -> Optional.of(target("abc", "https://example.com/old", null)));
+
+        RedirectTarget changed = target("abc", "https://example.com/new", null);
+        assertThat(cache.find("abc", () -> Optional.of(changed))).contains(changed);
+        assertThat(cache.find("abc", Optional::empty)).isEmpty();
+
+        // A code found gone is forgotten, not served during the next outage
+        assertThatThrownBy(() -> cache.find("abc", DATABASE_DOWN))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void targetsAreNotServedPastHardTtlOrTheirExpiry() throws InterruptedException {
+        StaleRedirectCache cache = cache(Mode.OUTAGE, Duration.ofMillis(50), Duration.ofMillis(50));
+        cache.find("old", () -> Optional.of(target("old", "https://example.com/old", null)));
+        StaleRedirectCache longLived = cache(Mode.OUTAGE, Duration.ofSeconds(30), Duration.ofHours(1));
+        longLived.find("exp", () -> Optional.of(target("exp", "https://example.com/exp",
+                Instant.now().plusMillis(50))));
+
+        Thread.sleep(100);
+
+        assertThatThrownBy(() -> cache.find("old", DATABASE_DOWN))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThatThrownBy(() -> longLived.find("exp", DATABASE_DOWN))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void evictedTargetsAreNotServedDuringAnOutage() {
+        StaleRedirectCache cache = cache(Mode.OUTAGE, Duration.ofSeconds(30), Duration.ofHours(1));
+        cache.find("abc", () -> Optional.of(target("abc", "https://example.com/a", null)));
+
+        cache.evictAfterCommit("abc");
+
+        assertThatThrownBy(() -> cache.find("abc", DATABASE_DOWN))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void offModeNeverServesFromMemory() {
+        StaleRedirectCache cache = cache(Mode.OFF, Duration.ofSeconds(30), Duration.ofHours(1));
+        cache.find("abc", () -> Optional.of(target("abc", "https://example.com/a", null)));
+
+        assertThatThrownBy(() -> cache.find("abc", DATABASE_DOWN))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void revalidateServesFreshTargetsWithoutAQuery() {
+        StaleRedirectCache cache = cache(Mode.REVALIDATE, Duration.ofSeconds(30), Duration.ofHours(1));
+        AtomicInteger queries = new AtomicInteger();
+        RedirectTarget target = target("abc", "https://example.com/a", null);
+        Supplier<Optional<RedirectTarget>> loader = () -> {
+            queries.incrementAndGet();
+            return Optional.of(target);
+        };
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.find("abc", loader)).contains(target);
+        }
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(lookups("fresh")).isEqualTo(4);
+    }
+
+    @Test
+    void revalidateServesStaleTargetsWhileOneRefreshRuns() throws InterruptedException {
+        StaleRedirectCache cache = cache(Mode.REVALIDATE, Duration.ofMillis(20), Duration.ofHours(1));
+        RedirectTarget old = target("abc", "https://example.com/old", null);
+        RedirectTarget changed = target("abc", "https://example.com/new", null);
+        cache.find("abc", () -> Optional.of(old));
+        Thread.sleep(40);
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger refreshes = new AtomicInteger();
+        Supplier<Optional<RedirectTarget>> slowLoader = () -> {
+            refreshes.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(changed);
+        };
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.find("abc", slowLoader)).contains(old);
+        }
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Optional<RedirectTarget> served = Optional.of(old);
+        while (!served.equals(Optional.of(changed)) && System.nanoTime() - deadline < 0) {
+            Thread.sleep(5);
+            served = cache.find("abc", DATABASE_DOWN);
+        }
+        assertThat(served).contains(changed);
+        assertThat(refreshes.get()).isEqualTo(1);
+        assertThat(lookups("stale_revalidate")).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void failedRefreshKeepsServingTheStaleTarget() throws InterruptedException {
+        StaleRedirectCache cache = cache(Mode.REVALIDATE, Duration.ofMillis(20), Duration.ofHours(1));
+        RedirectTarget old = target("abc", "https://example.com/old", null);
+        cache.find("abc", () -> Optional.of(old));
+        Thread.sleep(40);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.find("abc", DATABASE_DOWN)).contains(old);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void softTtlMustNotExceedHardTtl() {
+        assertThatThrownBy(() -> cache(Mode.REVALIDATE, Duration.ofHours(2), Duration.ofHours(1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private StaleRedirectCache cache(Mode mode, Duration softTtl, Duration hardTtl) {
+        return new StaleRedirectCache(meterRegistry, mode, softTtl, hardTtl, 1000, 2);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("urls.stale_cache.lookups").tag("result", result).counter().count();
+    }
+
+    private static RedirectTarget target(String shortCode, String url, Instant expireAt) {
+        return new RedirectTarget(1L, shortCode, url, null, expireAt, null);
+    }
+}
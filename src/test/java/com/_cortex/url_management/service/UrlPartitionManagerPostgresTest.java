@@ -0,0 +1,208 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.repository.UrlRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs the "partitioned" profile against a real PostgreSQL: the application
+ * must start on the partitioned urls table, dropping an expired partition
+ * must clean up everything that referred to its rows, hit updates must be
+ * pruned to one partition, and concurrent promotions must not duplicate a
+ * link. Skipped where Docker is not available.
+ */
+@SpringBootTest(properties = {
+        "urls.change-feed.enabled=true",
+        "urls.partitioning.maintenance-cron=-",
+        "urls.tiering.enabled=true",
+})
+@ActiveProfiles("partitioned")
+@Testcontainers(disabledWithoutDocker = true)
+class UrlPartitionManagerPostgresTest {
+
+    private static final String EXPIRED_PARTITION = "urls_p_20200101_20200108";
+    private static final Pattern PLAN_RELATION = Pattern.compile(" on (urls_(?:default|p_\\d{8}_\\d{8}))\\b");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UrlPartitionManager partitionManager;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UrlTieringService urlTieringService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hibernateLeavesThePartitionedTableWithoutUniqueIndexes() {
+        List<String> uniqueIndexes = jdbcTemplate.queryForList("SELECT indexdef FROM pg_indexes "
+                + "WHERE tablename = 'urls' AND indexdef LIKE 'CREATE UNIQUE%'", String.class);
+
+        assertThat(uniqueIndexes).singleElement().asString().contains("(id, expire_at)");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint c "
+                + "JOIN pg_class t ON t.oid = c.conrelid WHERE t.relname = 'urls' AND c.contype IN ('p', 'u')",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void droppingAnExpiredPartitionCleansUpItsDependents() {
+        jdbcTemplate.update("INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)",
+                "owner", "owner@example.com", "x".repeat(60));
+        long ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'owner'", Long.class);
+        jdbcTemplate.update("INSERT INTO user_url_stats (user_id, link_count, total_clicks) VALUES (?, 3, 100)",
+                ownerId);
+
+        jdbcTemplate.execute("CREATE TABLE " + EXPIRED_PARTITION
+                + " PARTITION OF urls FOR VALUES FROM ('2020-01-01') TO ('2020-01-08')");
+        Timestamp expired = Timestamp.from(Instant.parse("2020-01-03T00:00:00Z"));
+        Timestamp now = Timestamp.from(Instant.now());
+        long first = insertUrl("exp1", ownerId, expired, now, 10);
+        long second = insertUrl("exp2", ownerId, expired, now, 20);
+        long live = insertUrl("live", ownerId, null, now, 70);
+        for (long urlId : new long[] { first, second, live }) {
+            jdbcTemplate.update("INSERT INTO url_destinations (url_id, position, destination_url, weight, hits) "
+                    + "VALUES (?, 0, 'https://example.com/a', 1, 0)", urlId);
+            jdbcTemplate.update("INSERT INTO url_visitor_sketches (url_id, bucket_date, registers) VALUES (?, ?, ?)",
+                    urlId, LocalDate.now(), new byte[2048]);
+        }
+
+        partitionManager.maintain();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_class WHERE relname = ?", Integer.class,
+                EXPIRED_PARTITION)).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT url_id FROM url_destinations", Long.class))
+                .containsExactly(live);
+        assertThat(jdbcTemplate.queryForList("SELECT url_id FROM url_visitor_sketches", Long.class))
+                .containsExactly(live);
+        assertThat(jdbcTemplate.queryForList("SELECT short_code FROM url_changes WHERE change_type = 'DELETE'",
+                String.class)).containsExactlyInAnyOrder("exp1", "exp2");
+        assertThat(jdbcTemplate.queryForMap("SELECT link_count, total_clicks FROM user_url_stats WHERE user_id = ?",
+                ownerId)).containsEntry("link_count", 1L).containsEntry("total_clicks", 70L);
+        assertThat(jdbcTemplate.queryForList("SELECT short_code FROM urls", String.class))
+                .containsExactly("live");
+    }
+
+    @Test
+    void hitUpdatesArePrunedToOnePartition() {
+        // Stored to the microsecond, carried by hits to the millisecond
+        Instant expireAt = Instant.now().plus(3, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MICROS);
+        long expiring = insertUrl("hit1", null, Timestamp.from(expireAt), Timestamp.from(Instant.now()), 0);
+        long permanent = insertUrl("hit2", null, null, Timestamp.from(Instant.now()), 0);
+        int partitions = (int) meterRegistry.get("urls.partitions").gauge().value();
+        assertThat(partitions).isGreaterThan(2);
+
+        Instant from = expireAt.truncatedTo(ChronoUnit.MILLIS);
+        assertThat(partitionsIn("EXPLAIN UPDATE urls SET hits = hits + 1 WHERE id = " + expiring
+                + " AND expire_at >= '" + from + "' AND expire_at < '" + from.plusMillis(1) + "'"))
+                .hasSize(1).doesNotContain("urls_default");
+        assertThat(partitionsIn("EXPLAIN UPDATE urls SET hits = hits + 1 WHERE short_code = 'hit2' "
+                + "AND expire_at IS NULL")).containsExactly("urls_default");
+        // Lookups by short code alone still probe every partition
+        assertThat(partitionsIn("EXPLAIN SELECT original_url FROM urls WHERE short_code = 'hit1'"))
+                .hasSize(partitions);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(urlRepository.addHits(expiring, from, 5, Instant.now())).isEqualTo(1);
+            assertThat(urlRepository.addHits(permanent, null, 7, Instant.now())).isEqualTo(1);
+            urlRepository.incrementHits("hit1", from, Instant.now());
+        });
+        assertThat(jdbcTemplate.queryForList("SELECT hits FROM urls WHERE id IN (?, ?) ORDER BY id", Long.class,
+                expiring, permanent)).containsExactly(6L, 7L);
+    }
+
+    @Test
+    void concurrentPromotionsLeaveOneHotRow() throws InterruptedException {
+        long id = insertUrl("cold1", null, null, Timestamp.from(Instant.now()), 3);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO urls_archive (id, short_code, original_url, created_at, hits, "
+                    + "archived_at) SELECT id, short_code, original_url, created_at, hits, now() FROM urls "
+                    + "WHERE id = ?", id);
+            jdbcTemplate.update("DELETE FROM urls WHERE id = ?", id);
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> promoters = new ArrayList<>();
+        List<Optional<Url>> results = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            Thread promoter = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                results.add(urlTieringService.promote("cold1"));
+            });
+            promoters.add(promoter);
+            promoter.start();
+        }
+        start.countDown();
+        for (Thread promoter : promoters) {
+            promoter.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        assertThat(results).hasSize(4).allMatch(Optional::isPresent);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM urls WHERE short_code = 'cold1'",
+                Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM urls_archive WHERE short_code = 'cold1'",
+                Integer.class)).isZero();
+    }
+
+    private Set<String> partitionsIn(String explain) {
+        Set<String> partitions = new TreeSet<>();
+        for (String line : jdbcTemplate.queryForList(explain, String.class)) {
+            Matcher matcher = PLAN_RELATION.matcher(line);
+            while (matcher.find()) {
+                partitions.add(matcher.group(1));
+            }
+        }
+        return partitions;
+    }
+
+    private long insertUrl(String shortCode, Long ownerId, Timestamp expireAt, Timestamp createdAt, long hits) {
+        return jdbcTemplate.queryForObject("INSERT INTO urls (short_code, original_url, created_by, created_at, "
+                + "expire_at, hits) VALUES (?, ?, ?, ?, ?, ?) RETURNING id", Long.class, shortCode,
+                "https://example.com/" + shortCode, ownerId, createdAt, expireAt, hits);
+    }
+}
@@ -0,0 +1,99 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com._cortex.url_management.dto.UrlSummary;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.model.User;
+import com._cortex.url_management.tracking.HitTracker;
+
+/**
+ * URL service behaviour against the whole application on the default (H2)
+ * configuration
+ */
+@SpringBootTest
+class UrlServiceTest {
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private HitTracker hitTracker;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void originalUrlsAreCappedInBytesNotCharacters() {
+        String ascii = "https://example.com/" + "a".repeat(UrlService.MAX_ORIGINAL_URL_BYTES - 20);
+        assertThat(urlService.createShortUrl(ascii, null, null).getOriginalUrl()).isEqualTo(ascii);
+
+        // Fewer than 2048 characters, but two bytes each in UTF-8
+        String accented = "https://example.com/" + "é".repeat(1100);
+        assertThatThrownBy(() -> urlService.createShortUrl(accented, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("2048 bytes");
+        assertThatThrownBy(() -> urlService.createCustomShortUrl(accented, "accented1", null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(urlService.isShortCodeAvailable("accented1")).isTrue();
+    }
+
+    @Test
+    void hitsAreCountedOnLinksWhoseExpiryHasSubMillisecondPrecision() {
+        Instant expireAt = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MICROS).plusNanos(123_000);
+        Url expiring = urlService.createShortUrl("https://example.com/expiring", null, expireAt);
+        Url permanent = urlService.createShortUrl("https://example.com/permanent", null, null);
+
+        urlService.findByShortCodeAndTrack(expiring.getShortCode(), "203.0.113.1", "test");
+        urlService.findByShortCodeAndTrack(expiring.getShortCode(), "203.0.113.1", "test");
+        urlService.findByShortCodeAndTrack(permanent.getShortCode(), "203.0.113.1", "test");
+        hitTracker.flushHits();
+
+        assertThat(storedHits(expiring.getId())).isEqualTo(2);
+        assertThat(storedHits(permanent.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void searchPagesThroughOnlyTheOwnersMatches() {
+        long suffix = System.nanoTime();
+        User owner = userService.createUser(new User(null, "search" + suffix, "search" + suffix + "@example.com",
+                "secret"));
+        Url first = urlService.createShortUrl("https://example.com/launch-2025", owner, null);
+        Url second = urlService.createShortUrl("https://blog.example.com/Launch-notes", owner, null);
+        urlService.createShortUrl("https://examples.com/launch", owner, null);
+        Url third = urlService.createShortUrl("https://example.com/launch-2026", owner, null);
+        urlService.createShortUrl("https://example.com/launch-other", null, null);
+
+        Page<UrlSummary> page = urlService.searchUserUrls(owner.getId(), "launch", "example.com",
+                PageRequest.of(0, 2));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(UrlSummary::id).containsExactly(third.getId(), second.getId());
+        assertThat(urlService.searchUserUrls(owner.getId(), "launch", "example.com", PageRequest.of(1, 2))
+                .getContent()).extracting(UrlSummary::id).containsExactly(first.getId());
+
+        // The index is kept current on create
+        Url fourth = urlService.createShortUrl("https://www.example.com/launch-party", owner, null);
+        assertThat(urlService.searchUserUrls(owner.getId(), null, "example.com", PageRequest.of(0, 1))
+                .getContent()).extracting(UrlSummary::id).containsExactly(fourth.getId());
+        assertThatThrownBy(() -> urlService.searchUserUrls(owner.getId(), " ", null, PageRequest.of(0, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long storedHits(long id) {
+        return jdbcTemplate.queryForObject("SELECT hits FROM urls WHERE id = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,116 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.model.Url;
+import com._cortex.url_management.model.User;
+import com._cortex.url_management.tracking.HitTracker;
+
+/**
+ * Idle links move to the archive and come back intact on their next visit;
+ * only the instance holding the job lock archives.
+ */
+@SpringBootTest(properties = { "urls.tiering.enabled=true", "urls.tiering.batch-size=2" })
+class UrlTieringServiceTest {
+
+    @Autowired
+    private UrlTieringService urlTieringService;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private HitTracker hitTracker;
+
+    @Autowired
+    private ClusterJobRunner clusterJobRunner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void idleLinksAreArchivedAndPromotedBackIntact() {
+        long suffix = System.nanoTime();
+        User owner = userService.createUser(new User(null, "tier" + suffix, "tier" + suffix + "@example.com", "secret"));
+        Url idle = urlService.createShortUrl("https://example.com/idle", owner, null);
+        Url idleGuest = urlService.createShortUrl("https://example.com/idle-guest", null, null);
+        Url idleToo = urlService.createShortUrl("https://example.com/idle-too", null, null);
+        Url fresh = urlService.createShortUrl("https://example.com/fresh", owner, null);
+        jdbcTemplate.update("UPDATE urls SET hits = 5 WHERE id = ?", idle.getId());
+        backdate(idle, idleGuest, idleToo);
+
+        // Three idle links in batches of two
+        assertThat(urlTieringService.archiveIdleUrls()).isGreaterThanOrEqualTo(3);
+
+        for (Url url : List.of(idle, idleGuest, idleToo)) {
+            assertThat(countIn("urls", url)).isZero();
+            assertThat(countIn("urls_archive", url)).isEqualTo(1);
+        }
+        assertThat(countIn("urls", fresh)).isEqualTo(1);
+
+        RedirectTarget target = urlService.findByShortCodeAndTrack(idle.getShortCode(), "203.0.113.1", "test")
+                .orElseThrow();
+        hitTracker.flushHits();
+
+        assertThat(target.id()).isEqualTo(idle.getId());
+        assertThat(target.createdById()).isEqualTo(owner.getId());
+        assertThat(countIn("urls_archive", idle)).isZero();
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT short_code, original_url, created_by, hits FROM urls WHERE id = ?", idle.getId());
+        assertThat(row).containsEntry("SHORT_CODE", idle.getShortCode())
+                .containsEntry("ORIGINAL_URL", "https://example.com/idle")
+                .containsEntry("CREATED_BY", owner.getId())
+                .containsEntry("HITS", 6L);
+        assertThat(countIn("urls_archive", idleGuest)).isEqualTo(1);
+    }
+
+    @Test
+    void onlyTheJobLeaderArchives() throws Exception {
+        Url idle = urlService.createShortUrl("https://example.com/idle-leader", null, null);
+        backdate(idle);
+
+        // Another instance holds the job while this one's schedule fires
+        CompletableFuture<Integer> follower = new CompletableFuture<>();
+        clusterJobRunner.runAsLeader("url-tiering-archive",
+                () -> CompletableFuture.supplyAsync(urlTieringService::archiveIdleUrls)
+                        .whenComplete((archived, error) -> follower.complete(archived))
+                        .join());
+
+        assertThat(follower.get(10, TimeUnit.SECONDS)).isZero();
+        assertThat(countIn("urls", idle)).isEqualTo(1);
+
+        assertThat(urlTieringService.archiveIdleUrls()).isGreaterThanOrEqualTo(1);
+        assertThat(countIn("urls", idle)).isZero();
+    }
+
+    private void backdate(Url... urls) {
+        Timestamp longAgo = Timestamp.from(Instant.now().minus(365, ChronoUnit.DAYS));
+        for (Url url : urls) {
+            jdbcTemplate.update("UPDATE urls SET created_at = ?, last_accessed_at = NULL WHERE id = ?", longAgo,
+                    url.getId());
+        }
+    }
+
+    private int countIn(String table, Url url) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id = ?", Integer.class,
+                url.getId());
+    }
+}
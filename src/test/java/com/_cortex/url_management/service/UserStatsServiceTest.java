@@ -0,0 +1,120 @@
+package com._cortex.url_management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com._cortex.url_management.dto.RedirectTarget;
+import com._cortex.url_management.dto.UserStatsResponse;
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.tracking.HitCount;
+import com._cortex.url_management.tracking.HitCountWriter;
+import com._cortex.url_management.tracking.HitTracker;
+import com._cortex.url_management.tracking.VisitorSketchService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Clicks reach the owner's row and hourly buckets in the same batch as the
+ * hits they belong to, so reconciling between redirects and their flush
+ * never counts a click twice.
+ */
+@DataJpaTest
+@Import({ UserStatsService.class, HitCountWriter.class, HitTracker.class, VisitorSketchService.class,
+        ClusterJobRunner.class, SimpleMeterRegistry.class })
+class UserStatsServiceTest {
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private HitTracker hitTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private long ownerId;
+    private RedirectTarget target;
+
+    @BeforeEach
+    void createLink() {
+        jdbcTemplate.update("INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)",
+                "owner", "owner@example.com", "x".repeat(60));
+        ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'owner'", Long.class);
+        jdbcTemplate.update("INSERT INTO user_url_stats (user_id, link_count, total_clicks) VALUES (?, 1, 0)",
+                ownerId);
+        jdbcTemplate.update("INSERT INTO urls (short_code, original_url, created_by, created_at, hits) "
+                + "VALUES ('stats1', 'https://example.com/', ?, CURRENT_TIMESTAMP, 0)", ownerId);
+        long urlId = jdbcTemplate.queryForObject("SELECT id FROM urls WHERE short_code = 'stats1'", Long.class);
+        target = new RedirectTarget(urlId, "stats1", "https://example.com/", ownerId, null, null);
+    }
+
+    @Test
+    void flushedHitsAddToRowAndBuckets() {
+        Instant now = Instant.now();
+        userStatsService.recordClicks(Map.of(target.id(), new HitCount(3, now, null)));
+        userStatsService.recordClicks(Map.of(target.id(), new HitCount(1, now.minus(30, ChronoUnit.HOURS), null)));
+
+        assertThat(storedTotalClicks()).isEqualTo(4);
+        assertThat(storedBucketClicks()).isEqualTo(4);
+        UserStatsResponse stats = userStatsService.getStats(ownerId);
+        assertThat(stats.getTotalClicks()).isEqualTo(4);
+        assertThat(stats.getClicksLast24h()).isEqualTo(3);
+    }
+
+    @Test
+    void reconcilingBeforeAFlushDoesNotCountClicksTwice() {
+        Instant now = Instant.now();
+        hitTracker.recordHit(target, now, "203.0.113.1", "test");
+        hitTracker.recordHit(target, now, "203.0.113.2", "test");
+        hitTracker.flushHits();
+        hitTracker.recordHit(target, now, "203.0.113.3", "test");
+
+        // One hit is still in memory: neither its counter nor its click is written yet
+        assertThat(storedHits()).isEqualTo(2);
+        assertThat(storedTotalClicks()).isEqualTo(2);
+        userStatsService.reconcile();
+        assertThat(storedTotalClicks()).isEqualTo(2);
+
+        hitTracker.flushHits();
+        assertThat(storedHits()).isEqualTo(3);
+        assertThat(storedTotalClicks()).isEqualTo(3);
+        // Each reconcile runs in a transaction of its own outside this test
+        entityManager.clear();
+        userStatsService.reconcile();
+        assertThat(storedTotalClicks()).isEqualTo(3);
+        assertThat(userStatsService.getStats(ownerId).getClicksLast24h()).isEqualTo(3);
+        assertThat(meterRegistry.get("users.stats.drift").counter().count()).isZero();
+    }
+
+    private long storedHits() {
+        return jdbcTemplate.queryForObject("SELECT hits FROM urls WHERE id = ?", Long.class, target.id());
+    }
+
+    private long storedTotalClicks() {
+        return jdbcTemplate.queryForObject("SELECT total_clicks FROM user_url_stats WHERE user_id = ?", Long.class,
+                ownerId);
+    }
+
+    private long storedBucketClicks() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(clicks), 0) FROM user_click_buckets WHERE user_id = ?", Long.class, ownerId);
+    }
+}
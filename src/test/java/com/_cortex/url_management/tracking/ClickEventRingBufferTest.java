@@ -0,0 +1,172 @@
+package com._cortex.url_management.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com._cortex.url_management.tracking.ClickEventRingBuffer.OverflowPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Events reach the processor in publish order, overflow follows the
+ * configured policy, stopping drains what was published, and a failed hit
+ * write is retried even when no further clicks arrive.
+ */
+class ClickEventRingBufferTest {
+
+    private static final long NO_EXPIRY = HitCount.NO_EXPIRY;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> consumed = Collections.synchronizedList(new ArrayList<>());
+    private ClickEventRingBuffer ringBuffer;
+
+    @AfterEach
+    void stopConsumer() {
+        if (ringBuffer != null && ringBuffer.isRunning()) {
+            ringBuffer.stop();
+        }
+    }
+
+    @Test
+    void eventsAreConsumedInPublishOrder() throws Exception {
+        ringBuffer = ringBuffer(64, OverflowPolicy.BLOCK, 1000, recordingProcessor());
+        ringBuffer.start();
+
+        CompletableFuture<?> producer = CompletableFuture.runAsync(() -> {
+            for (long urlId = 1; urlId <= 10_000; urlId++) {
+                assertThat(publish(urlId)).isTrue();
+            }
+        });
+        producer.get(30, TimeUnit.SECONDS);
+        ringBuffer.stop();
+
+        assertThat(consumed).hasSize(10_000);
+        for (int i = 0; i < consumed.size(); i++) {
+            assertThat(consumed.get(i)).isEqualTo(i + 1L);
+        }
+    }
+
+    @Test
+    void dropPolicyDiscardsEventsWhenFull() {
+        ringBuffer = ringBuffer(4, OverflowPolicy.DROP, 0, recordingProcessor());
+
+        for (long urlId = 1; urlId <= 4; urlId++) {
+            assertThat(publish(urlId)).isTrue();
+        }
+        assertThat(publish(5)).isFalse();
+
+        assertThat(ringBuffer.lag()).isEqualTo(4);
+        assertThat(meterRegistry.get("clicks.ring.dropped").functionCounter().count()).isEqualTo(1);
+
+        ringBuffer.start();
+        ringBuffer.stop();
+        assertThat(consumed).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void blockPolicyWaitsForTheConsumerThenDrops() {
+        ringBuffer = ringBuffer(4, OverflowPolicy.BLOCK, 50, recordingProcessor());
+        for (long urlId = 1; urlId <= 4; urlId++) {
+            publish(urlId);
+        }
+
+        long started = System.nanoTime();
+        assertThat(publish(5)).isFalse();
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(meterRegistry.get("clicks.ring.dropped").functionCounter().count()).isEqualTo(1);
+
+        CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS).execute(ringBuffer::start);
+        assertThat(publish(6)).isTrue();
+        ringBuffer.stop();
+        assertThat(consumed).containsExactly(1L, 2L, 3L, 4L, 6L);
+    }
+
+    @Test
+    void stoppingDrainsPublishedEvents() {
+        ClickBatchProcessor processor = mock(ClickBatchProcessor.class);
+        doAnswer(invocation -> {
+            Thread.sleep(1);
+            return consumed.add(invocation.getArgument(0));
+        }).when(processor).onEvent(anyLong(), anyLong(), anyLong(), any(), any());
+        ringBuffer = ringBuffer(256, OverflowPolicy.DROP, 0, processor);
+        ringBuffer.start();
+
+        for (long urlId = 1; urlId <= 200; urlId++) {
+            assertThat(publish(urlId)).isTrue();
+        }
+        ringBuffer.stop();
+
+        assertThat(consumed).hasSize(200);
+        assertThat(ringBuffer.lag()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedWriteIsRetriedWithoutFurtherClicks() {
+        HitCountWriter hitCountWriter = mock(HitCountWriter.class);
+        doThrow(new IllegalStateException("database down")).doNothing().when(hitCountWriter).apply(any());
+        ObjectProvider<ClickJournal> noJournal = mock(ObjectProvider.class);
+        ClickBatchProcessor processor = new ClickBatchProcessor(hitCountWriter, mock(VisitorSketchService.class),
+                noJournal);
+        ringBuffer = ringBuffer(16, OverflowPolicy.DROP, 0, processor);
+        ringBuffer.start();
+
+        publish(1);
+
+        verify(hitCountWriter, timeout(5000).times(2)).apply(any());
+        assertThat(processor.pendingHitCount()).isZero();
+    }
+
+    @Test
+    void stoppingMakesALastWriteAttempt() {
+        ClickBatchProcessor processor = mock(ClickBatchProcessor.class);
+        AtomicInteger pending = new AtomicInteger(1);
+        when(processor.pendingHitCount()).thenAnswer(invocation -> pending.get());
+        doAnswer(invocation -> {
+            pending.set(0);
+            return null;
+        }).when(processor).endOfBatch();
+        // A retry interval longer than the test, so only stopping writes the pending hits
+        ringBuffer = new ClickEventRingBuffer(16, 16, OverflowPolicy.DROP, 0, 60_000, processor, meterRegistry);
+        ringBuffer.start();
+        ringBuffer.stop();
+
+        verify(processor, times(1)).endOfBatch();
+    }
+
+    private boolean publish(long urlId) {
+        return ringBuffer.publish(urlId, NO_EXPIRY, System.currentTimeMillis(), "203.0.113.7", "test-agent");
+    }
+
+    private ClickBatchProcessor recordingProcessor() {
+        ClickBatchProcessor processor = mock(ClickBatchProcessor.class);
+        doAnswer(invocation -> consumed.add(invocation.getArgument(0))).when(processor)
+                .onEvent(anyLong(), anyLong(), anyLong(), anyString(), anyString());
+        return processor;
+    }
+
+    private ClickEventRingBuffer ringBuffer(int capacity, OverflowPolicy policy, long blockTimeoutMillis,
+            ClickBatchProcessor processor) {
+        return new ClickEventRingBuffer(capacity, 16, policy, blockTimeoutMillis, 50, processor, meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com._cortex.url_management.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records survive a crash that happens before the checkpoint and are applied
+ * exactly once afterwards; checkpointed records are never applied again.
+ */
+class ClickJournalTest {
+
+    private static final int RECORDS_PER_SEGMENT = 4;
+    private static final Instant EXPIRE_AT = Instant.parse("2027-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private final List<Map<Long, HitCount>> applied = new ArrayList<>();
+
+    @Test
+    void recordsWrittenBeforeACrashAreReplayedExactlyOnce() throws IOException {
+        ClickJournal crashed = open(recordingWriter());
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < 3; i++) {
+            crashed.append(1, EXPIRE_AT, now.plusSeconds(i));
+        }
+        for (int i = 0; i < 3; i++) {
+            crashed.append(2, null, now);
+        }
+        // No applyPending: the process dies with six records past the checkpoint
+
+        ClickJournal restarted = open(recordingWriter());
+        assertThat(restarted.applyPending()).isEqualTo(6);
+        assertThat(restarted.applyPending()).isZero();
+
+        assertThat(applied).hasSize(1);
+        assertThat(applied.get(0)).containsOnlyKeys(1L, 2L);
+        assertThat(applied.get(0).get(1L)).isEqualTo(new HitCount(3, now.plusSeconds(2), EXPIRE_AT));
+        assertThat(applied.get(0).get(2L)).isEqualTo(new HitCount(3, now, null));
+
+        assertThat(open(recordingWriter()).applyPending()).isZero();
+        assertThat(applied).hasSize(1);
+    }
+
+    @Test
+    void onlyRecordsAfterTheCheckpointAreReplayed() throws IOException {
+        ClickJournal journal = open(recordingWriter());
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+        journal.append(1, null, now);
+        journal.append(1, null, now);
+        assertThat(journal.applyPending()).isEqualTo(2);
+
+        journal.append(1, null, now);
+        journal.append(3, null, now);
+        journal.append(3, null, now);
+
+        ClickJournal restarted = open(recordingWriter());
+        assertThat(restarted.applyPending()).isEqualTo(3);
+
+        assertThat(applied).hasSize(2);
+        assertThat(applied.get(1)).isEqualTo(Map.of(1L, new HitCount(1, now, null), 3L, new HitCount(2, now, null)));
+    }
+
+    @Test
+    void aFailedApplyKeepsTheCheckpoint() throws IOException {
+        HitCountWriter failing = mock(HitCountWriter.class);
+        doThrow(new IllegalStateException("database down")).when(failing).apply(any());
+        ClickJournal journal = open(failing);
+        journal.append(1, null, Instant.now());
+
+        assertThat(journal.applyPending()).isZero();
+
+        HitCountWriter writer = recordingWriter();
+        assertThat(open(writer).applyPending()).isEqualTo(1);
+        assertThat(applied).hasSize(1);
+    }
+
+    @Test
+    void emptyJournalAppliesNothing() throws IOException {
+        HitCountWriter writer = mock(HitCountWriter.class);
+
+        assertThat(open(writer).applyPending()).isZero();
+        verify(writer, never()).apply(any());
+    }
+
+    private ClickJournal open(HitCountWriter writer) throws IOException {
+        return new ClickJournal(directory.toString(), RECORDS_PER_SEGMENT, 1000, writer);
+    }
+
+    private HitCountWriter recordingWriter() {
+        HitCountWriter writer = mock(HitCountWriter.class);
+        doAnswer(invocation -> applied.add(new HashMap<>(invocation.getArgument(0)))).when(writer).apply(any());
+        return writer;
+    }
+}
@@ -0,0 +1,83 @@
+package com._cortex.url_management.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com._cortex.url_management.jobs.ClusterJobRunner;
+import com._cortex.url_management.service.UserStatsService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Hits flushed after their URL was archived land on the archived row and
+ * still count towards the owner's stats.
+ */
+@DataJpaTest
+@Import({ HitCountWriter.class, UserStatsService.class, ClusterJobRunner.class, SimpleMeterRegistry.class })
+class HitCountWriterTest {
+
+    @Autowired
+    private HitCountWriter hitCountWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long ownerId;
+
+    @BeforeEach
+    void createOwner() {
+        jdbcTemplate.update("INSERT INTO users (username, email, password_hash) VALUES (?, ?, ?)",
+                "owner", "owner@example.com", "x".repeat(60));
+        ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'owner'", Long.class);
+        jdbcTemplate.update("INSERT INTO user_url_stats (user_id, link_count, total_clicks) VALUES (?, 2, 0)",
+                ownerId);
+    }
+
+    @Test
+    void hitsOfHotAndArchivedUrlsAreBothApplied() {
+        long hot = insertUrl("hot1");
+        long archived = insertUrl("cold1");
+        jdbcTemplate.update("INSERT INTO urls_archive (id, short_code, original_url, created_by, created_at, hits, "
+                + "archived_at) SELECT id, short_code, original_url, created_by, created_at, hits, "
+                + "CURRENT_TIMESTAMP FROM urls WHERE id = ?", archived);
+        jdbcTemplate.update("DELETE FROM urls WHERE id = ?", archived);
+
+        Instant accessTime = Instant.parse("2026-01-01T00:00:00Z");
+        hitCountWriter.apply(Map.of(
+                hot, new HitCount(2, accessTime, null),
+                archived, new HitCount(3, accessTime, null)));
+        hitCountWriter.apply(Map.of(archived, new HitCount(1, accessTime.plusSeconds(1), null)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT hits FROM urls WHERE id = ?", Long.class, hot))
+                .isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT hits FROM urls_archive WHERE id = ?", Long.class, archived))
+                .isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_accessed_at FROM urls_archive WHERE id = ?",
+                Instant.class, archived)).isEqualTo(accessTime.plusSeconds(1));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT total_clicks FROM user_url_stats WHERE user_id = ?",
+                Long.class, ownerId)).isEqualTo(6);
+    }
+
+    @Test
+    void hitsOfDeletedUrlsAreDropped() {
+        hitCountWriter.apply(Map.of(Long.MAX_VALUE, new HitCount(1, Instant.now(), null)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls_archive", Long.class)).isZero();
+    }
+
+    private long insertUrl(String shortCode) {
+        jdbcTemplate.update("INSERT INTO urls (short_code, original_url, created_by, created_at, hits) "
+                + "VALUES (?, ?, ?, CURRENT_TIMESTAMP, 0)", shortCode, "https://example.com/" + shortCode, ownerId);
+        return jdbcTemplate.queryForObject("SELECT id FROM urls WHERE short_code = ?", Long.class, shortCode);
+    }
+}
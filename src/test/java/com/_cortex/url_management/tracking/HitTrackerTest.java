@@ -0,0 +1,56 @@
+package com._cortex.url_management.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com._cortex.url_management.dto.RedirectTarget;
+
+/**
+ * Without journal or ring buffer, hits are counted per URL in memory and a
+ * failed flush keeps them for the next one.
+ */
+class HitTrackerTest {
+
+    private static final Instant EXPIRE_AT = Instant.parse("2027-01-01T00:00:00.123456Z");
+
+    private final HitCountWriter hitCountWriter = mock(HitCountWriter.class);
+    private final List<Map<Long, HitCount>> written = new ArrayList<>();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushKeepsTheHitsForTheNextOne() {
+        doThrow(new IllegalStateException("database down"))
+                .doAnswer(invocation -> written.add(new HashMap<>(invocation.getArgument(0))))
+                .when(hitCountWriter).apply(any());
+        HitTracker hitTracker = new HitTracker(mock(VisitorSketchService.class), hitCountWriter,
+                mock(ObjectProvider.class), mock(ObjectProvider.class));
+        RedirectTarget expiring = new RedirectTarget(1L, "exp1", "https://example.com/", 7L, EXPIRE_AT, null);
+        RedirectTarget permanent = new RedirectTarget(2L, "perm1", "https://example.com/", null, null, null);
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        hitTracker.recordHit(expiring, now, "203.0.113.1", "test");
+        hitTracker.recordHit(permanent, now, "203.0.113.1", "test");
+        hitTracker.flushHits();
+        assertThat(written).isEmpty();
+
+        hitTracker.recordHit(expiring, now.plusSeconds(5), "203.0.113.1", "test");
+        hitTracker.flushHits();
+        hitTracker.flushHits();
+
+        assertThat(written).containsExactly(Map.of(
+                1L, new HitCount(2, now.plusSeconds(5), EXPIRE_AT),
+                2L, new HitCount(1, now, null)));
+    }
+}
@@ -0,0 +1,85 @@
+package com._cortex.url_management.tracking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com._cortex.url_management.model.UrlVisitorSketch;
+import com._cortex.url_management.repository.UrlVisitorSketchRepository;
+
+/**
+ * A sketch whose flush keeps conflicting with other nodes stays pending for
+ * the next flush instead of being dropped.
+ */
+class VisitorSketchServiceTest {
+
+    private static final long URL_ID = 42L;
+
+    private final UrlVisitorSketchRepository sketchRepository = mock(UrlVisitorSketchRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final VisitorSketchService service = new VisitorSketchService(sketchRepository, transactionTemplate,
+            true, 90);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void runTransactionsInline() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Consumer.class).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(sketchRepository.findByUrlIdAndBucketDate(anyLong(), any())).thenReturn(Optional.empty());
+        when(sketchRepository.findByUrlIdAndBucketDateGreaterThanEqual(anyLong(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void sketchIsKeptAfterRepeatedConflicts() {
+        ObjectOptimisticLockingFailureException conflict =
+                new ObjectOptimisticLockingFailureException(UrlVisitorSketch.class, URL_ID);
+        when(sketchRepository.saveAndFlush(any()))
+                .thenThrow(conflict, conflict, conflict)
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        for (long visitor = 1; visitor <= 3; visitor++) {
+            service.offer(URL_ID, visitor * 0x9E3779B97F4A7C15L);
+        }
+
+        service.flush();
+        assertThat(service.estimateUniqueVisitors(URL_ID)).isEqualTo(3);
+
+        service.flush();
+        ArgumentCaptor<UrlVisitorSketch> saved = ArgumentCaptor.forClass(UrlVisitorSketch.class);
+        verify(sketchRepository, times(4)).saveAndFlush(saved.capture());
+        assertThat(HyperLogLog.fromBytes(saved.getValue().getRegisters()).estimate()).isEqualTo(3);
+        assertThat(service.estimateUniqueVisitors(URL_ID)).isZero();
+    }
+
+    @Test
+    void sketchIsKeptAfterAFailure() {
+        when(sketchRepository.saveAndFlush(any()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        service.offer(URL_ID, 0x9E3779B97F4A7C15L);
+
+        service.flush();
+        assertThat(service.estimateUniqueVisitors(URL_ID)).isEqualTo(1);
+
+        service.flush();
+        verify(sketchRepository, times(2)).saveAndFlush(any());
+        assertThat(service.estimateUniqueVisitors(URL_ID)).isZero();
+    }
+}
@@ -0,0 +1,124 @@
+package com._cortex.url_management.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CompactUrlCodecTest {
+
+    @Test
+    void roundTripsUrls() {
+        CompactUrlCodec codec = new CompactUrlCodec(100);
+        List<String> urls = List.of(
+                "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+                "https://docs.example.com/docs/index.html?utm_source=news&utm_medium=email&utm_campaign=c1",
+                "https://example.com",
+                "http://example.com:8080/search?q=caf%C3%A9#top",
+                "https://example.org/ünïcödé/pfad",
+                "https://example.com/tab\there",
+                "mailto:someone@example.com");
+
+        for (String url : urls) {
+            assertThat(codec.decode(codec.encode(url))).isEqualTo(url);
+        }
+        assertThat(codec.prefixCount()).isEqualTo(5);
+    }
+
+    @Test
+    void internsHostsAcrossChunks() {
+        CompactUrlCodec codec = new CompactUrlCodec(1 << 16);
+        List<byte[]> encoded = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            encoded.add(codec.encode("https://host" + i + ".example.com/p/" + i));
+        }
+
+        assertThat(codec.prefixCount()).isEqualTo(5000);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(codec.decode(encoded.get(i))).isEqualTo("https://host" + i + ".example.com/p/" + i);
+        }
+        // The same host again reuses its ID
+        assertThat(codec.encode("https://host42.example.com/x")).hasSizeLessThan(5);
+    }
+
+    @Test
+    void hostsPastTheLimitAreStoredInline() {
+        CompactUrlCodec codec = new CompactUrlCodec(2);
+        byte[] first = codec.encode("https://a.example.com/1");
+        codec.encode("https://b.example.com/2");
+        byte[] inline = codec.encode("https://c.example.com/3");
+
+        assertThat(codec.prefixCount()).isEqualTo(2);
+        assertThat(codec.decode(first)).isEqualTo("https://a.example.com/1");
+        assertThat(codec.decode(inline)).isEqualTo("https://c.example.com/3");
+    }
+
+    @Test
+    void concurrentEncodersShareOneIdPerHost() throws InterruptedException {
+        CompactUrlCodec codec = new CompactUrlCodec(1 << 16);
+        int threads = 8;
+        int hosts = 3000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<List<byte[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<byte[]> encoded = new ArrayList<>();
+            results.add(encoded);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < hosts; i++) {
+                    encoded.add(codec.encode("https://h" + i + ".example.net/" + i));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+            assertThat(worker.isAlive()).isFalse();
+        }
+
+        assertThat(codec.prefixCount()).isEqualTo(hosts);
+        for (List<byte[]> encoded : results) {
+            assertThat(encoded).hasSize(hosts);
+            for (int i = 0; i < hosts; i++) {
+                assertThat(encoded.get(i)).isEqualTo(results.get(0).get(i));
+                assertThat(codec.decode(encoded.get(i))).isEqualTo("https://h" + i + ".example.net/" + i);
+            }
+        }
+    }
+
+    @Test
+    void rejectsUrlsFromAnotherCodec() {
+        CompactUrlCodec other = new CompactUrlCodec(100);
+        other.encode("https://a.example.com/");
+        byte[] foreign = other.encode("https://b.example.com/");
+
+        assertThatThrownBy(() -> new CompactUrlCodec(100).decode(foreign))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void samplesDecodeTime() {
+        CompactUrlCodec codec = new CompactUrlCodec(100);
+        assertThat(codec.meanDecodeNanos()).isZero();
+
+        byte[] encoded = codec.encode("https://docs.example.com/docs/guide.html");
+        for (int i = 0; i < 100_000; i++) {
+            codec.decode(encoded);
+        }
+
+        assertThat(codec.meanDecodeNanos()).isPositive();
+    }
+}
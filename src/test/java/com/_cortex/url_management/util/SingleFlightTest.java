@@ -0,0 +1,165 @@
+package com._cortex.url_management.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private static final int WAITERS = 16;
+
+    /**
+     * Start the loading caller, then {@link #WAITERS} more callers for the
+     * same key, and return once every one of them is parked on the call in
+     * flight
+     */
+    private static List<Thread> startCallers(SingleFlight<String, String> singleFlight, Supplier<String> loader,
+            CountDownLatch loading, List<Object> results) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        Runnable caller = () -> {
+            Object result;
+            try {
+                result = singleFlight.execute("key", loader);
+            } catch (RuntimeException e) {
+                result = e;
+            }
+            synchronized (results) {
+                results.add(result);
+            }
+        };
+
+        Thread first = new Thread(caller);
+        threads.add(first);
+        first.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < WAITERS; i++) {
+            Thread waiter = new Thread(caller);
+            threads.add(waiter);
+            waiter.start();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread waiter : threads.subList(1, threads.size())) {
+            while (waiter.getState() != Thread.State.WAITING) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.onSpinWait();
+            }
+        }
+        return threads;
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(5000);
+            assertThat(thread.isAlive()).isFalse();
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws InterruptedException {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String loaded = new String("value");
+        List<Object> results = new ArrayList<>();
+
+        List<Thread> threads = startCallers(singleFlight, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return loaded;
+        }, loading, results);
+        assertThat(singleFlight.inFlight()).isEqualTo(1);
+        release.countDown();
+        joinAll(threads);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(results).hasSize(WAITERS + 1);
+        List<SingleFlight.Outcome<?>> outcomes = results.stream()
+                .<SingleFlight.Outcome<?>>map(result -> (SingleFlight.Outcome<?>) result)
+                .toList();
+        assertThat(outcomes).allSatisfy(outcome -> assertThat(outcome.value()).isSameAs(loaded));
+        assertThat(outcomes.stream().filter(SingleFlight.Outcome::shared).count()).isEqualTo((long) WAITERS);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void loaderExceptionReachesEveryCaller() throws InterruptedException {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+        List<Object> results = new ArrayList<>();
+
+        List<Thread> threads = startCallers(singleFlight, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            throw failure;
+        }, loading, results);
+        release.countDown();
+        joinAll(threads);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(results).hasSize(WAITERS + 1).allSatisfy(result -> assertThat(result).isSameAs(failure));
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void keyIsReleasedSoTheNextCallLoadsAgain() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(100);
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("key", () -> "v" + loads.incrementAndGet());
+        SingleFlight.Outcome<String> second = singleFlight.execute("key", () -> "v" + loads.incrementAndGet());
+
+        assertThat(second.value()).isEqualTo("v2");
+        assertThat(second.shared()).isFalse();
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void callsBeyondTheKeyBoundLoadDirectly() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(1);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> singleFlight.execute("held", () -> {
+            loading.countDown();
+            await(release);
+            return "held";
+        }));
+        holder.start();
+
+        try {
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            SingleFlight.Outcome<String> direct = singleFlight.execute("other", () -> "direct");
+
+            assertThat(direct.value()).isEqualTo("direct");
+            assertThat(singleFlight.inFlight()).isEqualTo(1);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("loader was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com._cortex.url_management.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class StripedAccumulatorTest {
+
+    private static StripedAccumulator<Integer, long[]> counters() {
+        return new StripedAccumulator<>(key -> new long[1], (into, from) -> into[0] += from[0]);
+    }
+
+    @Test
+    void drainTakesEverythingAndStartsANewBatch() {
+        StripedAccumulator<Integer, long[]> counters = counters();
+        counters.update(1, counter -> counter[0] += 2);
+        counters.update(1, counter -> counter[0]++);
+        counters.update(2, counter -> counter[0]++);
+
+        Map<Integer, long[]> batch = counters.drain();
+
+        assertThat(batch.get(1)[0]).isEqualTo(3);
+        assertThat(batch.get(2)[0]).isEqualTo(1);
+        assertThat(counters.drain().isEmpty()).isTrue();
+    }
+
+    @Test
+    void requeuedValuesJoinTheNextBatch() {
+        StripedAccumulator<Integer, long[]> counters = counters();
+        counters.update(7, counter -> counter[0] += 5);
+        Map<Integer, long[]> failed = counters.drain();
+        counters.update(7, counter -> counter[0]++);
+
+        counters.requeue(7, failed.get(7));
+
+        assertThat(counters.drain().get(7)[0]).isEqualTo(6);
+    }
+
+    @Test
+    void pendingValuesCanBeReadAndRemoved() {
+        StripedAccumulator<Integer, long[]> counters = counters();
+        for (int key = 0; key < 10; key++) {
+            int value = key;
+            counters.update(key, counter -> counter[0] = value);
+        }
+
+        AtomicLong evenSum = new AtomicLong();
+        counters.forEachPending(key -> key % 2 == 0, (key, counter) -> evenSum.addAndGet(counter[0]));
+        counters.removeIf(key -> key >= 5);
+
+        assertThat(evenSum.get()).isEqualTo(0 + 2 + 4 + 6 + 8);
+        assertThat(counters.drain().keySet()).containsExactlyInAnyOrder(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void noUpdateIsLostWhileDrainsRace() throws Exception {
+        StripedAccumulator<Integer, long[]> counters = counters();
+        int threads = 8;
+        int updatesPerThread = 200_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < updatesPerThread; i++) {
+                    counters.update(i % 4, counter -> counter[0]++);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        AtomicLong drained = new AtomicLong();
+        Thread flusher = new Thread(() -> {
+            while (writing.get()) {
+                counters.drain().values().forEach(counter -> drained.addAndGet(counter[0]));
+            }
+        });
+        flusher.start();
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        flusher.join();
+        counters.drain().values().forEach(counter -> drained.addAndGet(counter[0]));
+
+        assertThat(drained.get()).isEqualTo((long) threads * updatesPerThread);
+    }
+}
@@ -0,0 +1,82 @@
+package com._cortex.url_management.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+    @Test
+    void substringSearchIsCaseInsensitiveAndNewestFirst() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "https://example.com/Summer-Sale");
+        index.add(2, "https://shop.example.org/summer-sale?ref=mail");
+        index.add(3, "https://example.com/winter");
+
+        assertThat(index.search("SUMMER-sale", null)).containsExactly(2L, 1L);
+        assertThat(index.search("mer-sal", null)).containsExactly(2L, 1L);
+        assertThat(index.search("autumn", null)).isEmpty();
+        assertThatThrownBy(() -> index.search("ab", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void domainSearchCoversSubdomainsButNotLookalikes() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1, "https://example.com/a");
+        index.add(2, "https://www.example.com/b");
+        index.add(3, "https://a.b.example.com/c");
+        index.add(4, "https://examples.com/d");
+        index.add(5, "https://notexample.com/e");
+        index.add(6, "https://example.com.evil.io/f");
+
+        assertThat(index.search(null, "example.com")).containsExactly(3L, 2L, 1L);
+        assertThat(index.search(null, "EXAMPLE.com")).containsExactly(3L, 2L, 1L);
+        assertThat(index.search(null, "b.example.com")).containsExactly(3L);
+        assertThat(index.search("com/b", "example.com")).containsExactly(2L);
+        assertThat(index.search(null, "example.org")).isEmpty();
+    }
+
+    @Test
+    void removedUrlsAreNotFoundAfterCompaction() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 1; id <= 200; id++) {
+            index.add(id, "https://host" + (id % 10) + ".example.com/page-" + id);
+        }
+        for (long id = 1; id <= 150; id++) {
+            assertThat(index.remove(id)).isTrue();
+        }
+
+        assertThat(index.size()).isEqualTo(50);
+        assertThat(index.search("page-19", null)).containsExactly(199L, 198L, 197L, 196L, 195L, 194L, 193L, 192L,
+                191L, 190L);
+        assertThat(index.search("page-15", null)).containsExactly(159L, 158L, 157L, 156L, 155L, 154L, 153L, 152L,
+                151L);
+        assertThat(index.search(null, "host3.example.com")).containsExactly(193L, 183L, 173L, 163L, 153L);
+    }
+
+    @Test
+    void searchWorkDependsOnTheAnswerNotTheCollectionSize() {
+        int small = searchWork(1_000);
+        int large = searchWork(100_000);
+
+        // Three matches each time: the work stays the same while the collection grows 100 times
+        assertThat(large).isEqualTo(small);
+    }
+
+    private static int searchWork(int collectionSize) {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < collectionSize; i++) {
+            // Every URL on a host of its own, so a scan over hosts would grow with the collection
+            index.add(i, "https://site" + i + ".net/item/" + i);
+        }
+        index.add(collectionSize, "https://example.com/launch");
+        index.add(collectionSize + 1, "https://blog.example.com/launch-notes");
+        index.add(collectionSize + 2, "https://example.com/pricing");
+
+        assertThat(index.search(null, "example.com")).hasSize(3);
+        int domainWork = index.lastSearchWork();
+        assertThat(index.search("launch", "example.com")).hasSize(2);
+        return domainWork + index.lastSearchWork();
+    }
+}
@@ -0,0 +1,89 @@
+package com._cortex.url_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com._cortex.url_management.web.AdaptiveConcurrencyLimit.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private static AdaptiveConcurrencyLimit limit() {
+        return new AdaptiveConcurrencyLimit(20, 4, 200, 0.7, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Admit and release a request while {@code concurrent} others are in
+     * flight, so the limit sees itself in use
+     */
+    private static void complete(AdaptiveConcurrencyLimit limit, Priority priority, long rttNanos, int concurrent) {
+        int admitted = 0;
+        for (int i = 0; i < concurrent; i++) {
+            if (limit.tryAcquire(priority)) {
+                admitted++;
+            }
+        }
+        for (int i = 0; i < admitted; i++) {
+            limit.release(priority, rttNanos);
+        }
+    }
+
+    @Test
+    void slowListingsDoNotShrinkTheRedirectLimit() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        for (int i = 0; i < 200; i++) {
+            complete(limit, Priority.REDIRECT, 2 * MILLIS, 10);
+            // Listings take far longer than redirects, and a slow client stretches them further
+            complete(limit, Priority.STANDARD, (i % 2 == 0 ? 50 : 400) * MILLIS, 10);
+        }
+
+        assertThat(limit.getLimit(Priority.REDIRECT)).isGreaterThanOrEqualTo(20);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void inflatedRedirectLatencyShrinksOnlyTheRedirectLimit() {
+        AdaptiveConcurrencyLimit limit = limit();
+        complete(limit, Priority.REDIRECT, 2 * MILLIS, 15);
+        complete(limit, Priority.STANDARD, 50 * MILLIS, 10);
+
+        for (int i = 0; i < 50; i++) {
+            complete(limit, Priority.REDIRECT, 20 * MILLIS, 15);
+        }
+
+        assertThat(limit.getLimit(Priority.REDIRECT)).isLessThan(20);
+        assertThat(limit.getLimit(Priority.STANDARD)).isEqualTo(20);
+    }
+
+    @Test
+    void standardRequestsLeaveHeadroomForRedirects() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        int standard = 0;
+        while (limit.tryAcquire(Priority.STANDARD)) {
+            standard++;
+        }
+        int redirects = 0;
+        while (limit.tryAcquire(Priority.REDIRECT)) {
+            redirects++;
+        }
+
+        assertThat(standard).isEqualTo(14);
+        assertThat(redirects).isEqualTo(6);
+    }
+
+    @Test
+    void maxLimitCapsEveryPriority() {
+        AdaptiveConcurrencyLimit limit = limit();
+
+        limit.setMaxLimit(8);
+
+        assertThat(limit.getLimit(Priority.REDIRECT)).isEqualTo(8);
+        assertThat(limit.getLimit(Priority.STANDARD)).isEqualTo(8);
+    }
+}
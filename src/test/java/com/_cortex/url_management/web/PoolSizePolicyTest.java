@@ -0,0 +1,144 @@
+package com._cortex.url_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives {@link PoolSizePolicy} with a fluid queueing model of the pool and
+ * the database, and checks that the size settles where queueing theory says
+ * it should.
+ * <p>
+ * The model: borrowers arrive at {@code lambda} per second and hold a
+ * connection for the database's service time. The database serves
+ * {@code capacity} queries in parallel at {@code serviceMillis} each; beyond
+ * that, queries queue inside it and hold time grows proportionally. Busy
+ * connections are {@code min(pool, lambda * holdTime)} (Little's law), and
+ * borrowers wait whenever the offered load exceeds the pool.
+ */
+class PoolSizePolicyTest {
+
+    private static final int MIN_SIZE = 2;
+    private static final int MAX_SIZE = 60;
+    private static final double TARGET_UTILIZATION = 0.7;
+    private static final int INTERVALS = 40;
+    private static final int SETTLED = 10;
+
+    private record Step(int size, double holdMillis, boolean waiting, String action) {
+    }
+
+    private static PoolSizePolicy policy() {
+        return new PoolSizePolicy(MIN_SIZE, MAX_SIZE, 4, TARGET_UTILIZATION, 2.0, 1.0);
+    }
+
+    /**
+     * Run the closed loop: each interval the model produces a sample for the
+     * current size and the policy picks the next one
+     */
+    private static List<Step> simulate(PoolSizePolicy policy, double lambda, double serviceMillis, double capacity,
+            int startSize) {
+        List<Step> steps = new ArrayList<>();
+        int size = startSize;
+        for (int t = 0; t < INTERVALS; t++) {
+            // Fixed point of busy = min(size, lambda * hold) and hold = service * max(1, busy / capacity)
+            double hold = serviceMillis;
+            double busy = 0;
+            for (int k = 0; k < 100; k++) {
+                busy = Math.min(size, lambda * hold / 1000);
+                hold = serviceMillis * Math.max(1, busy / capacity);
+            }
+            double throughput = busy / (hold / 1000);
+            double offered = lambda * hold / 1000;
+            boolean waiting = offered > size + 1e-9;
+            int awaiting = waiting ? (int) Math.ceil(offered - size) : 0;
+
+            PoolSizePolicy.Sample sample = new PoolSizePolicy.Sample(10, Math.round(throughput * 10), hold,
+                    waiting ? 50 : 0.1, awaiting);
+            PoolSizePolicy.Decision decision = policy.decide(sample, size);
+            steps.add(new Step(size, hold, waiting, decision.action()));
+            size = decision.next();
+        }
+        return steps;
+    }
+
+    private static List<Step> settled(List<Step> steps) {
+        return steps.subList(steps.size() - SETTLED, steps.size());
+    }
+
+    private static void assertConverged(List<Step> steps) {
+        List<Step> tail = settled(steps);
+        int size = tail.get(0).size();
+        assertThat(tail).allSatisfy(step -> {
+            assertThat(step.size()).isEqualTo(size);
+            assertThat(step.action()).isEqualTo("hold");
+        });
+    }
+
+    @Test
+    void lightLoadSettlesAtLittlesLawSize() {
+        // 500/s x 10 ms = 5 busy connections; 5 / 0.7 -> 8
+        List<Step> steps = simulate(policy(), 500, 10, 16, 10);
+
+        assertConverged(steps);
+        assertThat(settled(steps).get(0).size()).isEqualTo(8);
+        assertThat(settled(steps)).noneMatch(Step::waiting);
+    }
+
+    @Test
+    void heavyLoadGrowsUntilNoOneWaits() {
+        // 2000/s x 10 ms = 20 busy connections; 20 / 0.7 -> 29
+        List<Step> steps = simulate(policy(), 2000, 10, 64, 10);
+
+        assertThat(steps.get(0).waiting()).isTrue();
+        assertConverged(steps);
+        assertThat(settled(steps).get(0).size()).isBetween(28, 30);
+        assertThat(settled(steps)).noneMatch(Step::waiting);
+    }
+
+    @Test
+    void oversizedPoolShrinksToTheFloor() {
+        // 200/s x 5 ms = 1 busy connection
+        List<Step> steps = simulate(policy(), 200, 5, 16, 50);
+
+        assertConverged(steps);
+        assertThat(settled(steps).get(0).size()).isEqualTo(MIN_SIZE);
+    }
+
+    @Test
+    void databaseBoundLoadStopsGrowingNearDatabaseCapacity() {
+        // Offered load (3000/s x 10 ms = 30) exceeds what a 16-way database can serve;
+        // more connections would only queue inside it
+        List<Step> steps = simulate(policy(), 3000, 10, 16, 10);
+
+        assertConverged(steps);
+        int size = settled(steps).get(0).size();
+        assertThat(size).isBetween(12, 20);
+        assertThat(settled(steps)).allSatisfy(step -> assertThat(step.holdMillis()).isLessThan(10 * 2.0));
+        assertThat(steps).allSatisfy(step -> assertThat(step.size()).isLessThan(MAX_SIZE));
+    }
+
+    @Test
+    void stepsAreBoundedAndNoTrafficHolds() {
+        PoolSizePolicy policy = policy();
+
+        PoolSizePolicy.Decision grow = policy.decide(new PoolSizePolicy.Sample(10, 100_000, 10, 50, 40), 10);
+        assertThat(grow.next()).isEqualTo(14);
+        assertThat(grow.action()).isEqualTo("grow");
+
+        PoolSizePolicy.Decision idle = policy.decide(new PoolSizePolicy.Sample(10, 0, 0, 0, 0), 14);
+        assertThat(idle.next()).isEqualTo(14);
+        assertThat(idle.reason()).isEqualTo("no traffic");
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThatThrownBy(() -> new PoolSizePolicy(0, 10, 4, 0.7, 2.0, 1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PoolSizePolicy(4, 10, 4, 1.5, 2.0, 1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com._cortex.url_management.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class ServerTimingFilterTest {
+
+    private static MockHttpServletResponse run(HttpServlet servlet) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/urls/abc");
+        request.addHeader(ServerTimingFilter.REQUEST_HEADER, "1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("UTF-8");
+
+        new ServerTimingFilter(0.0).doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    @Test
+    void writerBodyIsFlushedAfterTheHeader() throws Exception {
+        MockHttpServletResponse response = run(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws java.io.IOException {
+                resp.getWriter().write("{\"shortCode\":\"abc\"}");
+            }
+        });
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"shortCode\":\"abc\"}");
+        assertThat(response.getHeader("Server-Timing")).isNotNull();
+    }
+
+    @Test
+    void outputStreamBodyGetsTheHeader() throws Exception {
+        MockHttpServletResponse response = run(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws java.io.IOException {
+                resp.getOutputStream().write(new byte[] { 1, 2, 3 });
+            }
+        });
+
+        assertThat(response.getContentAsByteArray()).containsExactly(1, 2, 3);
+        assertThat(response.getHeader("Server-Timing")).isNotNull();
+    }
+
+    @Test
+    void unsampledRequestsAreLeftAlone() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/urls/abc");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ServerTimingFilter(0.0).doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getHeader("Server-Timing")).isNull();
+    }
+}